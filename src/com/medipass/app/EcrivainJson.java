@@ -0,0 +1,169 @@
+package com.medipass.app;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Écriture JSON en flux : chaque valeur part dans le tampon de sortie dès qu'elle est
+ * écrite, rien n'est construit en mémoire. Un tableau de cent mille consultations
+ * coûte donc le tampon (8 Ko), pas la taille de la réponse.
+ * Les virgules sont posées automatiquement ; l'appelant n'a qu'à ouvrir, nommer et fermer.
+ */
+final class EcrivainJson implements Closeable {
+    private static final int PROFONDEUR_MAX = 64;
+
+    private final Writer out;
+    // premier[i] : aucun élément encore écrit au niveau i
+    private final boolean[] premier = new boolean[PROFONDEUR_MAX];
+    private int profondeur;
+    private boolean apresNom;
+
+    EcrivainJson(OutputStream sortie) {
+        this.out = new BufferedWriter(new OutputStreamWriter(sortie, StandardCharsets.UTF_8), 8192);
+        premier[0] = true;
+    }
+
+    EcrivainJson debutObjet() throws IOException {
+        return ouvrir('{');
+    }
+
+    EcrivainJson finObjet() throws IOException {
+        return fermer('}');
+    }
+
+    EcrivainJson debutTableau() throws IOException {
+        return ouvrir('[');
+    }
+
+    EcrivainJson finTableau() throws IOException {
+        return fermer(']');
+    }
+
+    /**
+     * Nom du prochain membre de l'objet ouvert
+     */
+    EcrivainJson nom(String nom) throws IOException {
+        separer();
+        chaine(nom);
+        out.write(':');
+        apresNom = true;
+        return this;
+    }
+
+    EcrivainJson valeur(String valeur) throws IOException {
+        separer();
+        if (valeur == null) {
+            out.write("null");
+        } else {
+            chaine(valeur);
+        }
+        return this;
+    }
+
+    EcrivainJson valeur(Object valeur) throws IOException {
+        return valeur(valeur == null ? null : valeur.toString());
+    }
+
+    EcrivainJson valeur(long valeur) throws IOException {
+        separer();
+        out.write(Long.toString(valeur));
+        return this;
+    }
+
+    EcrivainJson valeur(double valeur) throws IOException {
+        separer();
+        // NaN et infinis n'existent pas en JSON
+        out.write(Double.isFinite(valeur) ? Double.toString(valeur) : "null");
+        return this;
+    }
+
+    EcrivainJson valeur(boolean valeur) throws IOException {
+        separer();
+        out.write(valeur ? "true" : "false");
+        return this;
+    }
+
+    EcrivainJson membre(String nom, String valeur) throws IOException {
+        return nom(nom).valeur(valeur);
+    }
+
+    EcrivainJson membre(String nom, Object valeur) throws IOException {
+        return nom(nom).valeur(valeur);
+    }
+
+    EcrivainJson membre(String nom, long valeur) throws IOException {
+        return nom(nom).valeur(valeur);
+    }
+
+    EcrivainJson membre(String nom, double valeur) throws IOException {
+        return nom(nom).valeur(valeur);
+    }
+
+    EcrivainJson membre(String nom, boolean valeur) throws IOException {
+        return nom(nom).valeur(valeur);
+    }
+
+    private EcrivainJson ouvrir(char c) throws IOException {
+        separer();
+        if (profondeur + 1 >= PROFONDEUR_MAX) {
+            throw new IllegalStateException("JSON trop imbriqué");
+        }
+        out.write(c);
+        premier[++profondeur] = true;
+        return this;
+    }
+
+    private EcrivainJson fermer(char c) throws IOException {
+        if (profondeur == 0) {
+            throw new IllegalStateException("Aucun objet ou tableau ouvert");
+        }
+        out.write(c);
+        profondeur--;
+        return this;
+    }
+
+    // Virgule avant tout élément qui n'est ni le premier de son niveau, ni la valeur d'un nom
+    private void separer() throws IOException {
+        if (apresNom) {
+            apresNom = false;
+            return;
+        }
+        if (!premier[profondeur]) {
+            out.write(',');
+        }
+        premier[profondeur] = false;
+    }
+
+    private void chaine(String s) throws IOException {
+        out.write('"');
+        int debut = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.write(s, debut, i - debut);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> out.write(String.format("\\u%04x", (int) c));
+            }
+            debut = i + 1;
+        }
+        out.write(s, debut, s.length() - debut);
+        out.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -1,10 +1,14 @@
 package com.medipass.app;
 
 import java.io.Console;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 import java.io.Console;
 import java.util.Arrays;
@@ -18,14 +22,17 @@ import com.medipass.user.*;
 public class Main {
 
     private static final Scanner sc = new Scanner(System.in);
+    private static final boolean CHARGEMENT_SEQUENTIEL = "sequentiel".equals(System.getProperty("medipass.chargement"));
+    private static final boolean LECTURE_MAPPEE = "mmap".equals(System.getProperty("medipass.lecture"));
     private static final DateTimeFormatter DATE_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
-    // Services
-    private static final AuthentificationService auth = new AuthentificationService();
+    // Services ; les comptes sont partagés entre authentification et administration
+    private static final AnnuaireUtilisateurs annuaire = new AnnuaireUtilisateurs();
+    private static final AuthentificationService auth = new AuthentificationService(annuaire);
     private static final PatientService patientService = new PatientService();
     private static final ConsultationService consultationService = new ConsultationService();
-    private static final AdministrateurService adminService = new AdministrateurService();
+    private static final AdministrateurService adminService = new AdministrateurService(annuaire);
     private static final StatistiquesService statsService = new StatistiquesService();
     private static final DataService dataService = new DataService();
     // Nouveaux services pour Import/Export
@@ -33,9 +40,18 @@ public class Main {
             dataService, patientService, adminService, consultationService);
     private static final CSVExportService exportService = new CSVExportService(
             dataService, patientService, adminService, consultationService);
+    // Journal des mutations : remplace la réécriture complète des CSV à chaque action
+    private static final JournalService journal = new JournalService(
+            dataService, patientService, adminService, consultationService);
+    // Sessions distantes (--serveur [port]), null sinon
+    private static ServeurSessions serveur;
+    // API HTTP/JSON (--http [port]), null sinon
+    private static ServeurHttp http;
 
     public static void main(String[] args) {
         initializationSysteme();
+        demarrerServeur(args);
+        demarrerHttp(args);
 
         System.out.println("╔═══════════════════════════════════════╗");
         System.out.println("║         BIENVENUE À MEDIPASS          ║");
@@ -49,8 +65,15 @@ public class Main {
 
             switch (choix) {
                 case "1" -> handleAuthentification();
+                case "2" -> {
+                    if (serveur != null) System.out.println(serveur.afficherEtat());
+                    else System.out.println("❌ Choix invalide. Veuillez réessayer.");
+                }
                 case "0" -> {
+                    if (serveur != null) serveur.close();
+                    if (http != null) http.close();
                     sauvegarderDonnees();
+                    journal.fermer();
                     System.out.println("Au revoir!");
                     running = false;
                 }
@@ -65,6 +88,9 @@ public class Main {
         System.out.println("║     MENU PRINCIPAL                    ║");
         System.out.println("╠═══════════════════════════════════════╣");
         System.out.println("║ 1) Se connecter                       ║");
+        if (serveur != null) {
+            System.out.println("║ 2) État du serveur de sessions        ║");
+        }
         System.out.println("║ 0) Quitter                            ║");
         System.out.println("╚═══════════════════════════════════════╝");
         System.out.print("Votre choix: ");
@@ -75,81 +101,230 @@ public class Main {
         String mdp = lirePasswordCache("Mot de passe");
         // String mdp = lireChaine("Mot de passe: ");
 
-        if (auth.login(login, mdp)) {
-            Utilisateur u = auth.getCurrentUser();
+        // Une session par connexion : les services, eux, sont partagés entre sessions
+        AuthentificationService.Session session = auth.ouvrirSession(login, mdp);
+        if (session != null) {
+            Utilisateur u = session.utilisateur();
             System.out.println("\n✓ Connexion réussie! Bienvenue "
                     + u.getNom() + " " + u.getPrenom());
 
-            switch (u) {
-                case ProfessionnelSante pro -> {
-                    MenuInterface menu = new ProfessionelUI(
-                            sc, pro, patientService, consultationService, dataService);
-                    menu.afficherMenu();
-                }
-                case Administrateur admin -> {
-                    MenuInterface menu = new AdminUI(
-                            sc, admin, patientService, consultationService,
-                            adminService, statsService, dataService, importService, exportService);
+            try {
+                MenuInterface menu = creerMenu(u, sc, System.out);
+                if (menu == null) {
+                    System.out.println("Menu non disponible pour ce rôle.");
+                } else {
                     menu.afficherMenu();
                 }
-                default -> System.out.println("Menu non disponible pour ce rôle.");
+            } finally {
+                auth.fermerSession(session.jeton());
             }
-            auth.logout();
         } else {
             System.out.println("❌ Identifiants incorrects ou compte inactif.");
         }
     }
 
-    private static void initializationSysteme() {
-        // Charger patients et professionnels
-        List<Patient> patients = dataService.loadPatients();
-        List<ProfessionnelSante> pros = dataService.loadProfessionnels();
-
-        // Créer l’admin par défaut
-        Administrateur admin = new Administrateur("admin", "admin");
-        auth.register(admin);
-        adminService.creerCompte(admin);
+    // Menu du rôle de l'utilisateur, sur la console ou sur une session distante
+    private static MenuInterface creerMenu(Utilisateur u, Scanner entree, PrintStream sortie) {
+        return switch (u) {
+            case ProfessionnelSante pro -> new ProfessionelUI(
+                    entree, sortie, pro, patientService, consultationService, dataService, journal);
+            case Administrateur admin -> new AdminUI(
+                    entree, sortie, admin, patientService, consultationService,
+                    adminService, statsService, dataService, importService, exportService, journal);
+            default -> null;
+        };
+    }
 
-        if (!patients.isEmpty() || !pros.isEmpty()) {
-            System.out.println("Chargement des données...");
+    // --serveur [port] : sessions distantes en plus de la console (port 7070 par défaut)
+    private static void demarrerServeur(String[] args) {
+        int port = lirePort(args, "--serveur", 7070);
+        if (port < 0) {
+            return;
+        }
+        ServeurSessions s = new ServeurSessions(auth, Main::creerMenu);
+        try {
+            port = s.demarrer(port);
+            serveur = s;
+            System.out.println("✓ Serveur de sessions à l'écoute sur 127.0.0.1:" + port);
+        } catch (IOException e) {
+            System.err.println("❌ Serveur de sessions non démarré: " + e.getMessage());
+        }
+    }
 
-            // Patients
-            for (Patient p : patients) {
-                patientService.creerPatient(p);
-            }
+    // --http [port] : API HTTP/JSON pour les intégrations (port 8080 par défaut)
+    private static void demarrerHttp(String[] args) {
+        int port = lirePort(args, "--http", 8080);
+        if (port < 0) {
+            return;
+        }
+        ServeurHttp s = new ServeurHttp(auth, patientService, consultationService, adminService, statsService, journal);
+        try {
+            port = s.demarrer(port);
+            http = s;
+            System.out.println("✓ API HTTP à l'écoute sur http://127.0.0.1:" + port + "/api/");
+        } catch (IOException e) {
+            System.err.println("❌ API HTTP non démarrée: " + e.getMessage());
+        }
+    }
 
-            // Professionnels
-            for (ProfessionnelSante p : pros) {
-                adminService.creerCompte(p);
-                auth.register(p);
+    // Port qui suit l'option, le port par défaut si absent ou invalide ; -1 sans l'option
+    private static int lirePort(String[] args, String option, int defaut) {
+        int i = Arrays.asList(args).indexOf(option);
+        if (i < 0) {
+            return -1;
+        }
+        if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+            try {
+                return Integer.parseInt(args[i + 1]);
+            } catch (NumberFormatException e) {
+                System.err.println("Port invalide: " + args[i + 1] + ", port " + defaut + " utilisé");
             }
+        }
+        return defaut;
+    }
 
-            // Consultations
-            List<Consultation> consultations = dataService.loadConsultations(
-                    patientService.getPatients(),
-                    adminService.getProfessionnels()
-            );
-            for (Consultation c : consultations) {
-                consultationService.ajouterConsultationExistante(c);
-            }
+    private static void initializationSysteme() {
+        // Statistiques tenues à jour par événements, dès le chargement
+        patientService.ajouterEcouteur(statsService.getMoteur());
+        adminService.ajouterEcouteur(statsService.getMoteur());
+        consultationService.ajouterEcouteur(statsService.getMoteur());
 
-            // Antécédents
-            //dataService.loadAntecedents(patientService.getPatients());
+        // Créer l’admin par défaut
+        Administrateur admin = new Administrateur("admin", "admin", annuaire);
+        adminService.creerCompte(admin);
 
-            System.out.println("✓ Données chargées: "
-                    + patients.size() + " patients, "
-                    + pros.size() + " professionnels, "
-                    + consultations.size() + " consultations.");
+        // medipass.snap s'il est à jour, sinon les CSV
+        // (-Dmedipass.chargement=sequentiel pour l'ancien chargement mono-thread)
+        boolean donnees;
+        if (dataService.snapshotBinaireAJour() && chargerSnapshot()) {
+            donnees = true;
         } else {
+            donnees = CHARGEMENT_SEQUENTIEL ? chargerSequentiel() : chargerParallele();
+        }
+
+        // Mutations journalisées depuis la dernière compaction
+        int rejoues = journal.rejouer();
+        if (rejoues > 0) {
+            System.out.println("✓ Journal rejoué: " + rejoues + " mutations.");
+        }
+        journal.demarrer();
+        patientService.ajouterEcouteur(journal);
+        consultationService.ajouterEcouteur(journal);
+
+        if (!donnees && rejoues == 0) {
             System.out.println("ℹ Système initialisé. Aucune donnée sauvegardée.");
             sauvegarderDonnees();
         }
     }
 
+    private static boolean chargerParallele() {
+        ChargementParallele.Bilan bilan = new ChargementParallele(dataService)
+                .charger(patientService, adminService, consultationService, pro -> { });
+        if (bilan.patients() == 0 && bilan.professionnels() == 0) {
+            return false;
+        }
+        System.out.println("✓ Données chargées: "
+                + bilan.patients() + " patients, "
+                + bilan.professionnels() + " professionnels, "
+                + bilan.consultations() + " consultations, "
+                + bilan.antecedents() + " antécédents.");
+        System.out.printf("  - chargement parallèle (%d cœurs) en %d ms%n",
+                Runtime.getRuntime().availableProcessors(), bilan.dureeNanos() / 1_000_000);
+        return true;
+    }
+
+    private static boolean chargerSnapshot() {
+        long t0 = System.nanoTime();
+        int[] nombres = {0, 0, 0};
+        boolean lu = dataService.chargerSnapshotBinaire(
+                p -> {
+                    patientService.creerPatient(p);
+                    nombres[0]++;
+                },
+                p -> {
+                    adminService.creerCompte(p);
+                    nombres[1]++;
+                },
+                c -> {
+                    consultationService.ajouterConsultationExistante(c);
+                    nombres[2]++;
+                });
+        if (!lu) {
+            return false;
+        }
+        long t1 = System.nanoTime();
+        int nbAntecedents = dataService.streamAntecedents((ant, patientId) -> {
+            Patient patient = patientService.findPatientById(patientId);
+            if (patient != null) {
+                patient.getDossierMedical().ajouterAntecedent(ant);
+            }
+        });
+        long t2 = System.nanoTime();
+
+        System.out.println("✓ Données chargées: "
+                + nombres[0] + " patients, "
+                + nombres[1] + " professionnels, "
+                + nombres[2] + " consultations.");
+        afficherDureeChargement("medipass.snap", nombres[0] + nombres[1] + nombres[2], t1 - t0);
+        afficherDureeChargement("antecedents.csv", nbAntecedents, t2 - t1);
+        return true;
+    }
+
+    private static boolean chargerSequentiel() {
+        // Les fichiers sont lus en flux : chaque objet est remis directement aux services
+        long t0 = System.nanoTime();
+        int nbPatients = dataService.streamPatients(p -> patientService.creerPatient(p));
+        long t1 = System.nanoTime();
+        Map<String, ProfessionnelSante> prosParLogin = new HashMap<>();
+        int nbPros = dataService.streamProfessionnels(p -> {
+            adminService.creerCompte(p);
+            prosParLogin.putIfAbsent(p.getLoginID(), p);
+        });
+        long t2 = System.nanoTime();
+
+        if (nbPatients == 0 && nbPros == 0) {
+            return false;
+        }
+        System.out.println("Chargement des données...");
+
+        // Consultations (-Dmedipass.lecture=mmap pour la lecture par projection mémoire)
+        int nbConsultations = LECTURE_MAPPEE
+                ? dataService.streamConsultationsMappe(
+                        patientService::findPatientById,
+                        prosParLogin::get,
+                        consultationService::ajouterConsultationExistante)
+                : dataService.streamConsultations(
+                        patientService::findPatientById,
+                        prosParLogin::get,
+                        consultationService::ajouterConsultationExistante);
+        long t3 = System.nanoTime();
+
+        // Antécédents
+        int nbAntecedents = dataService.streamAntecedents((ant, patientId) -> {
+            Patient patient = patientService.findPatientById(patientId);
+            if (patient != null) {
+                patient.getDossierMedical().ajouterAntecedent(ant);
+            }
+        });
+        long t4 = System.nanoTime();
+
+        System.out.println("✓ Données chargées: "
+                + nbPatients + " patients, "
+                + nbPros + " professionnels, "
+                + nbConsultations + " consultations.");
+        afficherDureeChargement("patients.csv", nbPatients, t1 - t0);
+        afficherDureeChargement("pros.csv", nbPros, t2 - t1);
+        afficherDureeChargement("consultations.csv", nbConsultations, t3 - t2);
+        afficherDureeChargement("antecedents.csv", nbAntecedents, t4 - t3);
+        return true;
+    }
+
+    private static void afficherDureeChargement(String fichier, int lignes, long dureeNanos) {
+        System.out.printf("  - %s : %d lignes en %d ms%n", fichier, lignes, dureeNanos / 1_000_000);
+    }
+
     private static void sauvegarderDonnees() {
-        dataService.savePatients(patientService.getPatients());
-        dataService.saveProfessionnels(adminService.getProfessionnels());
-        dataService.saveConsultations(consultationService.getConsultations());
+        journal.compacter();
         //dataService.saveAntecedents(patientService.getPatients());
         System.out.println("(Données sauvegardées)");
     }
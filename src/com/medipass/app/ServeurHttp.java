@@ -0,0 +1,622 @@
+package com.medipass.app;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.medipass.model.Antecedent;
+import com.medipass.model.Consultation;
+import com.medipass.model.Patient;
+import com.medipass.model.StatutConsultation;
+import com.medipass.security.AuthentificationService;
+import com.medipass.service.AdministrateurService;
+import com.medipass.service.ConsultationService;
+import com.medipass.service.JournalService;
+import com.medipass.service.PatientService;
+import com.medipass.service.StatistiquesService;
+import com.medipass.user.Administrateur;
+import com.medipass.user.ProfessionnelSante;
+import com.medipass.user.Utilisateur;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * API HTTP/JSON pour les intégrations, sur l'interface de bouclage uniquement,
+ * un thread virtuel par requête. Mêmes services et mêmes droits que les menus :
+ * chiffres d'accès du professionnel (1 patients, 2 programmation, 3 planning,
+ * 4 clôture), statistiques réservées aux administrateurs.
+ *
+ * Paramètres en query string ou en corps application/x-www-form-urlencoded,
+ * dates au format ISO (2025-03-14T09:30) ou "yyyy-MM-dd HH:mm".
+ * Une programmation groupée envoie un corps text/csv, une demande par ligne :
+ * professionnel;patient;debut;motif[;duree] (login vide : le professionnel connecté ;
+ * un administrateur peut programmer pour tout professionnel).
+ * Le jeton obtenu par POST /api/session se présente dans l'en-tête
+ * "Authorization: Bearer <jeton>". Les listes sont écrites en flux (chunked).
+ *
+ *   POST   /api/session                         login, motDePasse
+ *   DELETE /api/session
+ *   GET    /api/patients                        id | nss | nom+prenom | q [limite] | approx [limite] | (tous)
+ *   GET    /api/patients/{id}
+ *   POST   /api/consultations                   patient, debut, motif [, duree]
+ *   POST   /api/consultations/lot               (corps text/csv, voir plus haut)
+ *   GET    /api/consultations                   debut, fin (administrateur)
+ *   GET    /api/consultations/{id}
+ *   POST   /api/consultations/{id}/annulation
+ *   POST   /api/consultations/{id}/cloture      observations, diagnostic
+ *   GET    /api/planning                        [debut] [, fin] (7 jours par défaut)
+ *   GET    /api/statistiques
+ *
+ * Exemple : curl -d login=admin -d motDePasse=admin http://127.0.0.1:8080/api/session
+ */
+public class ServeurHttp implements AutoCloseable {
+    private static final int LIMITE_DEFAUT = 20;
+    private static final double[] RANGS_DUREE = {50, 90, 99};
+
+    // Refus d'une requête : statut HTTP et message renvoyé au client
+    private static final class ErreurHttp extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int statut;
+        // Méthodes acceptées, pour l'en-tête Allow d'un refus 405
+        final String autorisees;
+
+        ErreurHttp(int statut, String message) {
+            this(statut, message, null);
+        }
+
+        ErreurHttp(int statut, String message, String autorisees) {
+            super(message);
+            this.statut = statut;
+            this.autorisees = autorisees;
+        }
+
+        static ErreurHttp methode(String autorisees) {
+            return new ErreurHttp(405, "Méthode non autorisée (" + autorisees + ")", autorisees);
+        }
+    }
+
+    // Corps d'une réponse, écrit directement sur la connexion
+    @FunctionalInterface
+    private interface Corps {
+        void ecrire(EcrivainJson json) throws IOException;
+    }
+
+    private final AuthentificationService auth;
+    private final PatientService patientService;
+    private final ConsultationService consultationService;
+    private final AdministrateurService adminService;
+    private final StatistiquesService statsService;
+    private final JournalService journal;
+    private final ExecutorService requetes = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile HttpServer serveur;
+
+    /**
+     * @param journal journal des mutations à forcer sur disque après chaque écriture, ou null
+     */
+    public ServeurHttp(AuthentificationService auth, PatientService patientService,
+                       ConsultationService consultationService, AdministrateurService adminService,
+                       StatistiquesService statsService, JournalService journal) {
+        this.auth = auth;
+        this.patientService = patientService;
+        this.consultationService = consultationService;
+        this.adminService = adminService;
+        this.statsService = statsService;
+        this.journal = journal;
+    }
+
+    /**
+     * Ouvre le port sur 127.0.0.1
+     * @param port 0 pour un port libre quelconque
+     * @return le port d'écoute
+     */
+    public int demarrer(int port) throws IOException {
+        // Sans TCP_NODELAY, l'en-tête, les morceaux et le morceau final partent en petits
+        // segments retenus par Nagle face à l'ACK différé du client (~40 ms par réponse)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        HttpServer s = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 200);
+        s.setExecutor(requetes);
+        s.createContext("/api/", this::traiter);
+        s.start();
+        serveur = s;
+        return s.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        if (serveur != null) serveur.stop(0);
+        requetes.shutdown();
+    }
+
+    // ==================== AIGUILLAGE ====================
+
+    private void traiter(HttpExchange ex) throws IOException {
+        try (ex) {
+            String[] chemin = ex.getRequestURI().getPath().substring("/api/".length()).split("/");
+            String methode = ex.getRequestMethod();
+            try {
+                String corps = lireCorps(ex);
+                Map<String, String> params = lireParametres(ex, corps);
+                switch (chemin[0]) {
+                    case "session" -> session(ex, methode, params);
+                    case "patients" -> patients(ex, methode, chemin, params);
+                    case "consultations" -> {
+                        if (chemin.length == 2 && chemin[1].equals("lot")) {
+                            exigerMethode(methode, "POST");
+                            programmerLot(ex, corps);
+                        } else {
+                            consultations(ex, methode, chemin, params);
+                        }
+                    }
+                    case "planning" -> {
+                        exigerMethode(methode, "GET");
+                        planning(ex, params);
+                    }
+                    case "statistiques" -> {
+                        exigerMethode(methode, "GET");
+                        statistiques(ex);
+                    }
+                    default -> throw new ErreurHttp(404, "Ressource inconnue");
+                }
+            } catch (ErreurHttp e) {
+                if (e.autorisees != null) ex.getResponseHeaders().set("Allow", e.autorisees);
+                repondre(ex, e.statut, json -> json.debutObjet().membre("erreur", e.getMessage()).finObjet());
+            } catch (RuntimeException e) {
+                System.err.println("Erreur API " + methode + " " + ex.getRequestURI() + ": " + e);
+                repondre(ex, 500, json -> json.debutObjet().membre("erreur", "Erreur interne").finObjet());
+            }
+        } catch (IOException e) {
+            // Client parti pendant l'écriture de la réponse
+        }
+    }
+
+    private void session(HttpExchange ex, String methode, Map<String, String> params) throws IOException {
+        switch (methode) {
+            case "POST" -> {
+                AuthentificationService.Session s = auth.ouvrirSession(
+                        exiger(params, "login"), exiger(params, "motDePasse"));
+                if (s == null) throw new ErreurHttp(401, "Identifiants incorrects ou compte inactif");
+                repondre(ex, 201, json -> json.debutObjet()
+                        .membre("jeton", s.jeton())
+                        .membre("login", s.utilisateur().getLoginID())
+                        .membre("role", s.utilisateur().getRole())
+                        .membre("expiration", Instant.ofEpochMilli(s.expiration()))
+                        .finObjet());
+            }
+            case "DELETE" -> {
+                auth.fermerSession(jeton(ex));
+                repondre(ex, 204, null);
+            }
+            default -> throw ErreurHttp.methode("POST, DELETE");
+        }
+    }
+
+    // ==================== PATIENTS ====================
+
+    private void patients(HttpExchange ex, String methode, String[] chemin, Map<String, String> params)
+            throws IOException {
+        exigerMethode(methode, "GET");
+        exigerDroit(ex, "1");
+        if (chemin.length == 2) {
+            Patient p = patientService.findPatientById(entier(chemin[1], "id"));
+            if (p == null) throw new ErreurHttp(404, "Patient non trouvé");
+            List<Antecedent> antecedents = patientService.getAntecedentsPatient(p.getId());
+            repondre(ex, 200, json -> {
+                json.debutObjet();
+                champsPatient(json, p);
+                json.nom("antecedents").debutTableau();
+                for (Antecedent a : antecedents) {
+                    json.debutObjet()
+                        .membre("id", a.getIdAntecedent())
+                        .membre("type", a.getType())
+                        .membre("description", a.getDescription())
+                        .membre("date", a.getDate())
+                        .membre("gravite", a.getGravite())
+                        .membre("actif", a.isActif())
+                        .finObjet();
+                }
+                json.finTableau().finObjet();
+            });
+            return;
+        }
+        if (chemin.length > 2) throw new ErreurHttp(404, "Ressource inconnue");
+
+        int limite = params.containsKey("limite") ? entier(params.get("limite"), "limite") : LIMITE_DEFAUT;
+        if (params.containsKey("approx")) {
+            List<PatientService.Correspondance> proches =
+                    patientService.rechercherPatientsApproches(params.get("approx"), limite);
+            repondre(ex, 200, json -> {
+                json.debutTableau();
+                for (PatientService.Correspondance c : proches) {
+                    json.debutObjet();
+                    champsPatient(json, c.patient());
+                    json.membre("score", c.score()).finObjet();
+                }
+                json.finTableau();
+            });
+            return;
+        }
+
+        List<Patient> trouves;
+        if (params.containsKey("id")) {
+            Patient p = patientService.findPatientById(entier(params.get("id"), "id"));
+            trouves = p == null ? List.of() : List.of(p);
+        } else if (params.containsKey("nss")) {
+            Patient p = patientService.findPatientByNumeroSecuriteSociale(params.get("nss"));
+            trouves = p == null ? List.of() : List.of(p);
+        } else if (params.containsKey("nom")) {
+            Patient p = patientService.findPatientByNomPrenom(params.get("nom"), exiger(params, "prenom"));
+            trouves = p == null ? List.of() : List.of(p);
+        } else if (params.containsKey("q")) {
+            trouves = patientService.rechercherPatients(params.get("q"), limite);
+        } else {
+            trouves = patientService.getPatients();
+        }
+        repondre(ex, 200, json -> {
+            json.debutTableau();
+            for (Patient p : trouves) {
+                json.debutObjet();
+                champsPatient(json, p);
+                json.finObjet();
+            }
+            json.finTableau();
+        });
+    }
+
+    private static void champsPatient(EcrivainJson json, Patient p) throws IOException {
+        json.membre("id", p.getId())
+            .membre("nom", p.getNom())
+            .membre("prenom", p.getPrenom())
+            .membre("sexe", p.getSexe())
+            .membre("dateNaissance", p.getDateDeNaissance())
+            .membre("nss", p.getNumeroSecuriteSociale())
+            .membre("groupeSanguin", p.getGroupeSanguin());
+    }
+
+    // ==================== CONSULTATIONS ====================
+
+    private void consultations(HttpExchange ex, String methode, String[] chemin, Map<String, String> params)
+            throws IOException {
+        if (chemin.length == 1) {
+            switch (methode) {
+                case "POST" -> programmer(ex, params);
+                case "GET" -> {
+                    exigerAdministrateur(ex);
+                    List<Consultation> periode = consultationService.getConsultationsParPeriode(
+                            date(exiger(params, "debut"), "debut"), date(exiger(params, "fin"), "fin"));
+                    repondreConsultations(ex, periode);
+                }
+                default -> throw ErreurHttp.methode("GET, POST");
+            }
+            return;
+        }
+
+        Utilisateur u = exigerSession(ex);
+        Consultation c = consultationService.findConsultationById(entier(chemin[1], "id"));
+        if (c == null) throw new ErreurHttp(404, "Consultation non trouvée");
+        boolean proprietaire = c.getProfessionnel() != null
+                && c.getProfessionnel().getLoginID().equals(u.getLoginID());
+        if (!proprietaire && !(u instanceof Administrateur)) {
+            throw new ErreurHttp(403, "Cette consultation ne vous appartient pas");
+        }
+
+        if (chemin.length == 2) {
+            exigerMethode(methode, "GET");
+            repondre(ex, 200, json -> ecrireConsultation(json, c));
+            return;
+        }
+        if (chemin.length > 3) throw new ErreurHttp(404, "Ressource inconnue");
+        exigerMethode(methode, "POST");
+        switch (chemin[2]) {
+            case "annulation" -> {
+                if (!proprietaire) throw new ErreurHttp(403, "Cette consultation ne vous appartient pas");
+                if (c.estAnnulee() || !consultationService.annulerConsultation(c.getIdConsultation())) {
+                    throw new ErreurHttp(409, "Consultation déjà annulée");
+                }
+            }
+            case "cloture" -> {
+                exigerDroit(ex, "4");
+                if (!proprietaire) throw new ErreurHttp(403, "Cette consultation ne vous appartient pas");
+                if (c.estAnnulee()) throw new ErreurHttp(409, "Consultation annulée");
+                int id = c.getIdConsultation();
+                consultationService.ajouterObservations(id, params.getOrDefault("observations", ""));
+                consultationService.ajouterDiagnostic(id, params.getOrDefault("diagnostic", ""));
+                if (!consultationService.marquerEffectuee(id)) {
+                    throw new ErreurHttp(409, "Consultation annulée");
+                }
+            }
+            default -> throw new ErreurHttp(404, "Ressource inconnue");
+        }
+        synchroniser();
+        repondre(ex, 200, json -> ecrireConsultation(json, c));
+    }
+
+    private void programmer(HttpExchange ex, Map<String, String> params) throws IOException {
+        ProfessionnelSante pro = exigerDroit(ex, "2");
+        Patient patient = patientService.findPatientById(entier(exiger(params, "patient"), "patient"));
+        if (patient == null) throw new ErreurHttp(404, "Patient non trouvé");
+        LocalDateTime debut = date(exiger(params, "debut"), "debut");
+        if (debut.isBefore(LocalDateTime.now())) {
+            throw new ErreurHttp(400, "Impossible de programmer une consultation dans le passé");
+        }
+        String motif = exiger(params, "motif");
+        int duree = params.containsKey("duree") ? entier(params.get("duree"), "duree") : Consultation.DUREE_DEFAUT;
+        if (duree < 0) throw new ErreurHttp(400, "Durée invalide");
+
+        Consultation c = consultationService.programmer(debut, motif, pro, patient, duree);
+        if (c == null) throw new ErreurHttp(409, "Créneau indisponible pour le professionnel ou le patient");
+        synchroniser();
+        ex.getResponseHeaders().set("Location", "/api/consultations/" + c.getIdConsultation());
+        repondre(ex, 201, json -> ecrireConsultation(json, c));
+    }
+
+    // Une demande par ligne ; les lignes illisibles sont refusées une à une, le reste du lot passe
+    private void programmerLot(HttpExchange ex, String corps) throws IOException {
+        Utilisateur u = exigerSession(ex);
+        boolean admin = u instanceof Administrateur;
+        if (!admin && !(u instanceof ProfessionnelSante pro && pro.getAccessLevels().contains("2"))) {
+            throw new ErreurHttp(403, "Accès refusé");
+        }
+        String[] lignes = corps.split("\r?\n");
+        List<ConsultationService.DemandeConsultation> demandes = new ArrayList<>();
+        List<Integer> numeros = new ArrayList<>();
+        Map<Integer, String> illisibles = new HashMap<>();
+        for (int l = 0; l < lignes.length; l++) {
+            if (lignes[l].isBlank()) continue;
+            numeros.add(l + 1);
+            try {
+                demandes.add(lireDemande(lignes[l], u, admin));
+            } catch (ErreurHttp e) {
+                illisibles.put(l + 1, e.getMessage());
+                demandes.add(null);
+            }
+        }
+        if (numeros.isEmpty()) throw new ErreurHttp(400, "Aucune demande");
+
+        List<ConsultationService.ResultatDemande> resultats = consultationService.programmerLot(
+                demandes.stream().filter(Objects::nonNull).toList());
+        synchroniser();
+        long acceptees = resultats.stream().filter(ConsultationService.ResultatDemande::estAcceptee).count();
+        repondre(ex, 200, json -> {
+            json.debutObjet()
+                .membre("acceptees", acceptees)
+                .membre("refusees", numeros.size() - acceptees);
+            json.nom("resultats").debutTableau();
+            int r = 0;
+            for (int numero : numeros) {
+                json.debutObjet().membre("ligne", numero);
+                String illisible = illisibles.get(numero);
+                if (illisible != null) {
+                    json.membre("refus", illisible);
+                } else {
+                    ConsultationService.ResultatDemande resultat = resultats.get(r++);
+                    if (resultat.estAcceptee()) {
+                        json.membre("id", resultat.consultation().getIdConsultation());
+                    } else {
+                        json.membre("refus", resultat.refus());
+                    }
+                }
+                json.finObjet();
+            }
+            json.finTableau().finObjet();
+        });
+    }
+
+    private ConsultationService.DemandeConsultation lireDemande(String ligne, Utilisateur u, boolean admin) {
+        String[] champs = ligne.split(";", -1);
+        if (champs.length < 4 || champs.length > 5) {
+            throw new ErreurHttp(400, "Ligne attendue: professionnel;patient;debut;motif[;duree]");
+        }
+        String login = champs[0].trim();
+        ProfessionnelSante pro;
+        if (login.isEmpty() || login.equals(u.getLoginID())) {
+            if (!(u instanceof ProfessionnelSante soi)) throw new ErreurHttp(400, "Professionnel manquant");
+            pro = soi;
+        } else if (admin) {
+            pro = adminService.findProfessionnel(login);
+            if (pro == null) throw new ErreurHttp(404, "Professionnel non trouvé: " + login);
+        } else {
+            throw new ErreurHttp(403, "Programmation pour un autre professionnel refusée");
+        }
+        Patient patient = patientService.findPatientById(entier(champs[1], "patient"));
+        if (patient == null) throw new ErreurHttp(404, "Patient non trouvé: " + champs[1].trim());
+        LocalDateTime debut = date(champs[2], "debut");
+        int duree = champs.length == 5 && !champs[4].isBlank()
+                ? entier(champs[4], "duree") : Consultation.DUREE_DEFAUT;
+        return new ConsultationService.DemandeConsultation(debut, champs[3].trim(), pro, patient, duree);
+    }
+
+    private void planning(HttpExchange ex, Map<String, String> params) throws IOException {
+        ProfessionnelSante pro = exigerDroit(ex, "3");
+        LocalDateTime debut = params.containsKey("debut") ? date(params.get("debut"), "debut") : LocalDateTime.now();
+        LocalDateTime fin = params.containsKey("fin") ? date(params.get("fin"), "fin") : debut.plusDays(7);
+        repondreConsultations(ex, pro.getConsultationsEntre(debut, fin));
+    }
+
+    private void repondreConsultations(HttpExchange ex, List<Consultation> consultations) throws IOException {
+        repondre(ex, 200, json -> {
+            json.debutTableau();
+            for (Consultation c : consultations) {
+                ecrireConsultation(json, c);
+            }
+            json.finTableau();
+        });
+    }
+
+    private static void ecrireConsultation(EcrivainJson json, Consultation c) throws IOException {
+        json.debutObjet()
+            .membre("id", c.getIdConsultation())
+            .membre("debut", c.getDateHeure())
+            .membre("duree", c.getDureeMinutes())
+            .membre("motif", c.getMotif())
+            .membre("statut", c.getStatut())
+            .membre("professionnel", c.getProfessionnel() == null ? null : c.getProfessionnel().getLoginID())
+            .nom("patient");
+        if (c.getPatient() == null) {
+            json.valeur((String) null);
+        } else {
+            json.valeur(c.getPatient().getId());
+        }
+        json.membre("observations", c.getObservations())
+            .membre("diagnostic", c.getDiagnostic())
+            .finObjet();
+    }
+
+    // ==================== STATISTIQUES ====================
+
+    private void statistiques(HttpExchange ex) throws IOException {
+        exigerAdministrateur(ex);
+        int patients = patientService.getNombrePatients();
+        int pros = adminService.getNombreProfessionnels();
+        int consultations = consultationService.getNombreConsultations();
+        Map<String, Long> parSpecialite = statsService.getProfessionnelsParSpecialite();
+        Map<String, Double> annulations = statsService.getTauxAnnulationParSpecialite();
+        double dureeMoyenne = statsService.getDureeMoyenne();
+        int[] percentiles = statsService.getPercentilesDuree(RANGS_DUREE);
+        repondre(ex, 200, json -> {
+            json.debutObjet()
+                .membre("patients", patients)
+                .membre("professionnels", pros)
+                .membre("consultations", consultations);
+            json.nom("parStatut").debutObjet();
+            for (StatutConsultation s : StatutConsultation.values()) {
+                json.membre(s.getLibelle(), consultationService.getNombreConsultations(s));
+            }
+            json.finObjet();
+            json.nom("professionnelsParSpecialite").debutObjet();
+            for (Map.Entry<String, Long> e : parSpecialite.entrySet()) {
+                json.membre(e.getKey(), e.getValue().longValue());
+            }
+            json.finObjet();
+            json.nom("tauxAnnulationParSpecialite").debutObjet();
+            for (Map.Entry<String, Double> e : annulations.entrySet()) {
+                json.membre(e.getKey(), e.getValue().doubleValue());
+            }
+            json.finObjet();
+            json.membre("dureeMoyenne", dureeMoyenne);
+            json.nom("percentilesDuree").debutObjet();
+            for (int i = 0; i < RANGS_DUREE.length; i++) {
+                json.membre("p" + (int) RANGS_DUREE[i], percentiles[i]);
+            }
+            json.finObjet().finObjet();
+        });
+    }
+
+    // ==================== OUTILS ====================
+
+    // Écrit l'en-tête puis le corps en flux (longueur inconnue : transfert par morceaux)
+    private static void repondre(HttpExchange ex, int statut, Corps corps) throws IOException {
+        if (corps == null) {
+            ex.sendResponseHeaders(statut, -1);
+            return;
+        }
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(statut, 0);
+        try (EcrivainJson json = new EcrivainJson(ex.getResponseBody())) {
+            corps.ecrire(json);
+        }
+    }
+
+    // Après une écriture : force sur disque le groupe de mutations en attente
+    private void synchroniser() {
+        if (journal != null) journal.synchroniser();
+    }
+
+    private static String jeton(HttpExchange ex) {
+        String entete = ex.getRequestHeaders().getFirst("Authorization");
+        if (entete == null || !entete.regionMatches(true, 0, "Bearer ", 0, 7)) return null;
+        return entete.substring(7).trim();
+    }
+
+    private Utilisateur exigerSession(HttpExchange ex) {
+        Utilisateur u = auth.verifierJeton(jeton(ex));
+        if (u == null) throw new ErreurHttp(401, "Jeton absent, inconnu ou expiré");
+        return u;
+    }
+
+    private ProfessionnelSante exigerDroit(HttpExchange ex, String droit) {
+        if (!(exigerSession(ex) instanceof ProfessionnelSante pro) || !pro.getAccessLevels().contains(droit)) {
+            throw new ErreurHttp(403, "Accès refusé");
+        }
+        return pro;
+    }
+
+    private void exigerAdministrateur(HttpExchange ex) {
+        if (!(exigerSession(ex) instanceof Administrateur)) {
+            throw new ErreurHttp(403, "Accès refusé");
+        }
+    }
+
+    private static void exigerMethode(String methode, String attendue) {
+        if (!methode.equals(attendue)) throw ErreurHttp.methode(attendue);
+    }
+
+    private static String exiger(Map<String, String> params, String nom) {
+        String v = params.get(nom);
+        if (v == null || v.isBlank()) throw new ErreurHttp(400, "Paramètre manquant: " + nom);
+        return v;
+    }
+
+    private static int entier(String valeur, String nom) {
+        try {
+            return Integer.parseInt(valeur.trim());
+        } catch (NumberFormatException e) {
+            throw new ErreurHttp(400, "Nombre entier attendu pour " + nom);
+        }
+    }
+
+    private static LocalDateTime date(String valeur, String nom) {
+        try {
+            return LocalDateTime.parse(valeur.trim().replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            throw new ErreurHttp(400, "Date invalide pour " + nom + " (ex: 2025-03-14T09:30)");
+        }
+    }
+
+    private static String lireCorps(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // Query string puis corps de formulaire (sauf corps text/*) ; le corps l'emporte
+    private static Map<String, String> lireParametres(HttpExchange ex, String corps) {
+        Map<String, String> params = new HashMap<>();
+        decoder(ex.getRequestURI().getRawQuery(), params);
+        String type = ex.getRequestHeaders().getFirst("Content-Type");
+        if (type == null || !type.regionMatches(true, 0, "text/", 0, 5)) {
+            decoder(corps, params);
+        }
+        return params;
+    }
+
+    private static void decoder(String formulaire, Map<String, String> params) {
+        if (formulaire == null || formulaire.isEmpty()) return;
+        for (String paire : formulaire.split("&")) {
+            int egal = paire.indexOf('=');
+            String nom = egal < 0 ? paire : paire.substring(0, egal);
+            String valeur = egal < 0 ? "" : paire.substring(egal + 1);
+            try {
+                params.put(URLDecoder.decode(nom, StandardCharsets.UTF_8),
+                        URLDecoder.decode(valeur, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new ErreurHttp(400, "Paramètres mal encodés");
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.medipass.app;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.medipass.security.AuthentificationService;
+import com.medipass.ui.MenuInterface;
+import com.medipass.user.Utilisateur;
+
+/**
+ * Serveur de sessions en mode ligne, sur l'interface de bouclage uniquement.
+ * Chaque connexion (telnet, nc...) obtient son propre thread virtuel qui déroule
+ * une session complète : connexion, puis le menu du rôle (AdminUI, ProfessionelUI)
+ * sur les flux de la socket. Tous les services sont partagés avec la console.
+ * La sortie d'une session est tamponnée et envoyée dès que la session attend une saisie ;
+ * le temps entre la réception d'une ligne et cette attente est la latence de la commande.
+ * Réglages : -Dmedipass.serveur.max (connexions simultanées, 1000 par défaut),
+ * -Dmedipass.serveur.inactivite (minutes avant déconnexion, 30 par défaut).
+ * Les messages que les services écrivent eux-mêmes restent sur la console du serveur.
+ */
+public class ServeurSessions implements AutoCloseable {
+    private static final int CONNEXIONS_MAX = Integer.getInteger("medipass.serveur.max", 1000);
+    private static final Duration INACTIVITE = Duration.ofMinutes(Long.getLong("medipass.serveur.inactivite", 30));
+    private static final int ESSAIS_CONNEXION = 3;
+
+    /**
+     * Construit le menu d'un utilisateur connecté sur les flux de sa session ;
+     * null si son rôle n'a pas de menu
+     */
+    @FunctionalInterface
+    public interface FabriqueMenu {
+        MenuInterface creer(Utilisateur utilisateur, Scanner entree, PrintStream sortie);
+    }
+
+    /**
+     * Photographie d'une session ouverte
+     */
+    public record EtatSession(int id, String adresse, String login, Instant debut,
+            long commandes, long latenceMoyenneMicros, long latenceMaxMicros) {
+    }
+
+    private final AuthentificationService auth;
+    private final FabriqueMenu fabrique;
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<Integer, Connexion> connexions = new ConcurrentHashMap<>();
+    private final AtomicInteger numeros = new AtomicInteger();
+    private final AtomicLong connexionsTotales = new AtomicLong();
+    private final AtomicLong connexionsRefusees = new AtomicLong();
+    // Latence des commandes, toutes sessions : case i = [2^i, 2^(i+1)[ microsecondes
+    private final AtomicLongArray histogramme = new AtomicLongArray(40);
+    private volatile ServerSocket ecoute;
+
+    public ServeurSessions(AuthentificationService auth, FabriqueMenu fabrique) {
+        this.auth = auth;
+        this.fabrique = fabrique;
+    }
+
+    /**
+     * Ouvre le port sur 127.0.0.1 et accepte les connexions en arrière-plan
+     * @param port 0 pour un port libre quelconque
+     * @return le port d'écoute
+     */
+    public int demarrer(int port) throws IOException {
+        ecoute = new ServerSocket(port, 200, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().name("medipass-ecoute").start(this::accepter);
+        return ecoute.getLocalPort();
+    }
+
+    private void accepter() {
+        while (!ecoute.isClosed()) {
+            try {
+                Socket socket = ecoute.accept();
+                if (connexions.size() >= CONNEXIONS_MAX) {
+                    connexionsRefusees.incrementAndGet();
+                    try (socket) {
+                        socket.getOutputStream().write("❌ Serveur saturé, réessayez plus tard.\n"
+                                .getBytes(StandardCharsets.UTF_8));
+                    }
+                    continue;
+                }
+                Connexion c = new Connexion(numeros.incrementAndGet(), socket);
+                connexions.put(c.id, c);
+                connexionsTotales.incrementAndGet();
+                sessions.execute(() -> servir(c));
+            } catch (SocketException e) {
+                // Port fermé par close()
+            } catch (IOException e) {
+                System.err.println("Erreur d'acceptation: " + e.getMessage());
+            }
+        }
+    }
+
+    // Une session distante : connexion puis menu, jusqu'à la déconnexion ou la fin du flux
+    private void servir(Connexion c) {
+        AuthentificationService.Session session = null;
+        try (Socket socket = c.socket) {
+            socket.setSoTimeout((int) INACTIVITE.toMillis());
+            socket.setTcpNoDelay(true);
+            PrintStream sortie = new PrintStream(new BufferedOutputStream(socket.getOutputStream()),
+                    false, StandardCharsets.UTF_8);
+            Scanner entree = new Scanner(new EntreeMesuree(socket.getInputStream(), sortie, c),
+                    StandardCharsets.UTF_8);
+
+            sortie.println("╔═══════════════════════════════════════╗");
+            sortie.println("║         BIENVENUE À MEDIPASS          ║");
+            sortie.println("║   Session distante                    ║");
+            sortie.println("╚═══════════════════════════════════════╝");
+            for (int essai = 0; essai < ESSAIS_CONNEXION && session == null; essai++) {
+                sortie.print("\nLogin: ");
+                String login = entree.nextLine().trim();
+                sortie.print("Mot de passe: ");
+                session = auth.ouvrirSession(login, entree.nextLine());
+                if (session == null) {
+                    sortie.println("❌ Identifiants incorrects ou compte inactif.");
+                }
+            }
+            if (session == null) {
+                sortie.flush();
+                return;
+            }
+
+            Utilisateur u = session.utilisateur();
+            c.login = u.getLoginID();
+            sortie.println("\n✓ Connexion réussie! Bienvenue " + u.getNom() + " " + u.getPrenom());
+            MenuInterface menu = fabrique.creer(u, entree, sortie);
+            if (menu == null) {
+                sortie.println("Menu non disponible pour ce rôle.");
+            } else {
+                menu.afficherMenu();
+            }
+            sortie.println("Au revoir!");
+            sortie.flush();
+        } catch (NoSuchElementException | IllegalStateException e) {
+            // Le client a fermé la connexion, ou elle est restée inactive trop longtemps
+        } catch (IOException e) {
+            System.err.println("Session " + c.id + " interrompue: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Erreur dans la session " + c.id + ": " + e);
+        } finally {
+            if (session != null) {
+                auth.fermerSession(session.jeton());
+            }
+            connexions.remove(c.id);
+        }
+    }
+
+    private void enregistrerLatence(long nanos) {
+        long micros = Math.max(1, nanos / 1_000);
+        int i = Math.min(histogramme.length() - 1, 63 - Long.numberOfLeadingZeros(micros));
+        histogramme.incrementAndGet(i);
+    }
+
+    public int getConnexionsActives() {
+        return connexions.size();
+    }
+
+    public long getConnexionsTotales() {
+        return connexionsTotales.get();
+    }
+
+    public long getConnexionsRefusees() {
+        return connexionsRefusees.get();
+    }
+
+    /**
+     * Latence des commandes (toutes sessions) au quantile q, en microsecondes ;
+     * borne haute de la case de l'histogramme (précision d'un facteur 2)
+     */
+    public long getLatenceQuantile(double q) {
+        long total = 0;
+        for (int i = 0; i < histogramme.length(); i++) total += histogramme.get(i);
+        if (total == 0) return 0;
+        long rang = (long) Math.ceil(q * total);
+        long cumul = 0;
+        for (int i = 0; i < histogramme.length(); i++) {
+            cumul += histogramme.get(i);
+            if (cumul >= rang) return 2L << i;
+        }
+        return 2L << (histogramme.length() - 1);
+    }
+
+    public List<EtatSession> getSessions() {
+        List<EtatSession> etats = new ArrayList<>();
+        for (Connexion c : connexions.values()) {
+            long n = c.commandes.get();
+            etats.add(new EtatSession(c.id, c.adresse, c.login, c.debut, n,
+                    n == 0 ? 0 : c.latenceCumulee.get() / n / 1_000, c.latenceMax.get() / 1_000));
+        }
+        etats.sort((a, b) -> Integer.compare(a.id(), b.id()));
+        return etats;
+    }
+
+    /**
+     * État du serveur : connexions et latences, pour la console
+     */
+    public String afficherEtat() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== SERVEUR DE SESSIONS ===\n");
+        sb.append("Écoute: ").append(ecoute == null ? "arrêté" : ecoute.getLocalSocketAddress()).append("\n");
+        sb.append("Connexions actives: ").append(getConnexionsActives())
+          .append(" (total ").append(getConnexionsTotales())
+          .append(", refusées ").append(getConnexionsRefusees()).append(")\n");
+        sb.append(String.format("Latence des commandes: p50 ≤ %d µs, p99 ≤ %d µs%n",
+                getLatenceQuantile(0.5), getLatenceQuantile(0.99)));
+        for (EtatSession e : getSessions()) {
+            sb.append(String.format("  #%d %s %s depuis %s : %d commandes, moy %d µs, max %d µs%n",
+                    e.id(), e.adresse(), e.login() == null ? "(connexion)" : e.login(), e.debut(),
+                    e.commandes(), e.latenceMoyenneMicros(), e.latenceMaxMicros()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Ferme le port puis toutes les sessions ouvertes
+     */
+    @Override
+    public void close() {
+        try {
+            if (ecoute != null) ecoute.close();
+        } catch (IOException e) {
+            System.err.println("Erreur à la fermeture du serveur: " + e.getMessage());
+        }
+        for (Connexion c : connexions.values()) {
+            try {
+                c.socket.close();
+            } catch (IOException e) {
+                // déjà fermée
+            }
+        }
+        sessions.shutdown();
+    }
+
+    private static final class Connexion {
+        final int id;
+        final Socket socket;
+        final String adresse;
+        final Instant debut = Instant.now();
+        final AtomicLong commandes = new AtomicLong();
+        final AtomicLong latenceCumulee = new AtomicLong();
+        final AtomicLong latenceMax = new AtomicLong();
+        volatile String login;
+
+        Connexion(int id, Socket socket) {
+            this.id = id;
+            this.socket = socket;
+            this.adresse = socket.getRemoteSocketAddress().toString();
+        }
+    }
+
+    // Envoie la sortie tamponnée avant d'attendre une saisie, et mesure la commande précédente
+    private final class EntreeMesuree extends FilterInputStream {
+        private final PrintStream sortie;
+        private final Connexion connexion;
+        private long derniereReception;
+
+        EntreeMesuree(InputStream in, PrintStream sortie, Connexion connexion) {
+            super(in);
+            this.sortie = sortie;
+            this.connexion = connexion;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            // Mesure avant l'envoi : le client qui reçoit la réponse voit la commande comptée
+            if (derniereReception != 0) {
+                long duree = System.nanoTime() - derniereReception;
+                connexion.commandes.incrementAndGet();
+                connexion.latenceCumulee.addAndGet(duree);
+                connexion.latenceMax.accumulateAndGet(duree, Math::max);
+                enregistrerLatence(duree);
+                derniereReception = 0;
+            }
+            sortie.flush();
+            int n = super.read(b, off, len);
+            if (n > 0) derniereReception = System.nanoTime();
+            return n;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] un = new byte[1];
+            return read(un, 0, 1) < 0 ? -1 : un[0] & 0xFF;
+        }
+    }
+}
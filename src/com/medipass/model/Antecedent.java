@@ -7,7 +7,7 @@ import java.time.LocalDate;
  * Contient le type, une description, la date, la gravité et si l'antécédent est toujours actif.
  */
 public class Antecedent {
-    private static int counter = 1;
+    private static final GenerateurIdentifiants IDENTIFIANTS = new GenerateurIdentifiants();
     private final int idAntecedent;
     private final String type;
     private final String description;
@@ -24,7 +24,7 @@ public class Antecedent {
      * @param actif Si l'antécédent est toujours actif/pertinent
      */
     public Antecedent(String type, String description, LocalDate date, String gravite, boolean actif) {
-        this.idAntecedent = counter++;
+        this.idAntecedent = IDENTIFIANTS.suivant();
         this.type = type;
         this.description = description;
         this.date = date;
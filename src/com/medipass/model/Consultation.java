@@ -1,7 +1,10 @@
 package com.medipass.model;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import com.medipass.user.ProfessionnelSante;
 
 /**
@@ -9,39 +12,40 @@ import com.medipass.user.ProfessionnelSante;
  * Contient des champs basiques : date/heure, motif, observations, diagnostic, statut.
  */
 public class Consultation {
-    private static int counter = 1;
+    public static final int DUREE_DEFAUT = 30;
+    private static final GenerateurIdentifiants IDENTIFIANTS = new GenerateurIdentifiants();
     private final int idConsultation;
     private final LocalDateTime dateHeure;
+    private final long debutMinute; // dateHeure en minutes depuis l'époque, pour les comparaisons
     private final String motif;
     private String observations;
     private String diagnostic;
-    private String statut;
+    private volatile StatutConsultation statut; // lu sans verrou par les index de créneaux
     private final ProfessionnelSante professionnel;
     private final Patient patient;
-    private int dureeMinutes = 30; // Durée par défaut
-
-    private static final String[] STATUTS_VALIDES = {"programmée", "effectuée", "annulée", "en cours"};
+    private volatile int dureeMinutes = DUREE_DEFAUT; // lue sans verrou par les index de créneaux
+    private List<ObservateurConsultation> observateurs; // index qui référencent cette consultation
 
     public Consultation(LocalDateTime dateHeure, String motif, ProfessionnelSante professionnel, Patient patient) {
-        this.idConsultation = counter++;
+        this.idConsultation = IDENTIFIANTS.suivant();
         this.dateHeure = dateHeure;
+        this.debutMinute = dateHeure.toEpochSecond(ZoneOffset.UTC) / 60;
         this.motif = motif;
         this.professionnel = professionnel;
         this.patient = patient;
-        this.statut = "programmée";
+        this.statut = StatutConsultation.PROGRAMMEE;
     }
 
     public Consultation(int idConsultation, LocalDateTime dateHeure, String motif, ProfessionnelSante professionnel, Patient patient) {
         this.idConsultation = idConsultation;
         this.dateHeure = dateHeure;
+        this.debutMinute = dateHeure.toEpochSecond(ZoneOffset.UTC) / 60;
         this.motif = motif;
         this.professionnel = professionnel;
         this.patient = patient;
-        this.statut = "programmée";
-        // Update counter if necessary
-        if (idConsultation >= counter) {
-            counter = idConsultation + 1;
-        }
+        this.statut = StatutConsultation.PROGRAMMEE;
+        // Les nouvelles consultations seront numérotées après les identifiants rechargés
+        IDENTIFIANTS.reserver(idConsultation);
     }
 
     // Getters
@@ -50,10 +54,14 @@ public class Consultation {
     public int getDureeMinutes() { return dureeMinutes; }
     public ProfessionnelSante getProfessionnel() { return professionnel; }
     public Patient getPatient() { return patient; }
-    public String getStatut() { return statut; }
+    public String getStatut() { return statut.getLibelle(); }
+    public StatutConsultation getStatutConsultation() { return statut; }
     public String getMotif() { return motif; }
     public String getObservations() { return observations; }
     public String getDiagnostic() { return diagnostic; }
+    public long getDebutMinute() { return debutMinute; }
+    public long getFinMinute() { return debutMinute + dureeMinutes; }
+    public boolean estAnnulee() { return statut == StatutConsultation.ANNULEE; }
     
     /**
      * Calcule l'heure de fin de la consultation
@@ -63,10 +71,23 @@ public class Consultation {
     }
 
     // Setters avec validation
-    public void setDureeMinutes(int dureeMinutes) { 
-        if (dureeMinutes > 0) {
-            this.dureeMinutes = dureeMinutes; 
+    /**
+     * Change la durée ; les index qui suivent la consultation doivent tous l'accepter.
+     * Une durée qui ferait chevaucher une autre consultation est refusée et l'ancienne est gardée.
+     * @return false si la durée est invalide ou refusée
+     */
+    public synchronized boolean setDureeMinutes(int dureeMinutes) { 
+        if (dureeMinutes <= 0) {
+            return false;
         }
+        if (dureeMinutes == this.dureeMinutes) {
+            return true;
+        }
+        if (!accepterDuree(dureeMinutes)) {
+            return false;
+        }
+        this.dureeMinutes = dureeMinutes;
+        return true;
     }
     
     public void setObservations(String obs) { 
@@ -77,14 +98,76 @@ public class Consultation {
         this.diagnostic = d; 
     }
     
-    public void setStatut(String s) { 
-        for (String statut : STATUTS_VALIDES) {
-            if (statut.equalsIgnoreCase(s)) {
-                this.statut = s;
-                return;
+    /**
+     * @return false si le statut est invalide ou refusé
+     */
+    public boolean setStatut(String s) { 
+        StatutConsultation nouveau = StatutConsultation.depuisLibelle(s);
+        if (nouveau == null) {
+            System.err.println("⚠️ Statut invalide : " + s + ". Valeurs acceptées : programmée, effectuée, annulée, en cours");
+            return false;
+        }
+        return setStatut(nouveau);
+    }
+
+    /**
+     * Change le statut ; les index qui suivent la consultation doivent tous l'accepter.
+     * Une consultation annulée dont le créneau a été repris entre-temps reste annulée.
+     * Même moniteur que setDureeMinutes : un index ne voit jamais les deux changements se croiser.
+     * @return false si le statut est refusé
+     */
+    public synchronized boolean setStatut(StatutConsultation nouveau) {
+        StatutConsultation ancien = statut;
+        if (nouveau != ancien && !accepterStatut(nouveau)) {
+            return false;
+        }
+        this.statut = nouveau;
+        notifierObservateurs(ancien);
+        return true;
+    }
+
+    /**
+     * Abonne un index aux changements de statut et de durée de cette consultation
+     */
+    public void suivrePar(ObservateurConsultation observateur) {
+        if (observateurs == null) observateurs = new ArrayList<>(3);
+        observateurs.add(observateur);
+    }
+
+    // Si un observateur refuse, ceux qui avaient accepté reviennent à l'ancienne fin
+    private boolean accepterDuree(int duree) {
+        if (observateurs == null) return true;
+        long ancienneFin = getFinMinute();
+        for (int i = 0; i < observateurs.size(); i++) {
+            if (!observateurs.get(i).dureeDemandee(this, debutMinute + duree)) {
+                for (int k = 0; k < i; k++) {
+                    observateurs.get(k).dureeDemandee(this, ancienneFin);
+                }
+                return false;
             }
         }
-        System.err.println("⚠️ Statut invalide : " + s + ". Valeurs acceptées : programmée, effectuée, annulée, en cours");
+        return true;
+    }
+
+    // Si un observateur refuse, ceux qui avaient accepté reviennent à l'ancien statut
+    private boolean accepterStatut(StatutConsultation nouveau) {
+        if (observateurs == null) return true;
+        for (int i = 0; i < observateurs.size(); i++) {
+            if (!observateurs.get(i).statutDemande(this, nouveau)) {
+                for (int k = 0; k < i; k++) {
+                    observateurs.get(k).statutDemande(this, statut);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void notifierObservateurs(StatutConsultation ancienStatut) {
+        if (observateurs == null) return;
+        for (ObservateurConsultation o : observateurs) {
+            o.consultationModifiee(this, ancienStatut);
+        }
     }
 
     /**
@@ -2,6 +2,7 @@ package com.medipass.model;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -9,15 +10,16 @@ import java.util.List;
  * Met à jour la date de dernière modification à chaque changement.
  */
 public class DossierMedical {
-    private static int counter = 1;
+    private static final GenerateurIdentifiants IDENTIFIANTS = new GenerateurIdentifiants();
     private final int idDossier;
     private final Patient patient;
     private final LocalDateTime dateCreation;
     private final List<Antecedent> antecedents = new ArrayList<>();
-    private final List<Consultation> consultations = new ArrayList<>();
+    private final List<Consultation> consultations = Collections.synchronizedList(new ArrayList<>());
+    private final IndexIntervalles agenda = new IndexIntervalles();
 
     public DossierMedical(Patient patient) {
-        this.idDossier = counter++;
+        this.idDossier = IDENTIFIANTS.suivant();
         this.patient = patient;
         this.dateCreation = LocalDateTime.now();
     }
@@ -32,15 +34,44 @@ public class DossierMedical {
 
     public void ajouterConsultation(Consultation c) {
         consultations.add(c);
+        agenda.ajouter(c);
+    }
+
+    /**
+     * Réserve le créneau sans verrou, sauf s'il chevauche une consultation non annulée du patient
+     * @return false si le patient est déjà pris à cette heure
+     */
+    public boolean reserverConsultation(Consultation c) {
+        if (!agenda.reserver(c)) {
+            return false;
+        }
+        consultations.add(c);
+        return true;
+    }
+
+    /**
+     * Vrai si le patient n'a aucune consultation non annulée qui chevauche celle-ci
+     */
+    public boolean estDisponiblePour(Consultation c) {
+        return agenda.estLibre(c);
+    }
+
+    /**
+     * Consultations non annulées du patient qui chevauchent [debutMinute, finMinute[
+     * (minutes depuis l'époque), par ordre chronologique
+     */
+    public List<Consultation> getConsultationsChevauchant(long debutMinute, long finMinute) {
+        return agenda.chevauchant(debutMinute, finMinute);
     }
 
     public List<Antecedent> getAntecedents() { return antecedents; }
-    public List<Consultation> getConsultations() { return consultations; }
+    // Copie : le dossier peut recevoir une consultation pendant qu'on la parcourt
+    public List<Consultation> getConsultations() { return new ArrayList<>(consultations); }
 
     // Fournit un historique textuel simple pour affichage console
     public List<String> getHistorique() {
         List<String> out = new ArrayList<>();
-        for (Consultation c : consultations) {
+        for (Consultation c : getConsultations()) {
             out.add(c.toString());
         }
         for (Antecedent a : antecedents) {
@@ -0,0 +1,30 @@
+package com.medipass.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Attribution d'identifiants croissants, sûre entre threads.
+ * Les objets rechargés avec leur identifiant le réservent : les suivants sont
+ * alors attribués au-delà du plus grand identifiant stocké.
+ */
+public final class GenerateurIdentifiants {
+    private final AtomicInteger dernier = new AtomicInteger();
+
+    /**
+     * Attribue le prochain identifiant libre
+     */
+    public int suivant() {
+        return dernier.incrementAndGet();
+    }
+
+    /**
+     * Marque un identifiant existant comme utilisé
+     */
+    public void reserver(int id) {
+        dernier.accumulateAndGet(id, Math::max);
+    }
+
+    public int getDernier() {
+        return dernier.get();
+    }
+}
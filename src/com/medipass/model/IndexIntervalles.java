@@ -0,0 +1,361 @@
+package com.medipass.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Index des consultations non annulées d'un planning, triées par heure de début.
+ * Le planning est découpé par jour ; chaque jour est un petit tableau immuable,
+ * remplacé par compare-and-set (version optimiste) : une réservation lit le jour,
+ * vérifie le créneau, puis publie la nouvelle version seulement si personne ne l'a
+ * changée entre-temps, sinon elle recommence. Aucun verrou : deux réservations
+ * sur des jours différents ne se gênent pas, et sur le même jour l'une des deux
+ * recommence au lieu d'attendre.
+ * Une consultation qui déborde sur le lendemain est inscrite dans chacun des jours
+ * qu'elle touche : deux créneaux qui se chevauchent partagent toujours un jour,
+ * le test de chevauchement ne lit donc que les jours du créneau demandé.
+ * Les consultations indexées demandent l'accord de l'index avant de changer de statut
+ * ou de durée.
+ */
+public class IndexIntervalles implements ObservateurConsultation {
+    private static final long MINUTES_PAR_JOUR = 24 * 60;
+
+    // Version d'un jour : consultations triées par début, avec les bornes lues à l'inscription
+    private record Jour(Consultation[] consultations, long[] debuts, long[] fins) {
+        static final Jour VIDE = new Jour(new Consultation[0], new long[0], new long[0]);
+
+        boolean chevauche(long debut, long fin) {
+            return chevauche(debut, fin, null);
+        }
+
+        // Comme chevauche, sans compter la consultation ignoree
+        boolean chevauche(long debut, long fin, Consultation ignoree) {
+            for (int i = 0; i < debuts.length && debuts[i] < fin; i++) {
+                if (fins[i] > debut && consultations[i] != ignoree) return true;
+            }
+            return false;
+        }
+
+        int position(Consultation c) {
+            for (int i = 0; i < consultations.length; i++) {
+                if (consultations[i] == c) return i;
+            }
+            return -1;
+        }
+
+        Jour avec(Consultation c, long debut, long fin) {
+            int n = debuts.length;
+            int i = 0;
+            while (i < n && (debuts[i] < debut
+                    || (debuts[i] == debut && consultations[i].getIdConsultation() < c.getIdConsultation()))) {
+                i++;
+            }
+            Consultation[] cs = new Consultation[n + 1];
+            long[] ds = new long[n + 1];
+            long[] fs = new long[n + 1];
+            System.arraycopy(consultations, 0, cs, 0, i);
+            System.arraycopy(debuts, 0, ds, 0, i);
+            System.arraycopy(fins, 0, fs, 0, i);
+            cs[i] = c;
+            ds[i] = debut;
+            fs[i] = fin;
+            System.arraycopy(consultations, i, cs, i + 1, n - i);
+            System.arraycopy(debuts, i, ds, i + 1, n - i);
+            System.arraycopy(fins, i, fs, i + 1, n - i);
+            return new Jour(cs, ds, fs);
+        }
+
+        Jour avecFin(int i, long fin) {
+            long[] fs = fins.clone();
+            fs[i] = fin;
+            return new Jour(consultations, debuts, fs);
+        }
+
+        Jour sans(int i) {
+            int n = debuts.length;
+            Consultation[] cs = new Consultation[n - 1];
+            long[] ds = new long[n - 1];
+            long[] fs = new long[n - 1];
+            System.arraycopy(consultations, 0, cs, 0, i);
+            System.arraycopy(debuts, 0, ds, 0, i);
+            System.arraycopy(fins, 0, fs, 0, i);
+            System.arraycopy(consultations, i + 1, cs, i, n - i - 1);
+            System.arraycopy(debuts, i + 1, ds, i, n - i - 1);
+            System.arraycopy(fins, i + 1, fs, i, n - i - 1);
+            return new Jour(cs, ds, fs);
+        }
+    }
+
+    // Clé : jour depuis l'époque (en minutes / 1440)
+    private final ConcurrentSkipListMap<Long, Jour> parJour = new ConcurrentSkipListMap<>();
+    private final AtomicInteger taille = new AtomicInteger();
+
+    private static long jour(long minute) {
+        return Math.floorDiv(minute, MINUTES_PAR_JOUR);
+    }
+
+    // Une consultation occupe au moins une minute
+    private static long fin(Consultation c) {
+        return Math.max(c.getFinMinute(), c.getDebutMinute() + 1);
+    }
+
+    /**
+     * Indexe une consultation sans vérifier le créneau (données chargées)
+     * et la suit pour ses changements de statut et de durée
+     */
+    public void ajouter(Consultation c) {
+        c.suivrePar(this);
+        if (!c.estAnnulee()) {
+            inscrire(c, false);
+        }
+    }
+
+    /**
+     * Réserve le créneau d'une consultation s'il ne chevauche aucune consultation indexée.
+     * Vérification et inscription sont atomiques vis-à-vis des autres réservations.
+     * @return false si le créneau est pris ; l'index est alors inchangé
+     */
+    public boolean reserver(Consultation c) {
+        if (!inscrire(c, true)) {
+            return false;
+        }
+        c.suivrePar(this);
+        return true;
+    }
+
+    /**
+     * Libère le créneau d'une consultation (réservation abandonnée)
+     */
+    public void retirer(Consultation c) {
+        desinscrire(c);
+    }
+
+    /**
+     * Réindexe une consultation avant un changement de statut : les annulées sortent de l'index,
+     * une consultation qui n'est plus annulée y revient par la même réservation vérifiée
+     * que reserver. Refuse le changement si son créneau a été donné entre-temps.
+     */
+    @Override
+    public boolean statutDemande(Consultation c, StatutConsultation nouveau) {
+        Jour premier = parJour.get(jour(c.getDebutMinute()));
+        int i = premier == null ? -1 : premier.position(c);
+        if (nouveau == StatutConsultation.ANNULEE) {
+            if (i >= 0) desinscrire(c);
+            return true;
+        }
+        return i >= 0 || inscrire(c, true);
+    }
+
+    // L'index a déjà été mis à jour par statutDemande
+    @Override
+    public void consultationModifiee(Consultation c, StatutConsultation ancienStatut) {
+    }
+
+    /**
+     * Accepte la nouvelle fin si elle ne chevauche aucune autre consultation indexée.
+     * Chaque jour du créneau est remplacé en une fois (compare-and-set), la consultation
+     * n'en sort jamais : aucune réservation ne peut se glisser pendant le changement.
+     * Seul un allongement peut échouer ; les jours déjà changés reviennent alors à l'ancienne fin.
+     */
+    @Override
+    public boolean dureeDemandee(Consultation c, long nouvelleFinMinute) {
+        long debut = c.getDebutMinute();
+        Jour premier = parJour.get(jour(debut));
+        int i = premier == null ? -1 : premier.position(c);
+        long fin = Math.max(nouvelleFinMinute, debut + 1);
+        if (i < 0 || premier.fins()[i] == fin) {
+            // Annulée (hors de l'index) ou créneau inchangé
+            return true;
+        }
+        long ancienneFin = premier.fins()[i];
+        if (changerFin(c, debut, ancienneFin, fin, true)) {
+            return true;
+        }
+        changerFin(c, debut, fin, ancienneFin, false);
+        return false;
+    }
+
+    // Porte la fin de la consultation à fin, jour par jour ; s'arrête au premier conflit
+    private boolean changerFin(Consultation c, long debut, long ancienneFin, long fin, boolean verifier) {
+        long dernierJour = jour(fin - 1);
+        long limite = Math.max(dernierJour, jour(ancienneFin - 1));
+        for (long j = jour(debut); j <= limite; j++) {
+            if (j > dernierJour) {
+                desinscrireJour(j, c);
+            } else if (!changerFinJour(j, c, debut, fin, verifier)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Un jour que la consultation ne touchait pas encore (allongement sur le lendemain) est inscrit
+    private boolean changerFinJour(long j, Consultation c, long debut, long fin, boolean verifier) {
+        while (true) {
+            Jour actuel = parJour.get(j);
+            int i = actuel == null ? -1 : actuel.position(c);
+            if (i < 0) {
+                return inscrireJour(j, c, debut, fin, verifier);
+            }
+            if (verifier && actuel.chevauche(debut, fin, c)) {
+                return false;
+            }
+            if (parJour.replace(j, actuel, actuel.avecFin(i, fin))) {
+                return true;
+            }
+        }
+    }
+
+    // Inscrit la consultation dans chacun de ses jours ; en cas de conflit, défait les jours déjà inscrits
+    private boolean inscrire(Consultation c, boolean verifier) {
+        long debut = c.getDebutMinute();
+        long fin = fin(c);
+        long premierJour = jour(debut);
+        long dernierJour = jour(fin - 1);
+        for (long j = premierJour; j <= dernierJour; j++) {
+            if (!inscrireJour(j, c, debut, fin, verifier)) {
+                for (long k = premierJour; k < j; k++) {
+                    desinscrireJour(k, c);
+                }
+                return false;
+            }
+        }
+        taille.incrementAndGet();
+        return true;
+    }
+
+    private boolean inscrireJour(long j, Consultation c, long debut, long fin, boolean verifier) {
+        while (true) {
+            Jour actuel = parJour.get(j);
+            Jour base = actuel == null ? Jour.VIDE : actuel;
+            if (verifier && base.chevauche(debut, fin)) {
+                return false;
+            }
+            Jour nouveau = base.avec(c, debut, fin);
+            boolean publie = actuel == null
+                    ? parJour.putIfAbsent(j, nouveau) == null
+                    : parJour.replace(j, actuel, nouveau);
+            if (publie) {
+                return true;
+            }
+            // Un autre planning a été publié entre la lecture et l'écriture : on recommence
+        }
+    }
+
+    // Les jours inscrits se suivent à partir du jour de début
+    private void desinscrire(Consultation c) {
+        long j = jour(c.getDebutMinute());
+        if (!desinscrireJour(j, c)) {
+            return;
+        }
+        while (desinscrireJour(++j, c)) {
+        }
+        taille.decrementAndGet();
+    }
+
+    private boolean desinscrireJour(long j, Consultation c) {
+        while (true) {
+            Jour actuel = parJour.get(j);
+            int i = actuel == null ? -1 : actuel.position(c);
+            if (i < 0) {
+                return false;
+            }
+            boolean publie = actuel.consultations().length == 1
+                    ? parJour.remove(j, actuel)
+                    : parJour.replace(j, actuel, actuel.sans(i));
+            if (publie) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Vrai si une consultation indexée chevauche [debutMinute, finMinute[
+     */
+    public boolean chevauche(long debutMinute, long finMinute) {
+        if (finMinute <= debutMinute) return false;
+        for (Jour j : parJour.subMap(jour(debutMinute), true, jour(finMinute - 1), true).values()) {
+            if (j.chevauche(debutMinute, finMinute)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Vrai si le créneau de la consultation ne chevauche aucune consultation indexée
+     */
+    public boolean estLibre(Consultation c) {
+        return !chevauche(c.getDebutMinute(), fin(c));
+    }
+
+    /**
+     * Consultations indexées qui commencent dans [debutMinute, finMinute[, par heure de début
+     */
+    public List<Consultation> entre(long debutMinute, long finMinute) {
+        List<Consultation> resultat = new ArrayList<>();
+        if (finMinute <= debutMinute) return resultat;
+        collecter(parJour.subMap(jour(debutMinute), true, jour(finMinute - 1), true),
+                debutMinute, finMinute, resultat);
+        return resultat;
+    }
+
+    /**
+     * Consultations indexées qui commencent à partir de debutMinute, par heure de début
+     */
+    public List<Consultation> aPartirDe(long debutMinute) {
+        List<Consultation> resultat = new ArrayList<>();
+        collecter(parJour.tailMap(jour(debutMinute), true), debutMinute, Long.MAX_VALUE, resultat);
+        return resultat;
+    }
+
+    /**
+     * Consultations indexées qui chevauchent [debutMinute, finMinute[, par heure de début ;
+     * y compris celles commencées avant debutMinute et pas encore terminées
+     */
+    public List<Consultation> chevauchant(long debutMinute, long finMinute) {
+        List<Consultation> resultat = new ArrayList<>();
+        if (finMinute <= debutMinute) return resultat;
+        long premierJour = jour(debutMinute);
+        for (Map.Entry<Long, Jour> e : parJour.subMap(premierJour, true, jour(finMinute - 1), true).entrySet()) {
+            Jour j = e.getValue();
+            long cle = e.getKey();
+            for (int i = 0; i < j.debuts().length && j.debuts()[i] < finMinute; i++) {
+                // Une consultation sur plusieurs jours n'est prise qu'une fois :
+                // dans son jour de début, ou dans le premier jour parcouru si elle a commencé avant
+                if (j.fins()[i] > debutMinute && (cle == premierJour || jour(j.debuts()[i]) == cle)) {
+                    resultat.add(j.consultations()[i]);
+                }
+            }
+        }
+        return resultat;
+    }
+
+    // Chaque consultation n'est prise que dans son jour de début
+    private static void collecter(NavigableMap<Long, Jour> jours, long debutMinute, long finMinute,
+            List<Consultation> resultat) {
+        for (Map.Entry<Long, Jour> e : jours.entrySet()) {
+            Jour j = e.getValue();
+            int i = Arrays.binarySearch(j.debuts(), debutMinute);
+            if (i < 0) {
+                i = -i - 1;
+            } else {
+                while (i > 0 && j.debuts()[i - 1] == debutMinute) i--;
+            }
+            for (; i < j.debuts().length && j.debuts()[i] < finMinute; i++) {
+                if (jour(j.debuts()[i]) == e.getKey()) {
+                    resultat.add(j.consultations()[i]);
+                }
+            }
+        }
+    }
+
+    public int taille() {
+        return taille.get();
+    }
+}
@@ -0,0 +1,36 @@
+package com.medipass.model;
+
+/**
+ * Prévenu quand le statut ou la durée d'une consultation change, pour tenir à jour
+ * les index qui la référencent (plannings, répartition par statut).
+ */
+@FunctionalInterface
+public interface ObservateurConsultation {
+
+    /**
+     * @param ancienStatut statut avant la modification
+     */
+    void consultationModifiee(Consultation consultation, StatutConsultation ancienStatut);
+
+    /**
+     * Appelé avant un changement de durée, la consultation n'étant pas encore modifiée.
+     * Un index peut refuser une fin qui chevaucherait une autre consultation ; s'il accepte,
+     * il se met à jour tout de suite. Si un autre observateur refuse ensuite, il est rappelé
+     * avec l'ancienne fin.
+     * @return false pour refuser la nouvelle durée
+     */
+    default boolean dureeDemandee(Consultation consultation, long nouvelleFinMinute) {
+        return true;
+    }
+
+    /**
+     * Appelé avant un changement de statut, la consultation n'étant pas encore modifiée.
+     * Un index peut refuser de reprendre une consultation annulée dont le créneau a été
+     * donné entre-temps ; s'il accepte, il se met à jour tout de suite. Si un autre
+     * observateur refuse ensuite, il est rappelé avec l'ancien statut.
+     * @return false pour refuser le nouveau statut
+     */
+    default boolean statutDemande(Consultation consultation, StatutConsultation nouveau) {
+        return true;
+    }
+}
@@ -0,0 +1,48 @@
+package com.medipass.model;
+
+import java.text.Normalizer;
+
+/**
+ * Statuts possibles d'une consultation, avec leur libellé affiché et stocké dans les fichiers.
+ */
+public enum StatutConsultation {
+    PROGRAMMEE("programmée"),
+    EFFECTUEE("effectuée"),
+    ANNULEE("annulée"),
+    EN_COURS("en cours");
+
+    private final String libelle;
+
+    StatutConsultation(String libelle) {
+        this.libelle = libelle;
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+
+    /**
+     * Retrouve un statut depuis son libellé, sans tenir compte de la casse ni des accents
+     * ("Annulée", "annulee"...). Renvoie null si le libellé est inconnu.
+     */
+    public static StatutConsultation depuisLibelle(String libelle) {
+        if (libelle == null) return null;
+        for (StatutConsultation s : values()) {
+            if (s.libelle.equalsIgnoreCase(libelle)) return s;
+        }
+        String simplifie = sansAccents(libelle.trim());
+        for (StatutConsultation s : values()) {
+            if (sansAccents(s.libelle).equalsIgnoreCase(simplifie)) return s;
+        }
+        return null;
+    }
+
+    private static String sansAccents(String texte) {
+        return Normalizer.normalize(texte, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+
+    @Override
+    public String toString() {
+        return libelle;
+    }
+}
@@ -1,31 +1,156 @@
 package com.medipass.security;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.medipass.user.AnnuaireUtilisateurs;
 import com.medipass.user.Utilisateur;
 
 /**
  * Service d'authentification très simple (stockage en mémoire).
- * Fournit login/logout et recherche de comptes.
+ * Chaque connexion ouvre sa propre session : plusieurs utilisateurs peuvent
+ * travailler en même temps, aucun « utilisateur courant » n'est partagé.
+ * Les comptes sont lus dans l'annuaire partagé avec l'administration :
+ * un compte créé par l'administrateur peut se connecter aussitôt.
+ *
+ * La vérification PBKDF2 coûte volontairement cher. Deux mécanismes l'évitent
+ * pendant la durée de validité (-Dmedipass.session.minutes, 15 par défaut) :
+ * - une session ouverte rend un jeton aléatoire, vérifié ensuite par simple lecture ;
+ * - une reconnexion avec le même login et le même mot de passe est reconnue par un
+ *   HMAC-SHA256 (clé aléatoire propre au processus) de ces identifiants, sans PBKDF2.
+ * Le mot de passe en clair n'est jamais conservé.
  */
 public class AuthentificationService {
-    private final Map<String, Utilisateur> users = new HashMap<>();
-    private Utilisateur currentUser = null;
+    private static final Duration VALIDITE = Duration.ofMinutes(Long.getLong("medipass.session.minutes", 15));
+
+    /**
+     * Session ouverte : le jeton à présenter, le compte et l'instant d'expiration (ms)
+     */
+    public record Session(String jeton, Utilisateur utilisateur, long expiration) {
+        public boolean estExpiree(long maintenant) {
+            return maintenant >= expiration;
+        }
+    }
+
+    // Identifiants récemment vérifiés : HMAC(login, mdp), valeur stockée du compte à ce moment, expiration
+    private record Verification(byte[] hmac, String empreinte, long expiration) {
+    }
+
+    private final AnnuaireUtilisateurs annuaire;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Verification> verifications = new ConcurrentHashMap<>();
+    private final SecureRandom alea = new SecureRandom();
+    private final SecretKeySpec cleHmac;
 
+    public AuthentificationService() {
+        this(new AnnuaireUtilisateurs());
+    }
+
+    public AuthentificationService(AnnuaireUtilisateurs annuaire) {
+        this.annuaire = annuaire;
+        byte[] cle = new byte[32];
+        alea.nextBytes(cle);
+        this.cleHmac = new SecretKeySpec(cle, "HmacSHA256");
+    }
+
+    // Sans effet si le compte est déjà dans l'annuaire
     public void register(Utilisateur u){
-        users.put(u.getLoginID(), u);
+        annuaire.ajouter(u);
     }
 
-    public boolean login(String login, String mdp){
-        Utilisateur u = users.get(login);
-        if(u != null && u.seConnecter(login, mdp)){
-            currentUser = u;
-            return true;
+    public Utilisateur findUser(String login){ return annuaire.trouver(login); }
+
+    /**
+     * Vérifie les identifiants et ouvre une session
+     * @return la session, ou null si les identifiants sont refusés
+     */
+    public Session ouvrirSession(String login, String mdp) {
+        Utilisateur u = authentifier(login, mdp);
+        if (u == null) {
+            return null;
         }
-        return false;
+        byte[] octets = new byte[32];
+        alea.nextBytes(octets);
+        Session session = new Session(Base64.getUrlEncoder().withoutPadding().encodeToString(octets), u,
+                System.currentTimeMillis() + VALIDITE.toMillis());
+        sessions.put(session.jeton(), session);
+        return session;
     }
 
-    public void logout(){ currentUser = null; }
-    public Utilisateur getCurrentUser(){ return currentUser; }
-    public Utilisateur findUser(String login){ return users.get(login); }
+    /**
+     * Compte associé à un jeton encore valide, null si le jeton est inconnu, expiré
+     * ou si le compte a été désactivé entre-temps
+     */
+    public Utilisateur verifierJeton(String jeton) {
+        if (jeton == null) return null;
+        long maintenant = System.currentTimeMillis();
+        Session session = sessions.get(jeton);
+        if (session == null) return null;
+        if (session.estExpiree(maintenant) || !session.utilisateur().isActif()) {
+            sessions.remove(jeton, session);
+            return null;
+        }
+        return session.utilisateur();
+    }
+
+    public void fermerSession(String jeton) {
+        if (jeton == null) return;
+        sessions.remove(jeton);
+    }
+
+    /**
+     * Retire les sessions et vérifications expirées
+     */
+    public void purger() {
+        long maintenant = System.currentTimeMillis();
+        sessions.values().removeIf(s -> s.estExpiree(maintenant));
+        verifications.values().removeIf(v -> maintenant >= v.expiration());
+    }
+
+    // Vérifie les identifiants, migre l'empreinte si besoin ; null si refusés
+    private Utilisateur authentifier(String login, String mdp) {
+        Utilisateur u = annuaire.trouver(login);
+        if (u == null || mdp == null || !u.isActif()) {
+            return null;
+        }
+        String cle = AnnuaireUtilisateurs.cle(login);
+        byte[] hmac = hmac(cle, mdp);
+        long maintenant = System.currentTimeMillis();
+        Verification v = verifications.get(cle);
+        // Valable seulement si le mot de passe stocké n'a pas changé depuis
+        if (v != null && maintenant < v.expiration() && v.empreinte().equals(u.getPassword())
+                && MessageDigest.isEqual(v.hmac(), hmac)) {
+            return u;
+        }
+
+        if (!u.seConnecter(u.getLoginID(), mdp)) {
+            return null;
+        }
+        if (HachageMotDePasse.doitEtreRecalcule(u.getPassword())) {
+            u.setMotDePasse(HachageMotDePasse.hacher(mdp));
+        }
+        verifications.put(cle, new Verification(hmac, u.getPassword(), maintenant + VALIDITE.toMillis()));
+        return u;
+    }
+
+    private byte[] hmac(String login, String mdp) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(cleHmac);
+            mac.update(login.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(mdp.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 indisponible", e);
+        }
+    }
 }
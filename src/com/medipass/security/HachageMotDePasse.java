@@ -0,0 +1,96 @@
+package com.medipass.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Empreintes de mots de passe PBKDF2-HMAC-SHA256 salées, au format
+ * « pbkdf2$itérations$sel$empreinte » (sel et empreinte en Base64).
+ * Le coût (nombre d'itérations) se règle par -Dmedipass.pbkdf2.iterations ;
+ * une empreinte calculée avec un coût plus faible est recalculée à la connexion suivante.
+ * Une valeur sans préfixe est un ancien mot de passe en clair : elle reste acceptée
+ * jusqu'à sa migration.
+ */
+public final class HachageMotDePasse {
+    private static final String PREFIXE = "pbkdf2$";
+    private static final String ALGORITHME = "PBKDF2WithHmacSHA256";
+    private static final int TAILLE_SEL = 16;
+    private static final int TAILLE_EMPREINTE = 32;
+    public static final int ITERATIONS = Integer.getInteger("medipass.pbkdf2.iterations", 210_000);
+
+    private static final SecureRandom ALEA = new SecureRandom();
+
+    private HachageMotDePasse() {
+    }
+
+    /**
+     * Empreinte d'un mot de passe avec le coût courant et un sel aléatoire
+     */
+    public static String hacher(String motDePasse) {
+        return hacher(motDePasse, ITERATIONS);
+    }
+
+    public static String hacher(String motDePasse, int iterations) {
+        byte[] sel = new byte[TAILLE_SEL];
+        ALEA.nextBytes(sel);
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIXE + iterations + "$" + b64.encodeToString(sel) + "$"
+                + b64.encodeToString(deriver(motDePasse, sel, iterations));
+    }
+
+    /**
+     * Vrai si le mot de passe correspond à la valeur stockée (empreinte ou ancien texte clair)
+     */
+    public static boolean verifier(String motDePasse, String stocke) {
+        if (motDePasse == null || stocke == null) return false;
+        if (!estHache(stocke)) {
+            return MessageDigest.isEqual(motDePasse.getBytes(StandardCharsets.UTF_8),
+                    stocke.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parties = stocke.split("\\$");
+        if (parties.length != 4) return false;
+        try {
+            int iterations = Integer.parseInt(parties[1]);
+            byte[] sel = Base64.getDecoder().decode(parties[2]);
+            byte[] attendue = Base64.getDecoder().decode(parties[3]);
+            return MessageDigest.isEqual(attendue, deriver(motDePasse, sel, iterations));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Empreinte de mot de passe illisible: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public static boolean estHache(String stocke) {
+        return stocke != null && stocke.startsWith(PREFIXE);
+    }
+
+    /**
+     * Vrai si la valeur stockée est en clair ou calculée avec un coût inférieur au coût courant
+     */
+    public static boolean doitEtreRecalcule(String stocke) {
+        if (!estHache(stocke)) return true;
+        String[] parties = stocke.split("\\$");
+        try {
+            return parties.length != 4 || Integer.parseInt(parties[1]) < ITERATIONS;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static byte[] deriver(String motDePasse, byte[] sel, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(motDePasse.toCharArray(), sel, iterations, TAILLE_EMPREINTE * 8);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHME).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 indisponible", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
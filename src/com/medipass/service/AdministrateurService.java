@@ -1,32 +1,52 @@
 package com.medipass.service;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-import com.medipass.user.Administrateur;
+import com.medipass.user.AnnuaireUtilisateurs;
 import com.medipass.user.ProfessionnelSante;
 import com.medipass.user.Utilisateur;
 
 /**
  * Service de gestion administrative.
  * Permet de créer, modifier et supprimer des comptes et des droits d'accès.
+ * Les comptes vivent dans un AnnuaireUtilisateurs, partagé avec l'authentification.
  */
 public class AdministrateurService {
-    private final List<Utilisateur> utilisateurs = new ArrayList<>();
-    private final List<ProfessionnelSante> professionnels = new ArrayList<>();
+    private final AnnuaireUtilisateurs annuaire;
+    private final List<EcouteurDonnees> ecouteurs = new CopyOnWriteArrayList<>();
+
+    public AdministrateurService() {
+        this(new AnnuaireUtilisateurs());
+    }
+
+    public AdministrateurService(AnnuaireUtilisateurs annuaire) {
+        this.annuaire = annuaire;
+    }
+
+    public AnnuaireUtilisateurs getAnnuaire() {
+        return annuaire;
+    }
+
+    /**
+     * Abonne un écouteur aux créations et suppressions de professionnels
+     */
+    public void ajouterEcouteur(EcouteurDonnees ecouteur) {
+        ecouteurs.add(ecouteur);
+    }
 
     /**
      * Crée un nouveau compte utilisateur
      */
     public boolean creerCompte(Utilisateur utilisateur) {
-        if (utilisateur == null || findUtilisateur(utilisateur.getLoginID()) != null) {
+        if (!annuaire.ajouter(utilisateur)) {
             return false;
         }
-        utilisateurs.add(utilisateur);
 
-        // Si c'est un professionnel, l'ajouter aussi à la liste spécifique
         if (utilisateur instanceof ProfessionnelSante) {
-            professionnels.add((ProfessionnelSante) utilisateur);
+            for (EcouteurDonnees e : ecouteurs) {
+                e.proCree((ProfessionnelSante) utilisateur);
+            }
         }
 
         return true;
@@ -36,62 +56,53 @@ public class AdministrateurService {
      * Supprime un compte utilisateur
      */
     public boolean supprimerCompte(String loginID) {
-        Utilisateur utilisateur = findUtilisateur(loginID);
+        Utilisateur utilisateur = annuaire.retirer(loginID);
         if (utilisateur == null) {
             return false;
         }
 
-        utilisateurs.remove(utilisateur);
         if (utilisateur instanceof ProfessionnelSante) {
-            professionnels.remove(utilisateur);
+            for (EcouteurDonnees e : ecouteurs) {
+                e.proSupprime((ProfessionnelSante) utilisateur);
+            }
         }
 
         return true;
     }
 
     /**
-     * Recherche un utilisateur par login
+     * Recherche un utilisateur par login (sans tenir compte de la casse)
      */
     public Utilisateur findUtilisateur(String loginID) {
-        return utilisateurs.stream()
-                .filter(u -> u.getLoginID().equalsIgnoreCase(loginID))
-                .findFirst().orElse(null);
+        return annuaire.trouver(loginID);
     }
 
     /**
-     * Recherche un professionnel par login
+     * Recherche un professionnel par login (sans tenir compte de la casse)
      */
     public ProfessionnelSante findProfessionnel(String loginID) {
-        return professionnels.stream()
-                .filter(p -> p.getLoginID().equalsIgnoreCase(loginID))
-                .findFirst().orElse(null);
+        return annuaire.trouverProfessionnel(loginID);
     }
 
     /**
-     * Recherche un professionnel par spécialité
+     * Recherche les professionnels d'une spécialité (copie en lecture seule)
      */
     public List<ProfessionnelSante> findProfessionnelsBySpecialite(String specialite) {
-        List<ProfessionnelSante> result = new ArrayList<>();
-        for (ProfessionnelSante p : professionnels) {
-            if (p.getSpecialite().equalsIgnoreCase(specialite)) {
-                result.add(p);
-            }
-        }
-        return result;
+        return annuaire.parSpecialite(specialite);
     }
 
     /**
-     * Récupère tous les utilisateurs
+     * Récupère tous les utilisateurs (copie en lecture seule, à copier pour la modifier)
      */
     public List<Utilisateur> getUtilisateurs() {
-        return new ArrayList<>(utilisateurs);
+        return annuaire.getUtilisateurs();
     }
 
     /**
-     * Récupère tous les professionnels
+     * Récupère tous les professionnels (copie en lecture seule, à copier pour la modifier)
      */
     public List<ProfessionnelSante> getProfessionnels() {
-        return new ArrayList<>(professionnels);
+        return annuaire.getProfessionnels();
     }
 
     /**
@@ -172,7 +183,7 @@ public class AdministrateurService {
      * Obtient le nombre total de professionnels
      */
     public int getNombreProfessionnels() {
-        return professionnels.size();
+        return annuaire.getNombreProfessionnels();
     }
 
     /**
@@ -212,10 +223,10 @@ public class AdministrateurService {
     public String afficherProfessionnels() {
         StringBuilder sb = new StringBuilder();
         sb.append("=== LISTE DES PROFESSIONNELS ===\n");
-        if (professionnels.isEmpty()) {
+        if (annuaire.getProfessionnels().isEmpty()) {
             sb.append("Aucun professionnel enregistré\n");
         } else {
-            for (ProfessionnelSante p : professionnels) {
+            for (ProfessionnelSante p : annuaire.getProfessionnels()) {
                 sb.append(p).append("\n");
             }
         }
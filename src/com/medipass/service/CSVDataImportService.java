@@ -3,6 +3,7 @@ package com.medipass.service;
 import com.medipass.model.*;
 import com.medipass.user.*;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -39,7 +40,13 @@ public class CSVDataImportService {
         List<Patient> patients = patientService.getPatients();
         
         // 2. Déléguer la lecture, l'ajout et la sauvegarde au DataService
+        int avant = patients.size();
         int importedCount = dataService.importPatients(importFilePath, patients);
+
+        // 3. La liste est une copie : enregistrer les nouveaux patients dans le service (et ses index)
+        for (Patient p : patients.subList(avant, patients.size())) {
+            patientService.creerPatient(p);
+        }
         
         System.out.println("✅ " + importedCount + " nouveaux patients importés et sauvegardés.");
     }
@@ -53,11 +60,13 @@ public class CSVDataImportService {
     public void importProfessionnelsData(String importFilePath) throws Exception {
         System.out.println("\n--- Importation des Professionnels depuis " + importFilePath + " ---");
         
-        // 1. Récupérer la liste des professionnels en mémoire
-        List<ProfessionnelSante> pros = adminService.getProfessionnels();
+        // 1. Copier la liste des professionnels en mémoire (le service ne rend qu'une vue en lecture seule)
+        List<ProfessionnelSante> pros = new ArrayList<>(adminService.getProfessionnels());
         
-        // 2. Déléguer la lecture, l'ajout et la sauvegarde au DataService
-        int importedCount = dataService.importProfessionnels(importFilePath, pros);
+        // 2. Déléguer la lecture, l'ajout et la sauvegarde au DataService ; les doublons de login
+        //    se vérifient dans l'annuaire, et chaque compte accepté peut se connecter aussitôt
+        int importedCount = dataService.importProfessionnels(importFilePath, pros,
+                adminService::findUtilisateur, adminService::creerCompte);
         
         System.out.println("✅ " + importedCount + " nouveaux professionnels importés et sauvegardés.");
     }
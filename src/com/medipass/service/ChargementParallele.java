@@ -0,0 +1,156 @@
+package com.medipass.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+import com.medipass.model.Antecedent;
+import com.medipass.model.Consultation;
+import com.medipass.model.Patient;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Chargement de démarrage réparti sur tous les cœurs.
+ * Patients, professionnels et antécédents sont lus en parallèle ; consultations.csv est
+ * découpé en segments d'octets lus sur un pool fork-join. Les objets sont ensuite reliés
+ * (dossiers médicaux, plannings) dans le thread appelant, dans l'ordre du fichier.
+ * Si la lecture projetée échoue ou rejette une ligne, consultations.csv est relu en flux
+ * (DataService.streamConsultations, la lecture de référence) plutôt que de perdre des lignes.
+ */
+public class ChargementParallele {
+
+    /**
+     * Résultat d'un chargement : nombre d'objets par fichier et durée totale.
+     */
+    public record Bilan(int patients, int professionnels, int consultations, int antecedents, long dureeNanos) {
+    }
+
+    private record LigneAntecedent(int patientId, Antecedent antecedent) {
+    }
+
+    // Lecture projetée en cours : segments soumis au pool, null si le fichier n'a pu être ouvert
+    private record LectureConsultations(LecteurConsultationsMappe lecteur,
+                                        List<ForkJoinTask<List<LecteurConsultationsMappe.LigneConsultation>>> segments) {
+    }
+
+    private final DataService dataService;
+    private final ForkJoinPool pool;
+
+    public ChargementParallele(DataService dataService) {
+        this(dataService, ForkJoinPool.commonPool());
+    }
+
+    public ChargementParallele(DataService dataService, ForkJoinPool pool) {
+        this.dataService = dataService;
+        this.pool = pool;
+    }
+
+    /**
+     * Charge toutes les données dans les services.
+     * @param enregistrement appelé pour chaque professionnel chargé (ex: inscription auprès de l'authentification)
+     */
+    public Bilan charger(PatientService patientService, AdministrateurService adminService,
+                         ConsultationService consultationService, Consumer<ProfessionnelSante> enregistrement) {
+        long debut = System.nanoTime();
+
+        // 1. Lecture concurrente : aucune tâche ne dépend d'une autre
+        ForkJoinTask<List<Patient>> patients = pool.submit(() -> {
+            List<Patient> liste = new ArrayList<>();
+            dataService.streamPatients(liste::add);
+            return liste;
+        });
+        ForkJoinTask<List<ProfessionnelSante>> pros = pool.submit(() -> {
+            List<ProfessionnelSante> liste = new ArrayList<>();
+            dataService.streamProfessionnels(liste::add);
+            return liste;
+        });
+        ForkJoinTask<List<LigneAntecedent>> antecedents = pool.submit(() -> {
+            List<LigneAntecedent> liste = new ArrayList<>();
+            dataService.streamAntecedents((ant, patientId) -> liste.add(new LigneAntecedent(patientId, ant)));
+            return liste;
+        });
+        LectureConsultations lecture = lireConsultations();
+
+        // 2. Liaison séquentielle, dans l'ordre des fichiers
+        for (Patient p : patients.join()) {
+            patientService.creerPatient(p);
+        }
+        Map<String, ProfessionnelSante> prosParLogin = new HashMap<>();
+        List<ProfessionnelSante> listePros = pros.join();
+        for (ProfessionnelSante p : listePros) {
+            adminService.creerCompte(p);
+            enregistrement.accept(p);
+            prosParLogin.putIfAbsent(p.getLoginID(), p);
+        }
+        int nbAntecedents = 0;
+        for (LigneAntecedent ligne : antecedents.join()) {
+            Patient patient = patientService.findPatientById(ligne.patientId());
+            if (patient != null) {
+                patient.getDossierMedical().ajouterAntecedent(ligne.antecedent());
+                nbAntecedents++;
+            }
+        }
+        int nbConsultations = 0;
+        List<List<LecteurConsultationsMappe.LigneConsultation>> lignes = joindre(lecture);
+        if (lignes == null) {
+            System.err.println("⚠️ Lecture projetée de consultations.csv incomplète : relecture en flux.");
+            nbConsultations = dataService.streamConsultations(patientService::findPatientById, prosParLogin::get,
+                    consultationService::ajouterConsultationExistante);
+        } else {
+            for (List<LecteurConsultationsMappe.LigneConsultation> segment : lignes) {
+                for (LecteurConsultationsMappe.LigneConsultation ligne : segment) {
+                    Consultation c = dataService.lierConsultation(ligne, patientService::findPatientById,
+                            prosParLogin::get);
+                    if (c != null) {
+                        consultationService.ajouterConsultationExistante(c);
+                        nbConsultations++;
+                    }
+                }
+            }
+        }
+
+        return new Bilan(patientService.getNombrePatients(), listePros.size(), nbConsultations, nbAntecedents,
+                System.nanoTime() - debut);
+    }
+
+    // Soumet un segment de consultations.csv par tâche ; les lignes sont seulement décodées ici
+    private LectureConsultations lireConsultations() {
+        List<ForkJoinTask<List<LecteurConsultationsMappe.LigneConsultation>>> taches = new ArrayList<>();
+        try {
+            LecteurConsultationsMappe lecteur = dataService.ouvrirLecteurConsultations();
+            if (lecteur == null) return new LectureConsultations(null, taches);
+            for (long[] segment : lecteur.segments(pool.getParallelism() * 4)) {
+                taches.add(pool.submit(() -> {
+                    List<LecteurConsultationsMappe.LigneConsultation> lignes = new ArrayList<>();
+                    lecteur.parcourir(segment[0], segment[1], lignes::add);
+                    return lignes;
+                }));
+            }
+            return new LectureConsultations(lecteur, taches);
+        } catch (Exception e) {
+            System.err.println("Erreur chargement consultations: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Lignes décodées, segment par segment ; null si un segment a échoué ou si une ligne a été rejetée
+    private List<List<LecteurConsultationsMappe.LigneConsultation>> joindre(LectureConsultations lecture) {
+        if (lecture == null) return null;
+        List<List<LecteurConsultationsMappe.LigneConsultation>> lignes = new ArrayList<>();
+        boolean complete = true;
+        for (ForkJoinTask<List<LecteurConsultationsMappe.LigneConsultation>> segment : lecture.segments()) {
+            try {
+                lignes.add(segment.join());
+            } catch (RuntimeException e) {
+                System.err.println("Erreur chargement consultations: " + e.getMessage());
+                complete = false;
+            }
+        }
+        if (!complete || (lecture.lecteur() != null && lecture.lecteur().getLignesRejetees() > 0)) return null;
+        return lignes;
+    }
+}
@@ -0,0 +1,189 @@
+package com.medipass.service;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.StatutConsultation;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Copie en colonnes primitives des consultations, alimentée au fil des événements.
+ * Une ligne par consultation : code du professionnel, mois (année * 12 + mois - 1),
+ * statut et durée. Les rapports parcourent ces tableaux et ne touchent à aucun objet
+ * Consultation. Les professionnels et spécialités sont encodés par dictionnaire.
+ * Non synchronisée : StatistiquesService sérialise les accès.
+ */
+class ColonnesConsultations {
+
+    private int taille;
+    private int[] pro = new int[1024];
+    private int[] mois = new int[1024];
+    private byte[] statut = new byte[1024];
+    private int[] duree = new int[1024];
+    private final Int2IntOpenHashMap ligneParId = new Int2IntOpenHashMap();
+
+    private final Map<ProfessionnelSante, Integer> codesPro = new HashMap<>();
+    private final List<ProfessionnelSante> pros = new ArrayList<>();
+    private int[] specialiteParPro = new int[64];
+    private final Map<String, Integer> codesSpecialite = new HashMap<>();
+    private final List<String> specialites = new ArrayList<>();
+
+    private int moisMin = Integer.MAX_VALUE;
+    private int moisMax = Integer.MIN_VALUE;
+    private int dureeMax;
+
+    ColonnesConsultations() {
+        ligneParId.defaultReturnValue(-1);
+    }
+
+    void ajouter(Consultation c) {
+        if (taille == pro.length) {
+            int capacite = taille * 2;
+            pro = Arrays.copyOf(pro, capacite);
+            mois = Arrays.copyOf(mois, capacite);
+            statut = Arrays.copyOf(statut, capacite);
+            duree = Arrays.copyOf(duree, capacite);
+        }
+        int m = c.getDateHeure().getYear() * 12 + c.getDateHeure().getMonthValue() - 1;
+        pro[taille] = codePro(c.getProfessionnel());
+        mois[taille] = m;
+        statut[taille] = (byte) c.getStatutConsultation().ordinal();
+        duree[taille] = c.getDureeMinutes();
+        ligneParId.put(c.getIdConsultation(), taille);
+        taille++;
+        moisMin = Math.min(moisMin, m);
+        moisMax = Math.max(moisMax, m);
+        dureeMax = Math.max(dureeMax, c.getDureeMinutes());
+    }
+
+    void statutModifie(Consultation c) {
+        int ligne = ligneParId.get(c.getIdConsultation());
+        if (ligne >= 0) {
+            statut[ligne] = (byte) c.getStatutConsultation().ordinal();
+        }
+    }
+
+    private int codePro(ProfessionnelSante p) {
+        Integer code = codesPro.get(p);
+        if (code != null) return code;
+        code = pros.size();
+        codesPro.put(p, code);
+        pros.add(p);
+        if (code == specialiteParPro.length) {
+            specialiteParPro = Arrays.copyOf(specialiteParPro, code * 2);
+        }
+        String specialite = p.getSpecialite() != null ? p.getSpecialite() : "";
+        Integer codeSpecialite = codesSpecialite.get(specialite);
+        if (codeSpecialite == null) {
+            codeSpecialite = specialites.size();
+            codesSpecialite.put(specialite, codeSpecialite);
+            specialites.add(specialite);
+        }
+        specialiteParPro[code] = codeSpecialite;
+        return code;
+    }
+
+    int taille() {
+        return taille;
+    }
+
+    // ==================== RAPPORTS ====================
+
+    /**
+     * Nombre de consultations (tous statuts) par professionnel et par mois
+     */
+    Map<ProfessionnelSante, TreeMap<YearMonth, Integer>> parProfessionnelEtMois() {
+        Map<ProfessionnelSante, TreeMap<YearMonth, Integer>> resultat = new LinkedHashMap<>();
+        if (taille == 0) return resultat;
+        int nbMois = moisMax - moisMin + 1;
+        long cases = (long) nbMois * pros.size();
+        if (cases <= 10_000_000) {
+            // Tableau dense pro x mois : une incrémentation par ligne
+            int[] compteurs = new int[(int) cases];
+            for (int i = 0; i < taille; i++) {
+                compteurs[pro[i] * nbMois + mois[i] - moisMin]++;
+            }
+            for (int p = 0; p < pros.size(); p++) {
+                TreeMap<YearMonth, Integer> parMois = new TreeMap<>();
+                for (int m = 0; m < nbMois; m++) {
+                    int n = compteurs[p * nbMois + m];
+                    if (n > 0) parMois.put(versMois(moisMin + m), n);
+                }
+                if (!parMois.isEmpty()) resultat.put(pros.get(p), parMois);
+            }
+        } else {
+            // Plage de dates trop étendue pour un tableau dense
+            Map<Long, Integer> compteurs = new HashMap<>();
+            for (int i = 0; i < taille; i++) {
+                compteurs.merge(((long) pro[i] << 32) | (mois[i] & 0xFFFFFFFFL), 1, Integer::sum);
+            }
+            compteurs.forEach((cle, n) -> resultat
+                    .computeIfAbsent(pros.get((int) (cle >>> 32)), p -> new TreeMap<>())
+                    .put(versMois((int) (long) cle), n));
+        }
+        return resultat;
+    }
+
+    /**
+     * Taux d'annulation (en %) par spécialité
+     */
+    Map<String, Double> tauxAnnulationParSpecialite() {
+        int[] total = new int[specialites.size()];
+        int[] annulees = new int[specialites.size()];
+        byte annulee = (byte) StatutConsultation.ANNULEE.ordinal();
+        for (int i = 0; i < taille; i++) {
+            int s = specialiteParPro[pro[i]];
+            total[s]++;
+            if (statut[i] == annulee) annulees[s]++;
+        }
+        Map<String, Double> resultat = new TreeMap<>();
+        for (int s = 0; s < specialites.size(); s++) {
+            if (total[s] > 0) resultat.put(specialites.get(s), annulees[s] * 100.0 / total[s]);
+        }
+        return resultat;
+    }
+
+    /**
+     * Percentiles de durée des consultations non annulées, par histogramme de comptage
+     * @param rangs percentiles demandés, entre 0 et 100
+     * @return la durée en minutes pour chaque rang (0 si aucune consultation)
+     */
+    int[] percentilesDuree(double... rangs) {
+        int[] histogramme = new int[dureeMax + 1];
+        int n = 0;
+        byte annulee = (byte) StatutConsultation.ANNULEE.ordinal();
+        for (int i = 0; i < taille; i++) {
+            if (statut[i] != annulee) {
+                histogramme[duree[i]]++;
+                n++;
+            }
+        }
+        int[] resultat = new int[rangs.length];
+        if (n == 0) return resultat;
+        for (int r = 0; r < rangs.length; r++) {
+            long seuil = Math.max(1, (long) Math.ceil(rangs[r] / 100.0 * n));
+            long cumul = 0;
+            for (int d = 0; d < histogramme.length; d++) {
+                cumul += histogramme[d];
+                if (cumul >= seuil) {
+                    resultat[r] = d;
+                    break;
+                }
+            }
+        }
+        return resultat;
+    }
+
+    private static YearMonth versMois(int code) {
+        return YearMonth.of(Math.floorDiv(code, 12), Math.floorMod(code, 12) + 1);
+    }
+}
@@ -2,92 +2,319 @@ package com.medipass.service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
+
 import com.medipass.model.Consultation;
+import com.medipass.model.ObservateurConsultation;
 import com.medipass.model.Patient;
+import com.medipass.model.StatutConsultation;
 import com.medipass.user.ProfessionnelSante;
 
 /**
  * Service de gestion des consultations.
  * Permet de programmer, annuler et suivre les consultations avec gestion des périodes.
+ *
+ * Sûr entre threads, pour plusieurs sessions simultanées :
+ * - le créneau est réservé sans verrou, par compare-and-set sur le planning du professionnel
+ *   puis sur l'agenda du patient : une forte demande sur un médecin ne ralentit pas les
+ *   réservations des autres, et deux sessions ne peuvent pas prendre le même créneau ;
+ * - les tables globales (par ID, par jour, par statut) sont sous un verrou lecture/écriture,
+ *   tenu en écriture seulement le temps de l'insertion ;
+ * - les modifications d'une même consultation (statut, observations) se font une à une,
+ *   sous le moniteur de la consultation.
  */
 public class ConsultationService {
-    private final List<Consultation> consultations = new ArrayList<>();
+    // Indexées par ID, dans l'ordre d'ajout
+    private final Int2ObjectLinkedOpenHashMap<Consultation> consultations = new Int2ObjectLinkedOpenHashMap<>();
+    // Toutes les consultations (tous statuts) regroupées par jour de début, pour les requêtes par période
+    private final TreeMap<Long, List<Consultation>> parJour = new TreeMap<>();
+    // Consultations réparties par statut ; la taille de chaque partition sert de compteur
+    private final EnumMap<StatutConsultation, Int2ObjectLinkedOpenHashMap<Consultation>> parStatut =
+            new EnumMap<>(StatutConsultation.class);
+    private final ObservateurConsultation suiviStatut = this::deplacerStatut;
+    private final List<EcouteurDonnees> ecouteurs = new CopyOnWriteArrayList<>();
+    private final ReentrantReadWriteLock tables = new ReentrantReadWriteLock();
+
+    /**
+     * Demande de consultation d'une programmation groupée
+     */
+    public record DemandeConsultation(LocalDateTime dateHeure, String motif, ProfessionnelSante professionnel,
+                                      Patient patient, int dureeMinutes) {
+    }
+
+    /**
+     * Issue d'une demande : la consultation enregistrée, ou le motif du refus
+     */
+    public record ResultatDemande(DemandeConsultation demande, Consultation consultation, String refus) {
+        public boolean estAcceptee() {
+            return consultation != null;
+        }
+    }
+
+    public ConsultationService() {
+        for (StatutConsultation s : StatutConsultation.values()) {
+            parStatut.put(s, new Int2ObjectLinkedOpenHashMap<>());
+        }
+    }
+
+    /**
+     * Abonne un écouteur aux ajouts et modifications de consultations
+     */
+    public void ajouterEcouteur(EcouteurDonnees ecouteur) {
+        ecouteurs.add(ecouteur);
+    }
 
     /**
      * Programme une nouvelle consultation avec validations complètes
      */
     public boolean programmerConsultation(LocalDateTime dateHeure, String motif, 
                                         ProfessionnelSante professionnel, Patient patient) {
-        // Validations de base
-        if (dateHeure == null || motif == null || professionnel == null || patient == null) {
-            System.err.println("❌ Paramètres invalides");
-            return false;
-        }
+        return programmerConsultation(dateHeure, motif, professionnel, patient, 0);
+    }
 
-        // Vérifier que ce n'est pas dans le passé
-        if (dateHeure.isBefore(LocalDateTime.now())) {
-            System.err.println("❌ Impossible de programmer une consultation dans le passé");
-            return false;
-        }
+    /**
+     * Programme une nouvelle consultation d'une durée donnée (0 pour la durée par défaut)
+     */
+    public boolean programmerConsultation(LocalDateTime dateHeure, String motif,
+                                        ProfessionnelSante professionnel, Patient patient, int dureeMinutes) {
+        return programmer(dateHeure, motif, professionnel, patient, dureeMinutes) != null;
+    }
 
-        // Vérifier que le motif n'est pas vide
-        if (motif.trim().isEmpty()) {
-            System.err.println("❌ Le motif ne peut pas être vide");
-            return false;
+    /**
+     * Programme une nouvelle consultation, comme programmerConsultation
+     * @return la consultation enregistrée, ou null si elle est refusée
+     */
+    public Consultation programmer(LocalDateTime dateHeure, String motif,
+                                   ProfessionnelSante professionnel, Patient patient, int dureeMinutes) {
+        String refus = valider(dateHeure, motif, professionnel, patient, LocalDateTime.now());
+        if (refus != null) {
+            System.err.println("❌ " + refus);
+            return null;
         }
 
         // Créer une consultation temporaire pour les tests
         Consultation nouvelleConsultation = new Consultation(dateHeure, motif, professionnel, patient);
+        nouvelleConsultation.setDureeMinutes(dureeMinutes);
 
-        // Vérifier la disponibilité du professionnel
-        if (!professionnel.estDisponiblePour(nouvelleConsultation)) {
-            System.err.println("❌ Le professionnel n'est pas disponible à cette heure");
-            return false;
+        refus = reserver(nouvelleConsultation);
+        if (refus != null) {
+            System.err.println("❌ " + refus);
+            return null;
         }
+        enregistrer(nouvelleConsultation);
+        return nouvelleConsultation;
+    }
 
-        // Vérifier la disponibilité du patient
-        if (!patientEstDisponible(patient, nouvelleConsultation)) {
-            System.err.println("❌ Le patient a déjà une consultation à cette heure");
-            return false;
+    /**
+     * Programme un lot de consultations (campagne de vaccination, journée de dépistage...).
+     * Les demandes sont regroupées par professionnel et par patient, triées par heure de début,
+     * puis vérifiées en une seule passe de fusion avec le planning de chaque professionnel et
+     * l'agenda de chaque patient, lus une fois pour tout le lot. Entre deux demandes du lot
+     * qui se chevauchent, la plus tôt l'emporte (à égalité, la première de la liste).
+     * Les créneaux retenus sont ensuite réservés comme une programmation unitaire : une autre
+     * session a pu en prendre un entre-temps, il est alors refusé. Les écouteurs reçoivent
+     * le lot entre debutLot et finLot ; le journal l'écrit sur disque en une fois.
+     * Une durée nulle vaut la durée par défaut, une durée négative est refusée.
+     * @return un résultat par demande, dans l'ordre des demandes
+     */
+    public List<ResultatDemande> programmerLot(List<DemandeConsultation> demandes) {
+        int n = demandes.size();
+        String[] refus = new String[n];
+        long[] debuts = new long[n];
+        long[] fins = new long[n];
+        LocalDateTime maintenant = LocalDateTime.now();
+
+        // Regroupement : étendue [premier début, dernière fin[ demandée par professionnel et par patient
+        Map<ProfessionnelSante, long[]> etenduesPros = new HashMap<>();
+        Map<Patient, long[]> etenduesPatients = new HashMap<>();
+        List<Integer> ordre = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            DemandeConsultation d = demandes.get(i);
+            refus[i] = d == null ? "Paramètres invalides"
+                    : valider(d.dateHeure(), d.motif(), d.professionnel(), d.patient(), maintenant);
+            if (refus[i] == null && d.dureeMinutes() < 0) {
+                refus[i] = "Durée invalide";
+            }
+            if (refus[i] != null) continue;
+            debuts[i] = d.dateHeure().toEpochSecond(ZoneOffset.UTC) / 60;
+            // Durée 0 : durée par défaut, comme pour une programmation unitaire
+            fins[i] = debuts[i] + (d.dureeMinutes() == 0 ? Consultation.DUREE_DEFAUT : d.dureeMinutes());
+            etendre(etenduesPros.computeIfAbsent(d.professionnel(), p -> nouvelleEtendue()), debuts[i], fins[i]);
+            etendre(etenduesPatients.computeIfAbsent(d.patient(), p -> nouvelleEtendue()), debuts[i], fins[i]);
+            ordre.add(i);
+        }
+        ordre.sort(Comparator.comparingLong((Integer i) -> debuts[i]).thenComparingInt(i -> i));
+
+        // Fusion : chaque demande, dans l'ordre chronologique, avance le curseur de son
+        // professionnel et celui de son patient
+        Map<ProfessionnelSante, Curseur> plannings = new HashMap<>();
+        etenduesPros.forEach((pro, e) -> plannings.put(pro, new Curseur(pro.getConsultationsChevauchant(e[0], e[1]))));
+        Map<Patient, Curseur> agendas = new HashMap<>();
+        etenduesPatients.forEach((patient, e) -> agendas.put(patient,
+                new Curseur(patient.getDossierMedical().getConsultationsChevauchant(e[0], e[1]))));
+        List<Integer> retenues = new ArrayList<>();
+        for (int i : ordre) {
+            DemandeConsultation d = demandes.get(i);
+            Curseur planning = plannings.get(d.professionnel());
+            Curseur agenda = agendas.get(d.patient());
+            boolean proLibre = planning.estLibre(debuts[i], fins[i]);
+            boolean patientLibre = agenda.estLibre(debuts[i], fins[i]);
+            if (!proLibre) {
+                refus[i] = "Le professionnel n'est pas disponible à cette heure";
+            } else if (!patientLibre) {
+                refus[i] = "Le patient a déjà une consultation à cette heure";
+            } else {
+                planning.occuper(fins[i]);
+                agenda.occuper(fins[i]);
+                retenues.add(i);
+            }
         }
 
-        // Tout est OK, enregistrer la consultation
-        professionnel.ajouterConsultation(nouvelleConsultation);
-        patient.getDossierMedical().ajouterConsultation(nouvelleConsultation);
-        consultations.add(nouvelleConsultation);
-        
-        return true;
+        Consultation[] creees = new Consultation[n];
+        for (EcouteurDonnees e : ecouteurs) {
+            e.debutLot();
+        }
+        try {
+            for (int i : retenues) {
+                DemandeConsultation d = demandes.get(i);
+                Consultation c = new Consultation(d.dateHeure(), d.motif(), d.professionnel(), d.patient());
+                c.setDureeMinutes(d.dureeMinutes());
+                refus[i] = reserver(c);
+                if (refus[i] == null) {
+                    enregistrer(c);
+                    creees[i] = c;
+                }
+            }
+        } finally {
+            for (EcouteurDonnees e : ecouteurs) {
+                e.finLot();
+            }
+        }
+
+        List<ResultatDemande> resultats = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            resultats.add(new ResultatDemande(demandes.get(i), creees[i], refus[i]));
+        }
+        return resultats;
     }
 
-    /**
-     * Vérifie si un patient est disponible pour une consultation
-     */
-    private boolean patientEstDisponible(Patient patient, Consultation nouvelleConsultation) {
-        LocalDateTime debut1 = nouvelleConsultation.getDateHeure();
-        LocalDateTime fin1 = nouvelleConsultation.getFinConsultation();
-
-        for (Consultation existante : patient.getDossierMedical().getConsultations()) {
-            // Ignorer les consultations annulées
-            if ("annulée".equalsIgnoreCase(existante.getStatut())) {
-                continue;
+    // Parcours d'un planning existant (trié par début) pendant la fusion
+    private static final class Curseur {
+        private final List<Consultation> existantes;
+        private int suivante;
+        // Fin la plus tardive parmi les créneaux déjà parcourus ou retenus
+        private long finOccupee = Long.MIN_VALUE;
+
+        Curseur(List<Consultation> existantes) {
+            this.existantes = existantes;
+        }
+
+        // Les créneaux doivent être présentés par début croissant
+        boolean estLibre(long debut, long fin) {
+            while (suivante < existantes.size() && existantes.get(suivante).getDebutMinute() <= debut) {
+                Consultation c = existantes.get(suivante++);
+                finOccupee = Math.max(finOccupee, Math.max(c.getFinMinute(), c.getDebutMinute() + 1));
             }
+            return finOccupee <= debut
+                    && (suivante == existantes.size() || existantes.get(suivante).getDebutMinute() >= fin);
+        }
 
-            LocalDateTime debut2 = existante.getDateHeure();
-            LocalDateTime fin2 = existante.getFinConsultation();
+        void occuper(long fin) {
+            finOccupee = Math.max(finOccupee, fin);
+        }
+    }
 
-            // Test de chevauchement: (StartA < EndB) and (EndA > StartB)
-            if (debut1.isBefore(fin2) && fin1.isAfter(debut2)) {
-                return false; // Conflit trouvé
+    private static long[] nouvelleEtendue() {
+        return new long[] {Long.MAX_VALUE, Long.MIN_VALUE};
+    }
+
+    private static void etendre(long[] etendue, long debut, long fin) {
+        etendue[0] = Math.min(etendue[0], debut);
+        etendue[1] = Math.max(etendue[1], fin);
+    }
+
+    // null si la demande est recevable, sinon le motif du refus
+    private static String valider(LocalDateTime dateHeure, String motif, ProfessionnelSante professionnel,
+                                  Patient patient, LocalDateTime maintenant) {
+        if (dateHeure == null || motif == null || professionnel == null || patient == null) {
+            return "Paramètres invalides";
+        }
+        if (dateHeure.isBefore(maintenant)) {
+            return "Impossible de programmer une consultation dans le passé";
+        }
+        if (motif.trim().isEmpty()) {
+            return "Le motif ne peut pas être vide";
+        }
+        return null;
+    }
+
+    // Réservation optimiste du créneau : professionnel d'abord, puis patient ;
+    // null si le créneau est réservé, sinon le motif du refus
+    private static String reserver(Consultation c) {
+        if (!c.getProfessionnel().reserverConsultation(c)) {
+            return "Le professionnel n'est pas disponible à cette heure";
+        }
+        if (!c.getPatient().getDossierMedical().reserverConsultation(c)) {
+            c.getProfessionnel().libererConsultation(c);
+            return "Le patient a déjà une consultation à cette heure";
+        }
+        return null;
+    }
+
+    // Enregistre une consultation réservée ; un changement de statut attend que l'ajout ait été notifié
+    private void enregistrer(Consultation nouvelleConsultation) {
+        synchronized (nouvelleConsultation) {
+            tables.writeLock().lock();
+            try {
+                consultations.put(nouvelleConsultation.getIdConsultation(), nouvelleConsultation);
+                indexerParJour(nouvelleConsultation);
+            } finally {
+                tables.writeLock().unlock();
+            }
+            for (EcouteurDonnees e : ecouteurs) {
+                e.consultationAjoutee(nouvelleConsultation);
+            }
+        }
+    }
+
+    // Appelé avec le verrou des tables en écriture
+    private void indexerParJour(Consultation c) {
+        parJour.computeIfAbsent(c.getDateHeure().toLocalDate().toEpochDay(), j -> new ArrayList<>()).add(c);
+        parStatut.get(c.getStatutConsultation()).put(c.getIdConsultation(), c);
+        c.suivrePar(suiviStatut);
+    }
+
+    // Appelé par la consultation elle-même, quel que soit le chemin qui change son statut
+    private void deplacerStatut(Consultation c, StatutConsultation ancien) {
+        StatutConsultation nouveau = c.getStatutConsultation();
+        if (ancien == nouveau) return;
+        boolean deplacee;
+        tables.writeLock().lock();
+        try {
+            deplacee = parStatut.get(ancien).remove(c.getIdConsultation()) != null;
+            if (deplacee) parStatut.get(nouveau).put(c.getIdConsultation(), c);
+        } finally {
+            tables.writeLock().unlock();
+        }
+        if (deplacee) {
+            for (EcouteurDonnees e : ecouteurs) {
+                e.statutModifie(c, ancien.getLibelle());
             }
         }
-        return true;
     }
 
     /**
@@ -98,13 +325,22 @@ public class ConsultationService {
             return;
         }
         
-        // Vérifier qu'elle n'existe pas déjà
-        if (findConsultationById(c.getIdConsultation()) != null) {
-            System.err.println("⚠️ Consultation " + c.getIdConsultation() + " existe déjà, ignorée");
-            return;
+        tables.writeLock().lock();
+        try {
+            // Vérifier qu'elle n'existe pas déjà
+            if (consultations.containsKey(c.getIdConsultation())) {
+                System.err.println("⚠️ Consultation " + c.getIdConsultation() + " existe déjà, ignorée");
+                return;
+            }
+
+            consultations.put(c.getIdConsultation(), c);
+            indexerParJour(c);
+        } finally {
+            tables.writeLock().unlock();
+        }
+        for (EcouteurDonnees e : ecouteurs) {
+            e.consultationAjoutee(c);
         }
-        
-        consultations.add(c);
     }
 
     /**
@@ -117,72 +353,112 @@ public class ConsultationService {
         }
 
         // Marquer comme annulée au lieu de supprimer (historique médical)
-        consultation.setStatut("annulée");
-        
-        return true;
+        return changerStatut(consultation, StatutConsultation.ANNULEE);
     }
 
     /**
      * Recherche une consultation par ID
      */
     public Consultation findConsultationById(int id) {
-        return consultations.stream()
-                .filter(c -> c.getIdConsultation() == id)
-                .findFirst().orElse(null);
+        tables.readLock().lock();
+        try {
+            return consultations.get(id);
+        } finally {
+            tables.readLock().unlock();
+        }
     }
 
     /**
      * Récupère toutes les consultations
      */
     public List<Consultation> getConsultations() {
-        return new ArrayList<>(consultations);
+        tables.readLock().lock();
+        try {
+            return new ArrayList<>(consultations.values());
+        } finally {
+            tables.readLock().unlock();
+        }
     }
 
     /**
      * Récupère les consultations d'un patient
      */
     public List<Consultation> getConsultationsPatient(Patient patient) {
-        return consultations.stream()
-                .filter(c -> c.getPatient().getId() == patient.getId())
-                .collect(Collectors.toList());
+        tables.readLock().lock();
+        try {
+            return consultations.values().stream()
+                    .filter(c -> c.getPatient().getId() == patient.getId())
+                    .collect(Collectors.toList());
+        } finally {
+            tables.readLock().unlock();
+        }
     }
 
     /**
      * Récupère les consultations d'un professionnel
      */
     public List<Consultation> getConsultationsProfessionnel(ProfessionnelSante professionnel) {
-        return new ArrayList<>(professionnel.getPlanning());
+        return professionnel.getPlanning();
     }
 
     /**
      * Récupère les consultations entre deux dates
      */
     public List<Consultation> getConsultationsParPeriode(LocalDateTime debut, LocalDateTime fin) {
-        return consultations.stream()
-                .filter(c -> !c.getDateHeure().isBefore(debut) && c.getDateHeure().isBefore(fin))
-                .collect(Collectors.toList());
+        List<Consultation> resultat = new ArrayList<>();
+        if (!debut.isBefore(fin)) return resultat;
+        // Seuls les jours de la période sont parcourus ; les jours extrêmes sont filtrés à l'heure près
+        long premierJour = debut.toLocalDate().toEpochDay();
+        long dernierJour = fin.toLocalDate().toEpochDay();
+        tables.readLock().lock();
+        try {
+            for (List<Consultation> jour : parJour.subMap(premierJour, true, dernierJour, true).values()) {
+                for (Consultation c : jour) {
+                    if (!c.getDateHeure().isBefore(debut) && c.getDateHeure().isBefore(fin)) {
+                        resultat.add(c);
+                    }
+                }
+            }
+        } finally {
+            tables.readLock().unlock();
+        }
+        return resultat;
     }
 
     /**
      * Récupère les consultations selon leur statut
      */
     public List<Consultation> getConsultationsParStatut(String statut) {
-        return consultations.stream()
-                .filter(c -> c.getStatut().equalsIgnoreCase(statut))
-                .collect(Collectors.toList());
+        StatutConsultation s = StatutConsultation.depuisLibelle(statut);
+        return s == null ? new ArrayList<>() : getConsultationsParStatut(s);
+    }
+
+    public List<Consultation> getConsultationsParStatut(StatutConsultation statut) {
+        tables.readLock().lock();
+        try {
+            return new ArrayList<>(parStatut.get(statut).values());
+        } finally {
+            tables.readLock().unlock();
+        }
+    }
+
+    /**
+     * Nombre de consultations ayant ce statut, sans parcours
+     */
+    public int getNombreConsultations(StatutConsultation statut) {
+        tables.readLock().lock();
+        try {
+            return parStatut.get(statut).size();
+        } finally {
+            tables.readLock().unlock();
+        }
     }
 
     /**
      * Récupère les prochaines consultations d'un professionnel (non effectuées)
      */
     public List<Consultation> getProchainesConsultations(ProfessionnelSante professionnel) {
-        LocalDateTime maintenant = LocalDateTime.now();
-        return consultations.stream()
-                .filter(c -> c.getProfessionnel().getLoginID().equals(professionnel.getLoginID()))
-                .filter(c -> c.getDateHeure().isAfter(maintenant))
-                .filter(c -> !"annulée".equalsIgnoreCase(c.getStatut()))
-                .sorted((c1, c2) -> c1.getDateHeure().compareTo(c2.getDateHeure()))
-                .collect(Collectors.toList());
+        return professionnel.getConsultationsApres(LocalDateTime.now());
     }
 
     /**
@@ -190,12 +466,8 @@ public class ConsultationService {
      */
     public String afficherPlanningPeriode(ProfessionnelSante professionnel, 
                                          LocalDateTime debut, LocalDateTime fin) {
-        List<Consultation> consultationsPeriode = consultations.stream()
-            .filter(c -> c.getProfessionnel().getLoginID().equals(professionnel.getLoginID()))
-            .filter(c -> !c.getDateHeure().isBefore(debut) && c.getDateHeure().isBefore(fin))
-            .filter(c -> !"annulée".equalsIgnoreCase(c.getStatut()))
-            .sorted((c1, c2) -> c1.getDateHeure().compareTo(c2.getDateHeure()))
-            .collect(Collectors.toList());
+        // Index du planning : déjà trié et sans les consultations annulées
+        List<Consultation> consultationsPeriode = professionnel.getConsultationsEntre(debut, fin);
 
         StringBuilder sb = new StringBuilder();
         sb.append("=== PLANNING DE ").append(professionnel.getNom()).append(" ")
@@ -271,7 +543,12 @@ public class ConsultationService {
         if (consultation == null) {
             return false;
         }
-        consultation.setObservations(observations);
+        synchronized (consultation) {
+            consultation.setObservations(observations);
+            for (EcouteurDonnees e : ecouteurs) {
+                e.observationsAjoutees(consultation);
+            }
+        }
         return true;
     }
 
@@ -283,49 +560,65 @@ public class ConsultationService {
         if (consultation == null) {
             return false;
         }
-        consultation.setDiagnostic(diagnostic);
+        synchronized (consultation) {
+            consultation.setDiagnostic(diagnostic);
+            for (EcouteurDonnees e : ecouteurs) {
+                e.diagnosticAjoute(consultation);
+            }
+        }
         return true;
     }
 
     /**
-     * Marque une consultation comme effectuée
+     * Marque une consultation comme effectuée.
+     * Une consultation annulée dont le créneau a été repris entre-temps reste annulée.
+     * @return false si la consultation est introuvable ou son créneau pris
      */
     public boolean marquerEffectuee(int consultationId) {
         Consultation consultation = findConsultationById(consultationId);
         if (consultation == null) {
             return false;
         }
-        consultation.setStatut("effectuée");
-        return true;
+        return changerStatut(consultation, StatutConsultation.EFFECTUEE);
+    }
+
+    // Les écouteurs sont prévenus par deplacerStatut ; les agendas se réindexent eux-mêmes
+    private boolean changerStatut(Consultation consultation, StatutConsultation statut) {
+        synchronized (consultation) {
+            return consultation.setStatut(statut);
+        }
     }
 
     /**
      * Obtient le nombre total de consultations
      */
     public int getNombreConsultations() {
-        return consultations.size();
+        tables.readLock().lock();
+        try {
+            return consultations.size();
+        } finally {
+            tables.readLock().unlock();
+        }
     }
 
     /**
      * Obtient le nombre de consultations annulées
      */
     public int getNombreConsultationsAnnulees() {
-        return (int) consultations.stream()
-                .filter(c -> "annulée".equalsIgnoreCase(c.getStatut()))
-                .count();
+        return getNombreConsultations(StatutConsultation.ANNULEE);
     }
 
     /**
      * Calcule le taux de consultations effectuées
      */
     public double getTauxConsultationsEffectuees() {
-        if (consultations.isEmpty()) return 0.0;
-        
-        long effectuees = consultations.stream()
-                .filter(c -> "effectuée".equalsIgnoreCase(c.getStatut()))
-                .count();
-        
-        return (double) effectuees / consultations.size() * 100;
+        tables.readLock().lock();
+        try {
+            if (consultations.isEmpty()) return 0.0;
+            return (double) parStatut.get(StatutConsultation.EFFECTUEE).size() / consultations.size() * 100;
+        } finally {
+            tables.readLock().unlock();
+        }
     }
 
     /**
@@ -1,16 +1,29 @@
 package com.medipass.service;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 
 import tech.tablesaw.api.*;
 import tech.tablesaw.io.csv.CsvReadOptions;
 import tech.tablesaw.io.csv.CsvWriteOptions;
 
 import com.medipass.model.*;
+import com.medipass.security.HachageMotDePasse;
 import com.medipass.user.*;
 
 /**
@@ -24,9 +37,11 @@ public class DataService {
     private static final String PROS_FILE = "pros.csv";
     private static final String CONSULTATIONS_FILE = "consultations.csv";
     private static final String ANTECEDENTS_FILE = "antecedents.csv";
+    private static final String SNAPSHOT_FILE = "medipass.snap";
 
     // Dossier de sortie pour les exports (Relatif à la racine du projet)
     private static final String EXPORT_DIR = "exportedFiles/";
+    private static final String DUPLICATES_REPORT_FILE = "doublons_patients.csv";
 
     // ==================== Méthodes Utilitaires d'Exportation ====================
 
@@ -77,6 +92,148 @@ public class DataService {
                 .build();
     }
 
+    // Fichiers de données du projet : écriture atomique avec somme de contrôle (voir SnapshotAtomique)
+    private void ecrireSnapshot(Table table, String fichier) throws Exception {
+        SnapshotAtomique.ecrire(Paths.get(fichier), out -> table.write().csv(CsvWriteOptions.builder(out)
+                .separator(';')
+                .header(true)
+                .build()));
+    }
+
+    // Génération à lire pour un fichier de données (la précédente si la courante est corrompue)
+    private File fichierDonnees(String fichier) {
+        Path valide = SnapshotAtomique.resoudre(Paths.get(fichier));
+        return valide != null ? valide.toFile() : new File(fichier);
+    }
+
+    // ==================== LECTURE EN FLUX ====================
+
+    @FunctionalInterface
+    private interface LecteurLigne {
+        void lire(String[] champs) throws Exception;
+    }
+
+    /**
+     * Positions des colonnes d'un fichier CSV, résolues une seule fois depuis l'en-tête.
+     */
+    private static final class EnteteCsv {
+        private final Map<String, Integer> positions = new HashMap<>();
+
+        EnteteCsv(String ligne) {
+            String[] noms = ligne.split(";", -1);
+            for (int i = 0; i < noms.length; i++) {
+                positions.putIfAbsent(noms[i].trim(), i);
+            }
+        }
+
+        int position(String colonne) {
+            return positions.getOrDefault(colonne, -1);
+        }
+    }
+
+    // Valeur d'un champ, ou null si la colonne est absente ou la valeur manquante
+    private static String champ(String[] champs, int position) {
+        if (position < 0 || position >= champs.length) return null;
+        String valeur = champs[position];
+        if (valeur.isEmpty() || valeur.equals("null") || valeur.equals("NULL")) return null;
+        return valeur;
+    }
+
+    /**
+     * Découpe un enregistrement ';' selon la RFC 4180, comme l'écrit Tablesaw : un champ qui
+     * commence par '"' est entre guillemets, ';' et fins de ligne y sont du texte et '""' y vaut '"'.
+     * @return les champs, ou null si des guillemets restent ouverts (l'enregistrement
+     *         continue sur la ligne suivante)
+     */
+    static String[] decouperCsv(String enregistrement) {
+        if (enregistrement.indexOf('"') < 0) return enregistrement.split(";", -1);
+        List<String> champs = new ArrayList<>();
+        StringBuilder champ = new StringBuilder();
+        int n = enregistrement.length();
+        int i = 0;
+        while (true) {
+            champ.setLength(0);
+            if (i < n && enregistrement.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= n) return null;
+                    char c = enregistrement.charAt(i++);
+                    if (c != '"') {
+                        champ.append(c);
+                    } else if (i < n && enregistrement.charAt(i) == '"') {
+                        champ.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+            }
+            // Hors guillemets, le texte va jusqu'au séparateur ; un '"' au milieu d'un champ est du texte
+            while (i < n && enregistrement.charAt(i) != ';') {
+                champ.append(enregistrement.charAt(i++));
+            }
+            champs.add(champ.toString());
+            if (i >= n) return champs.toArray(new String[0]);
+            i++;
+        }
+    }
+
+    /**
+     * Parcourt un fichier ';' ligne par ligne : l'en-tête est lu une fois pour préparer
+     * le lecteur, puis chaque enregistrement lui est passé découpé (un champ entre guillemets
+     * peut s'étendre sur plusieurs lignes). Une ligne invalide est signalée et ignorée
+     * sans interrompre le chargement.
+     * @return le nombre de lignes lues sans erreur
+     */
+    private int lireCsvEnFlux(File file, String entite, Function<EnteteCsv, LecteurLigne> preparer) {
+        if (!file.exists()) return 0;
+        int lues = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String ligne = reader.readLine();
+            if (ligne != null && SnapshotAtomique.estEntete(ligne)) ligne = reader.readLine();
+            if (ligne == null) return 0;
+            if (!ligne.isEmpty() && ligne.charAt(0) == '\uFEFF') ligne = ligne.substring(1);
+            LecteurLigne lecteur = preparer.apply(new EnteteCsv(ligne));
+            while ((ligne = reader.readLine()) != null) {
+                if (ligne.isEmpty() || ligne.charAt(0) == '#') continue;
+                String[] champs = decouperCsv(ligne);
+                while (champs == null) {
+                    String suite = reader.readLine();
+                    if (suite == null) {
+                        System.err.println("Erreur parsing " + entite + ": guillemets non fermés en fin de fichier");
+                        return lues;
+                    }
+                    ligne = ligne + "\n" + suite;
+                    champs = decouperCsv(ligne);
+                }
+                try {
+                    lecteur.lire(champs);
+                    lues++;
+                } catch (Exception e) { System.err.println("Erreur parsing " + entite + ": " + e.getMessage()); }
+            }
+        } catch (Exception e) { System.err.println("Erreur chargement " + file.getName() + ": " + e.getMessage()); }
+        return lues;
+    }
+
+    // ==================== INDEX DE JOINTURE ====================
+
+    // Construits une seule fois par chargement : chaque ligne se résout ensuite en O(1)
+    private Int2ObjectOpenHashMap<Patient> indexerPatients(List<Patient> patients) {
+        Int2ObjectOpenHashMap<Patient> index = new Int2ObjectOpenHashMap<>(patients.size());
+        for (Patient p : patients) {
+            index.putIfAbsent(p.getId(), p);
+        }
+        return index;
+    }
+
+    private Map<String, ProfessionnelSante> indexerProfessionnels(List<ProfessionnelSante> pros) {
+        Map<String, ProfessionnelSante> index = new HashMap<>(pros.size() * 2);
+        for (ProfessionnelSante p : pros) {
+            index.putIfAbsent(p.getLoginID(), p);
+        }
+        return index;
+    }
+
     // ==================== MÉTHODES PRIVÉES DE CRÉATION DE TABLE ====================
 
     private Table createPatientTable(List<Patient> patients) {
@@ -164,12 +321,24 @@ public class DataService {
             .separator(';')
             .header(true)
             .missingValueIndicator("", "null", "NULL")
+            .commentPrefix('#') // en-tête et ligne de fin d'un fichier de données du projet
             .build();
         return Table.read().usingOptions(options);
     }
 
+    /**
+     * Importe les patients d'un CSV (colonnes id, nom, prenom, puis facultativement
+     * numeroSecuriteSociale, groupeSanguin, dateNaissance) à la suite de existingPatients.
+     * Les ID déjà présents sont ignorés ; les doublons probables (même NSS, même nom et
+     * date de naissance, nom proche) sont importés mais listés dans DUPLICATES_REPORT_FILE.
+     */
     public int importPatients(String importFilePath, List<Patient> existingPatients) throws Exception {
         Table importTable = readImportFile(importFilePath);
+        Int2ObjectOpenHashMap<Patient> patientsParId = indexerPatients(existingPatients);
+        DetectionDoublons detection = new DetectionDoublons();
+        for (Patient p : existingPatients) {
+            detection.indexer(p);
+        }
         int newPatientsCount = 0;
         for (Row row : importTable) {
             if (!row.columnNames().contains("id")) {
@@ -177,19 +346,24 @@ public class DataService {
             }
             try {
                 int id = row.getInt("id");
-                boolean exists = existingPatients.stream().anyMatch(p -> p.getId() == id);
-                if (!exists) {
+                if (!patientsParId.containsKey(id)) {
                     String nom = row.getString("nom");
                     String prenom = row.getString("prenom");
                     Patient newPatient = new Patient(id, nom, prenom);
                     if (row.columnNames().contains("numeroSecuriteSociale")) {
-                         String nss = row.getString("numeroSecuriteSociale");
+                         String nss = texte(row, "numeroSecuriteSociale");
                          if (nss != null) newPatient.setNumeroSecuriteSociale(nss);
                     }
                     if (row.columnNames().contains("groupeSanguin")) {
                         String gs = row.getString("groupeSanguin");
                         if (gs != null) newPatient.setGroupeSanguin(gs);
                     }
+                    if (row.columnNames().contains("dateNaissance")) {
+                        String naissance = texte(row, "dateNaissance");
+                        if (naissance != null) newPatient.setDateNaissance(LocalDate.parse(naissance));
+                    }
+                    detection.examiner(newPatient);
+                    patientsParId.put(id, newPatient);
                     existingPatients.add(newPatient);
                     newPatientsCount++;
                 }
@@ -198,36 +372,108 @@ public class DataService {
             }
         }
         savePatients(existingPatients);
+        saveDoublons(detection.getDoublons());
         return newPatientsCount;
     }
 
-    public int importProfessionnels(String importFilePath, List<ProfessionnelSante> existingPros) throws Exception {
+    // Valeur d'une colonne en texte, quel que soit le type détecté par Tablesaw (un NSS est lu comme un nombre)
+    private static String texte(Row row, String colonne) {
+        Object valeur = row.getObject(colonne);
+        return valeur == null ? null : valeur.toString();
+    }
+
+    /**
+     * Écrit le rapport des doublons probables du dernier import dans exportedFiles/
+     */
+    private void saveDoublons(List<DetectionDoublons.Doublon> doublons) {
+        try {
+            ensureExportDirectoryExists();
+            Table table = Table.create("Doublons");
+            table.addColumns(
+                    tech.tablesaw.api.IntColumn.create("idImporte"),
+                    tech.tablesaw.api.StringColumn.create("nomImporte"),
+                    tech.tablesaw.api.StringColumn.create("prenomImporte"),
+                    tech.tablesaw.api.IntColumn.create("idExistant"),
+                    tech.tablesaw.api.StringColumn.create("nomExistant"),
+                    tech.tablesaw.api.StringColumn.create("prenomExistant"),
+                    tech.tablesaw.api.StringColumn.create("motif"),
+                    tech.tablesaw.api.DoubleColumn.create("score"));
+            for (DetectionDoublons.Doublon d : doublons) {
+                Row row = table.appendRow();
+                row.setInt("idImporte", d.importe().getId());
+                row.setString("nomImporte", d.importe().getNom());
+                row.setString("prenomImporte", d.importe().getPrenom());
+                row.setInt("idExistant", d.existant().getId());
+                row.setString("nomExistant", d.existant().getNom());
+                row.setString("prenomExistant", d.existant().getPrenom());
+                row.setString("motif", d.motif());
+                row.setDouble("score", Math.round(d.score() * 100) / 100.0);
+            }
+            table.write().csv(getDefaultWriteOptions(EXPORT_DIR + DUPLICATES_REPORT_FILE));
+            if (!doublons.isEmpty()) {
+                System.out.println("⚠ " + doublons.size() + " doublon(s) probable(s), voir " + EXPORT_DIR + DUPLICATES_REPORT_FILE);
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur écriture du rapport de doublons: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Importe les professionnels dont le login n'est pas encore pris, puis sauvegarde pros.csv.
+     * Un mot de passe en clair est haché avant d'entrer en mémoire ou dans le fichier.
+     * Seuls les comptes acceptés par l'annuaire (logins comparés sans la casse) sont ajoutés
+     * à existingPros : le fichier et l'annuaire en mémoire restent d'accord.
+     * @param annuaire recherche d'un compte existant par login
+     * @param enregistrer crée le compte ; false si l'annuaire le refuse
+     */
+    public int importProfessionnels(String importFilePath, List<ProfessionnelSante> existingPros,
+                                    Function<String, ? extends Utilisateur> annuaire,
+                                    Predicate<ProfessionnelSante> enregistrer) throws Exception {
         Table importTable = readImportFile(importFilePath);
-        int newProsCount = 0;
-        for (Row row : importTable) {
-            if (!row.columnNames().contains("login")) {
-                throw new Exception("Structure de fichier Professionnels invalide.");
+        if (importTable.rowCount() > 0 && !importTable.columnNames().contains("login")) {
+            throw new Exception("Structure de fichier Professionnels invalide.");
+        }
+        List<Integer> nouvelles = new ArrayList<>();
+        List<String> motsDePasse = new ArrayList<>();
+        for (int i = 0; i < importTable.rowCount(); i++) {
+            Row row = importTable.row(i);
+            try {
+                if (annuaire.apply(row.getString("login")) == null) {
+                    nouvelles.add(i);
+                    motsDePasse.add(row.getString("password"));
+                }
+            } catch (Exception e) {
+                System.err.println("Erreur parsing professionnel: " + e.getMessage());
             }
+        }
+        // PBKDF2 est coûteux par construction : les empreintes d'un import se calculent en parallèle
+        List<String> empreintes = motsDePasse.parallelStream()
+                .map(mdp -> mdp == null || HachageMotDePasse.estHache(mdp) ? mdp : HachageMotDePasse.hacher(mdp))
+                .toList();
+
+        int newProsCount = 0;
+        for (int k = 0; k < nouvelles.size(); k++) {
+            Row row = importTable.row(nouvelles.get(k));
             try {
                 String login = row.getString("login");
-                boolean exists = existingPros.stream().anyMatch(p -> p.getLoginID().equals(login));
-                if (!exists) {
-                    String password = row.getString("password");
-                    String nom = row.getString("nom");
-                    String prenom = row.getString("prenom");
-                    String specialite = row.getString("specialite");
-                    String numeroOrdre = row.getString("numeroOrdre");
-                    String accessLevels = "STANDARD";
-                    if (row.columnNames().contains("accessLevels")) {
-                        accessLevels = row.getString("accessLevels");
-                    }
-                    ProfessionnelSante newPro = new ProfessionnelSante(login, password, "PRO", accessLevels, nom, prenom, specialite, numeroOrdre);
-                    if (row.columnNames().contains("horairesDisponibilite")) {
-                        String horaires = row.getString("horairesDisponibilite");
-                        if (horaires != null) newPro.setHorairesDisponibilite(horaires);
-                    }
+                String nom = row.getString("nom");
+                String prenom = row.getString("prenom");
+                String specialite = row.getString("specialite");
+                String numeroOrdre = row.getString("numeroOrdre");
+                String accessLevels = "STANDARD";
+                if (row.columnNames().contains("accessLevels")) {
+                    accessLevels = row.getString("accessLevels");
+                }
+                ProfessionnelSante newPro = new ProfessionnelSante(login, empreintes.get(k), "PRO", accessLevels, nom, prenom, specialite, numeroOrdre);
+                if (row.columnNames().contains("horairesDisponibilite")) {
+                    String horaires = row.getString("horairesDisponibilite");
+                    if (horaires != null) newPro.setHorairesDisponibilite(horaires);
+                }
+                if (enregistrer.test(newPro)) {
                     existingPros.add(newPro);
                     newProsCount++;
+                } else {
+                    System.err.println("⚠️ Login déjà existant, professionnel ignoré: " + login);
                 }
             } catch (Exception e) {
                 System.err.println("Erreur parsing professionnel: " + e.getMessage());
@@ -239,6 +485,8 @@ public class DataService {
 
     public int importConsultations(String importFilePath, List<Consultation> existingConsultations, List<Patient> allPatients, List<ProfessionnelSante> allPros) throws Exception {
         Table importTable = readImportFile(importFilePath);
+        Int2ObjectOpenHashMap<Patient> patientsParId = indexerPatients(allPatients);
+        Map<String, ProfessionnelSante> prosParLogin = indexerProfessionnels(allPros);
         int newConsultationsCount = 0;
         for (Row row : importTable) {
             if (!row.columnNames().contains("patientId") || !row.columnNames().contains("professionnelLogin")) {
@@ -248,8 +496,8 @@ public class DataService {
                 int idConsultation = row.columnNames().contains("idConsultation") ? row.getInt("idConsultation") : 0;
                 String proLogin = row.getString("professionnelLogin");
                 int patientId = row.getInt("patientId");
-                ProfessionnelSante pro = allPros.stream().filter(p -> p.getLoginID().equals(proLogin)).findFirst().orElse(null);
-                Patient patient = allPatients.stream().filter(p -> p.getId() == patientId).findFirst().orElse(null);
+                ProfessionnelSante pro = prosParLogin.get(proLogin);
+                Patient patient = patientsParId.get(patientId);
 
                 if (pro != null && patient != null) {
                     LocalDateTime date = LocalDateTime.parse(row.getString("dateHeure"));
@@ -260,7 +508,11 @@ public class DataService {
                     } else {
                         newConsultation = new Consultation(date, motif, pro, patient);
                     }
-                    if (row.columnNames().contains("dureeMinutes")) newConsultation.setDureeMinutes(row.getInt("dureeMinutes"));
+                    if (row.columnNames().contains("dureeMinutes")
+                            && !newConsultation.setDureeMinutes(row.getInt("dureeMinutes"))) {
+                        System.err.println("⚠️ Durée invalide ignorée pour la consultation du " + date
+                                + " : " + row.getInt("dureeMinutes"));
+                    }
                     if (row.columnNames().contains("statut")) newConsultation.setStatut(row.getString("statut"));
                     if (row.columnNames().contains("observations")) newConsultation.setObservations(row.getString("observations").replace(";", ","));
                     if (row.columnNames().contains("diagnostic")) newConsultation.setDiagnostic(row.getString("diagnostic").replace(";", ","));
@@ -280,12 +532,14 @@ public class DataService {
 
     // ==================== PATIENTS ====================
 
-    public void savePatients(List<Patient> patients) {
+    public boolean savePatients(List<Patient> patients) {
         try {
             Table table = createPatientTable(patients);
-            table.write().csv(getDefaultWriteOptions(PATIENTS_FILE));
+            ecrireSnapshot(table, PATIENTS_FILE);
+            return true;
         } catch (Exception e) {
             System.err.println("Erreur sauvegarde patients: " + e.getMessage());
+            return false;
         }
     }
 
@@ -301,33 +555,41 @@ public class DataService {
 
     public List<Patient> loadPatients() {
         List<Patient> patients = new ArrayList<>();
-        File file = new File(PATIENTS_FILE);
-        if (!file.exists()) return patients;
-        try {
-            Table table = Table.read().csv(CsvReadOptions.builder(file).separator(';').header(true).missingValueIndicator("", "null", "NULL").build());
-            for (Row row : table) {
-                try {
-                    int id = row.getInt("id");
-                    String nom = row.getString("nom");
-                    String prenom = row.getString("prenom");
-                    Patient p = new Patient(id, nom, prenom);
-                    if (row.columnNames().contains("numeroSecuriteSociale")) p.setNumeroSecuriteSociale(row.getString("numeroSecuriteSociale"));
-                    if (row.columnNames().contains("groupeSanguin")) p.setGroupeSanguin(row.getString("groupeSanguin"));
-                    patients.add(p);
-                } catch (Exception e) { System.err.println("Erreur parsing patient: " + e.getMessage()); }
-            }
-        } catch (Exception e) { System.err.println("Erreur chargement patients: " + e.getMessage()); }
+        streamPatients(patients::add);
         return patients;
     }
 
+    /**
+     * Lit patients.csv ligne par ligne et transmet chaque patient au consommateur
+     * sans construire de table intermédiaire.
+     * @return le nombre de patients lus
+     */
+    public int streamPatients(Consumer<Patient> consumer) {
+        return lireCsvEnFlux(fichierDonnees(PATIENTS_FILE), "patient", entete -> {
+            int colId = entete.position("id");
+            int colNom = entete.position("nom");
+            int colPrenom = entete.position("prenom");
+            int colNss = entete.position("numeroSecuriteSociale");
+            int colGroupe = entete.position("groupeSanguin");
+            return champs -> {
+                Patient p = new Patient(Integer.parseInt(champ(champs, colId)), champ(champs, colNom), champ(champs, colPrenom));
+                if (colNss >= 0) p.setNumeroSecuriteSociale(champ(champs, colNss));
+                if (colGroupe >= 0) p.setGroupeSanguin(champ(champs, colGroupe));
+                consumer.accept(p);
+            };
+        });
+    }
+
     // ==================== PROFESSIONNELS ====================
 
-    public void saveProfessionnels(List<ProfessionnelSante> pros) {
+    public boolean saveProfessionnels(List<ProfessionnelSante> pros) {
         try {
             Table table = createProsTable(pros);
-            table.write().csv(getDefaultWriteOptions(PROS_FILE));
+            ecrireSnapshot(table, PROS_FILE);
+            return true;
         } catch (Exception e) {
             System.err.println("Erreur sauvegarde professionnels: " + e.getMessage());
+            return false;
         }
     }
 
@@ -343,39 +605,44 @@ public class DataService {
 
     public List<ProfessionnelSante> loadProfessionnels() {
         List<ProfessionnelSante> pros = new ArrayList<>();
-        File file = new File(PROS_FILE);
-        if (!file.exists()) return pros;
-        try {
-            Table table = Table.read().csv(CsvReadOptions.builder(file).separator(';').header(true).missingValueIndicator("", "null", "NULL").build());
-            for (Row row : table) {
-                try {
-                    String login = row.getString("login");
-                    String password = row.getString("password");
-                    String accessLevel = row.getString("accessLevels");
-                    String nom = row.getString("nom");
-                    String prenom = row.getString("prenom");
-                    String specialite = row.getString("specialite");
-                    String numeroOrdre = row.getString("numeroOrdre");
-                    String accessLevels = "STANDARD";
-                    if (row.columnNames().contains("accessLevels")) accessLevels = row.getString("accessLevels");
-                    
-                    ProfessionnelSante p = new ProfessionnelSante(login, password, "PRO", accessLevels, nom, prenom, specialite, numeroOrdre);
-                    if (row.columnNames().contains("horairesDisponibilite")) p.setHorairesDisponibilite(row.getString("horairesDisponibilite"));
-                    pros.add(p);
-                } catch (Exception e) { System.err.println("Erreur parsing professionnel: " + e.getMessage()); }
-            }
-        } catch (Exception e) { System.err.println("Erreur chargement professionnels: " + e.getMessage()); }
+        streamProfessionnels(pros::add);
         return pros;
     }
 
+    /**
+     * Lit pros.csv ligne par ligne et transmet chaque professionnel au consommateur.
+     * @return le nombre de professionnels lus
+     */
+    public int streamProfessionnels(Consumer<ProfessionnelSante> consumer) {
+        return lireCsvEnFlux(fichierDonnees(PROS_FILE), "professionnel", entete -> {
+            int colLogin = entete.position("login");
+            int colPassword = entete.position("password");
+            int colAccess = entete.position("accessLevels");
+            int colNom = entete.position("nom");
+            int colPrenom = entete.position("prenom");
+            int colSpecialite = entete.position("specialite");
+            int colOrdre = entete.position("numeroOrdre");
+            int colHoraires = entete.position("horairesDisponibilite");
+            return champs -> {
+                String accessLevels = colAccess >= 0 ? champ(champs, colAccess) : "STANDARD";
+                ProfessionnelSante p = new ProfessionnelSante(champ(champs, colLogin), champ(champs, colPassword), "PRO", accessLevels,
+                        champ(champs, colNom), champ(champs, colPrenom), champ(champs, colSpecialite), champ(champs, colOrdre));
+                if (colHoraires >= 0) p.setHorairesDisponibilite(champ(champs, colHoraires));
+                consumer.accept(p);
+            };
+        });
+    }
+
     // ==================== CONSULTATIONS ====================
 
-    public void saveConsultations(List<Consultation> consultations) {
+    public boolean saveConsultations(List<Consultation> consultations) {
         try {
             Table table = createConsultationTable(consultations);
-            table.write().csv(getDefaultWriteOptions(CONSULTATIONS_FILE));
+            ecrireSnapshot(table, CONSULTATIONS_FILE);
+            return true;
         } catch (Exception e) {
             System.err.println("Erreur sauvegarde consultations: " + e.getMessage());
+            return false;
         }
     }
 
@@ -391,38 +658,184 @@ public class DataService {
 
     public List<Consultation> loadConsultations(List<Patient> patients, List<ProfessionnelSante> pros) {
         List<Consultation> consultations = new ArrayList<>();
-        File file = new File(CONSULTATIONS_FILE);
-        if (!file.exists()) return consultations;
+        Int2ObjectOpenHashMap<Patient> patientsParId = indexerPatients(patients);
+        Map<String, ProfessionnelSante> prosParLogin = indexerProfessionnels(pros);
+        streamConsultations(patientsParId::get, prosParLogin::get, consultations::add);
+        return consultations;
+    }
+
+    /**
+     * Lit consultations.csv ligne par ligne. Chaque consultation est liée à son
+     * professionnel et au dossier de son patient avant d'être transmise au consommateur ;
+     * les lignes dont le patient ou le professionnel est inconnu sont ignorées.
+     * @return le nombre de consultations transmises
+     */
+    public int streamConsultations(IntFunction<Patient> patients, Function<String, ProfessionnelSante> pros,
+                                   Consumer<Consultation> consumer) {
+        int[] transmises = {0};
+        lireCsvEnFlux(fichierDonnees(CONSULTATIONS_FILE), "consultation", entete -> {
+            int colId = entete.position("idConsultation");
+            int colDate = entete.position("dateHeure");
+            int colMotif = entete.position("motif");
+            int colLogin = entete.position("professionnelLogin");
+            int colPatient = entete.position("patientId");
+            int colDuree = entete.position("dureeMinutes");
+            int colStatut = entete.position("statut");
+            int colObs = entete.position("observations");
+            int colDiag = entete.position("diagnostic");
+            return champs -> {
+                ProfessionnelSante pro = pros.apply(champ(champs, colLogin));
+                Patient patient = patients.apply(Integer.parseInt(champ(champs, colPatient)));
+                if (pro == null || patient == null) return;
+                String id = colId >= 0 ? champ(champs, colId) : null;
+                String duree = colDuree >= 0 ? champ(champs, colDuree) : null;
+                consumer.accept(lierConsultation(id != null ? Integer.parseInt(id) : 0,
+                        LocalDateTime.parse(champ(champs, colDate)), champ(champs, colMotif), pro, patient,
+                        duree != null ? Integer.parseInt(duree) : 0,
+                        colStatut >= 0 ? champ(champs, colStatut) : null, champ(champs, colObs), champ(champs, colDiag)));
+                transmises[0]++;
+            };
+        });
+        return transmises[0];
+    }
+
+    /**
+     * Variante de {@link #streamConsultations} qui projette consultations.csv en mémoire
+     * et décode les champs directement depuis les octets ; adaptée aux très gros fichiers.
+     * @return le nombre de consultations transmises
+     */
+    public int streamConsultationsMappe(IntFunction<Patient> patients, Function<String, ProfessionnelSante> pros,
+                                        Consumer<Consultation> consumer) {
+        return streamConsultationsMappe(fichierDonnees(CONSULTATIONS_FILE).toPath(), patients, pros, consumer);
+    }
+
+    /**
+     * Comme {@link #streamConsultationsMappe(IntFunction, Function, Consumer)} pour un fichier
+     * quelconque au format de consultations.csv (gros fichier à importer, par exemple).
+     * @return le nombre de consultations transmises
+     */
+    public int streamConsultationsMappe(Path fichier, IntFunction<Patient> patients,
+                                        Function<String, ProfessionnelSante> pros, Consumer<Consultation> consumer) {
+        int[] transmises = {0};
+        if (!fichier.toFile().exists()) return 0;
         try {
-            Table table = Table.read().csv(CsvReadOptions.builder(file).separator(';').header(true).missingValueIndicator("", "null", "NULL").build());
-            for (Row row : table) {
-                try {
-                    int idConsultation = row.columnNames().contains("idConsultation") ? row.getInt("idConsultation") : 0;
-                    LocalDateTime date = LocalDateTime.parse(row.getString("dateHeure"));
-                    String motif = row.getString("motif");
-                    String proLogin = row.getString("professionnelLogin");
-                    int patientId = row.getInt("patientId");
-                    ProfessionnelSante pro = pros.stream().filter(p -> p.getLoginID().equals(proLogin)).findFirst().orElse(null);
-                    Patient patient = patients.stream().filter(p -> p.getId() == patientId).findFirst().orElse(null);
-                    if (pro != null && patient != null) {
-                        Consultation c;
-                        if (idConsultation > 0) {
-                            c = new Consultation(idConsultation, date, motif, pro, patient);
-                        } else {
-                            c = new Consultation(date, motif, pro, patient);
-                        }
-                        if (row.columnNames().contains("dureeMinutes")) c.setDureeMinutes(row.getInt("dureeMinutes"));
-                        if (row.columnNames().contains("statut")) c.setStatut(row.getString("statut"));
-                        if (row.columnNames().contains("observations")) c.setObservations(row.getString("observations"));
-                        if (row.columnNames().contains("diagnostic")) c.setDiagnostic(row.getString("diagnostic"));
-                        consultations.add(c);
-                        pro.ajouterConsultation(c);
-                        patient.getDossierMedical().ajouterConsultation(c);
-                    }
-                } catch (Exception e) { System.err.println("Erreur parsing consultation: " + e.getMessage()); }
-            }
+            LecteurConsultationsMappe lecteur = new LecteurConsultationsMappe(fichier);
+            lecteur.parcourir(ligne -> {
+                Consultation c = lierConsultation(ligne, patients, pros);
+                if (c != null) {
+                    consumer.accept(c);
+                    transmises[0]++;
+                }
+            });
         } catch (Exception e) { System.err.println("Erreur chargement consultations: " + e.getMessage()); }
-        return consultations;
+        return transmises[0];
+    }
+
+    // Lecteur par projection mémoire de consultations.csv, ou null si le fichier n'existe pas
+    LecteurConsultationsMappe ouvrirLecteurConsultations() throws IOException {
+        File file = fichierDonnees(CONSULTATIONS_FILE);
+        return file.exists() ? new LecteurConsultationsMappe(file.toPath()) : null;
+    }
+
+    // Résout le patient et le professionnel d'une ligne lue par projection mémoire (null si inconnus)
+    Consultation lierConsultation(LecteurConsultationsMappe.LigneConsultation ligne,
+                                  IntFunction<Patient> patients, Function<String, ProfessionnelSante> pros) {
+        ProfessionnelSante pro = pros.apply(ligne.professionnelLogin());
+        Patient patient = patients.apply(ligne.patientId());
+        if (pro == null || patient == null) return null;
+        return lierConsultation(ligne.idConsultation(), ligne.dateHeure(), ligne.motif(), pro, patient,
+                ligne.dureeMinutes(), ligne.statut(), ligne.observations(), ligne.diagnostic());
+    }
+
+    /**
+     * Construit une consultation chargée et la rattache au planning du professionnel
+     * et au dossier du patient. Un identifiant ou une durée à 0 signifie « absent ».
+     */
+    Consultation lierConsultation(int idConsultation, LocalDateTime date, String motif,
+                                          ProfessionnelSante pro, Patient patient, int duree,
+                                          String statut, String observations, String diagnostic) {
+        Consultation c;
+        if (idConsultation > 0) {
+            c = new Consultation(idConsultation, date, motif, pro, patient);
+        } else {
+            c = new Consultation(date, motif, pro, patient);
+        }
+        if (duree > 0) c.setDureeMinutes(duree);
+        if (statut != null) c.setStatut(statut);
+        c.setObservations(observations);
+        c.setDiagnostic(diagnostic);
+        pro.ajouterConsultation(c);
+        patient.getDossierMedical().ajouterConsultation(c);
+        return c;
+    }
+
+    // ==================== INSTANTANÉ BINAIRE ====================
+
+    /**
+     * Écrit patients, professionnels et consultations dans medipass.snap (format en colonnes,
+     * voir SnapshotBinaire). Les CSV restent la référence pour l'import et l'export.
+     */
+    public boolean saveSnapshotBinaire(List<Patient> patients, List<ProfessionnelSante> pros,
+                                       List<Consultation> consultations) {
+        try {
+            SnapshotAtomique.ecrire(Paths.get(SNAPSHOT_FILE),
+                    out -> SnapshotBinaire.ecrire(out, patients, pros, consultations));
+            return true;
+        } catch (Exception e) {
+            System.err.println("Erreur sauvegarde instantané: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Vrai si medipass.snap est valide et au moins aussi récent que les CSV qu'il remplace
+     * (un CSV réécrit par un import le rend obsolète).
+     */
+    public boolean snapshotBinaireAJour() {
+        Path snapshot = SnapshotAtomique.resoudreValide(Paths.get(SNAPSHOT_FILE));
+        if (snapshot == null) return false;
+        long date = snapshot.toFile().lastModified();
+        for (String csv : new String[]{PATIENTS_FILE, PROS_FILE, CONSULTATIONS_FILE}) {
+            if (new File(csv).lastModified() > date) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Charge medipass.snap : les patients puis les professionnels sont transmis à leurs
+     * consommateurs, puis chaque consultation, déjà liée à son professionnel et au dossier de son patient.
+     * @return false si l'instantané est absent ou illisible
+     */
+    public boolean chargerSnapshotBinaire(Consumer<Patient> patients, Consumer<ProfessionnelSante> pros,
+                                          Consumer<Consultation> consultations) {
+        Path fichier = SnapshotAtomique.resoudreValide(Paths.get(SNAPSHOT_FILE));
+        if (fichier == null) return false;
+        SnapshotBinaire.Contenu contenu;
+        try {
+            contenu = SnapshotBinaire.lire(fichier);
+        } catch (Exception e) {
+            System.err.println("Erreur chargement instantané: " + e.getMessage());
+            return false;
+        }
+        contenu.patients.forEach(patients);
+        contenu.pros.forEach(pros);
+
+        // Résolution une fois par entrée du dictionnaire des logins, pas par ligne
+        Int2ObjectOpenHashMap<Patient> patientsParId = indexerPatients(contenu.patients);
+        Map<String, ProfessionnelSante> prosParLogin = indexerProfessionnels(contenu.pros);
+        ProfessionnelSante[] prosParCode = new ProfessionnelSante[contenu.logins.length];
+        for (int i = 0; i < prosParCode.length; i++) {
+            prosParCode[i] = prosParLogin.get(contenu.logins[i]);
+        }
+        for (int i = 0; i < contenu.nbConsultations; i++) {
+            int code = contenu.codesLogin[i];
+            ProfessionnelSante pro = code >= 0 ? prosParCode[code] : null;
+            Patient patient = patientsParId.get(contenu.patientIds[i]);
+            if (pro == null || patient == null) continue;
+            consultations.accept(lierConsultation(contenu.ids[i], contenu.dateHeure(i), contenu.motifs[i], pro, patient,
+                    contenu.durees[i], contenu.statut(i), contenu.observations[i], contenu.diagnostics[i]));
+        }
+        return true;
     }
 
     // ==================== ANTECEDENTS ====================
@@ -439,25 +852,36 @@ public class DataService {
     }
 
     public void loadAntecedents(List<Patient> patients) {
-        File file = new File(ANTECEDENTS_FILE);
-        if (!file.exists()) return;
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean isHeader = true;
-            while ((line = reader.readLine()) != null) {
-                if (isHeader) { isHeader = false; continue; }
-                String[] parts = line.split(";");
-                if (parts.length >= 5) {
-                    try {
-                        int patientId = Integer.parseInt(parts[0]);
-                        Patient patient = patients.stream().filter(p -> p.getId() == patientId).findFirst().orElse(null);
-                        if (patient != null) {
-                            Antecedent ant = new Antecedent(parts[1], parts[2], LocalDate.parse(parts[3]), parts[4], parts.length > 5 ? Boolean.parseBoolean(parts[5]) : true);
-                            patient.getDossierMedical().ajouterAntecedent(ant);
-                        }
-                    } catch (Exception e) { System.err.println("Erreur parsing antécédent: " + e.getMessage()); }
-                }
+        Int2ObjectOpenHashMap<Patient> patientsParId = indexerPatients(patients);
+        streamAntecedents((ant, patientId) -> {
+            Patient patient = patientsParId.get(patientId);
+            if (patient != null) {
+                patient.getDossierMedical().ajouterAntecedent(ant);
             }
-        } catch (Exception e) { System.err.println("Erreur chargement antécédents: " + e.getMessage()); }
+        });
+    }
+
+    /**
+     * Lit antecedents.csv ligne par ligne ; chaque antécédent est transmis avec l'ID
+     * de son patient, sans être rattaché à un dossier.
+     * @return le nombre d'antécédents lus
+     */
+    public int streamAntecedents(ObjIntConsumer<Antecedent> consumer) {
+        return lireCsvEnFlux(new File(ANTECEDENTS_FILE), "antécédent", entete -> {
+            int colPatient = entete.position("patientId");
+            int colType = entete.position("type");
+            int colDescription = entete.position("description");
+            int colDate = entete.position("date");
+            int colGravite = entete.position("gravite");
+            int colActif = entete.position("actif");
+            return champs -> {
+                String gravite = champ(champs, colGravite);
+                String actif = champ(champs, colActif);
+                Antecedent ant = new Antecedent(champ(champs, colType), champ(champs, colDescription),
+                        LocalDate.parse(champ(champs, colDate)), gravite != null ? gravite : "",
+                        actif == null || Boolean.parseBoolean(actif));
+                consumer.accept(ant, Integer.parseInt(champ(champs, colPatient)));
+            };
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,133 @@
+package com.medipass.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.medipass.model.Patient;
+
+/**
+ * Repère les patients importés qui doublonnent probablement un patient connu
+ * (ou un autre patient du même import).
+ * Au lieu de comparer toutes les paires, chaque patient est rangé dans des blocs
+ * par clé ; seuls les patients d'un même bloc sont comparés :
+ * - même NSS ;
+ * - même nom complet normalisé et même date de naissance ;
+ * - même clé phonétique du nom complet ;
+ * - même date de naissance et même initiale du nom, puis similarité des trigrammes.
+ * Les blocs très peuplés (noms courants) ne sont comparés qu'à leurs derniers
+ * membres, ce qui garde un coût quasi linéaire.
+ */
+class DetectionDoublons {
+    // Similarité de trigrammes exigée dans le bloc date de naissance + initiale
+    static final double SEUIL_SIMILARITE = 0.6;
+    private static final int COMPARAISONS_MAX_PAR_BLOC = 50;
+    private static final Pattern ESPACES = Pattern.compile("\\s+");
+
+    /**
+     * Paire suspecte : le patient importé et celui qu'il doublonne probablement
+     */
+    record Doublon(Patient importe, Patient existant, String motif, double score) {
+    }
+
+    private final Map<String, List<Patient>> blocs = new HashMap<>();
+    private final Set<Long> pairesVues = new HashSet<>();
+    private final List<Doublon> doublons = new ArrayList<>();
+
+    /**
+     * Range un patient déjà connu dans ses blocs, sans comparaison
+     */
+    void indexer(Patient p) {
+        for (String cle : cles(p)) {
+            blocs.computeIfAbsent(cle, k -> new ArrayList<>()).add(p);
+        }
+    }
+
+    /**
+     * Compare un patient importé aux membres de ses blocs, puis l'y ajoute
+     */
+    void examiner(Patient p) {
+        String nomComplet = IndexApproximatif.nomComplet(p);
+        for (String cle : cles(p)) {
+            List<Patient> bloc = blocs.computeIfAbsent(cle, k -> new ArrayList<>());
+            for (int i = Math.max(0, bloc.size() - COMPARAISONS_MAX_PAR_BLOC); i < bloc.size(); i++) {
+                comparer(p, nomComplet, bloc.get(i), cle.charAt(0));
+            }
+            bloc.add(p);
+        }
+    }
+
+    List<Doublon> getDoublons() {
+        return doublons;
+    }
+
+    private void comparer(Patient importe, String nomComplet, Patient autre, char typeBloc) {
+        if (autre == importe) return;
+        long paire = importe.getId() < autre.getId()
+                ? ((long) importe.getId() << 32) | (autre.getId() & 0xFFFFFFFFL)
+                : ((long) autre.getId() << 32) | (importe.getId() & 0xFFFFFFFFL);
+        if (pairesVues.contains(paire)) return;
+
+        boolean nssDifferents = differents(nss(importe), nss(autre));
+        boolean datesDifferentes = differents(importe.getDateDeNaissance(), autre.getDateDeNaissance());
+        String motif;
+        double score;
+        switch (typeBloc) {
+            case 'N' -> {
+                motif = "NSS identique";
+                score = 1.0;
+            }
+            case 'D' -> {
+                if (nssDifferents) return;
+                motif = "nom et date de naissance identiques";
+                score = 0.95;
+            }
+            case 'P' -> {
+                // Un son proche ne suffit pas si un identifiant fort les distingue
+                if (nssDifferents || datesDifferentes) return;
+                motif = "nom phonétiquement identique";
+                score = IndexApproximatif.similarite(nomComplet, IndexApproximatif.nomComplet(autre));
+            }
+            default -> {
+                if (nssDifferents) return;
+                score = IndexApproximatif.similarite(nomComplet, IndexApproximatif.nomComplet(autre));
+                if (score < SEUIL_SIMILARITE) return;
+                motif = "nom proche et même date de naissance";
+            }
+        }
+        pairesVues.add(paire);
+        doublons.add(new Doublon(importe, autre, motif, score));
+    }
+
+    private static List<String> cles(Patient p) {
+        List<String> cles = new ArrayList<>(4);
+        String numero = nss(p);
+        if (!numero.isEmpty()) cles.add("N" + numero);
+        String nomComplet = IndexApproximatif.nomComplet(p);
+        LocalDate naissance = p.getDateDeNaissance();
+        if (naissance != null && !nomComplet.isEmpty()) {
+            cles.add("D" + nomComplet + "|" + naissance);
+            cles.add("S" + naissance + "|" + nomComplet.charAt(0));
+        }
+        String phonetique = IndexApproximatif.phonetique(nomComplet);
+        if (!phonetique.isEmpty()) cles.add("P" + phonetique);
+        return cles;
+    }
+
+    private static String nss(Patient p) {
+        String numero = p.getNumeroSecuriteSociale();
+        return numero == null ? "" : ESPACES.matcher(numero).replaceAll("");
+    }
+
+    // Vrai seulement si les deux valeurs sont connues et diffèrent
+    private static boolean differents(Object a, Object b) {
+        if (a == null || b == null) return false;
+        if (a instanceof String sa && (sa.isEmpty() || ((String) b).isEmpty())) return false;
+        return !a.equals(b);
+    }
+}
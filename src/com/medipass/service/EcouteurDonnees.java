@@ -0,0 +1,45 @@
+package com.medipass.service;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.Patient;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Reçoit les mutations des données métier, après qu'elles ont été appliquées par les services.
+ * Toutes les méthodes ont une implémentation vide : un écouteur ne redéfinit que ce qui l'intéresse.
+ */
+public interface EcouteurDonnees {
+
+    default void patientCree(Patient patient) {}
+
+    default void patientModifie(Patient patient) {}
+
+    default void patientSupprime(Patient patient) {}
+
+    default void proCree(ProfessionnelSante pro) {}
+
+    default void proSupprime(ProfessionnelSante pro) {}
+
+    /**
+     * Consultation programmée ou ajoutée depuis un fichier
+     */
+    default void consultationAjoutee(Consultation consultation) {}
+
+    /**
+     * Émis pour tout changement effectif de statut d'une consultation enregistrée,
+     * quel que soit le chemin qui l'a modifiée
+     */
+    default void statutModifie(Consultation consultation, String ancienStatut) {}
+
+    default void observationsAjoutees(Consultation consultation) {}
+
+    default void diagnosticAjoute(Consultation consultation) {}
+
+    /**
+     * Les notifications reçues jusqu'à finLot forment un seul lot (programmation groupée) ;
+     * un écouteur qui écrit sur disque peut attendre finLot pour le faire en une fois
+     */
+    default void debutLot() {}
+
+    default void finLot() {}
+}
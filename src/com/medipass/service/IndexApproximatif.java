@@ -0,0 +1,277 @@
+package com.medipass.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+import com.medipass.model.Patient;
+
+/**
+ * Recherche approchée des patients par nom complet, tolérante aux fautes de frappe,
+ * à la casse, aux accents et à l'ordre nom / prénom.
+ * - Index inversé de trigrammes : chaque trigramme (sur 18 bits) pointe vers la liste
+ *   des IDs de patients qui le contiennent. La similarité est le coefficient de Dice
+ *   entre ensembles de trigrammes.
+ * - Clé phonétique française : « Lefèvre » et « Lefebvre », « Phillipe » et « Filip »
+ *   se rejoignent même quand leurs trigrammes diffèrent.
+ * Pour un seuil s, un candidat doit partager au moins s|Q|/(2-s) trigrammes avec la
+ * requête Q ; il figure donc dans l'une des listes les plus courtes de la requête.
+ * Seules ces listes sont parcourues, dans la limite d'un budget d'entrées : une liste
+ * qui le dépasserait (trigramme d'un prénom très courant) est ignorée, ce qui borne la
+ * latence au prix d'un rappel partiel pour les saisies faites uniquement de tels trigrammes.
+ */
+class IndexApproximatif {
+    // Score attribué à une correspondance phonétique exacte du nom complet
+    static final double SCORE_PHONETIQUE = 0.85;
+    private static final int NB_TRIGRAMMES = 1 << 18;
+    private static final Pattern SEPARATEURS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern NON_LETTRES = Pattern.compile("[^a-z]+");
+    // Nombre maximal d'entrées de listes parcourues par recherche
+    private static final int BUDGET = 50_000;
+
+    /**
+     * Patient retenu avec sa similarité (entre 0 et 1) à la saisie
+     */
+    record Candidat(Patient patient, double score) {
+    }
+
+    private static final class Entree {
+        private final Patient patient;
+        private final int[] trigrammes;
+        private final String phonetique;
+
+        private Entree(Patient patient, int[] trigrammes, String phonetique) {
+            this.patient = patient;
+            this.trigrammes = trigrammes;
+            this.phonetique = phonetique;
+        }
+    }
+
+    // Les listes contiennent des numéros d'emplacement denses, réutilisés après suppression
+    private final int[][] listes = new int[NB_TRIGRAMMES][];
+    private final int[] longueurs = new int[NB_TRIGRAMMES];
+    private Entree[] emplacements = new Entree[1024];
+    private int nbEmplacements;
+    private final Int2IntOpenHashMap emplacementParId = new Int2IntOpenHashMap();
+    private final ArrayDeque<Integer> libres = new ArrayDeque<>();
+    private final Map<String, Set<Patient>> parPhonetique = new HashMap<>();
+
+    IndexApproximatif() {
+        emplacementParId.defaultReturnValue(-1);
+    }
+
+    void ajouter(Patient p) {
+        if (emplacementParId.containsKey(p.getId())) retirer(p);
+        String texte = nomComplet(p);
+        Entree entree = new Entree(p, trigrammes(texte), phonetique(texte));
+        int emplacement;
+        if (!libres.isEmpty()) {
+            emplacement = libres.pop();
+        } else {
+            if (nbEmplacements == emplacements.length) {
+                emplacements = Arrays.copyOf(emplacements, nbEmplacements * 2);
+            }
+            emplacement = nbEmplacements++;
+        }
+        emplacements[emplacement] = entree;
+        emplacementParId.put(p.getId(), emplacement);
+        for (int t : entree.trigrammes) {
+            if (listes[t] == null) {
+                listes[t] = new int[4];
+            } else if (longueurs[t] == listes[t].length) {
+                listes[t] = Arrays.copyOf(listes[t], longueurs[t] * 2);
+            }
+            listes[t][longueurs[t]++] = emplacement;
+        }
+        if (!entree.phonetique.isEmpty()) {
+            parPhonetique.computeIfAbsent(entree.phonetique, k -> new LinkedHashSet<>()).add(p);
+        }
+    }
+
+    void retirer(Patient p) {
+        int emplacement = emplacementParId.remove(p.getId());
+        if (emplacement < 0) return;
+        Entree entree = emplacements[emplacement];
+        emplacements[emplacement] = null;
+        libres.push(emplacement);
+        for (int t : entree.trigrammes) {
+            int[] liste = listes[t];
+            for (int i = 0; i < longueurs[t]; i++) {
+                if (liste[i] == emplacement) {
+                    liste[i] = liste[--longueurs[t]];
+                    break;
+                }
+            }
+        }
+        Set<Patient> memeCle = parPhonetique.get(entree.phonetique);
+        if (memeCle != null) {
+            memeCle.remove(p);
+            if (memeCle.isEmpty()) parPhonetique.remove(entree.phonetique);
+        }
+    }
+
+    /**
+     * Les k patients les plus proches de la saisie, par score décroissant
+     * @param seuil similarité minimale retenue, entre 0 (exclu) et 1
+     */
+    List<Candidat> rechercher(String saisie, int k, double seuil) {
+        String texte = IndexRecherchePatients.normaliser(saisie);
+        int[] requete = trigrammes(texte);
+        Map<Patient, Double> scores = new HashMap<>();
+        if (requete.length > 0 && k > 0) {
+            // Listes les plus courtes d'abord : seules les |Q| - T + 1 premières produisent des candidats
+            Integer[] ordre = new Integer[requete.length];
+            for (int i = 0; i < ordre.length; i++) ordre[i] = requete[i];
+            Arrays.sort(ordre, (a, b) -> Integer.compare(longueurs[a], longueurs[b]));
+            int communsMin = Math.max(1, (int) Math.ceil(seuil * requete.length / (2 - seuil) - 1e-9));
+            int aParcourir = requete.length - communsMin + 1;
+
+            BitSet vus = new BitSet(nbEmplacements);
+            int visites = 0;
+            for (int i = 0; i < aParcourir; i++) {
+                int t = ordre[i];
+                if (i > 0 && visites + longueurs[t] > BUDGET) break;
+                int fin = Math.min(longueurs[t], BUDGET);
+                visites += fin;
+                for (int j = 0; j < fin; j++) {
+                    int emplacement = listes[t][j];
+                    if (!vus.get(emplacement)) {
+                        vus.set(emplacement);
+                        Entree e = emplacements[emplacement];
+                        double dice = dice(requete, e.trigrammes);
+                        if (dice >= seuil) scores.put(e.patient, dice);
+                    }
+                }
+            }
+        }
+        Set<Patient> phonetiques = parPhonetique.get(phonetique(texte));
+        if (phonetiques != null && SCORE_PHONETIQUE >= seuil) {
+            for (Patient p : phonetiques) {
+                scores.merge(p, SCORE_PHONETIQUE, Math::max);
+            }
+        }
+
+        List<Candidat> resultat = new ArrayList<>(scores.size());
+        scores.forEach((p, score) -> resultat.add(new Candidat(p, score)));
+        resultat.sort((a, b) -> Double.compare(b.score(), a.score()));
+        return resultat.size() > k ? new ArrayList<>(resultat.subList(0, k)) : resultat;
+    }
+
+    /**
+     * Similarité entre deux noms complets, même mesure que la recherche
+     */
+    static double similarite(String a, String b) {
+        String na = IndexRecherchePatients.normaliser(a);
+        String nb = IndexRecherchePatients.normaliser(b);
+        double dice = dice(trigrammes(na), trigrammes(nb));
+        String pa = phonetique(na);
+        return !pa.isEmpty() && pa.equals(phonetique(nb)) ? Math.max(dice, SCORE_PHONETIQUE) : dice;
+    }
+
+    static String nomComplet(Patient p) {
+        return IndexRecherchePatients.normaliser(
+                (p.getNom() == null ? "" : p.getNom()) + " " + (p.getPrenom() == null ? "" : p.getPrenom()));
+    }
+
+    // ==================== TRIGRAMMES ====================
+
+    /**
+     * Trigrammes distincts et triés de chaque mot, bordé par "$$" devant et "$" derrière
+     */
+    static int[] trigrammes(String texteNormalise) {
+        List<Integer> codes = new ArrayList<>();
+        for (String mot : SEPARATEURS.split(texteNormalise)) {
+            if (mot.isEmpty()) continue;
+            String borde = "$$" + mot + "$";
+            for (int i = 0; i + 3 <= borde.length(); i++) {
+                codes.add((code(borde.charAt(i)) << 12) | (code(borde.charAt(i + 1)) << 6) | code(borde.charAt(i + 2)));
+            }
+        }
+        return codes.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+    }
+
+    // 6 bits par caractère : bordure, lettres, chiffres, puis le reste replié
+    private static int code(char c) {
+        if (c == '$') return 0;
+        if (c >= 'a' && c <= 'z') return 1 + c - 'a';
+        if (c >= '0' && c <= '9') return 27 + c - '0';
+        return 37 + c % 27;
+    }
+
+    // Coefficient de Dice entre deux ensembles triés
+    private static double dice(int[] a, int[] b) {
+        if (a.length + b.length == 0) return 0;
+        int i = 0, j = 0, communs = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                communs++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return 2.0 * communs / (a.length + b.length);
+    }
+
+    // ==================== PHONÉTIQUE ====================
+
+    /**
+     * Clé phonétique d'un nom complet : clés des mots triées, l'ordre nom / prénom est ignoré
+     */
+    static String phonetique(String texte) {
+        String normalise = IndexRecherchePatients.normaliser(texte);
+        List<String> cles = new ArrayList<>();
+        for (String mot : NON_LETTRES.split(normalise)) {
+            String cle = phonetiqueMot(mot);
+            if (!cle.isEmpty()) cles.add(cle);
+        }
+        cles.sort(null);
+        return String.join(" ", cles);
+    }
+
+    // Nasales, « s » sonore, puis lettres muettes en fin de mot ; compilées une fois pour les imports massifs
+    private static final Pattern[] REGLES = {
+            Pattern.compile("[ae]n(?![aeiou])"), Pattern.compile("[ae]m(?=[bp])"),
+            Pattern.compile("[iu]m(?=[bp])"), Pattern.compile("un(?![aeiou])"),
+            Pattern.compile("(?<=[aeiou])s(?=[aeiou])"), Pattern.compile("(?<=.)[stdxe]+$")
+    };
+    private static final String[] REMPLACEMENTS = {"an", "an", "in", "in", "z", ""};
+
+    /**
+     * Règles simplifiées du français : graphies d'un même son ramenées à une lettre,
+     * lettres muettes et doubles supprimées
+     */
+    static String phonetiqueMot(String mot) {
+        if (mot.isEmpty()) return "";
+        String m = mot;
+        // « ch » devient '1' : ni k ni h muet
+        m = m.replace("sch", "ch").replace("ch", "1").replace("ph", "f").replace("th", "t")
+                .replace("qu", "k").replace("ck", "k").replace("bv", "v")
+                .replace("ge", "je").replace("gi", "ji").replace("gu", "g")
+                .replace("ce", "se").replace("ci", "si").replace("cy", "si").replace("c", "k")
+                .replace("eau", "o").replace("au", "o").replace("ou", "u")
+                .replace("ain", "in").replace("ein", "in").replace("aim", "in")
+                .replace("ai", "e").replace("ei", "e")
+                .replace("y", "i").replace("z", "s").replace("w", "v").replace("h", "");
+        for (int i = 0; i < REGLES.length; i++) {
+            m = REGLES[i].matcher(m).replaceAll(REMPLACEMENTS[i]);
+        }
+        StringBuilder sb = new StringBuilder(m.length());
+        for (int i = 0; i < m.length(); i++) {
+            if (i == 0 || m.charAt(i) != m.charAt(i - 1)) sb.append(m.charAt(i));
+        }
+        return sb.toString();
+    }
+}
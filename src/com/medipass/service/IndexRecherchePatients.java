@@ -0,0 +1,153 @@
+package com.medipass.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import com.medipass.model.Patient;
+
+/**
+ * Index de recherche des patients, tenu par PatientService.
+ * - noms : clés « nom prénom » et « prénom nom » normalisées (sans accents ni casse),
+ *   triées pour une recherche par préfixe en O(log n + résultats) ;
+ * - NSS : table de hachage, sans espaces ; un même NSS peut être porté par plusieurs
+ *   patients (doublons à fusionner), le premier indexé est renvoyé ;
+ * - groupe sanguin : un ensemble de patients par groupe.
+ * Les clés sont calculées depuis les champs du patient : il faut le retirer avant
+ * de modifier ces champs et le réindexer ensuite.
+ */
+class IndexRecherchePatients {
+    // Séparateur placé avant l'ID : trie juste après le texte, sans se confondre avec lui
+    private static final char FIN = '\u0000';
+    private static final Pattern MARQUES = Pattern.compile("\\p{M}");
+
+    private final TreeMap<String, Patient> parNomPrenom = new TreeMap<>();
+    private final TreeMap<String, Patient> parPrenomNom = new TreeMap<>();
+    private final Map<String, Set<Patient>> parNss = new HashMap<>();
+    private final Map<String, Set<Patient>> parGroupe = new HashMap<>();
+
+    /**
+     * Minuscules sans accents, espaces superflus retirés ; chaîne vide pour null
+     */
+    static String normaliser(String texte) {
+        if (texte == null) return "";
+        // Le texte ASCII n'a pas d'accent : la décomposition Unicode n'est faite qu'au besoin
+        if (texte.chars().anyMatch(c -> c > 0x7F)) {
+            texte = MARQUES.matcher(Normalizer.normalize(texte, Normalizer.Form.NFD)).replaceAll("");
+        }
+        // Un seul passage : minuscules et espaces regroupés
+        StringBuilder sb = new StringBuilder(texte.length());
+        boolean espace = false;
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            if (Character.isWhitespace(c)) {
+                espace = sb.length() > 0;
+            } else {
+                if (espace) sb.append(' ');
+                espace = false;
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String nss(String numero) {
+        if (numero == null) return "";
+        StringBuilder sb = new StringBuilder(numero.length());
+        for (int i = 0; i < numero.length(); i++) {
+            if (!Character.isWhitespace(numero.charAt(i))) sb.append(numero.charAt(i));
+        }
+        return sb.toString();
+    }
+
+    private static String groupe(String groupe) {
+        return groupe == null ? "" : groupe.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String cle(String debut, String suite, Patient p) {
+        return debut + " " + suite + FIN + p.getId();
+    }
+
+    void ajouter(Patient p) {
+        String nom = normaliser(p.getNom());
+        String prenom = normaliser(p.getPrenom());
+        parNomPrenom.put(cle(nom, prenom, p), p);
+        parPrenomNom.put(cle(prenom, nom, p), p);
+        String numero = nss(p.getNumeroSecuriteSociale());
+        if (!numero.isEmpty()) {
+            parNss.computeIfAbsent(numero, k -> new LinkedHashSet<>()).add(p);
+        }
+        String g = groupe(p.getGroupeSanguin());
+        if (!g.isEmpty()) {
+            parGroupe.computeIfAbsent(g, k -> new LinkedHashSet<>()).add(p);
+        }
+    }
+
+    void retirer(Patient p) {
+        String nom = normaliser(p.getNom());
+        String prenom = normaliser(p.getPrenom());
+        parNomPrenom.remove(cle(nom, prenom, p));
+        parPrenomNom.remove(cle(prenom, nom, p));
+        // Le patient suivant de même NSS, s'il y en a un, prend la place du patient retiré
+        retirer(parNss, nss(p.getNumeroSecuriteSociale()), p);
+        retirer(parGroupe, groupe(p.getGroupeSanguin()), p);
+    }
+
+    private static void retirer(Map<String, Set<Patient>> index, String cle, Patient p) {
+        Set<Patient> patients = index.get(cle);
+        if (patients != null) {
+            patients.remove(p);
+            if (patients.isEmpty()) index.remove(cle);
+        }
+    }
+
+    /**
+     * Premier patient dont le nom et le prénom normalisés correspondent exactement
+     */
+    Patient trouver(String nom, String prenom) {
+        String n = normaliser(nom);
+        String p = normaliser(prenom);
+        String prefixe = n + " " + p + FIN;
+        for (Patient candidat : parNomPrenom.subMap(prefixe, prefixe + Character.MAX_VALUE).values()) {
+            // « a b » + « c » et « a » + « b c » partagent la même clé
+            if (normaliser(candidat.getNom()).equals(n) && normaliser(candidat.getPrenom()).equals(p)) {
+                return candidat;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Patients dont « nom prénom » ou « prénom nom » commence par la saisie
+     * @param limite nombre maximal de résultats
+     */
+    List<Patient> rechercher(String saisie, int limite) {
+        String prefixe = normaliser(saisie);
+        Set<Patient> resultat = new LinkedHashSet<>();
+        if (prefixe.isEmpty() || limite <= 0) return new ArrayList<>(resultat);
+        for (TreeMap<String, Patient> index : List.of(parNomPrenom, parPrenomNom)) {
+            for (Patient p : index.subMap(prefixe, prefixe + Character.MAX_VALUE).values()) {
+                if (resultat.size() >= limite) break;
+                resultat.add(p);
+            }
+        }
+        return new ArrayList<>(resultat);
+    }
+
+    Patient parNss(String numero) {
+        Set<Patient> patients = parNss.get(nss(numero));
+        return patients == null ? null : patients.iterator().next();
+    }
+
+    List<Patient> parGroupe(String groupe) {
+        Set<Patient> patients = parGroupe.get(groupe(groupe));
+        return patients == null ? new ArrayList<>() : new ArrayList<>(patients);
+    }
+}
@@ -0,0 +1,385 @@
+package com.medipass.service;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.Patient;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Journal d'écriture anticipée des mutations métier.
+ * Chaque mutation devient une ligne ajoutée en fin de journal.log ; les lignes sont écrites
+ * et synchronisées sur disque par groupes (au plus TAILLE_GROUPE lignes ou DELAI_GROUPE_MS).
+ * Un lot de mutations (debutLot / finLot, programmation groupée) part en une seule écriture.
+ * La compaction archive le journal courant, réécrit les CSV en arrière-plan puis supprime
+ * les archives couvertes. Au démarrage, les journaux restants sont rejoués sur les CSV.
+ *
+ * Format d'une ligne : un code suivi de champs séparés par ';'
+ *   P+ / P~ ;id;nom;prenom;numeroSecuriteSociale;groupeSanguin   patient créé / modifié
+ *   P- ;id                                                      patient supprimé
+ *   C+ ;id;dateHeure;motif;login;patientId;duree;statut;observations;diagnostic
+ *   CS ;id;statut    CO ;id;observations    CD ;id;diagnostic
+ */
+public class JournalService implements EcouteurDonnees {
+
+    private static final String JOURNAL_FILE = "journal.log";
+    private static final int TAILLE_GROUPE = 64;
+    private static final long DELAI_GROUPE_MS = 20;
+    private static final int SEUIL_COMPACTION = 10_000;
+
+    private final DataService dataService;
+    private final PatientService patientService;
+    private final AdministrateurService adminService;
+    private final ConsultationService consultationService;
+
+    private final ScheduledExecutorService minuterie = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "medipass-journal"));
+    private final ExecutorService compacteur = Executors.newSingleThreadExecutor(r -> daemon(r, "medipass-compaction"));
+
+    private final StringBuilder enAttente = new StringBuilder();
+    private int nbEnAttente;
+    private int nbDepuisCompaction;
+    // Lots de mutations en cours : le groupe n'est pas écrit avant la fin du dernier
+    private int lotsOuverts;
+    private int generation;
+    private FileChannel canal;
+    private Future<?> compactionEnCours;
+
+    public JournalService(DataService dataService, PatientService patientService,
+                          AdministrateurService adminService, ConsultationService consultationService) {
+        this.dataService = dataService;
+        this.patientService = patientService;
+        this.adminService = adminService;
+        this.consultationService = consultationService;
+        for (int g : generationsArchivees()) {
+            generation = Math.max(generation, g + 1);
+        }
+    }
+
+    private static Thread daemon(Runnable r, String nom) {
+        Thread t = new Thread(r, nom);
+        t.setDaemon(true);
+        return t;
+    }
+
+    // ==================== DÉMARRAGE / ARRÊT ====================
+
+    /**
+     * Rejoue les archives puis le journal courant sur les données déjà chargées.
+     * Les opérations sont idempotentes : une mutation déjà présente dans les CSV est ignorée.
+     * @return le nombre d'enregistrements rejoués
+     */
+    public int rejouer() {
+        List<Path> fichiers = new ArrayList<>();
+        for (int g : generationsArchivees()) {
+            fichiers.add(Paths.get(JOURNAL_FILE + "." + g));
+        }
+        fichiers.add(Paths.get(JOURNAL_FILE));
+
+        int rejoues = 0;
+        for (Path fichier : fichiers) {
+            if (!Files.exists(fichier)) continue;
+            try (BufferedReader reader = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+                String ligne;
+                while ((ligne = reader.readLine()) != null) {
+                    if (ligne.isEmpty()) continue;
+                    try {
+                        appliquer(ligne.split(";", -1));
+                        rejoues++;
+                    } catch (Exception e) { System.err.println("Erreur rejeu journal: " + e.getMessage()); }
+                }
+            } catch (IOException e) { System.err.println("Erreur lecture journal " + fichier + ": " + e.getMessage()); }
+        }
+        return rejoues;
+    }
+
+    /**
+     * Ouvre le journal en ajout et lance l'écriture périodique des groupes
+     */
+    public synchronized void demarrer() {
+        ouvrir();
+        minuterie.scheduleWithFixedDelay(this::synchroniserHorsLot, DELAI_GROUPE_MS, DELAI_GROUPE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Écrit les enregistrements en attente et arrête le journal (sans compaction)
+     */
+    public synchronized void fermer() {
+        synchroniser();
+        minuterie.shutdown();
+        compacteur.shutdown();
+        try {
+            if (canal != null) canal.close();
+        } catch (IOException e) { System.err.println("Erreur fermeture journal: " + e.getMessage()); }
+        canal = null;
+    }
+
+    private void ouvrir() {
+        try {
+            canal = FileChannel.open(Paths.get(JOURNAL_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) { System.err.println("Erreur ouverture journal: " + e.getMessage()); }
+    }
+
+    // ==================== ÉCRITURE ====================
+
+    private synchronized void ajouter(String... champs) {
+        for (int i = 0; i < champs.length; i++) {
+            if (i > 0) enAttente.append(';');
+            enAttente.append(i == 0 ? champs[i] : encoder(champs[i]));
+        }
+        enAttente.append('\n');
+        nbEnAttente++;
+        nbDepuisCompaction++;
+        if (nbEnAttente >= TAILLE_GROUPE && lotsOuverts == 0) {
+            synchroniser();
+        }
+        if (nbDepuisCompaction >= SEUIL_COMPACTION && (compactionEnCours == null || compactionEnCours.isDone())) {
+            planifierCompaction();
+        }
+    }
+
+    /**
+     * Écrit le groupe en attente et le force sur disque
+     */
+    public synchronized void synchroniser() {
+        if (nbEnAttente == 0) return;
+        if (canal == null) ouvrir();
+        try {
+            ByteBuffer octets = StandardCharsets.UTF_8.encode(enAttente.toString());
+            while (octets.hasRemaining()) {
+                canal.write(octets);
+            }
+            canal.force(false);
+            enAttente.setLength(0);
+            nbEnAttente = 0;
+        } catch (Exception e) { System.err.println("Erreur écriture journal: " + e.getMessage()); }
+    }
+
+    // Écriture périodique du groupe, différée tant qu'un lot est ouvert
+    private synchronized void synchroniserHorsLot() {
+        if (lotsOuverts == 0) {
+            synchroniser();
+        }
+    }
+
+    @Override
+    public synchronized void debutLot() {
+        lotsOuverts++;
+    }
+
+    // Tout le lot part en une seule écriture forcée sur disque
+    @Override
+    public synchronized void finLot() {
+        if (lotsOuverts > 0 && --lotsOuverts == 0) {
+            synchroniser();
+        }
+    }
+
+    // ==================== COMPACTION ====================
+
+    /**
+     * Compacte immédiatement : les CSV reflètent l'état en mémoire au retour de l'appel
+     */
+    public void compacter() {
+        try {
+            planifierCompaction().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Erreur compaction: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Archive le journal courant ; la capture de l'état en mémoire, l'écriture des CSV et la
+     * suppression des archives se font en arrière-plan. La capture prend les verrous des
+     * services : elle ne doit pas se faire sous le moniteur du journal, qu'un service peut
+     * attendre pour journaliser une mutation. Elle contient au moins tout ce qui a été
+     * journalisé avant l'archivage ; ce qui a été journalisé depuis se rejoue dessus sans changer le résultat.
+     */
+    private synchronized Future<?> planifierCompaction() {
+        synchroniser();
+        int couverte = generation;
+        try {
+            if (canal != null) canal.close();
+            Path courant = Paths.get(JOURNAL_FILE);
+            if (Files.exists(courant)) {
+                Files.move(courant, Paths.get(JOURNAL_FILE + "." + couverte), StandardCopyOption.ATOMIC_MOVE);
+                generation++;
+            }
+        } catch (IOException e) { System.err.println("Erreur archivage journal: " + e.getMessage()); }
+        ouvrir();
+        nbDepuisCompaction = 0;
+
+        compactionEnCours = compacteur.submit(() -> {
+            List<Patient> patients = patientService.getPatients();
+            // Copie : la vue de l'annuaire continuerait d'évoluer pendant l'écriture
+            List<ProfessionnelSante> pros = new ArrayList<>(adminService.getProfessionnels());
+            List<Consultation> consultations = consultationService.getConsultations();
+            boolean ok = dataService.savePatients(patients)
+                    & dataService.saveProfessionnels(pros)
+                    & dataService.saveConsultations(consultations)
+                    & dataService.saveSnapshotBinaire(patients, pros, consultations);
+            if (ok) {
+                for (int g : generationsArchivees()) {
+                    if (g <= couverte) {
+                        new File(JOURNAL_FILE + "." + g).delete();
+                    }
+                }
+            }
+        });
+        return compactionEnCours;
+    }
+
+    private static List<Integer> generationsArchivees() {
+        List<Integer> generations = new ArrayList<>();
+        File[] fichiers = new File(".").listFiles((dir, nom) -> nom.startsWith(JOURNAL_FILE + "."));
+        if (fichiers != null) {
+            for (File f : fichiers) {
+                try {
+                    generations.add(Integer.parseInt(f.getName().substring(JOURNAL_FILE.length() + 1)));
+                } catch (NumberFormatException ignored) { }
+            }
+        }
+        generations.sort(null);
+        return generations;
+    }
+
+    // ==================== ENREGISTREMENTS ====================
+
+    @Override
+    public void patientCree(Patient p) {
+        ajouter("P+", String.valueOf(p.getId()), p.getNom(), p.getPrenom(), p.getNumeroSecuriteSociale(), p.getGroupeSanguin());
+    }
+
+    @Override
+    public void patientModifie(Patient p) {
+        ajouter("P~", String.valueOf(p.getId()), p.getNom(), p.getPrenom(), p.getNumeroSecuriteSociale(), p.getGroupeSanguin());
+    }
+
+    @Override
+    public void patientSupprime(Patient p) {
+        ajouter("P-", String.valueOf(p.getId()));
+    }
+
+    @Override
+    public void consultationAjoutee(Consultation c) {
+        ajouter("C+", String.valueOf(c.getIdConsultation()), c.getDateHeure().toString(), c.getMotif(),
+                c.getProfessionnel().getLoginID(), String.valueOf(c.getPatient().getId()),
+                String.valueOf(c.getDureeMinutes()), c.getStatut(), c.getObservations(), c.getDiagnostic());
+    }
+
+    @Override
+    public void statutModifie(Consultation c, String ancienStatut) {
+        ajouter("CS", String.valueOf(c.getIdConsultation()), c.getStatut());
+    }
+
+    @Override
+    public void observationsAjoutees(Consultation c) {
+        ajouter("CO", String.valueOf(c.getIdConsultation()), c.getObservations());
+    }
+
+    @Override
+    public void diagnosticAjoute(Consultation c) {
+        ajouter("CD", String.valueOf(c.getIdConsultation()), c.getDiagnostic());
+    }
+
+    private void appliquer(String[] e) {
+        int id = Integer.parseInt(e[1]);
+        switch (e[0]) {
+            case "P+" -> {
+                if (patientService.findPatientById(id) == null) {
+                    Patient p = new Patient(id, decoder(e[2]), decoder(e[3]));
+                    p.setNumeroSecuriteSociale(decoder(e[4]));
+                    p.setGroupeSanguin(decoder(e[5]));
+                    patientService.creerPatient(p);
+                }
+            }
+            case "P~" -> patientService.modifierPatient(id, decoder(e[2]), decoder(e[3]), decoder(e[4]), decoder(e[5]));
+            case "P-" -> patientService.supprimerPatient(id);
+            case "C+" -> {
+                if (consultationService.findConsultationById(id) == null) {
+                    ProfessionnelSante pro = adminService.findProfessionnel(decoder(e[4]));
+                    Patient patient = patientService.findPatientById(Integer.parseInt(e[5]));
+                    if (pro != null && patient != null) {
+                        consultationService.ajouterConsultationExistante(dataService.lierConsultation(id,
+                                LocalDateTime.parse(decoder(e[2])), decoder(e[3]), pro, patient,
+                                Integer.parseInt(e[6]), decoder(e[7]), decoder(e[8]), decoder(e[9])));
+                    }
+                }
+            }
+            case "CS" -> {
+                Consultation c = consultationService.findConsultationById(id);
+                if (c != null && !c.setStatut(decoder(e[2]))) {
+                    System.err.println("Erreur rejeu journal: statut de la consultation " + id + " refusé");
+                }
+            }
+            case "CO" -> {
+                Consultation c = consultationService.findConsultationById(id);
+                if (c != null) c.setObservations(decoder(e[2]));
+            }
+            case "CD" -> {
+                Consultation c = consultationService.findConsultationById(id);
+                if (c != null) c.setDiagnostic(decoder(e[2]));
+            }
+            default -> throw new IllegalArgumentException("enregistrement inconnu " + e[0]);
+        }
+    }
+
+    // Échappement : '\0' = null, '\p' = ';', '\n' / '\r' = fins de ligne, '\\' = '\'
+    private static String encoder(String valeur) {
+        if (valeur == null) return "\\0";
+        StringBuilder sb = new StringBuilder(valeur.length());
+        for (int i = 0; i < valeur.length(); i++) {
+            char c = valeur.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case ';' -> sb.append("\\p");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String decoder(String champ) {
+        if (champ.equals("\\0")) return null;
+        if (champ.indexOf('\\') < 0) return champ;
+        StringBuilder sb = new StringBuilder(champ.length());
+        for (int i = 0; i < champ.length(); i++) {
+            char c = champ.charAt(i);
+            if (c == '\\' && i + 1 < champ.length()) {
+                char suivant = champ.charAt(++i);
+                switch (suivant) {
+                    case 'p' -> sb.append(';');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    default -> sb.append(suivant);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,406 @@
+package com.medipass.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.medipass.model.StatutConsultation;
+
+/**
+ * Lecteur de consultations.csv par projection mémoire (FileChannel.map).
+ * Le fichier est découpé en segments alignés sur les fins d'enregistrement ; les champs
+ * numériques et la date ISO sont décodés directement depuis les octets, sans
+ * passer par une String intermédiaire.
+ * Les champs entre guillemets écrits par Tablesaw (RFC 4180 : ';', '"' doublé et fins
+ * de ligne y sont du texte) sont reconnus ; un enregistrement peut donc s'étendre sur
+ * plusieurs lignes.
+ */
+class LecteurConsultationsMappe {
+
+    // Taille maximale d'une projection (une MappedByteBuffer est indexée en int)
+    private static final long TAILLE_MAX_SEGMENT = 1L << 30;
+
+    private static final StatutConsultation[] STATUTS = StatutConsultation.values();
+    private static final byte[][] STATUTS_OCTETS = new byte[STATUTS.length][];
+    static {
+        for (int i = 0; i < STATUTS.length; i++) {
+            STATUTS_OCTETS[i] = STATUTS[i].getLibelle().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Ligne brute de consultations.csv ; dureeMinutes vaut 0 si la colonne est vide.
+     */
+    record LigneConsultation(int idConsultation, LocalDateTime dateHeure, String motif, String professionnelLogin,
+                             int patientId, int dureeMinutes, String statut, String observations, String diagnostic) {
+    }
+
+    private final Path fichier;
+    private final long taille;
+    private final long debutDonnees;
+    private final int nbColonnes;
+    private final int colId, colDate, colMotif, colLogin, colPatient, colDuree, colStatut, colObs, colDiag;
+    // Lignes signalées et ignorées, tous segments confondus
+    private final AtomicInteger lignesRejetees = new AtomicInteger();
+
+    LecteurConsultationsMappe(Path fichier) throws IOException {
+        this.fichier = fichier;
+        try (FileChannel channel = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            this.taille = channel.size();
+            MappedByteBuffer debut = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(taille, 64 * 1024));
+            // Ligne d'en-tête de SnapshotAtomique, puis en-tête CSV
+            int debutEntete = SnapshotAtomique.debutContenu(debut);
+            int fin = debutEntete;
+            while (fin < debut.limit() && debut.get(fin) != '\n') fin++;
+            byte[] octets = new byte[fin - debutEntete];
+            debut.get(debutEntete, octets);
+            String entete = new String(octets, StandardCharsets.UTF_8).replace("\r", "");
+            if (entete.startsWith("\uFEFF")) entete = entete.substring(1);
+            this.debutDonnees = Math.min(taille, fin + 1L);
+
+            String[] noms = entete.split(";", -1);
+            this.nbColonnes = noms.length;
+            this.colId = position(noms, "idConsultation");
+            this.colDate = position(noms, "dateHeure");
+            this.colMotif = position(noms, "motif");
+            this.colLogin = position(noms, "professionnelLogin");
+            this.colPatient = position(noms, "patientId");
+            this.colDuree = position(noms, "dureeMinutes");
+            this.colStatut = position(noms, "statut");
+            this.colObs = position(noms, "observations");
+            this.colDiag = position(noms, "diagnostic");
+        }
+        if (colDate < 0 || colLogin < 0 || colPatient < 0) {
+            throw new IOException("Structure de fichier Consultations invalide : " + fichier);
+        }
+    }
+
+    private static int position(String[] noms, String colonne) {
+        for (int i = 0; i < noms.length; i++) {
+            if (noms[i].trim().equals(colonne)) return i;
+        }
+        return -1;
+    }
+
+    long getTaille() {
+        return taille;
+    }
+
+    int getLignesRejetees() {
+        return lignesRejetees.get();
+    }
+
+    /**
+     * Découpe la zone de données en au plus {@code nombre} segments [début, fin[
+     * commençant chacun au début d'un enregistrement. Chaque coupe se cherche à partir
+     * de sa cible (voir prochainDebut) : seules quelques lignes par coupe sont lues,
+     * le reste du fichier l'est par les threads de lecture.
+     */
+    List<long[]> segments(int nombre) throws IOException {
+        List<long[]> segments = new ArrayList<>();
+        long donnees = taille - debutDonnees;
+        if (donnees <= 0) return segments;
+        int parts = (int) Math.max(nombre, (donnees + TAILLE_MAX_SEGMENT - 1) / TAILLE_MAX_SEGMENT);
+        long debut = debutDonnees;
+        if (parts > 1) {
+            try (FileChannel channel = FileChannel.open(fichier, StandardOpenOption.READ)) {
+                for (int k = 1; k < parts; k++) {
+                    long cible = Math.max(debut + 1, debutDonnees + donnees * k / parts);
+                    if (cible >= taille) break;
+                    long fin = prochainDebut(channel, cible);
+                    if (fin < 0) break;
+                    if (fin <= debut) continue;
+                    segments.add(new long[]{debut, fin});
+                    debut = fin;
+                }
+            }
+        }
+        segments.add(new long[]{debut, taille});
+        return segments;
+    }
+
+    /**
+     * Premier début d'enregistrement plausible à partir de cible : juste après un '\n', une ligne
+     * qui se découpe, guillemets RFC 4180 suivis depuis ce point, en nbColonnes champs avec une
+     * date ISO dans sa colonne. Un '\n' entre guillemets est ainsi écarté, sauf si le texte cité
+     * imite un enregistrement complet ; la coupe tombe alors dans un champ cité, le segment
+     * précédent finit sur des guillemets non fermés et sa ligne est rejetée : ChargementParallele
+     * relit alors le fichier en flux.
+     * @return la position trouvée, ou -1 s'il n'y en a pas dans la fenêtre suivant la cible
+     */
+    private long prochainDebut(FileChannel channel, long cible) throws IOException {
+        long debutFenetre = cible - 1;
+        MappedByteBuffer fenetre = channel.map(FileChannel.MapMode.READ_ONLY, debutFenetre,
+                Math.min(taille - debutFenetre, TAILLE_MAX_SEGMENT));
+        int limite = fenetre.limit();
+        for (int i = 0; i + 1 < limite; i++) {
+            if (fenetre.get(i) == '\n' && debutPlausible(fenetre, i + 1, limite)) {
+                return debutFenetre + i + 1;
+            }
+        }
+        return -1;
+    }
+
+    // Découpe sans décoder ni lever d'exception, comme decouper ; un enregistrement plausible tient en 64 Ko
+    private boolean debutPlausible(MappedByteBuffer b, int debut, int limite) {
+        int borne = Math.min(limite, debut + 64 * 1024);
+        int colonne = 0;
+        int i = debut;
+        while (true) {
+            int debutChamp = i;
+            boolean cite = i < borne && b.get(i) == '"';
+            if (cite) {
+                i++;
+                while (true) {
+                    if (i >= borne) return false;
+                    if (b.get(i++) == '"') {
+                        if (i < borne && b.get(i) == '"') i++;
+                        else break;
+                    }
+                }
+            }
+            byte c;
+            while (i < borne && (c = b.get(i)) != ';' && c != '\n') i++;
+            if (colonne == colDate && (cite || !ressembleADate(b, debutChamp, i))) return false;
+            colonne++;
+            if (colonne > nbColonnes) return false;
+            if (i >= borne) return i == limite && colonne == nbColonnes;
+            if (b.get(i) == '\n') return colonne == nbColonnes;
+            i++;
+        }
+    }
+
+    private static boolean ressembleADate(MappedByteBuffer b, int debut, int fin) {
+        return fin - debut >= 16 && b.get(debut + 4) == '-' && b.get(debut + 7) == '-' && b.get(debut + 10) == 'T'
+                && b.get(debut + 13) == ':';
+    }
+
+    /**
+     * Lit tout le fichier dans le thread courant.
+     */
+    int parcourir(Consumer<LigneConsultation> consumer) throws IOException {
+        int lues = 0;
+        for (long[] segment : segments(1)) {
+            lues += parcourir(segment[0], segment[1], consumer);
+        }
+        return lues;
+    }
+
+    /**
+     * Lit les lignes du segment [debut, fin[ ; les lignes invalides sont signalées et ignorées.
+     * @return le nombre de lignes transmises
+     */
+    int parcourir(long debut, long fin, Consumer<LigneConsultation> consumer) throws IOException {
+        if (fin <= debut) return 0;
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, debut, fin - debut);
+        }
+        Champs champs = new Champs(nbColonnes);
+        byte[] tampon = new byte[256];
+        int lues = 0;
+        int limite = buffer.limit();
+        int pos = 0;
+        while (pos < limite) {
+            byte premier = buffer.get(pos);
+            if (premier == '\n' || premier == '\r' || premier == '#') {
+                // Ligne vide ou commentaire (ligne de fin de SnapshotAtomique)
+                while (pos < limite && buffer.get(pos) != '\n') pos++;
+                pos++;
+                continue;
+            }
+            int finEnregistrement = limite;
+            try {
+                finEnregistrement = decouper(buffer, pos, limite, champs);
+                consumer.accept(decoder(buffer, champs, tampon));
+                lues++;
+            } catch (RuntimeException e) {
+                lignesRejetees.incrementAndGet();
+                System.err.println("Erreur parsing consultation (octet " + (debut + pos) + "): " + e.getMessage());
+            }
+            pos = finEnregistrement + 1;
+        }
+        return lues;
+    }
+
+    // Bornes des champs de l'enregistrement courant ; un champ entre guillemets garde ses guillemets
+    private static final class Champs {
+        final int[] debuts;
+        final int[] fins;
+        final boolean[] entreGuillemets;
+
+        Champs(int nbColonnes) {
+            debuts = new int[nbColonnes];
+            fins = new int[nbColonnes];
+            entreGuillemets = new boolean[nbColonnes];
+        }
+    }
+
+    /**
+     * Découpe l'enregistrement qui commence à debut (RFC 4180, comme DataService.decouperCsv).
+     * @return la position du '\n' qui le termine, ou limite
+     */
+    private int decouper(MappedByteBuffer buffer, int debut, int limite, Champs champs) {
+        int colonne = 0;
+        int i = debut;
+        while (true) {
+            int debutChamp = i;
+            boolean cite = i < limite && buffer.get(i) == '"';
+            if (cite) {
+                i++;
+                while (true) {
+                    if (i >= limite) throw new IllegalArgumentException("guillemets non fermés");
+                    if (buffer.get(i++) == '"') {
+                        if (i < limite && buffer.get(i) == '"') i++;
+                        else break;
+                    }
+                }
+            }
+            byte c;
+            while (i < limite && (c = buffer.get(i)) != ';' && c != '\n') i++;
+            if (colonne < nbColonnes) {
+                champs.debuts[colonne] = debutChamp;
+                champs.fins[colonne] = i;
+                champs.entreGuillemets[colonne] = cite;
+            }
+            colonne++;
+            if (i >= limite || buffer.get(i) == '\n') break;
+            i++;
+        }
+        // Fin de ligne Windows : le '\r' n'appartient pas au dernier champ
+        int dernier = Math.min(colonne, nbColonnes) - 1;
+        if (champs.fins[dernier] > champs.debuts[dernier] && buffer.get(champs.fins[dernier] - 1) == '\r') {
+            champs.fins[dernier]--;
+        }
+        // Colonnes manquantes en fin de ligne : champs vides
+        for (; colonne < nbColonnes; colonne++) {
+            champs.debuts[colonne] = i;
+            champs.fins[colonne] = i;
+            champs.entreGuillemets[colonne] = false;
+        }
+        return i;
+    }
+
+    private LigneConsultation decoder(MappedByteBuffer b, Champs champs, byte[] tampon) {
+        int id = colId >= 0 && !estVide(b, champs, colId) ? entier(b, champs, colId, tampon) : 0;
+        LocalDateTime date = champs.entreGuillemets[colDate]
+                ? LocalDateTime.parse(texte(b, champs, colDate, tampon))
+                : date(b, champs.debuts[colDate], champs.fins[colDate], tampon);
+        String login = texte(b, champs, colLogin, tampon);
+        int patientId = entier(b, champs, colPatient, tampon);
+        int duree = colDuree >= 0 && !estVide(b, champs, colDuree) ? entier(b, champs, colDuree, tampon) : 0;
+        String motif = colMotif >= 0 ? texte(b, champs, colMotif, tampon) : null;
+        String statut = colStatut >= 0 ? statut(b, champs, colStatut, tampon) : null;
+        String obs = colObs >= 0 ? texte(b, champs, colObs, tampon) : null;
+        String diag = colDiag >= 0 ? texte(b, champs, colDiag, tampon) : null;
+        return new LigneConsultation(id, date, motif, login, patientId, duree, statut, obs, diag);
+    }
+
+    private static boolean estVide(MappedByteBuffer b, Champs champs, int colonne) {
+        return champs.entreGuillemets[colonne]
+                ? champs.fins[colonne] - champs.debuts[colonne] <= 2
+                : estVide(b, champs.debuts[colonne], champs.fins[colonne]);
+    }
+
+    private static int entier(MappedByteBuffer b, Champs champs, int colonne, byte[] tampon) {
+        if (champs.entreGuillemets[colonne]) {
+            String valeur = texte(b, champs, colonne, tampon);
+            if (valeur == null) throw new NumberFormatException("champ numérique vide");
+            return Integer.parseInt(valeur);
+        }
+        return entier(b, champs.debuts[colonne], champs.fins[colonne]);
+    }
+
+    // Champ vide ou marqueur de valeur manquante ("null"/"NULL")
+    private static boolean estVide(MappedByteBuffer b, int debut, int fin) {
+        if (fin <= debut) return true;
+        if (fin - debut != 4) return false;
+        return (b.get(debut) == 'n' || b.get(debut) == 'N')
+                && (b.get(debut + 1) | 0x20) == 'u' && (b.get(debut + 2) | 0x20) == 'l' && (b.get(debut + 3) | 0x20) == 'l';
+    }
+
+    private static int entier(MappedByteBuffer b, int debut, int fin) {
+        if (fin <= debut) throw new NumberFormatException("champ numérique vide");
+        boolean negatif = b.get(debut) == '-';
+        int i = negatif ? debut + 1 : debut;
+        int valeur = 0;
+        for (; i < fin; i++) {
+            int chiffre = b.get(i) - '0';
+            if (chiffre < 0 || chiffre > 9) throw new NumberFormatException("caractère invalide dans un nombre");
+            valeur = valeur * 10 + chiffre;
+        }
+        return negatif ? -valeur : valeur;
+    }
+
+    // Format ISO produit par LocalDateTime.toString() : yyyy-MM-ddTHH:mm[:ss] décodé sur place, le reste via parse
+    private static LocalDateTime date(MappedByteBuffer b, int debut, int fin, byte[] tampon) {
+        int longueur = fin - debut;
+        if (longueur >= 16 && b.get(debut + 4) == '-' && b.get(debut + 7) == '-' && b.get(debut + 10) == 'T'
+                && b.get(debut + 13) == ':') {
+            int secondes = 0;
+            if (longueur == 19 && b.get(debut + 16) == ':') {
+                secondes = entier(b, debut + 17, debut + 19);
+            } else if (longueur != 16) {
+                return LocalDateTime.parse(texte(b, debut, fin, tampon));
+            }
+            return LocalDateTime.of(entier(b, debut, debut + 4), entier(b, debut + 5, debut + 7),
+                    entier(b, debut + 8, debut + 10), entier(b, debut + 11, debut + 13),
+                    entier(b, debut + 14, debut + 16), secondes);
+        }
+        return LocalDateTime.parse(texte(b, debut, fin, tampon));
+    }
+
+    // Les statuts connus sont reconnus octet par octet et renvoient une constante partagée
+    private static String statut(MappedByteBuffer b, Champs champs, int colonne, byte[] tampon) {
+        if (champs.entreGuillemets[colonne]) return texte(b, champs, colonne, tampon);
+        int debut = champs.debuts[colonne];
+        int fin = champs.fins[colonne];
+        for (int s = 0; s < STATUTS_OCTETS.length; s++) {
+            byte[] attendu = STATUTS_OCTETS[s];
+            if (attendu.length != fin - debut) continue;
+            int i = 0;
+            while (i < attendu.length && attendu[i] == b.get(debut + i)) i++;
+            if (i == attendu.length) return STATUTS[s].getLibelle();
+        }
+        return texte(b, debut, fin, tampon);
+    }
+
+    private static String texte(MappedByteBuffer b, int debut, int fin, byte[] tampon) {
+        if (estVide(b, debut, fin)) return null;
+        int longueur = fin - debut;
+        byte[] octets = longueur <= tampon.length ? tampon : new byte[longueur];
+        b.get(debut, octets, 0, longueur);
+        return new String(octets, 0, longueur, StandardCharsets.UTF_8);
+    }
+
+    // Champ entre guillemets : '""' redevient '"' ; le texte éventuel après le guillemet fermant est gardé
+    private static String texte(MappedByteBuffer b, Champs champs, int colonne, byte[] tampon) {
+        int debut = champs.debuts[colonne];
+        int fin = champs.fins[colonne];
+        if (!champs.entreGuillemets[colonne]) return texte(b, debut, fin, tampon);
+        byte[] octets = fin - debut <= tampon.length ? tampon : new byte[fin - debut];
+        int longueur = 0;
+        boolean ouvert = true;
+        for (int i = debut + 1; i < fin; i++) {
+            byte c = b.get(i);
+            if (ouvert && c == '"') {
+                if (i + 1 < fin && b.get(i + 1) == '"') {
+                    i++;
+                } else {
+                    ouvert = false;
+                    continue;
+                }
+            }
+            octets[longueur++] = c;
+        }
+        return longueur == 0 ? null : new String(octets, 0, longueur, StandardCharsets.UTF_8);
+    }
+}
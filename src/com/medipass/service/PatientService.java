@@ -2,6 +2,11 @@ package com.medipass.service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
 
 import com.medipass.model.Antecedent;
 import com.medipass.model.Patient;
@@ -9,115 +14,252 @@ import com.medipass.model.Patient;
 /**
  * Service de gestion des patients.
  * Permet de créer, rechercher, modifier et supprimer des patients.
+ * Les patients sont indexés par ID (clé int primitive) ; la table conserve
+ * l'ordre d'insertion, ce qui évite une liste séparée pour l'affichage.
+ * Un index secondaire sert les recherches par nom, NSS et groupe sanguin,
+ * un index de trigrammes la recherche approchée (fautes de frappe, phonétique).
+ * Sûr entre threads : les lectures et recherches se font en parallèle sous un
+ * verrou lecture/écriture, les créations, modifications et suppressions une à une.
+ * Les écouteurs (journal) sont prévenus une fois le verrou relâché : une écriture sur
+ * disque ne bloque pas les lectures. Les mutations d'un même ID leur parviennent dans
+ * l'ordre où elles ont été appliquées.
  */
 public class PatientService {
-    private final List<Patient> patients = new ArrayList<>();
+    private final Int2ObjectLinkedOpenHashMap<Patient> patients = new Int2ObjectLinkedOpenHashMap<>();
+    private final IndexRecherchePatients index = new IndexRecherchePatients();
+    private final IndexApproximatif approximatif = new IndexApproximatif();
+    private final List<EcouteurDonnees> ecouteurs = new CopyOnWriteArrayList<>();
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+    // Moniteurs répartis par ID, pris avant le verrou et gardés jusqu'à la fin des notifications
+    private final Object[] ordres = new Object[64];
+
+    public PatientService() {
+        for (int i = 0; i < ordres.length; i++) {
+            ordres[i] = new Object();
+        }
+    }
+
+    /**
+     * Abonne un écouteur aux créations, modifications et suppressions de patients
+     */
+    public void ajouterEcouteur(EcouteurDonnees ecouteur) {
+        ecouteurs.add(ecouteur);
+    }
+
+    private <T> T lire(Supplier<T> lecture) {
+        verrou.readLock().lock();
+        try {
+            return lecture.get();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    private boolean ecrire(Supplier<Boolean> ecriture) {
+        verrou.writeLock().lock();
+        try {
+            return ecriture.get();
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    private Object ordre(int id) {
+        return ordres[Math.floorMod(id, ordres.length)];
+    }
 
     /**
      * Crée un nouveau patient
      */
     public boolean creerPatient(Patient patient) {
-        if (patient == null || findPatientById(patient.getId()) != null) {
+        if (patient == null) {
             return false;
         }
-        patients.add(patient);
-        return true;
+        synchronized (ordre(patient.getId())) {
+            boolean cree = ecrire(() -> {
+                if (patients.containsKey(patient.getId())) {
+                    return false;
+                }
+                patients.put(patient.getId(), patient);
+                index.ajouter(patient);
+                approximatif.ajouter(patient);
+                return true;
+            });
+            if (cree) {
+                for (EcouteurDonnees e : ecouteurs) {
+                    e.patientCree(patient);
+                }
+            }
+            return cree;
+        }
     }
 
     /**
      * Recherche un patient par ID
      */
     public Patient findPatientById(int id) {
-        return patients.stream().filter(p -> p.getId() == id).findFirst().orElse(null);
+        return lire(() -> patients.get(id));
     }
 
     /**
-     * Recherche un patient par nom et prénom
+     * Recherche un patient par nom et prénom (sans tenir compte des accents ni de la casse)
      */
     public Patient findPatientByNomPrenom(String nom, String prenom) {
-        return patients.stream()
-                .filter(p -> p.getNom().equalsIgnoreCase(nom) && p.getPrenom().equalsIgnoreCase(prenom))
-                .findFirst().orElse(null);
+        return lire(() -> index.trouver(nom, prenom));
+    }
+
+    /**
+     * Recherche un patient par numéro de sécurité sociale (espaces ignorés)
+     */
+    public Patient findPatientByNumeroSecuriteSociale(String numero) {
+        return lire(() -> index.parNss(numero));
+    }
+
+    /**
+     * Recherche les patients dont le nom ou le prénom commence par la saisie,
+     * par exemple "dup" ou "dupont je" ou "jean dup"
+     * @param limite nombre maximal de résultats
+     */
+    public List<Patient> rechercherPatients(String saisie, int limite) {
+        return lire(() -> index.rechercher(saisie, limite));
+    }
+
+    /**
+     * Patient proche d'une saisie approchée, avec sa similarité (entre 0 et 1)
+     */
+    public record Correspondance(Patient patient, double score) {
+    }
+
+    /**
+     * Recherche approchée sur le nom complet, dans n'importe quel ordre :
+     * tolère fautes de frappe, accents, casse et graphies proches à l'oral
+     * @param k nombre maximal de résultats, les plus proches d'abord
+     */
+    public List<Correspondance> rechercherPatientsApproches(String saisie, int k) {
+        return rechercherPatientsApproches(saisie, k, 0.4);
+    }
+
+    /**
+     * @param seuil similarité minimale, entre 0 (exclu) et 1 ; plus il est haut, plus la recherche est rapide
+     */
+    public List<Correspondance> rechercherPatientsApproches(String saisie, int k, double seuil) {
+        List<Correspondance> resultat = new ArrayList<>();
+        for (IndexApproximatif.Candidat c : lire(() -> approximatif.rechercher(saisie, k, seuil))) {
+            resultat.add(new Correspondance(c.patient(), c.score()));
+        }
+        return resultat;
     }
 
     /**
      * Récupère tous les patients
      */
     public List<Patient> getPatients() {
-        return new ArrayList<>(patients);
+        return lire(() -> new ArrayList<>(patients.values()));
     }
 
     /**
      * Met à jour les informations d'un patient
      */
     public boolean modifierPatient(int id, String nom, String prenom, String numeroSS, String groupeSanguin) {
-        Patient patient = findPatientById(id);
-        if (patient == null) {
-            return false;
-        }
-        if (nom != null && !nom.trim().isEmpty()) {
-            patient.setNom(nom);
-        }
-        if (prenom != null && !prenom.trim().isEmpty()) {
-            patient.setPrenom(prenom);
-        }
-        if (numeroSS != null) {
-            patient.setNumeroSecuriteSociale(numeroSS);
-        }
-        if (groupeSanguin != null) {
-            patient.setGroupeSanguin(groupeSanguin);
+        Patient[] modifie = new Patient[1];
+        synchronized (ordre(id)) {
+            boolean ok = ecrire(() -> {
+                Patient patient = patients.get(id);
+                if (patient == null) {
+                    return false;
+                }
+                index.retirer(patient);
+                approximatif.retirer(patient);
+                if (nom != null && !nom.trim().isEmpty()) {
+                    patient.setNom(nom);
+                }
+                if (prenom != null && !prenom.trim().isEmpty()) {
+                    patient.setPrenom(prenom);
+                }
+                if (numeroSS != null) {
+                    patient.setNumeroSecuriteSociale(numeroSS);
+                }
+                if (groupeSanguin != null) {
+                    patient.setGroupeSanguin(groupeSanguin);
+                }
+                index.ajouter(patient);
+                approximatif.ajouter(patient);
+                modifie[0] = patient;
+                return true;
+            });
+            if (ok) {
+                for (EcouteurDonnees e : ecouteurs) {
+                    e.patientModifie(modifie[0]);
+                }
+            }
+            return ok;
         }
-        return true;
     }
 
     /**
      * Supprime un patient
      */
     public boolean supprimerPatient(int id) {
-        return patients.removeIf(p -> p.getId() == id);
+        Patient[] supprime = new Patient[1];
+        synchronized (ordre(id)) {
+            boolean ok = ecrire(() -> {
+                Patient patient = patients.remove(id);
+                if (patient == null) {
+                    return false;
+                }
+                index.retirer(patient);
+                approximatif.retirer(patient);
+                supprime[0] = patient;
+                return true;
+            });
+            if (ok) {
+                for (EcouteurDonnees e : ecouteurs) {
+                    e.patientSupprime(supprime[0]);
+                }
+            }
+            return ok;
+        }
     }
 
     /**
      * Ajoute un antécédent au dossier médical d'un patient
      */
     public boolean ajouterAntecedentAuPatient(int patientId, Antecedent antecedent) {
-        Patient patient = findPatientById(patientId);
-        if (patient == null) {
-            return false;
-        }
-        patient.getDossierMedical().ajouterAntecedent(antecedent);
-        return true;
+        return ecrire(() -> {
+            Patient patient = patients.get(patientId);
+            if (patient == null) {
+                return false;
+            }
+            patient.getDossierMedical().ajouterAntecedent(antecedent);
+            return true;
+        });
     }
 
     /**
      * Récupère les antécédents d'un patient
      */
     public List<Antecedent> getAntecedentsPatient(int patientId) {
-        Patient patient = findPatientById(patientId);
-        if (patient == null) {
-            return new ArrayList<>();
-        }
-        return patient.getDossierMedical().getAntecedents();
+        return lire(() -> {
+            Patient patient = patients.get(patientId);
+            if (patient == null) {
+                return new ArrayList<>();
+            }
+            return new ArrayList<>(patient.getDossierMedical().getAntecedents());
+        });
     }
 
     /**
      * Recherche les patients par groupe sanguin
      */
     public List<Patient> findPatientsByGroupeSanguin(String groupe) {
-        List<Patient> result = new ArrayList<>();
-        for (Patient p : patients) {
-            if (groupe.equalsIgnoreCase(p.getGroupeSanguin())) {
-                result.add(p);
-            }
-        }
-        return result;
+        return lire(() -> index.parGroupe(groupe));
     }
 
     /**
      * Obtient le nombre total de patients
      */
     public int getNombrePatients() {
-        return patients.size();
+        return lire(patients::size);
     }
 
     /**
@@ -0,0 +1,80 @@
+package com.medipass.service;
+
+import java.util.Arrays;
+
+/**
+ * Résumé de distribution à erreur relative bornée (principe de DDSketch).
+ * Chaque valeur positive tombe dans le seau ceil(log_gamma(v)) : un quantile est
+ * rendu à 1 % près quel que soit le volume, et la mémoire ne dépend que de l'étendue
+ * des valeurs (quelques centaines de seaux pour des durées en minutes).
+ * Les résumés se fusionnent et acceptent les retraits, ce qui suit les annulations.
+ */
+final class SketchQuantiles {
+    private static final double PRECISION = 0.01;
+    private static final double GAMMA = (1 + PRECISION) / (1 - PRECISION);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private long[] seaux = new long[0];
+    private int decalage;
+    private long total;
+
+    void ajouter(int valeur) {
+        modifier(valeur, 1);
+    }
+
+    void retirer(int valeur) {
+        modifier(valeur, -1);
+    }
+
+    private void modifier(int valeur, long delta) {
+        if (valeur <= 0) return;
+        int seau = (int) Math.ceil(Math.log(valeur) / LOG_GAMMA);
+        etendre(seau);
+        seaux[seau - decalage] += delta;
+        total += delta;
+    }
+
+    void fusionner(SketchQuantiles autre) {
+        if (autre.seaux.length == 0) return;
+        etendre(autre.decalage);
+        etendre(autre.decalage + autre.seaux.length - 1);
+        for (int i = 0; i < autre.seaux.length; i++) {
+            seaux[autre.decalage + i - decalage] += autre.seaux[i];
+        }
+        total += autre.total;
+    }
+
+    private void etendre(int seau) {
+        if (seaux.length == 0) {
+            seaux = new long[1];
+            decalage = seau;
+        } else if (seau < decalage) {
+            long[] nouveaux = new long[seaux.length + decalage - seau];
+            System.arraycopy(seaux, 0, nouveaux, decalage - seau, seaux.length);
+            seaux = nouveaux;
+            decalage = seau;
+        } else if (seau >= decalage + seaux.length) {
+            seaux = Arrays.copyOf(seaux, seau - decalage + 1);
+        }
+    }
+
+    long getTotal() {
+        return total;
+    }
+
+    /**
+     * Valeur au quantile q (entre 0 et 1), 0 si le résumé est vide
+     */
+    double quantile(double q) {
+        if (total <= 0) return 0;
+        long rang = (long) Math.floor(q * (total - 1));
+        long cumul = 0;
+        for (int i = 0; i < seaux.length; i++) {
+            cumul += seaux[i];
+            if (cumul > rang) {
+                return 2 * Math.pow(GAMMA, i + decalage) / (GAMMA + 1);
+            }
+        }
+        return 2 * Math.pow(GAMMA, seaux.length - 1 + decalage) / (GAMMA + 1);
+    }
+}
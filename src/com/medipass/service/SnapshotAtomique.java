@@ -0,0 +1,224 @@
+package com.medipass.service;
+
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Écriture atomique des fichiers de données avec somme de contrôle.
+ * Le contenu est écrit dans un fichier temporaire entre une ligne d'en-tête
+ * "#medipass-snapshot;version=2" et une ligne de fin "#medipass-snapshot;crc32=...;octets=...",
+ * forcé sur disque, puis renommé atomiquement ; la génération précédente est conservée en ".prev".
+ * La somme couvre l'en-tête et le contenu. Les lecteurs ignorent l'en-tête (voir {@link #debutContenu}).
+ * À la lecture, un fichier dont la somme ne correspond pas, ou qui porte l'en-tête sans la ligne
+ * de fin (fichier tronqué), est écarté au profit de la génération précédente. Seul un fichier
+ * d'avant l'en-tête (ancien format, sans ligne de fin) est accepté sans vérification.
+ */
+final class SnapshotAtomique {
+
+    private static final String MARQUEUR = "#medipass-snapshot;";
+    private static final String ENTETE = MARQUEUR + "version=2\n";
+    private static final int TAILLE_MAX_FIN = 128;
+
+    @FunctionalInterface
+    interface Ecrivain {
+        void ecrire(OutputStream out) throws Exception;
+    }
+
+    private SnapshotAtomique() {
+    }
+
+    /**
+     * Remplace atomiquement {@code cible} par le contenu produit par l'écrivain.
+     */
+    static void ecrire(Path cible, Ecrivain ecrivain) throws Exception {
+        Path tmp = cible.resolveSibling(cible.getFileName() + ".tmp");
+        try (FileOutputStream fichier = new FileOutputStream(tmp.toFile())) {
+            FluxControle flux = new FluxControle(fichier);
+            flux.write(ENTETE.getBytes(StandardCharsets.US_ASCII));
+            ecrivain.ecrire(flux);
+            flux.flush();
+            String fin = String.format("%scrc32=%08x;octets=%d%n", MARQUEUR, flux.crc.getValue(), flux.octets);
+            fichier.write(fin.getBytes(StandardCharsets.US_ASCII));
+            fichier.getChannel().force(true);
+        }
+        if (Files.exists(cible)) {
+            deplacer(cible, generationPrecedente(cible));
+        }
+        deplacer(tmp, cible);
+        synchroniserRepertoire(cible);
+    }
+
+    /**
+     * Renvoie la génération valide la plus récente de {@code cible} (elle-même ou ".prev").
+     * Si aucune n'est valide, {@code cible} est renvoyé tel quel pour en récupérer les lignes lisibles ;
+     * null si le fichier n'existe pas.
+     */
+    static Path resoudre(Path cible) {
+        Path valide = resoudreValide(cible);
+        if (valide != null) return valide;
+        return Files.exists(cible) ? cible : null;
+    }
+
+    /**
+     * Comme {@link #resoudre} mais sans repli : null si aucune génération n'est valide
+     */
+    static Path resoudreValide(Path cible) {
+        for (Path candidat : new Path[]{cible, generationPrecedente(cible)}) {
+            if (!Files.exists(candidat)) continue;
+            try {
+                if (verifier(candidat)) {
+                    if (candidat != cible) {
+                        System.err.println("⚠️ " + cible + " corrompu ou absent, génération précédente utilisée");
+                    }
+                    return candidat;
+                }
+                System.err.println("⚠️ Somme de contrôle invalide : " + candidat);
+            } catch (IOException e) { System.err.println("Erreur vérification " + candidat + ": " + e.getMessage()); }
+        }
+        return null;
+    }
+
+    static Path generationPrecedente(Path cible) {
+        return cible.resolveSibling(cible.getFileName() + ".prev");
+    }
+
+    /**
+     * Position du contenu dans un fichier projeté depuis son début : juste après la ligne
+     * d'en-tête, ou 0 pour un fichier de l'ancien format
+     */
+    static int debutContenu(ByteBuffer fichier) {
+        int limite = fichier.limit();
+        if (limite < MARQUEUR.length()) return 0;
+        for (int i = 0; i < MARQUEUR.length(); i++) {
+            if (fichier.get(i) != MARQUEUR.charAt(i)) return 0;
+        }
+        int i = MARQUEUR.length();
+        while (i < limite && fichier.get(i) != '\n') i++;
+        return Math.min(limite, i + 1);
+    }
+
+    /**
+     * Vrai pour la ligne d'en-tête, lue en texte
+     */
+    static boolean estEntete(String ligne) {
+        return ligne.startsWith(MARQUEUR);
+    }
+
+    private static boolean verifier(Path fichier) throws IOException {
+        long taille = Files.size(fichier);
+        long[] attendu = lireFin(fichier, taille);
+        if (attendu == FIN_ILLISIBLE) return false;
+        if (attendu == null) {
+            // Ancien format : ni en-tête ni ligne de fin. Un fichier vide ou commençant
+            // comme un en-tête a été tronqué
+            byte[] debut = new byte[1];
+            try (InputStream in = Files.newInputStream(fichier)) {
+                return in.read(debut) == 1 && debut[0] != '#';
+            }
+        }
+        long octets = attendu[1];
+        if (octets > taille) return false;
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(fichier)) {
+            byte[] tampon = new byte[64 * 1024];
+            long restant = octets;
+            while (restant > 0) {
+                int lus = in.read(tampon, 0, (int) Math.min(tampon.length, restant));
+                if (lus < 0) return false;
+                crc.update(tampon, 0, lus);
+                restant -= lus;
+            }
+        }
+        return crc.getValue() == attendu[0];
+    }
+
+    // Ligne de fin présente mais altérée (champ manquant, valeur non numérique) : fichier corrompu
+    private static final long[] FIN_ILLISIBLE = {};
+
+    // {crc, octets} lus dans la ligne de fin, null si le fichier n'en a pas (l'en-tête n'en est pas une),
+    // FIN_ILLISIBLE si elle est altérée
+    private static long[] lireFin(Path fichier, long taille) throws IOException {
+        int longueur = (int) Math.min(TAILLE_MAX_FIN, taille);
+        ByteBuffer fin = ByteBuffer.allocate(longueur);
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            canal.read(fin, taille - longueur);
+        }
+        String texte = new String(fin.array(), 0, fin.position(), StandardCharsets.US_ASCII);
+        int debut = texte.lastIndexOf(MARQUEUR);
+        if (debut < 0) return null;
+        String champs = texte.substring(debut + MARQUEUR.length()).trim();
+        if (champs.startsWith("version=")) return null;
+        long crc = -1;
+        long octets = -1;
+        try {
+            for (String champ : champs.split(";")) {
+                if (champ.startsWith("crc32=")) crc = Long.parseLong(champ.substring(6), 16);
+                if (champ.startsWith("octets=")) octets = Long.parseLong(champ.substring(7));
+            }
+        } catch (NumberFormatException e) {
+            return FIN_ILLISIBLE;
+        }
+        if (crc < 0 || octets < 0) return FIN_ILLISIBLE;
+        return new long[]{crc, octets};
+    }
+
+    private static void deplacer(Path source, Path cible) throws IOException {
+        try {
+            Files.move(source, cible, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, cible, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Rend les renommages durables ; sans effet sur les systèmes qui n'ouvrent pas les répertoires
+    private static void synchroniserRepertoire(Path fichier) {
+        Path repertoire = fichier.toAbsolutePath().getParent();
+        try (FileChannel canal = FileChannel.open(repertoire, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException | UnsupportedOperationException ignored) { }
+    }
+
+    /**
+     * Calcule la somme et la taille de ce qui est écrit ; close() ne ferme pas le fichier
+     * sous-jacent pour permettre l'ajout de la ligne de fin.
+     */
+    private static final class FluxControle extends FilterOutputStream {
+        private final CRC32 crc = new CRC32();
+        private long octets;
+
+        FluxControle(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            crc.update(b);
+            octets++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            crc.update(b, off, len);
+            octets += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.medipass.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.Patient;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Instantané binaire en colonnes de patients, professionnels et consultations.
+ * Chaque section stocke ses champs colonne par colonne : entiers bruts, dates en
+ * minutes depuis l'époque (UTC), chaînes répétitives (statut, login, spécialité,
+ * groupe sanguin) encodées par dictionnaire. Aucune date n'est reparsée au chargement.
+ *
+ * Format (big-endian) : MAGIC, VERSION, puis les sections patients, professionnels
+ * et consultations, chacune précédée de son nombre de lignes.
+ */
+final class SnapshotBinaire {
+
+    private static final int MAGIC = 0x4D50534E; // "MPSN"
+    private static final int VERSION = 1;
+
+    /**
+     * Contenu décodé d'un instantané. Les consultations restent en colonnes :
+     * leur liaison aux patients et professionnels est faite par DataService.
+     */
+    static final class Contenu {
+        final List<Patient> patients;
+        final List<ProfessionnelSante> pros;
+        final int nbConsultations;
+        final int[] ids;
+        final long[] minutes;
+        final int[] patientIds;
+        final int[] durees;
+        final String[] logins;
+        final int[] codesLogin;
+        final String[] statuts;
+        final int[] codesStatut;
+        final String[] motifs;
+        final String[] observations;
+        final String[] diagnostics;
+
+        private Contenu(List<Patient> patients, List<ProfessionnelSante> pros, int nbConsultations, int[] ids,
+                        long[] minutes, int[] patientIds, int[] durees, String[] logins, int[] codesLogin,
+                        String[] statuts, int[] codesStatut, String[] motifs, String[] observations, String[] diagnostics) {
+            this.patients = patients;
+            this.pros = pros;
+            this.nbConsultations = nbConsultations;
+            this.ids = ids;
+            this.minutes = minutes;
+            this.patientIds = patientIds;
+            this.durees = durees;
+            this.logins = logins;
+            this.codesLogin = codesLogin;
+            this.statuts = statuts;
+            this.codesStatut = codesStatut;
+            this.motifs = motifs;
+            this.observations = observations;
+            this.diagnostics = diagnostics;
+        }
+
+        LocalDateTime dateHeure(int i) {
+            return LocalDateTime.ofEpochSecond(minutes[i] * 60, 0, ZoneOffset.UTC);
+        }
+
+        String statut(int i) {
+            return codesStatut[i] < 0 ? null : statuts[codesStatut[i]];
+        }
+    }
+
+    private SnapshotBinaire() {
+    }
+
+    // ==================== ÉCRITURE ====================
+
+    static void ecrire(OutputStream destination, List<Patient> patients, List<ProfessionnelSante> pros,
+                       List<Consultation> consultations) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(destination, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        int n = patients.size();
+        out.writeInt(n);
+        String[] nom = new String[n], prenom = new String[n], nss = new String[n], groupe = new String[n];
+        for (int i = 0; i < n; i++) {
+            Patient p = patients.get(i);
+            out.writeInt(p.getId());
+            nom[i] = p.getNom();
+            prenom[i] = p.getPrenom();
+            nss[i] = p.getNumeroSecuriteSociale();
+            groupe[i] = p.getGroupeSanguin();
+        }
+        ecrireChaines(out, nom);
+        ecrireChaines(out, prenom);
+        ecrireChaines(out, nss);
+        ecrireDictionnaire(out, groupe);
+
+        int m = pros.size();
+        out.writeInt(m);
+        String[] login = new String[m], password = new String[m], acces = new String[m], nomPro = new String[m],
+                prenomPro = new String[m], specialite = new String[m], ordre = new String[m], horaires = new String[m];
+        for (int i = 0; i < m; i++) {
+            ProfessionnelSante p = pros.get(i);
+            login[i] = p.getLoginID();
+            password[i] = p.getPassword();
+            acces[i] = p.getAccessLevels();
+            nomPro[i] = p.getNom();
+            prenomPro[i] = p.getPrenom();
+            specialite[i] = p.getSpecialite();
+            ordre[i] = p.getNumeroOrdre();
+            horaires[i] = p.getHorairesDisponibilite();
+        }
+        ecrireChaines(out, login);
+        ecrireChaines(out, password);
+        ecrireChaines(out, acces);
+        ecrireChaines(out, nomPro);
+        ecrireChaines(out, prenomPro);
+        ecrireDictionnaire(out, specialite);
+        ecrireChaines(out, ordre);
+        ecrireChaines(out, horaires);
+
+        int k = consultations.size();
+        out.writeInt(k);
+        for (Consultation c : consultations) out.writeInt(c.getIdConsultation());
+        for (Consultation c : consultations) out.writeLong(c.getDateHeure().toEpochSecond(ZoneOffset.UTC) / 60);
+        for (Consultation c : consultations) out.writeInt(c.getPatient().getId());
+        for (Consultation c : consultations) out.writeInt(c.getDureeMinutes());
+        String[] colonne = new String[k];
+        for (int i = 0; i < k; i++) colonne[i] = consultations.get(i).getProfessionnel().getLoginID();
+        ecrireDictionnaire(out, colonne);
+        for (int i = 0; i < k; i++) colonne[i] = consultations.get(i).getStatut();
+        ecrireDictionnaire(out, colonne);
+        for (int i = 0; i < k; i++) colonne[i] = consultations.get(i).getMotif();
+        ecrireChaines(out, colonne);
+        for (int i = 0; i < k; i++) colonne[i] = consultations.get(i).getObservations();
+        ecrireChaines(out, colonne);
+        for (int i = 0; i < k; i++) colonne[i] = consultations.get(i).getDiagnostic();
+        ecrireChaines(out, colonne);
+        out.flush();
+    }
+
+    // Longueurs en octets (-1 pour null) puis les octets UTF-8 concaténés
+    private static void ecrireChaines(DataOutputStream out, String[] valeurs) throws IOException {
+        byte[][] octets = new byte[valeurs.length][];
+        for (int i = 0; i < valeurs.length; i++) {
+            octets[i] = valeurs[i] != null ? valeurs[i].getBytes(StandardCharsets.UTF_8) : null;
+            out.writeInt(octets[i] != null ? octets[i].length : -1);
+        }
+        for (byte[] o : octets) {
+            if (o != null) out.write(o);
+        }
+    }
+
+    // Valeurs distinctes, puis un code par ligne (-1 pour null)
+    private static void ecrireDictionnaire(DataOutputStream out, String[] valeurs) throws IOException {
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> entrees = new ArrayList<>();
+        int[] code = new int[valeurs.length];
+        for (int i = 0; i < valeurs.length; i++) {
+            if (valeurs[i] == null) {
+                code[i] = -1;
+                continue;
+            }
+            Integer c = codes.get(valeurs[i]);
+            if (c == null) {
+                c = entrees.size();
+                codes.put(valeurs[i], c);
+                entrees.add(valeurs[i]);
+            }
+            code[i] = c;
+        }
+        out.writeInt(entrees.size());
+        ecrireChaines(out, entrees.toArray(new String[0]));
+        for (int c : code) out.writeInt(c);
+    }
+
+    // ==================== LECTURE ====================
+
+    static Contenu lire(Path fichier) throws IOException {
+        ByteBuffer in;
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) throw new IOException("instantané trop volumineux : " + fichier);
+            in = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        in.position(SnapshotAtomique.debutContenu(in)); // ligne d'en-tête de SnapshotAtomique
+        if (in.remaining() < 8 || in.getInt() != MAGIC) throw new IOException("instantané invalide : " + fichier);
+        int version = in.getInt();
+        if (version != VERSION) throw new IOException("version d'instantané non supportée : " + version);
+
+        int n = in.getInt();
+        int[] idsPatients = entiers(in, n);
+        String[] nom = lireChaines(in, n);
+        String[] prenom = lireChaines(in, n);
+        String[] nss = lireChaines(in, n);
+        String[] groupe = lireDictionnaire(in, n);
+        List<Patient> patients = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Patient p = new Patient(idsPatients[i], nom[i], prenom[i]);
+            p.setNumeroSecuriteSociale(nss[i]);
+            p.setGroupeSanguin(groupe[i]);
+            patients.add(p);
+        }
+
+        int m = in.getInt();
+        String[] login = lireChaines(in, m);
+        String[] password = lireChaines(in, m);
+        String[] acces = lireChaines(in, m);
+        String[] nomPro = lireChaines(in, m);
+        String[] prenomPro = lireChaines(in, m);
+        String[] specialite = lireDictionnaire(in, m);
+        String[] ordre = lireChaines(in, m);
+        String[] horaires = lireChaines(in, m);
+        List<ProfessionnelSante> pros = new ArrayList<>(m);
+        for (int i = 0; i < m; i++) {
+            ProfessionnelSante p = new ProfessionnelSante(login[i], password[i], "PRO", acces[i],
+                    nomPro[i], prenomPro[i], specialite[i], ordre[i]);
+            p.setHorairesDisponibilite(horaires[i]);
+            pros.add(p);
+        }
+
+        int k = in.getInt();
+        int[] ids = entiers(in, k);
+        long[] minutes = new long[k];
+        in.asLongBuffer().get(minutes);
+        in.position(in.position() + k * Long.BYTES);
+        int[] patientIds = entiers(in, k);
+        int[] durees = entiers(in, k);
+        String[] logins = lireChaines(in, in.getInt());
+        int[] codesLogin = entiers(in, k);
+        String[] statuts = lireChaines(in, in.getInt());
+        int[] codesStatut = entiers(in, k);
+        String[] motifs = lireChaines(in, k);
+        String[] observations = lireChaines(in, k);
+        String[] diagnostics = lireChaines(in, k);
+        return new Contenu(patients, pros, k, ids, minutes, patientIds, durees, logins, codesLogin,
+                statuts, codesStatut, motifs, observations, diagnostics);
+    }
+
+    private static int[] entiers(ByteBuffer in, int nombre) {
+        int[] valeurs = new int[nombre];
+        in.asIntBuffer().get(valeurs);
+        in.position(in.position() + nombre * Integer.BYTES);
+        return valeurs;
+    }
+
+    private static String[] lireChaines(ByteBuffer in, int nombre) {
+        int[] longueurs = entiers(in, nombre);
+        String[] valeurs = new String[nombre];
+        byte[] tampon = new byte[256];
+        for (int i = 0; i < nombre; i++) {
+            int longueur = longueurs[i];
+            if (longueur < 0) continue;
+            byte[] octets = longueur <= tampon.length ? tampon : new byte[longueur];
+            in.get(octets, 0, longueur);
+            valeurs[i] = new String(octets, 0, longueur, StandardCharsets.UTF_8);
+        }
+        return valeurs;
+    }
+
+    // Chaque valeur distincte n'est décodée qu'une fois et partagée entre les lignes
+    private static String[] lireDictionnaire(ByteBuffer in, int nombre) {
+        String[] entrees = lireChaines(in, in.getInt());
+        int[] codes = entiers(in, nombre);
+        String[] valeurs = new String[nombre];
+        for (int i = 0; i < nombre; i++) {
+            if (codes[i] >= 0) valeurs[i] = entrees[codes[i]];
+        }
+        return valeurs;
+    }
+}
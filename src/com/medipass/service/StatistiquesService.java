@@ -1,15 +1,25 @@
 package com.medipass.service;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import com.medipass.model.Patient;
 import com.medipass.user.ProfessionnelSante;
 import com.medipass.model.Consultation;
+import com.medipass.model.StatutConsultation;
 
 /*
  * Service de statistiques basiques.
+ * Les méthodes sans liste en paramètre sont servies par des agrégats tenus à jour
+ * par getMoteur(), abonné aux services. Les patients distincts et les quantiles de
+ * durée sont estimés par des sketches fusionnables, en mémoire constante.
  */
 public class StatistiquesService {
 
@@ -31,7 +41,19 @@ public class StatistiquesService {
         return (int) consultations.stream().filter(c -> !c.getDateHeure().isBefore(debut) && !c.getDateHeure().isAfter(fin)).count();
     }
 
+    /**
+     * Variante qui interroge l'index par jour du service au lieu de parcourir une liste (bornes incluses)
+     */
+    public int getConsultationsParPeriode(ConsultationService consultationService, java.time.LocalDateTime debut, java.time.LocalDateTime fin){
+        if(consultationService == null) return 0;
+        return consultationService.getConsultationsParPeriode(debut, fin.plusNanos(1)).size();
+    }
+
     public String afficherStatistiques(int nbPatients, int nbPros, int nbConsultations, List<Consultation> consultations, List<ProfessionnelSante> pros) {
+        return entete(nbPatients, nbPros, nbConsultations, getProfessionnelsParSpecialite(pros)).toString();
+    }
+
+    private StringBuilder entete(int nbPatients, int nbPros, int nbConsultations, Map<String, Long> parSpecialite) {
         StringBuilder sb = new StringBuilder();
         sb.append("\n=== STATISTIQUES DU SYSTÈME ===\n");
         sb.append(String.format("Nombre total de patients : %d\n", nbPatients));
@@ -39,7 +61,6 @@ public class StatistiquesService {
         sb.append(String.format("Nombre total de consultations : %d\n", nbConsultations));
         
         sb.append("\n--- Répartition par spécialité ---\n");
-        Map<String, Long> parSpecialite = getProfessionnelsParSpecialite(pros);
         if (parSpecialite.isEmpty()) {
             sb.append("Aucune donnée disponible.\n");
         } else {
@@ -47,6 +68,340 @@ public class StatistiquesService {
                 sb.append(String.format("- %s : %d\n", spec, count)));
         }
         
+        return sb;
+    }
+
+    // ==================== AGRÉGATS INCRÉMENTAUX ====================
+
+    /**
+     * Répartition des consultations d'une période, par statut et par professionnel
+     */
+    public record Repartition(int total, Map<StatutConsultation, Integer> parStatut,
+                              Map<ProfessionnelSante, Integer> parProfessionnel) {
+    }
+
+    // Compteurs d'une journée de consultations
+    private static final class Jour {
+        private final int[] parStatut = new int[StatutConsultation.values().length];
+        private final Map<ProfessionnelSante, Integer> parPro = new HashMap<>();
+        private int total;
+    }
+
+    /**
+     * Tient les agrégats à jour au fil des mutations des services
+     */
+    private final class Moteur implements EcouteurDonnees {
+        @Override
+        public void patientCree(Patient patient) {
+            synchronized (StatistiquesService.this) { nbPatients++; }
+        }
+
+        @Override
+        public void patientSupprime(Patient patient) {
+            synchronized (StatistiquesService.this) { nbPatients--; }
+        }
+
+        @Override
+        public void proCree(ProfessionnelSante pro) {
+            synchronized (StatistiquesService.this) {
+                nbPros++;
+                prosParSpecialite.merge(pro.getSpecialite(), 1L, Long::sum);
+            }
+        }
+
+        @Override
+        public void proSupprime(ProfessionnelSante pro) {
+            synchronized (StatistiquesService.this) {
+                nbPros--;
+                prosParSpecialite.computeIfPresent(pro.getSpecialite(), (spec, n) -> n > 1 ? n - 1 : null);
+            }
+        }
+
+        @Override
+        public void consultationAjoutee(Consultation c) {
+            synchronized (StatistiquesService.this) {
+                nbConsultations++;
+                sommeDurees += c.getDureeMinutes();
+                consultationsParStatut[c.getStatutConsultation().ordinal()]++;
+                consultationsParPro.merge(c.getProfessionnel(), 1, Integer::sum);
+                Jour jour = parJour.computeIfAbsent(c.getDateHeure().toLocalDate().toEpochDay(), j -> new Jour());
+                jour.total++;
+                jour.parStatut[c.getStatutConsultation().ordinal()]++;
+                jour.parPro.merge(c.getProfessionnel(), 1, Integer::sum);
+                colonnes.ajouter(c);
+                esquisser(c);
+            }
+        }
+
+        @Override
+        public void statutModifie(Consultation c, String ancienStatut) {
+            StatutConsultation ancien = StatutConsultation.depuisLibelle(ancienStatut);
+            if (ancien == null) return;
+            synchronized (StatistiquesService.this) {
+                consultationsParStatut[ancien.ordinal()]--;
+                consultationsParStatut[c.getStatutConsultation().ordinal()]++;
+                Jour jour = parJour.get(c.getDateHeure().toLocalDate().toEpochDay());
+                if (jour != null) {
+                    jour.parStatut[ancien.ordinal()]--;
+                    jour.parStatut[c.getStatutConsultation().ordinal()]++;
+                }
+                colonnes.statutModifie(c);
+                if (ancien == StatutConsultation.ANNULEE && !c.estAnnulee()) {
+                    dureesParMois.computeIfAbsent(YearMonth.from(c.getDateHeure()), m -> new SketchQuantiles())
+                            .ajouter(c.getDureeMinutes());
+                } else if (ancien != StatutConsultation.ANNULEE && c.estAnnulee()) {
+                    SketchQuantiles mois = dureesParMois.get(YearMonth.from(c.getDateHeure()));
+                    if (mois != null) mois.retirer(c.getDureeMinutes());
+                }
+            }
+        }
+    }
+
+    private final Moteur moteur = new Moteur();
+    private int nbPatients;
+    private int nbPros;
+    private int nbConsultations;
+    private long sommeDurees;
+    private final Map<String, Long> prosParSpecialite = new HashMap<>();
+    private final int[] consultationsParStatut = new int[StatutConsultation.values().length];
+    private final Map<ProfessionnelSante, Integer> consultationsParPro = new HashMap<>();
+    private final TreeMap<Long, Jour> parJour = new TreeMap<>();
+    private final ColonnesConsultations colonnes = new ColonnesConsultations();
+    private final Map<ProfessionnelSante, HyperLogLog> patientsParPro = new HashMap<>();
+    private final Map<String, HyperLogLog> patientsParSpecialite = new HashMap<>();
+    private final TreeMap<YearMonth, HyperLogLog> patientsParMois = new TreeMap<>();
+    private final TreeMap<YearMonth, SketchQuantiles> dureesParMois = new TreeMap<>();
+
+    /**
+     * Écouteur à abonner aux services avant le chargement des données :
+     * toutes les requêtes ci-dessous sont ensuite servies depuis la mémoire
+     */
+    public EcouteurDonnees getMoteur() {
+        return moteur;
+    }
+
+    public synchronized int getNombrePatients() {
+        return nbPatients;
+    }
+
+    public synchronized int getNombreProfessionnels() {
+        return nbPros;
+    }
+
+    public synchronized int getNombreConsultations() {
+        return nbConsultations;
+    }
+
+    public synchronized int getNombreConsultations(StatutConsultation statut) {
+        return consultationsParStatut[statut.ordinal()];
+    }
+
+    public synchronized Map<String, Long> getProfessionnelsParSpecialite() {
+        return new HashMap<>(prosParSpecialite);
+    }
+
+    public synchronized Map<ProfessionnelSante, Integer> getConsultationsParProfessionnel() {
+        return new HashMap<>(consultationsParPro);
+    }
+
+    /**
+     * Durée moyenne des consultations en minutes (0 s'il n'y en a aucune)
+     */
+    public synchronized double getDureeMoyenne() {
+        return nbConsultations == 0 ? 0.0 : (double) sommeDurees / nbConsultations;
+    }
+
+    /**
+     * Nombre de consultations par jour sur [debut, fin], jours sans consultation omis
+     */
+    public synchronized Map<LocalDate, Integer> getHistogrammeJournalier(LocalDate debut, LocalDate fin) {
+        Map<LocalDate, Integer> histogramme = new LinkedHashMap<>();
+        if (fin.isBefore(debut)) return histogramme;
+        parJour.subMap(debut.toEpochDay(), true, fin.toEpochDay(), true)
+                .forEach((jour, stats) -> histogramme.put(LocalDate.ofEpochDay(jour), stats.total));
+        return histogramme;
+    }
+
+    /**
+     * Répartition des consultations des jours [debut, fin], cumulée depuis les compteurs journaliers
+     */
+    public synchronized Repartition getRepartition(LocalDate debut, LocalDate fin) {
+        Map<StatutConsultation, Integer> parStatut = new EnumMap<>(StatutConsultation.class);
+        Map<ProfessionnelSante, Integer> parPro = new HashMap<>();
+        int total = 0;
+        if (!fin.isBefore(debut)) {
+            for (Jour jour : parJour.subMap(debut.toEpochDay(), true, fin.toEpochDay(), true).values()) {
+                total += jour.total;
+                for (StatutConsultation statut : StatutConsultation.values()) {
+                    if (jour.parStatut[statut.ordinal()] > 0) {
+                        parStatut.merge(statut, jour.parStatut[statut.ordinal()], Integer::sum);
+                    }
+                }
+                jour.parPro.forEach((pro, n) -> parPro.merge(pro, n, Integer::sum));
+            }
+        }
+        return new Repartition(total, parStatut, parPro);
+    }
+
+    // ==================== RAPPORTS EN COLONNES ====================
+
+    /**
+     * Consultations par professionnel et par mois, calculées sur les colonnes primitives
+     */
+    public synchronized Map<ProfessionnelSante, TreeMap<YearMonth, Integer>> getConsultationsParProfessionnelEtMois() {
+        return colonnes.parProfessionnelEtMois();
+    }
+
+    /**
+     * Taux d'annulation (en %) par spécialité
+     */
+    public synchronized Map<String, Double> getTauxAnnulationParSpecialite() {
+        return colonnes.tauxAnnulationParSpecialite();
+    }
+
+    /**
+     * Durées (en minutes) aux percentiles demandés, consultations annulées exclues
+     */
+    public synchronized int[] getPercentilesDuree(double... rangs) {
+        return colonnes.percentilesDuree(rangs);
+    }
+
+    public String afficherRapportsAnalytiques() {
+        StringBuilder sb = new StringBuilder();
+        long debut = System.nanoTime();
+        Map<ProfessionnelSante, TreeMap<YearMonth, Integer>> parProEtMois = getConsultationsParProfessionnelEtMois();
+        Map<String, Double> tauxAnnulation = getTauxAnnulationParSpecialite();
+        int[] percentiles = getPercentilesDuree(50, 90, 99);
+        long duree = System.nanoTime() - debut;
+
+        sb.append("\n=== RAPPORTS ANALYTIQUES ===\n");
+        sb.append("\n--- Consultations par professionnel et par mois ---\n");
+        if (parProEtMois.isEmpty()) {
+            sb.append("Aucune donnée disponible.\n");
+        }
+        parProEtMois.forEach((pro, parMois) -> {
+            sb.append(String.format("%s %s (%s)\n", pro.getNom(), pro.getPrenom(), pro.getLoginID()));
+            parMois.forEach((mois, n) -> sb.append(String.format("  %s : %d\n", mois, n)));
+        });
+        sb.append("\n--- Taux d'annulation par spécialité ---\n");
+        tauxAnnulation.forEach((spec, taux) -> sb.append(String.format("- %s : %.1f %%\n", spec, taux)));
+        sb.append("\n--- Durée des consultations ---\n");
+        sb.append(String.format("Médiane : %d min, 90e percentile : %d min, 99e percentile : %d min\n",
+                percentiles[0], percentiles[1], percentiles[2]));
+        sb.append(String.format("(calculé en %.1f ms)\n", duree / 1_000_000.0));
+        return sb.toString();
+    }
+
+    // ==================== ESTIMATIONS (SKETCHES) ====================
+
+    // Appelé sous le verrou du moteur ; les consultations annulées restent comptées pour les patients
+    private void esquisser(Consultation c) {
+        YearMonth mois = YearMonth.from(c.getDateHeure());
+        if (c.getPatient() != null) {
+            long patient = c.getPatient().getId();
+            patientsParPro.computeIfAbsent(c.getProfessionnel(), p -> new HyperLogLog()).ajouter(patient);
+            String specialite = c.getProfessionnel().getSpecialite() != null ? c.getProfessionnel().getSpecialite() : "";
+            patientsParSpecialite.computeIfAbsent(specialite, s -> new HyperLogLog()).ajouter(patient);
+            patientsParMois.computeIfAbsent(mois, m -> new HyperLogLog()).ajouter(patient);
+        }
+        SketchQuantiles durees = dureesParMois.computeIfAbsent(mois, m -> new SketchQuantiles());
+        if (!c.estAnnulee()) durees.ajouter(c.getDureeMinutes());
+    }
+
+    /**
+     * Nombre estimé de patients distincts reçus par chaque professionnel (erreur ~1,6 %)
+     */
+    public synchronized Map<ProfessionnelSante, Long> getPatientsDistinctsParProfessionnel() {
+        Map<ProfessionnelSante, Long> resultat = new HashMap<>();
+        patientsParPro.forEach((pro, hll) -> resultat.put(pro, hll.estimer()));
+        return resultat;
+    }
+
+    /**
+     * Nombre estimé de patients distincts par spécialité
+     */
+    public synchronized Map<String, Long> getPatientsDistinctsParSpecialite() {
+        Map<String, Long> resultat = new TreeMap<>();
+        patientsParSpecialite.forEach((spec, hll) -> resultat.put(spec, hll.estimer()));
+        return resultat;
+    }
+
+    /**
+     * Nombre estimé de patients distincts par mois
+     */
+    public synchronized Map<YearMonth, Long> getPatientsDistinctsParMois() {
+        Map<YearMonth, Long> resultat = new LinkedHashMap<>();
+        patientsParMois.forEach((mois, hll) -> resultat.put(mois, hll.estimer()));
+        return resultat;
+    }
+
+    /**
+     * Nombre estimé de patients distincts sur les mois [debut, fin], par fusion des compteurs mensuels
+     */
+    public synchronized long getPatientsDistincts(YearMonth debut, YearMonth fin) {
+        if (fin.isBefore(debut)) return 0;
+        HyperLogLog cumul = new HyperLogLog();
+        patientsParMois.subMap(debut, true, fin, true).values().forEach(cumul::fusionner);
+        return cumul.estimer();
+    }
+
+    /**
+     * Durées estimées (à 1 % près) aux quantiles demandés sur les mois [debut, fin],
+     * consultations annulées exclues
+     * @param quantiles valeurs entre 0 et 1
+     */
+    public synchronized double[] getQuantilesDuree(YearMonth debut, YearMonth fin, double... quantiles) {
+        SketchQuantiles cumul = new SketchQuantiles();
+        if (!fin.isBefore(debut)) {
+            dureesParMois.subMap(debut, true, fin, true).values().forEach(cumul::fusionner);
+        }
+        double[] resultat = new double[quantiles.length];
+        for (int i = 0; i < quantiles.length; i++) {
+            resultat[i] = cumul.quantile(quantiles[i]);
+        }
+        return resultat;
+    }
+
+    /**
+     * Durées estimées aux quantiles demandés sur tout l'historique
+     */
+    public synchronized double[] getQuantilesDuree(double... quantiles) {
+        if (dureesParMois.isEmpty()) return new double[quantiles.length];
+        return getQuantilesDuree(dureesParMois.firstKey(), dureesParMois.lastKey(), quantiles);
+    }
+
+    public String afficherEstimations() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\n=== ESTIMATIONS SUR L'HISTORIQUE ===\n");
+        sb.append("\n--- Patients distincts par spécialité ---\n");
+        Map<String, Long> parSpecialite = getPatientsDistinctsParSpecialite();
+        if (parSpecialite.isEmpty()) {
+            sb.append("Aucune donnée disponible.\n");
+        }
+        parSpecialite.forEach((spec, n) -> sb.append(String.format("- %s : ~%d\n", spec, n)));
+        sb.append("\n--- Patients distincts par mois ---\n");
+        getPatientsDistinctsParMois().forEach((mois, n) -> sb.append(String.format("  %s : ~%d\n", mois, n)));
+        double[] quantiles = getQuantilesDuree(0.5, 0.95, 0.99);
+        sb.append("\n--- Durée des consultations ---\n");
+        sb.append(String.format("p50 : ~%.0f min, p95 : ~%.0f min, p99 : ~%.0f min\n",
+                quantiles[0], quantiles[1], quantiles[2]));
+        return sb.toString();
+    }
+
+    /**
+     * Tableau de bord servi depuis les agrégats : aucune liste n'est copiée ni parcourue
+     */
+    public String afficherStatistiques() {
+        StringBuilder sb = entete(getNombrePatients(), getNombreProfessionnels(), getNombreConsultations(),
+                getProfessionnelsParSpecialite());
+        sb.append("\n--- Consultations par statut ---\n");
+        for (StatutConsultation statut : StatutConsultation.values()) {
+            sb.append(String.format("- %s : %d\n", statut.getLibelle(), getNombreConsultations(statut)));
+        }
+        int total = getNombreConsultations();
+        sb.append(String.format("Taux de consultations effectuées : %.1f %%\n",
+                total == 0 ? 0.0 : getNombreConsultations(StatutConsultation.EFFECTUEE) * 100.0 / total));
+        sb.append(String.format("Durée moyenne : %.1f min\n", getDureeMoyenne()));
         return sb.toString();
     }
 }
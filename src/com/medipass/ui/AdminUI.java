@@ -1,10 +1,8 @@
 package com.medipass.ui;
 
+import java.io.PrintStream;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Map;
 import java.util.Scanner;
-import java.util.stream.Collectors;
 
 import com.medipass.model.*;
 import com.medipass.service.*;
@@ -18,6 +16,7 @@ import com.medipass.user.Administrateur;
 public class AdminUI implements MenuInterface {
 
     private final Scanner sc;
+    private final PrintStream out;
     private final Administrateur admin;
     private final PatientService patientService;
     private final ConsultationService consultationService;
@@ -26,6 +25,7 @@ public class AdminUI implements MenuInterface {
     private final DataService dataService;
     private final CSVDataImportService importService;
     private final CSVExportService exportService;
+    private final JournalService journal;
 
     public AdminUI(Scanner sc,
             Administrateur admin,
@@ -35,8 +35,26 @@ public class AdminUI implements MenuInterface {
             StatistiquesService statsService,
             DataService dataService,
             CSVDataImportService importService,
-            CSVExportService exportService) {
+            CSVExportService exportService,
+            JournalService journal) {
+        this(sc, System.out, admin, patientService, consultationService, adminService, statsService,
+                dataService, importService, exportService, journal);
+    }
+
+    // Session sur d'autres flux que la console (connexion distante)
+    public AdminUI(Scanner sc,
+            PrintStream out,
+            Administrateur admin,
+            PatientService patientService,
+            ConsultationService consultationService,
+            AdministrateurService adminService,
+            StatistiquesService statsService,
+            DataService dataService,
+            CSVDataImportService importService,
+            CSVExportService exportService,
+            JournalService journal) {
         this.sc = sc;
+        this.out = out;
         this.admin = admin;
         this.patientService = patientService;
         this.consultationService = consultationService;
@@ -45,23 +63,25 @@ public class AdminUI implements MenuInterface {
         this.dataService = dataService;
         this.importService = importService;
         this.exportService = exportService;
+        this.journal = journal;
     }
 
     @Override
     public void afficherMenu() {
         boolean continuer = true;
         while (continuer) {
-            System.out.println("\n╔═══════════════════════════════════╗");
-            System.out.println("║  MENU ADMINISTRATEUR              ║");
-            System.out.println("╠═══════════════════════════════════╣");
-            System.out.println("║ 1) Gestion des utilisateurs       ║");
-            System.out.println("║ 2) Statistiques du système        ║");
-            System.out.println("║ 3) Sauvegarder les données        ║");
-            System.out.println("║ 4) Importer des données           ║");
-            System.out.println("║ 5) Exporter des données           ║");
-            System.out.println("║ 0) Se déconnecter                 ║");
-            System.out.println("╚═══════════════════════════════════╝");
-            System.out.print("Votre choix: ");
+            out.println("\n╔═══════════════════════════════════╗");
+            out.println("║  MENU ADMINISTRATEUR              ║");
+            out.println("╠═══════════════════════════════════╣");
+            out.println("║ 1) Gestion des utilisateurs       ║");
+            out.println("║ 2) Statistiques du système        ║");
+            out.println("║ 3) Sauvegarder les données        ║");
+            out.println("║ 4) Importer des données           ║");
+            out.println("║ 5) Exporter des données           ║");
+            out.println("║ 6) Rapports analytiques           ║");
+            out.println("║ 0) Se déconnecter                 ║");
+            out.println("╚═══════════════════════════════════╝");
+            out.print("Votre choix: ");
             String choix = sc.nextLine().trim();
 
             switch (choix) {
@@ -70,15 +90,19 @@ public class AdminUI implements MenuInterface {
                 case "2" ->
                     afficherStatistiques();
                 case "3" ->
-                    sauvegarderDonnees();
+                    compacterDonnees();
                 case "4" ->
                     menuImporterDonnees();
                 case "5" ->
                     menuExporterDonnees();
+                case "6" -> {
+                    out.println(statsService.afficherRapportsAnalytiques());
+                    out.println(statsService.afficherEstimations());
+                }
                 case "0" ->
                     continuer = false;
                 default ->
-                    System.out.println("❌ Choix invalide");
+                    out.println("❌ Choix invalide");
             }
         }
     }
@@ -88,24 +112,24 @@ public class AdminUI implements MenuInterface {
     private void menuGestionUtilisateurs() {
         boolean continuer = true;
         while (continuer) {
-            System.out.println("\n╔════════════════════════════════════╗");
-            System.out.println("║  GESTION DES UTILISATEURS          ║");
-            System.out.println("╠════════════════════════════════════╣");
-            System.out.println("║ 1) Lister les professionnels       ║");
-            System.out.println("║ 2) Afficher un utilisateur         ║");
-            System.out.println("║ 3) Modifier contact utilisateur    ║");
-            System.out.println("║ 4) Gérer droits d'accès            ║");
-            System.out.println("║ 5) Activer/Désactiver compte       ║");
-            System.out.println("║ 6) Créer un professionnel          ║");
-            System.out.println("║ 7) Supprimer un utilisateur        ║");
-            System.out.println("║ 0) Retour                          ║");
-            System.out.println("╚════════════════════════════════════╝");
-            System.out.print("Votre choix: ");
+            out.println("\n╔════════════════════════════════════╗");
+            out.println("║  GESTION DES UTILISATEURS          ║");
+            out.println("╠════════════════════════════════════╣");
+            out.println("║ 1) Lister les professionnels       ║");
+            out.println("║ 2) Afficher un utilisateur         ║");
+            out.println("║ 3) Modifier contact utilisateur    ║");
+            out.println("║ 4) Gérer droits d'accès            ║");
+            out.println("║ 5) Activer/Désactiver compte       ║");
+            out.println("║ 6) Créer un professionnel          ║");
+            out.println("║ 7) Supprimer un utilisateur        ║");
+            out.println("║ 0) Retour                          ║");
+            out.println("╚════════════════════════════════════╝");
+            out.print("Votre choix: ");
             String choix = sc.nextLine().trim();
 
             switch (choix) {
                 case "1" ->
-                    System.out.println(adminService.afficherProfessionnels());
+                    out.println(adminService.afficherProfessionnels());
                 case "2" ->
                     afficherUtilisateur();
                 case "3" ->
@@ -121,14 +145,14 @@ public class AdminUI implements MenuInterface {
                 case "0" ->
                     continuer = false;
                 default ->
-                    System.out.println("❌ Choix invalide");
+                    out.println("❌ Choix invalide");
             }
         }
     }
 
     private void afficherUtilisateur() {
         String login = lireChaine("Login de l'utilisateur: ");
-        System.out.println(adminService.afficherUtilisateur(login));
+        out.println(adminService.afficherUtilisateur(login));
     }
 
     private void modifierContactUtilisateur() {
@@ -142,24 +166,24 @@ public class AdminUI implements MenuInterface {
                 telephone.isEmpty() ? null : telephone);
 
         if (success) {
-            System.out.println("✓ Contact modifié avec succès");
+            out.println("✓ Contact modifié avec succès");
             sauvegarderDonnees();
         } else {
-            System.out.println("❌ Utilisateur non trouvé");
+            out.println("❌ Utilisateur non trouvé");
         }
     }
 
     private void gererDroitsAcces() {
         boolean continuer = true;
         while (continuer) {
-            System.out.println("\n╔════════════════════════════════════╗");
-            System.out.println("║  GESTION DES DROITS D'ACCES        ║");
-            System.out.println("╠════════════════════════════════════╣");
-            System.out.println("║ 1) Gérer droits d'accès generaux   ║");
-            // System.out.println("║ 2) Gérer droits d'accès patients   ║");
-            System.out.println("║ 0) Retour                          ║");
-            System.out.println("╚════════════════════════════════════╝");
-            System.out.print("Votre choix: ");
+            out.println("\n╔════════════════════════════════════╗");
+            out.println("║  GESTION DES DROITS D'ACCES        ║");
+            out.println("╠════════════════════════════════════╣");
+            out.println("║ 1) Gérer droits d'accès generaux   ║");
+            // out.println("║ 2) Gérer droits d'accès patients   ║");
+            out.println("║ 0) Retour                          ║");
+            out.println("╚════════════════════════════════════╝");
+            out.print("Votre choix: ");
             String choix = sc.nextLine().trim();
 
             switch (choix) {
@@ -170,77 +194,77 @@ public class AdminUI implements MenuInterface {
                 case "0" ->
                     continuer = false;
                 default ->
-                    System.out.println("❌ Choix invalide");
+                    out.println("❌ Choix invalide");
             }
         }
     }
 
     private void gererDroitsAccesGeneraux() {
-        System.out.println("\n╔══════════════════════════════════════════════════════════╗");
-        System.out.println("║           DROITS D'ACCES GENERAUX                        ║");
-        System.out.println("╠══════════════════════════════════════════════════════════╣");
-        System.out.println("║ Le droit d'accès est une chaîne de minimum '1' caractère ║");
-        System.out.println("║ et de maximum '5' caractères qui spécifie l'accès à un   ║");
-        System.out.println("║ ou plusieurs menus utilisateur. Si un droit d'accès est  ║");
-        System.out.println("║ '143', il donne acces aux options 1,4 et 3 du menu utili-║");
-        System.out.println("║ sateur, et ainsi de suite .                              ║");
-        System.out.println("║ Options disponibles:                                     ║");
-        System.out.println("║ 1) Gestion des patients                                  ║");
-        System.out.println("║ 2) Programmer une consultation                           ║");
-        System.out.println("║ 3) Voir mon planning                                     ║");
-        System.out.println("║ 4) Clôturer une consultation                             ║");
-        System.out.println("║ 5) Gestion des antécédents                               ║");
-        System.out.println("║                                                          ║");
-        System.out.println("║ NB: Ne pas entrer un droit d'accès superieur a '5'       ║");
-        System.out.println("╚══════════════════════════════════════════════════════════╝");
+        out.println("\n╔══════════════════════════════════════════════════════════╗");
+        out.println("║           DROITS D'ACCES GENERAUX                        ║");
+        out.println("╠══════════════════════════════════════════════════════════╣");
+        out.println("║ Le droit d'accès est une chaîne de minimum '1' caractère ║");
+        out.println("║ et de maximum '5' caractères qui spécifie l'accès à un   ║");
+        out.println("║ ou plusieurs menus utilisateur. Si un droit d'accès est  ║");
+        out.println("║ '143', il donne acces aux options 1,4 et 3 du menu utili-║");
+        out.println("║ sateur, et ainsi de suite .                              ║");
+        out.println("║ Options disponibles:                                     ║");
+        out.println("║ 1) Gestion des patients                                  ║");
+        out.println("║ 2) Programmer une consultation                           ║");
+        out.println("║ 3) Voir mon planning                                     ║");
+        out.println("║ 4) Clôturer une consultation                             ║");
+        out.println("║ 5) Gestion des antécédents                               ║");
+        out.println("║                                                          ║");
+        out.println("║ NB: Ne pas entrer un droit d'accès superieur a '5'       ║");
+        out.println("╚══════════════════════════════════════════════════════════╝");
         String login = lireChaine("Login de l'utilisateur: ");
         String accessLevel = lireChaine("Entrez les droits d'accès: ");
 
         if (accessLevel.length() > 0 && accessLevel.length() <= 5) {
             boolean success = adminService.modifierDroitAccesGeneraux(login, accessLevel);
             if (success) {
-                System.out.println("✓ Droit d'acces modifié avec succès");
+                out.println("✓ Droit d'acces modifié avec succès");
                 sauvegarderDonnees();
             } else {
-                System.out.println("❌ Operation echouée");
+                out.println("❌ Operation echouée");
             }
         } else {
-            System.out.println("❌ Operation echouée, veuillez entrer un droit d'accès valide.");
+            out.println("❌ Operation echouée, veuillez entrer un droit d'accès valide.");
 
         }
     }
 
     // private void gererDroitsAccesSurPatients() {
-    //     System.out.println("\n╔══════════════════════════════════════════════════════════╗");
-    //     System.out.println("║            DROITS D'ACCES GESTION DE PATIENTS            ║");
-    //     System.out.println("╠══════════════════════════════════════════════════════════╣");
-    //     System.out.println("║ Le droit d'accès est une chaîne de minimum '1' caractère ║");
-    //     System.out.println("║ et de maximum '5' caractères qui spécifie l'accès à un   ║");
-    //     System.out.println("║ ou plusieurs menus utilisateur. Si un droit d'accès est  ║");
-    //     System.out.println("║ '143', il donne acces aux options 1,4 et 3 du menu utili-║");
-    //     System.out.println("║ sateur, et ainsi de suite .                              ║");
-    //     System.out.println("║ Options disponibles:                                     ║");
-    //     System.out.println("║ 1) Créer un dossier medical                              ║");
-    //     System.out.println("║ 2) Lister les patients                                   ║");
-    //     System.out.println("║ 3) Consulter dossier patient                             ║");
-    //     System.out.println("║ 4) Modifier patient                                      ║");
-    //     System.out.println("║ 5) Ajouter antécédent                                    ║");
-    //     System.out.println("║                                                          ║");
-    //     System.out.println("║ NB: Ne pas entrer un droit d'accès superieur a '5'       ║");
-    //     System.out.println("╚══════════════════════════════════════════════════════════╝");
+    //     out.println("\n╔══════════════════════════════════════════════════════════╗");
+    //     out.println("║            DROITS D'ACCES GESTION DE PATIENTS            ║");
+    //     out.println("╠══════════════════════════════════════════════════════════╣");
+    //     out.println("║ Le droit d'accès est une chaîne de minimum '1' caractère ║");
+    //     out.println("║ et de maximum '5' caractères qui spécifie l'accès à un   ║");
+    //     out.println("║ ou plusieurs menus utilisateur. Si un droit d'accès est  ║");
+    //     out.println("║ '143', il donne acces aux options 1,4 et 3 du menu utili-║");
+    //     out.println("║ sateur, et ainsi de suite .                              ║");
+    //     out.println("║ Options disponibles:                                     ║");
+    //     out.println("║ 1) Créer un dossier medical                              ║");
+    //     out.println("║ 2) Lister les patients                                   ║");
+    //     out.println("║ 3) Consulter dossier patient                             ║");
+    //     out.println("║ 4) Modifier patient                                      ║");
+    //     out.println("║ 5) Ajouter antécédent                                    ║");
+    //     out.println("║                                                          ║");
+    //     out.println("║ NB: Ne pas entrer un droit d'accès superieur a '5'       ║");
+    //     out.println("╚══════════════════════════════════════════════════════════╝");
     //     String login = lireChaine("Login de l'utilisateur: ");
     //     String accessLevel = lireChaine("Entrez les droits d'accès sur les patients: ");
 
     //     if (accessLevel.length() > 0 && accessLevel.length() <= 5) {
     //         boolean success = adminService.modifierDroitAccesSurPatient(login, accessLevel);
     //         if (success) {
-    //             System.out.println("✓ Droit d'acces modifié avec succès");
+    //             out.println("✓ Droit d'acces modifié avec succès");
     //             sauvegarderDonnees();
     //         } else {
-    //             System.out.println("❌ Operation echouée");
+    //             out.println("❌ Operation echouée");
     //         }
     //     } else {
-    //         System.out.println("❌ Operation echouée, veuillez entrer un droit d'accès valide.");
+    //         out.println("❌ Operation echouée, veuillez entrer un droit d'accès valide.");
 
     //     }
     // }
@@ -258,52 +282,39 @@ public class AdminUI implements MenuInterface {
         }
 
         if (success) {
-            System.out.println("✓ Compte " + (action.equals("0") ? "désactivé" : "activé") + " avec succès");
+            out.println("✓ Compte " + (action.equals("0") ? "désactivé" : "activé") + " avec succès");
             sauvegarderDonnees();
         } else {
-            System.out.println("❌ Opération échouée");
+            out.println("❌ Opération échouée");
         }
     }
 
     private void afficherStatistiques() {
-        System.out.println(statsService.afficherStatistiques(
-                patientService.getNombrePatients(),
-                adminService.getNombreProfessionnels(),
-                consultationService.getNombreConsultations(),
-                consultationService.getConsultations(),
-                adminService.getProfessionnels()));
+        out.println(statsService.afficherStatistiques());
     }
 
     private void afficherConsultationsParPeriode() {
-        System.out.print("Date de début (YYYY-MM-DD): ");
+        out.print("Date de début (YYYY-MM-DD): ");
         LocalDate debut = parseDate(sc.nextLine().trim());
-        System.out.print("Date de fin (YYYY-MM-DD): ");
+        out.print("Date de fin (YYYY-MM-DD): ");
         LocalDate fin = parseDate(sc.nextLine().trim());
 
         if (debut == null || fin == null) {
-            System.out.println("❌ Dates invalides");
+            out.println("❌ Dates invalides");
             return;
         }
 
-        List<Consultation> consultationsPeriode = consultationService.getConsultationsParPeriode(
-                debut.atStartOfDay(), fin.atTime(23, 59));
-
-        System.out.println("\n=== CONSULTATIONS DU " + debut + " AU " + fin + " ===");
-        System.out.println("Nombre total : " + consultationsPeriode.size());
+        StatistiquesService.Repartition repartition = statsService.getRepartition(debut, fin);
 
-        Map<String, Long> parStatut = consultationsPeriode.stream()
-                .collect(Collectors.groupingBy(Consultation::getStatut, Collectors.counting()));
+        out.println("\n=== CONSULTATIONS DU " + debut + " AU " + fin + " ===");
+        out.println("Nombre total : " + repartition.total());
 
-        System.out.println("\nPar statut :");
-        parStatut.forEach((statut, count) -> System.out.println("  - " + statut + " : " + count));
+        out.println("\nPar statut :");
+        repartition.parStatut().forEach((statut, count) -> out.println("  - " + statut.getLibelle() + " : " + count));
 
-        Map<String, Long> parPro = consultationsPeriode.stream()
-                .collect(Collectors.groupingBy(
-                        c -> c.getProfessionnel().getNom() + " " + c.getProfessionnel().getPrenom(),
-                        Collectors.counting()));
-
-        System.out.println("\nPar professionnel :");
-        parPro.forEach((pro, count) -> System.out.println("  - " + pro + " : " + count));
+        out.println("\nPar professionnel :");
+        repartition.parProfessionnel().forEach((pro, count) ->
+                out.println("  - " + pro.getNom() + " " + pro.getPrenom() + " : " + count));
     }
 
     private void afficherPlanningProfessionnel() {
@@ -311,129 +322,135 @@ public class AdminUI implements MenuInterface {
         com.medipass.user.ProfessionnelSante pro = adminService.findProfessionnel(login);
 
         if (pro == null) {
-            System.out.println("❌ Professionnel non trouvé");
+            out.println("❌ Professionnel non trouvé");
             return;
         }
 
-        System.out.print("Date de début (YYYY-MM-DD) [Entrée pour cette semaine]: ");
+        out.print("Date de début (YYYY-MM-DD) [Entrée pour cette semaine]: ");
         String input = sc.nextLine().trim();
         LocalDate debut = input.isEmpty()
                 ? LocalDate.now().with(java.time.DayOfWeek.MONDAY)
                 : parseDate(input);
 
         if (debut != null) {
-            System.out.println(consultationService.afficherPlanningSemaine(pro, debut));
+            out.println(consultationService.afficherPlanningSemaine(pro, debut));
         }
     }
 
     /* ===================== COMPTES & SAUVEGARDE ===================== */
 
     private void creerProfessionnel() {
-        System.out.println("\n--- Création d'un professionnel de santé ---");
+        out.println("\n--- Création d'un professionnel de santé ---");
         String login = lireChaine("Login: ");
         String mdp = lireChaine("Mot de passe: ");
         String nom = lireChaine("Nom: ");
         String prenom = lireChaine("Prénom: ");
         String specialite = lireChaine("Spécialité: ");
-        System.out.println("\n╔══════════════════════════════════════════════════════════╗");
-        System.out.println("║           DROITS D'ACCES                                 ║");
-        System.out.println("╠══════════════════════════════════════════════════════════╣");
-        System.out.println("║ Le droit d'accès est une chaine de minimum '1' caractère ║");
-        System.out.println("║ et de maximum '5' caractères qui spécifie l'accès à un   ║");
-        System.out.println("║ ou plusieurs menus utilisateur. Si un droit d'accès est  ║");
-        System.out.println("║ '143', il donne acces aux options 1,4 et 3 du menu utili-║");
-        System.out.println("║ sateur, et ainsi de suite .                              ║");
-        System.out.println("║ Options disponibles:                                     ║");
-        System.out.println("║ 1) Gestion des patients                                  ║");
-        System.out.println("║ 2) Programmer une consultation                           ║");
-        System.out.println("║ 3) Voir mon planning                                     ║");
-        System.out.println("║ 4) Clôturer une consultation                             ║");
-        System.out.println("║ 5) Gestion des antécédents                               ║");
-        System.out.println("║                                                          ║");
-        System.out.println("║ NB: Ne pas entrer un droit d'accès superieur a '5'       ║");
-        System.out.println("╚══════════════════════════════════════════════════════════╝");
+        out.println("\n╔══════════════════════════════════════════════════════════╗");
+        out.println("║           DROITS D'ACCES                                 ║");
+        out.println("╠══════════════════════════════════════════════════════════╣");
+        out.println("║ Le droit d'accès est une chaine de minimum '1' caractère ║");
+        out.println("║ et de maximum '5' caractères qui spécifie l'accès à un   ║");
+        out.println("║ ou plusieurs menus utilisateur. Si un droit d'accès est  ║");
+        out.println("║ '143', il donne acces aux options 1,4 et 3 du menu utili-║");
+        out.println("║ sateur, et ainsi de suite .                              ║");
+        out.println("║ Options disponibles:                                     ║");
+        out.println("║ 1) Gestion des patients                                  ║");
+        out.println("║ 2) Programmer une consultation                           ║");
+        out.println("║ 3) Voir mon planning                                     ║");
+        out.println("║ 4) Clôturer une consultation                             ║");
+        out.println("║ 5) Gestion des antécédents                               ║");
+        out.println("║                                                          ║");
+        out.println("║ NB: Ne pas entrer un droit d'accès superieur a '5'       ║");
+        out.println("╚══════════════════════════════════════════════════════════╝");
         String accessLevels = lireChaine("Droits d'accès: ");
-        // System.out.println("\n╔══════════════════════════════════════════════════════════╗");
-        // System.out.println("║           DROITS D'ACCES GESTION DE PATIENTS             ║");
-        // System.out.println("╠══════════════════════════════════════════════════════════╣");
-        // System.out.println("║ Le droit d'accès est une chaine de minimum '1' caractère ║");
-        // System.out.println("║ et de maximum '5' caractères qui spécifie l'accès à un   ║");
-        // System.out.println("║ ou plusieurs menus utilisateur. Si un droit d'accès est  ║");
-        // System.out.println("║ '143', il donne acces aux options 1,4 et 3 du menu utili-║");
-        // System.out.println("║ sateur, et ainsi de suite .                              ║");
-        // System.out.println("║ Options disponibles:                                     ║");
-        // System.out.println("║ 1) Créer un dossier medical                              ║");
-        // System.out.println("║ 2) Lister les patients                                   ║");
-        // System.out.println("║ 3) Consulter dossier patient                             ║");
-        // System.out.println("║ 4) Modifier patient                                      ║");
-        // System.out.println("║ 5) Ajouter antécédent                                    ║");
-        // System.out.println("║                                                          ║");
-        // System.out.println("║ NB: Ne pas entrer un droit d'accès superieur a '5'       ║");
-        // System.out.println("╚══════════════════════════════════════════════════════════╝");
+        // out.println("\n╔══════════════════════════════════════════════════════════╗");
+        // out.println("║           DROITS D'ACCES GESTION DE PATIENTS             ║");
+        // out.println("╠══════════════════════════════════════════════════════════╣");
+        // out.println("║ Le droit d'accès est une chaine de minimum '1' caractère ║");
+        // out.println("║ et de maximum '5' caractères qui spécifie l'accès à un   ║");
+        // out.println("║ ou plusieurs menus utilisateur. Si un droit d'accès est  ║");
+        // out.println("║ '143', il donne acces aux options 1,4 et 3 du menu utili-║");
+        // out.println("║ sateur, et ainsi de suite .                              ║");
+        // out.println("║ Options disponibles:                                     ║");
+        // out.println("║ 1) Créer un dossier medical                              ║");
+        // out.println("║ 2) Lister les patients                                   ║");
+        // out.println("║ 3) Consulter dossier patient                             ║");
+        // out.println("║ 4) Modifier patient                                      ║");
+        // out.println("║ 5) Ajouter antécédent                                    ║");
+        // out.println("║                                                          ║");
+        // out.println("║ NB: Ne pas entrer un droit d'accès superieur a '5'       ║");
+        // out.println("╚══════════════════════════════════════════════════════════╝");
         // String patientsAccessLevels = lireChaine("Droits d'accès pour le menu de gestion des patients: ");
 
         com.medipass.user.ProfessionnelSante pro = new com.medipass.user.ProfessionnelSante(
-                login, mdp, "PRO", accessLevels, nom, prenom, specialite,
+                login, com.medipass.security.HachageMotDePasse.hacher(mdp), "PRO", accessLevels, nom, prenom, specialite,
                 "NUM" + System.currentTimeMillis() % 10000);
 
         if (adminService.creerCompte(pro)) {
-            System.out.println("✓ Professionnel créé. Vous pouvez maintenant vous connecter.");
+            out.println("✓ Professionnel créé. Vous pouvez maintenant vous connecter.");
             sauvegarderDonnees();
         } else {
-            System.out.println("❌ Login déjà existant");
+            out.println("❌ Login déjà existant");
         }
     }
 
     private void supprimerUtilisateur() {
-        System.out.println("\n--- Suppression d'un utilisateur ---");
+        out.println("\n--- Suppression d'un utilisateur ---");
         String login = lireChaine("Login de l'utilisateur à supprimer: ");
 
         // Vérification que l'utilisateur existe avant de demander le mot de passe
         if (adminService.findUtilisateur(login) == null) {
-            System.out.println("❌ Utilisateur introuvable.");
+            out.println("❌ Utilisateur introuvable.");
             return;
         }
 
-        if (login.equals(admin.getLoginID())) {
-            System.out.println("❌ Vous ne pouvez pas supprimer votre propre compte.");
+        if (login.equalsIgnoreCase(admin.getLoginID())) {
+            out.println("❌ Vous ne pouvez pas supprimer votre propre compte.");
             return;
         }
 
-        System.out.println("⚠️  ATTENTION : Cette action est irréversible !");
+        out.println("⚠️  ATTENTION : Cette action est irréversible !");
         String password = lireChaine("Confirmez avec votre mot de passe administrateur: ");
 
         if (admin.seConnecter(admin.getLoginID(), password)) {
             if (adminService.supprimerCompte(login)) {
-                System.out.println("✓ Utilisateur supprimé avec succès.");
+                out.println("✓ Utilisateur supprimé avec succès.");
                 sauvegarderDonnees();
             } else {
-                System.out.println("❌ Erreur lors de la suppression.");
+                out.println("❌ Erreur lors de la suppression.");
             }
         } else {
-            System.out.println("❌ Mot de passe incorrect. Suppression annulée.");
+            out.println("❌ Mot de passe incorrect. Suppression annulée.");
         }
     }
 
+    // Les comptes ne sont pas journalisés : pros.csv est réécrit, le reste est dans le journal
     private void sauvegarderDonnees() {
-        dataService.savePatients(patientService.getPatients());
         dataService.saveProfessionnels(adminService.getProfessionnels());
-        dataService.saveConsultations(consultationService.getConsultations());
+        journal.synchroniser();
         //dataService.saveAntecedents(patientService.getPatients());
-        System.out.println("(Données sauvegardées)");
+        out.println("(Données sauvegardées)");
+    }
+
+    // Réécrit tous les CSV depuis la mémoire et vide le journal
+    private void compacterDonnees() {
+        journal.compacter();
+        out.println("(Données sauvegardées)");
     }
 
     private void menuImporterDonnees() {
         boolean continuer = true;
         while (continuer) {
-            System.out.println("\n╔════════════════════════════════════╗");
-            System.out.println("║  IMPORTATION DE DONNÉES            ║");
-            System.out.println("╠════════════════════════════════════╣");
-            System.out.println("║ 1) Importer Patients (CSV)         ║");
-            System.out.println("║ 2) Importer Professionnels (CSV)   ║");
-            System.out.println("║ 3) Importer Consultations (CSV)    ║");
-            System.out.println("║ 0) Retour                          ║");
-            System.out.println("╚════════════════════════════════════╝");
-            System.out.print("Votre choix: ");
+            out.println("\n╔════════════════════════════════════╗");
+            out.println("║  IMPORTATION DE DONNÉES            ║");
+            out.println("╠════════════════════════════════════╣");
+            out.println("║ 1) Importer Patients (CSV)         ║");
+            out.println("║ 2) Importer Professionnels (CSV)   ║");
+            out.println("║ 3) Importer Consultations (CSV)    ║");
+            out.println("║ 0) Retour                          ║");
+            out.println("╚════════════════════════════════════╝");
+            out.print("Votre choix: ");
             String choix = sc.nextLine().trim();
 
             try {
@@ -451,41 +468,41 @@ public class AdminUI implements MenuInterface {
                         importService.importConsultationsData(path);
                     }
                     case "0" -> continuer = false;
-                    default -> System.out.println("❌ Choix invalide");
+                    default -> out.println("❌ Choix invalide");
                 }
             } catch (Exception e) {
-                System.out.println("❌ Erreur lors de l'importation: " + e.getMessage());
+                out.println("❌ Erreur lors de l'importation: " + e.getMessage());
             }
         }
     }
 
     private void menuExporterDonnees() {
-        System.out.println("\n--- Exportation des données ---");
-        System.out.println("Cela va générer des fichiers CSV dans le dossier 'exportedFiles/'.");
+        out.println("\n--- Exportation des données ---");
+        out.println("Cela va générer des fichiers CSV dans le dossier 'exportedFiles/'.");
         String confirmation = lireChaine("Confirmer l'exportation ? (O / N): ");
         
         if (confirmation.equalsIgnoreCase("O")) {
             exportService.exportAllData();
         } else {
-            System.out.println("Exportation annulée.");
+            out.println("Exportation annulée.");
         }
     }
 
     /* ===================== UTILITAIRES ===================== */
 
     private String lireChaine(String prompt) {
-        System.out.print(prompt);
+        out.print(prompt);
         return sc.nextLine().trim();
     }
 
     private int lireEntier(String prompt) {
         while (true) {
             try {
-                System.out.print(prompt);
+                out.print(prompt);
                 String input = sc.nextLine().trim();
                 return Integer.parseInt(input);
             } catch (NumberFormatException e) {
-                System.out.println("❌ Veuillez entrer un nombre entier valide.");
+                out.println("❌ Veuillez entrer un nombre entier valide.");
             }
         }
     }
@@ -494,7 +511,7 @@ public class AdminUI implements MenuInterface {
         try {
             return LocalDate.parse(input);
         } catch (Exception e) {
-            System.out.println("❌ Format invalide (utilisez YYYY-MM-DD)");
+            out.println("❌ Format invalide (utilisez YYYY-MM-DD)");
             return null;
         }
     }
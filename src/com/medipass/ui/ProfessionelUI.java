@@ -1,5 +1,6 @@
 package com.medipass.ui;
 
+import java.io.PrintStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -16,10 +17,12 @@ import com.medipass.user.ProfessionnelSante;
 public class ProfessionelUI implements MenuInterface {
 
     private final Scanner sc;
+    private final PrintStream out;
     private final ProfessionnelSante professionnel;
     private final PatientService patientService;
     private final ConsultationService consultationService;
     private final DataService dataService;
+    private final JournalService journal;
     private final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
     private final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
@@ -27,30 +30,44 @@ public class ProfessionelUI implements MenuInterface {
                           ProfessionnelSante professionnel,
                           PatientService patientService,
                           ConsultationService consultationService,
-                          DataService dataService) {
+                          DataService dataService,
+                          JournalService journal) {
+        this(sc, System.out, professionnel, patientService, consultationService, dataService, journal);
+    }
+
+    // Session sur d'autres flux que la console (connexion distante)
+    public ProfessionelUI(Scanner sc,
+                          PrintStream out,
+                          ProfessionnelSante professionnel,
+                          PatientService patientService,
+                          ConsultationService consultationService,
+                          DataService dataService,
+                          JournalService journal) {
         this.sc = sc;
+        this.out = out;
         this.professionnel = professionnel;
         this.patientService = patientService;
         this.consultationService = consultationService;
         this.dataService = dataService;
+        this.journal = journal;
     }
 
     @Override
     public void afficherMenu() {
         boolean continuer = true;
         while (continuer) {
-            System.out.println("\n╔═════════════════════════════════════╗");
-            System.out.println("║  MENU PROFESSIONNEL                 ║");
-            System.out.println("║  " + professionnel.getNom() + " " + professionnel.getPrenom());
-            System.out.println("╠═════════════════════════════════════╣");
-            System.out.println("║ 1) Gestion des patients             ║");
-            System.out.println("║ 2) Programmer une consultation      ║");
-            System.out.println("║ 3) Voir mon planning                ║");
-            System.out.println("║ 4) Clôturer une consultation        ║");
-            System.out.println("║ 5) Voir antécédents patient         ║");
-            System.out.println("║ 0) Se déconnecter                   ║");
-            System.out.println("╚═════════════════════════════════════╝");
-            System.out.print("Votre choix: ");
+            out.println("\n╔═════════════════════════════════════╗");
+            out.println("║  MENU PROFESSIONNEL                 ║");
+            out.println("║  " + professionnel.getNom() + " " + professionnel.getPrenom());
+            out.println("╠═════════════════════════════════════╣");
+            out.println("║ 1) Gestion des patients             ║");
+            out.println("║ 2) Programmer une consultation      ║");
+            out.println("║ 3) Voir mon planning                ║");
+            out.println("║ 4) Clôturer une consultation        ║");
+            out.println("║ 5) Voir antécédents patient         ║");
+            out.println("║ 0) Se déconnecter                   ║");
+            out.println("╚═════════════════════════════════════╝");
+            out.print("Votre choix: ");
             String choix = sc.nextLine().trim();
 
             switch (choix) {
@@ -58,41 +75,41 @@ public class ProfessionelUI implements MenuInterface {
                     if (professionnel.getAccessLevels().contains("1")) {
                         menuGestionPatients();
                     } else {
-                        System.out.println("❌ Accès refusé");
+                        out.println("❌ Accès refusé");
                     }
                 }
                 case "2" -> {
                     if (professionnel.getAccessLevels().contains("2")) {
                         programmerConsultation();
                     } else {
-                        System.out.println("❌ Accès refusé");
+                        out.println("❌ Accès refusé");
                     }
                 }
                 case "3" -> {
                     if (professionnel.getAccessLevels().contains("3")) {
                         menuPlanning();
                     } else {
-                        System.out.println("❌ Accès refusé");
+                        out.println("❌ Accès refusé");
                     }
                 }
                 case "4" -> {
                     if (professionnel.getAccessLevels().contains("4")) {
                         clotureConsultation();
                     } else {
-                        System.out.println("❌ Accès refusé");
+                        out.println("❌ Accès refusé");
                     }
                 }
                 case "5" -> {
                     if (professionnel.getAccessLevels().contains("5")) {
                         menuAntecedents();
                     } else {
-                        System.out.println("❌ Accès refusé");
+                        out.println("❌ Accès refusé");
                     }
                 }
                 case "0" ->
                     continuer = false;
                 default ->
-                    System.out.println("❌ Choix invalide");
+                    out.println("❌ Choix invalide");
             }
         }
     }
@@ -102,17 +119,18 @@ public class ProfessionelUI implements MenuInterface {
     private void menuGestionPatients() {
         boolean continuer = true;
         while (continuer) {
-            System.out.println("\n╔════════════════════════════════════╗");
-            System.out.println("║  GESTION DES PATIENTS              ║");
-            System.out.println("╠════════════════════════════════════╣");
-            System.out.println("║ 1) Créer un dossier medical        ║");
-            System.out.println("║ 2) Lister les patients             ║");
-            System.out.println("║ 3) Consulter dossier patient       ║");
-            System.out.println("║ 4) Modifier patient                ║");
-            System.out.println("║ 5) Ajouter antécédent              ║");
-            System.out.println("║ 0) Retour                          ║");
-            System.out.println("╚════════════════════════════════════╝");
-            System.out.print("Votre choix: ");
+            out.println("\n╔════════════════════════════════════╗");
+            out.println("║  GESTION DES PATIENTS              ║");
+            out.println("╠════════════════════════════════════╣");
+            out.println("║ 1) Créer un dossier medical        ║");
+            out.println("║ 2) Lister les patients             ║");
+            out.println("║ 3) Consulter dossier patient       ║");
+            out.println("║ 4) Modifier patient                ║");
+            out.println("║ 5) Ajouter antécédent              ║");
+            out.println("║ 6) Rechercher un patient           ║");
+            out.println("║ 0) Retour                          ║");
+            out.println("╚════════════════════════════════════╝");
+            out.print("Votre choix: ");
             String choix = sc.nextLine().trim();
 
             switch (choix) {
@@ -126,16 +144,18 @@ public class ProfessionelUI implements MenuInterface {
                     modifierPatient();
                 case "5" ->
                     ajouterAntecedent();
+                case "6" ->
+                    rechercherPatient();
                 case "0" ->
                     continuer = false;
                 default ->
-                    System.out.println("❌ Choix invalide");
+                    out.println("❌ Choix invalide");
             }
         }
     }
 
     private void creerPatient() {
-        System.out.println("\n--- Création d'un patient ---");
+        out.println("\n--- Création d'un patient ---");
         int id = generatedID();
         String nom = lireChaine("Nom: ");
         String prenom = lireChaine("Prénom: ");
@@ -152,17 +172,17 @@ public class ProfessionelUI implements MenuInterface {
         patient.setGroupeSanguin(lireChaine("Groupe sanguin: "));
 
         if (patientService.creerPatient(patient)) {
-            System.out.println(
+            out.println(
                     "✓ Patient créé avec succès. Dossier ID: " + patient.getDossierMedical().getIdDossier());
             sauvegarderDonnees();
         } else {
-            System.out.println("❌ Erreur lors de la création (ID peut-être déjà utilisé)");
+            out.println("❌ Erreur lors de la création (ID peut-être déjà utilisé)");
         }
     }
 
     private void consulterDossierPatient() {
         int id = lireEntier("ID du patient: ");
-        System.out.println(patientService.afficherInfoPatient(id));
+        out.println(patientService.afficherInfoPatient(id));
     }
 
     private void modifierPatient() {
@@ -176,10 +196,10 @@ public class ProfessionelUI implements MenuInterface {
                 prenom.isEmpty() ? null : prenom,
                 null,
                 groupe.isEmpty() ? null : groupe)) {
-            System.out.println("✓ Patient modifié");
+            out.println("✓ Patient modifié");
             sauvegarderDonnees();
         } else {
-            System.out.println("❌ Patient non trouvé");
+            out.println("❌ Patient non trouvé");
         }
     }
 
@@ -197,13 +217,37 @@ public class ProfessionelUI implements MenuInterface {
     // And I will DELETE this method entirely.
 
     private void listerPatients() {
-        System.out.println("\n=== LISTE DES PATIENTS ===");
+        out.println("\n=== LISTE DES PATIENTS ===");
         List<Patient> patients = patientService.getPatients();
         if (patients.isEmpty()) {
-            System.out.println("Aucun patient enregistré");
+            out.println("Aucun patient enregistré");
         } else {
             for (Patient p : patients) {
-                System.out.printf("[%d] %s %s\n", p.getId(), p.getNom(), p.getPrenom());
+                out.printf("[%d] %s %s\n", p.getId(), p.getNom(), p.getPrenom());
+            }
+        }
+    }
+
+    private void rechercherPatient() {
+        out.println("\n--- Recherche de patients ---");
+        String saisie = lireChaine("Nom, prénom ou NSS (début accepté): ");
+        Patient parNss = patientService.findPatientByNumeroSecuriteSociale(saisie);
+        List<Patient> trouves = parNss != null ? List.of(parNss) : patientService.rechercherPatients(saisie, 20);
+        if (trouves.isEmpty()) {
+            List<PatientService.Correspondance> proches = patientService.rechercherPatientsApproches(saisie, 10);
+            if (proches.isEmpty()) {
+                out.println("Aucun patient trouvé");
+            } else {
+                out.println("Aucun résultat exact. Patients aux noms proches :");
+                for (PatientService.Correspondance c : proches) {
+                    out.printf("[%d] %s %s (%.0f %%)\n", c.patient().getId(), c.patient().getNom(),
+                            c.patient().getPrenom(), c.score() * 100);
+                }
+            }
+        } else {
+            for (Patient p : trouves) {
+                out.printf("[%d] %s %s (NSS: %s)\n", p.getId(), p.getNom(), p.getPrenom(),
+                        p.getNumeroSecuriteSociale() == null ? "-" : p.getNumeroSecuriteSociale());
             }
         }
     }
@@ -221,12 +265,12 @@ public class ProfessionelUI implements MenuInterface {
     // consultations professionnel de sante
 
     private void programmerConsultation() {
-        System.out.println("\n--- Programmation d'une consultation ---");
+        out.println("\n--- Programmation d'une consultation ---");
         int patientId = lireEntier("ID du patient: ");
 
         Patient patient = patientService.findPatientById(patientId);
         if (patient == null) {
-            System.out.println("❌ Patient non trouvé");
+            out.println("❌ Patient non trouvé");
             return;
         }
 
@@ -242,16 +286,11 @@ public class ProfessionelUI implements MenuInterface {
 
         String motif = lireChaine("Motif: ");
 
-        if (consultationService.programmerConsultation(dateHeure, motif, professionnel, patient)) {
-            List<Consultation> all = consultationService.getConsultations();
-            if (!all.isEmpty()) {
-                Consultation created = all.get(all.size() - 1);
-                created.setDureeMinutes(duree);
-            }
-            System.out.println("✓ Consultation programmée");
+        if (consultationService.programmerConsultation(dateHeure, motif, professionnel, patient, duree)) {
+            out.println("✓ Consultation programmée");
             sauvegarderDonnees();
         } else {
-            System.out.println("❌ Impossible de programmer (conflit horaire ou erreur)");
+            out.println("❌ Impossible de programmer (conflit horaire ou erreur)");
         }
     }
 
@@ -262,14 +301,17 @@ public class ProfessionelUI implements MenuInterface {
 
         boolean obsOk = consultationService.ajouterObservations(id, observations);
         boolean diagOk = consultationService.ajouterDiagnostic(id, diagnostic);
-        boolean effectueOk = consultationService.marquerEffectuee(id);
+        if (!obsOk || !diagOk) {
+            out.println("❌ Consultation non trouvée");
+            return;
+        }
 
-        if (obsOk && diagOk && effectueOk) {
-            System.out.println("✓ Consultation clôturée");
-            sauvegarderDonnees();
+        if (consultationService.marquerEffectuee(id)) {
+            out.println("✓ Consultation clôturée");
         } else {
-            System.out.println("❌ Consultation non trouvée");
+            out.println("❌ Le créneau de cette consultation annulée a été repris : elle reste annulée");
         }
+        sauvegarderDonnees();
     }
 
     private void annulerConsultation() {
@@ -277,37 +319,37 @@ public class ProfessionelUI implements MenuInterface {
 
         Consultation consultation = consultationService.findConsultationById(id);
         if (consultation == null) {
-            System.out.println("❌ Consultation non trouvée");
+            out.println("❌ Consultation non trouvée");
             return;
         }
 
         if (!consultation.getProfessionnel().getLoginID().equals(professionnel.getLoginID())) {
-            System.out.println("❌ Cette consultation ne vous appartient pas");
+            out.println("❌ Cette consultation ne vous appartient pas");
             return;
         }
 
         if (consultationService.annulerConsultation(id)) {
-            System.out.println("✓ Consultation annulée");
+            out.println("✓ Consultation annulée");
             sauvegarderDonnees();
         } else {
-            System.out.println("❌ Erreur lors de l'annulation");
+            out.println("❌ Erreur lors de l'annulation");
         }
     }
 
     /* ===================== PLANNING ===================== */
 
     private void menuPlanning() {
-        System.out.println("\n╔═══════════════════════════════════════╗");
-        System.out.println("║  PLANNING DE " + professionnel.getNom() + " " + professionnel.getPrenom());
-        System.out.println("╠═══════════════════════════════════════╣");
-        System.out.println("║ 1) Planning complet                   ║");
-        System.out.println("║ 2) Planning du jour                   ║");
-        System.out.println("║ 3) Planning de la semaine             ║");
-        System.out.println("║ 4) Planning du mois                   ║");
-        System.out.println("║ 5) Planning personnalisé              ║");
-        System.out.println("║ 0) Retour                             ║");
-        System.out.println("╚═══════════════════════════════════════╝");
-        System.out.print("Votre choix: ");
+        out.println("\n╔═══════════════════════════════════════╗");
+        out.println("║  PLANNING DE " + professionnel.getNom() + " " + professionnel.getPrenom());
+        out.println("╠═══════════════════════════════════════╣");
+        out.println("║ 1) Planning complet                   ║");
+        out.println("║ 2) Planning du jour                   ║");
+        out.println("║ 3) Planning de la semaine             ║");
+        out.println("║ 4) Planning du mois                   ║");
+        out.println("║ 5) Planning personnalisé              ║");
+        out.println("║ 0) Retour                             ║");
+        out.println("╚═══════════════════════════════════════╝");
+        out.print("Votre choix: ");
         String choix = sc.nextLine().trim();
 
         switch (choix) {
@@ -317,65 +359,65 @@ public class ProfessionelUI implements MenuInterface {
             case "4" -> afficherPlanningMois();
             case "5" -> afficherPlanningPersonnalise();
             case "0" -> {}
-            default -> System.out.println("❌ Choix invalide");
+            default -> out.println("❌ Choix invalide");
         }
     }
 
     private void afficherPlanningComplet() {
-        System.out.println("\n=== PLANNING COMPLET DE " + professionnel.getNom() + " " + professionnel.getPrenom() + " ===");
-        List<Consultation> planning = professionnel.getPlanning();
+        out.println("\n=== PLANNING COMPLET DE " + professionnel.getNom() + " " + professionnel.getPrenom() + " ===");
+        List<Consultation> planning = consultationService.getConsultationsProfessionnel(professionnel);
         if (planning.isEmpty()) {
-            System.out.println("Aucune consultation programmée");
+            out.println("Aucune consultation programmée");
         } else {
             planning.stream()
-                .filter(c -> !"annulée".equalsIgnoreCase(c.getStatut()))
+                .filter(c -> !c.estAnnulee())
                 .sorted((c1, c2) -> c1.getDateHeure().compareTo(c2.getDateHeure()))
-                .forEach(c -> System.out.println(c));
+                .forEach(c -> out.println(c));
         }
     }
 
     private void afficherPlanningJour() {
-        System.out.print("Date (YYYY-MM-DD) [Entrée pour aujourd'hui]: ");
+        out.print("Date (YYYY-MM-DD) [Entrée pour aujourd'hui]: ");
         String input = sc.nextLine().trim();
         LocalDate date = input.isEmpty() ? LocalDate.now() : parseDate(input);
         
         if (date != null) {
-            System.out.println(consultationService.afficherPlanningJour(professionnel, date));
+            out.println(consultationService.afficherPlanningJour(professionnel, date));
         }
     }
 
     private void afficherPlanningSemaine() {
-        System.out.print("Date de début de semaine (YYYY-MM-DD) [Entrée pour cette semaine]: ");
+        out.print("Date de début de semaine (YYYY-MM-DD) [Entrée pour cette semaine]: ");
         String input = sc.nextLine().trim();
         LocalDate dateDebut = input.isEmpty() ? 
             LocalDate.now().with(java.time.DayOfWeek.MONDAY) : 
             parseDate(input);
         
         if (dateDebut != null) {
-            System.out.println(consultationService.afficherPlanningSemaine(professionnel, dateDebut));
+            out.println(consultationService.afficherPlanningSemaine(professionnel, dateDebut));
         }
     }
 
     private void afficherPlanningMois() {
-        System.out.print("Année [Entrée pour année actuelle]: ");
+        out.print("Année [Entrée pour année actuelle]: ");
         String anneeStr = sc.nextLine().trim();
         int annee = anneeStr.isEmpty() ? LocalDate.now().getYear() : Integer.parseInt(anneeStr);
         
-        System.out.print("Mois (1-12) [Entrée pour mois actuel]: ");
+        out.print("Mois (1-12) [Entrée pour mois actuel]: ");
         String moisStr = sc.nextLine().trim();
         int mois = moisStr.isEmpty() ? LocalDate.now().getMonthValue() : Integer.parseInt(moisStr);
         
-        System.out.println(consultationService.afficherPlanningMois(professionnel, annee, mois));
+        out.println(consultationService.afficherPlanningMois(professionnel, annee, mois));
     }
 
     private void afficherPlanningPersonnalise() {
-        System.out.print("Date de début (YYYY-MM-DD): ");
+        out.print("Date de début (YYYY-MM-DD): ");
         LocalDate debut = parseDate(sc.nextLine().trim());
-        System.out.print("Date de fin (YYYY-MM-DD): ");
+        out.print("Date de fin (YYYY-MM-DD): ");
         LocalDate fin = parseDate(sc.nextLine().trim());
         
         if (debut != null && fin != null) {
-            System.out.println(consultationService.afficherPlanningPeriode(
+            out.println(consultationService.afficherPlanningPeriode(
                 professionnel, debut.atStartOfDay(), fin.atTime(23, 59)));
         }
     }
@@ -383,15 +425,15 @@ public class ProfessionelUI implements MenuInterface {
     /* ===================== ANTÉCÉDENTS (NOUVEAU) ===================== */
 
     private void menuAntecedents() {
-        System.out.println("\n╔═══════════════════════════════════════╗");
-        System.out.println("║  GESTION DES ANTÉCÉDENTS              ║");
-        System.out.println("╠═══════════════════════════════════════╣");
-        System.out.println("║ 1) Voir antécédents d'un patient      ║");
-        System.out.println("║ 2) Ajouter un antécédent              ║");
-        System.out.println("║ 3) Voir historique complet patient    ║");
-        System.out.println("║ 0) Retour                             ║");
-        System.out.println("╚═══════════════════════════════════════╝");
-        System.out.print("Votre choix: ");
+        out.println("\n╔═══════════════════════════════════════╗");
+        out.println("║  GESTION DES ANTÉCÉDENTS              ║");
+        out.println("╠═══════════════════════════════════════╣");
+        out.println("║ 1) Voir antécédents d'un patient      ║");
+        out.println("║ 2) Ajouter un antécédent              ║");
+        out.println("║ 3) Voir historique complet patient    ║");
+        out.println("║ 0) Retour                             ║");
+        out.println("╚═══════════════════════════════════════╝");
+        out.print("Votre choix: ");
         String choix = sc.nextLine().trim();
 
         switch (choix) {
@@ -399,7 +441,7 @@ public class ProfessionelUI implements MenuInterface {
             case "2" -> ajouterAntecedent();
             case "3" -> afficherHistoriqueComplet();
             case "0" -> {}
-            default -> System.out.println("❌ Choix invalide");
+            default -> out.println("❌ Choix invalide");
         }
     }
 
@@ -408,59 +450,59 @@ public class ProfessionelUI implements MenuInterface {
         Patient patient = patientService.findPatientById(patientId);
         
         if (patient == null) {
-            System.out.println("❌ Patient non trouvé");
+            out.println("❌ Patient non trouvé");
             return;
         }
         
         List<Antecedent> antecedents = patientService.getAntecedentsPatient(patientId);
 
-        System.out.println("\n=== ANTÉCÉDENTS DE " + patient.getNom() + " " + patient.getPrenom() + " ===");
+        out.println("\n=== ANTÉCÉDENTS DE " + patient.getNom() + " " + patient.getPrenom() + " ===");
         if (antecedents.isEmpty()) {
-            System.out.println("Aucun antécédent enregistré");
+            out.println("Aucun antécédent enregistré");
         } else {
             for (Antecedent a : antecedents) {
-                System.out.println(a);
+                out.println(a);
             }
         }
     }
 
     private void ajouterAntecedent() {
-        System.out.println("\n--- Ajout d'un antécédent ---");
+        out.println("\n--- Ajout d'un antécédent ---");
         int patientId = lireEntier("ID du patient: ");
         
         Patient patient = patientService.findPatientById(patientId);
         if (patient == null) {
-            System.out.println("❌ Patient non trouvé");
+            out.println("❌ Patient non trouvé");
             return;
         }
         
-        System.out.println("Patient : " + patient.getNom() + " " + patient.getPrenom());
-        System.out.println("\nTypes d'antécédents :");
-        System.out.println("  - allergie (médicaments, aliments, etc.)");
-        System.out.println("  - maladie chronique (diabète, hypertension, etc.)");
-        System.out.println("  - intervention chirurgicale");
-        System.out.println("  - antécédents familiaux");
-        System.out.println("  - traitement en cours");
-        System.out.println("  - autre\n");
+        out.println("Patient : " + patient.getNom() + " " + patient.getPrenom());
+        out.println("\nTypes d'antécédents :");
+        out.println("  - allergie (médicaments, aliments, etc.)");
+        out.println("  - maladie chronique (diabète, hypertension, etc.)");
+        out.println("  - intervention chirurgicale");
+        out.println("  - antécédents familiaux");
+        out.println("  - traitement en cours");
+        out.println("  - autre\n");
         
         String type = lireChaine("Type d'antécédent: ");
         String description = lireChaine("Description détaillée: ");
         
-        System.out.println("\nDate de survenue/diagnostic");
-        System.out.print("Date (YYYY-MM-DD) [Entrée pour aujourd'hui]: ");
+        out.println("\nDate de survenue/diagnostic");
+        out.print("Date (YYYY-MM-DD) [Entrée pour aujourd'hui]: ");
         String dateStr = sc.nextLine().trim();
         LocalDate date = dateStr.isEmpty() ? LocalDate.now() : parseDate(dateStr);
         
         if (date == null) {
-            System.out.println("❌ Date invalide, utilisation de la date du jour");
+            out.println("❌ Date invalide, utilisation de la date du jour");
             date = LocalDate.now();
         }
         
-        System.out.println("\nNiveau de gravité :");
-        System.out.println("  1) Bénin");
-        System.out.println("  2) Modéré");
-        System.out.println("  3) Grave");
-        System.out.print("Votre choix (1-3): ");
+        out.println("\nNiveau de gravité :");
+        out.println("  1) Bénin");
+        out.println("  2) Modéré");
+        out.println("  3) Grave");
+        out.print("Votre choix (1-3): ");
         String graviteChoice = sc.nextLine().trim();
         
         String gravite;
@@ -469,27 +511,27 @@ public class ProfessionelUI implements MenuInterface {
             case "2" -> gravite = "modéré";
             case "3" -> gravite = "grave";
             default -> {
-                System.out.println("⚠️ Choix invalide, 'modéré' par défaut");
+                out.println("⚠️ Choix invalide, 'modéré' par défaut");
                 gravite = "modéré";
             }
         }
         
-        System.out.print("\nL'antécédent est-il toujours actif/pertinent ? (o/n) [o]: ");
+        out.print("\nL'antécédent est-il toujours actif/pertinent ? (o/n) [o]: ");
         String actifStr = sc.nextLine().trim().toLowerCase();
         boolean actif = actifStr.isEmpty() || actifStr.equals("o") || actifStr.equals("oui");
 
         Antecedent antecedent = new Antecedent(type, description, date, gravite, actif);
         
         if (patientService.ajouterAntecedentAuPatient(patientId, antecedent)) {
-            System.out.println("\n✓ Antécédent ajouté avec succès");
-            System.out.println("  Type: " + type);
-            System.out.println("  Description: " + description);
-            System.out.println("  Date: " + date);
-            System.out.println("  Gravité: " + gravite);
-            System.out.println("  Statut: " + (actif ? "actif" : "inactif"));
+            out.println("\n✓ Antécédent ajouté avec succès");
+            out.println("  Type: " + type);
+            out.println("  Description: " + description);
+            out.println("  Date: " + date);
+            out.println("  Gravité: " + gravite);
+            out.println("  Statut: " + (actif ? "actif" : "inactif"));
             sauvegarderDonnees();
         } else {
-            System.out.println("❌ Erreur lors de l'ajout de l'antécédent");
+            out.println("❌ Erreur lors de l'ajout de l'antécédent");
         }
     }
 
@@ -498,45 +540,45 @@ public class ProfessionelUI implements MenuInterface {
         Patient patient = patientService.findPatientById(patientId);
         
         if (patient == null) {
-            System.out.println("❌ Patient non trouvé");
+            out.println("❌ Patient non trouvé");
             return;
         }
         
-        System.out.println("\n╔═══════════════════════════════════════════════════════╗");
-        System.out.println("║  DOSSIER MÉDICAL COMPLET                              ║");
-        System.out.println("╚═══════════════════════════════════════════════════════╝");
+        out.println("\n╔═══════════════════════════════════════════════════════╗");
+        out.println("║  DOSSIER MÉDICAL COMPLET                              ║");
+        out.println("╚═══════════════════════════════════════════════════════╝");
         
         // Informations du patient
-        System.out.println("\n=== PATIENT ===");
-        System.out.println("Nom: " + patient.getNom() + " " + patient.getPrenom());
-        System.out.println("ID: " + patient.getId());
-        System.out.println("Numéro SS: " + patient.getNumeroSecuriteSociale());
-        System.out.println("Groupe sanguin: " + patient.getGroupeSanguin());
+        out.println("\n=== PATIENT ===");
+        out.println("Nom: " + patient.getNom() + " " + patient.getPrenom());
+        out.println("ID: " + patient.getId());
+        out.println("Numéro SS: " + patient.getNumeroSecuriteSociale());
+        out.println("Groupe sanguin: " + patient.getGroupeSanguin());
         
         // Antécédents
-        System.out.println("\n=== ANTÉCÉDENTS ===");
+        out.println("\n=== ANTÉCÉDENTS ===");
         List<Antecedent> antecedents = patient.getDossierMedical().getAntecedents();
         if (antecedents.isEmpty()) {
-            System.out.println("Aucun antécédent enregistré");
+            out.println("Aucun antécédent enregistré");
         } else {
             for (Antecedent a : antecedents) {
-                System.out.println(a);
+                out.println(a);
             }
         }
         
         // Consultations
-        System.out.println("\n=== CONSULTATIONS ===");
+        out.println("\n=== CONSULTATIONS ===");
         List<Consultation> consultations = patient.getDossierMedical().getConsultations();
         if (consultations.isEmpty()) {
-            System.out.println("Aucune consultation enregistrée");
+            out.println("Aucune consultation enregistrée");
         } else {
             for (Consultation c : consultations) {
-                System.out.println("\n" + c);
+                out.println("\n" + c);
                 if (c.getObservations() != null && !c.getObservations().isEmpty()) {
-                    System.out.println("  Observations: " + c.getObservations());
+                    out.println("  Observations: " + c.getObservations());
                 }
                 if (c.getDiagnostic() != null && !c.getDiagnostic().isEmpty()) {
-                    System.out.println("  Diagnostic: " + c.getDiagnostic());
+                    out.println("  Diagnostic: " + c.getDiagnostic());
                 }
             }
         }
@@ -544,28 +586,28 @@ public class ProfessionelUI implements MenuInterface {
 
     /* ===================== SAUVEGARDE ===================== */
 
+    // Les mutations sont déjà journalisées : il suffit de forcer le groupe en attente sur disque
     private void sauvegarderDonnees() {
-        dataService.savePatients(patientService.getPatients());
-        dataService.saveConsultations(consultationService.getConsultations());
+        journal.synchroniser();
         //dataService.saveAntecedents(patientService.getPatients());
-        System.out.println("(Données sauvegardées)");
+        out.println("(Données sauvegardées)");
     }
 
     /* ===================== UTILITAIRES ===================== */
     
     private String lireChaine(String prompt) {
-        System.out.print(prompt);
+        out.print(prompt);
         return sc.nextLine().trim();
     }
 
     private int lireEntier(String prompt) {
         while (true) {
             try {
-                System.out.print(prompt);
+                out.print(prompt);
                 String input = sc.nextLine().trim();
                 return Integer.parseInt(input);
             } catch (NumberFormatException e) {
-                System.out.println("❌ Veuillez entrer un nombre entier valide.");
+                out.println("❌ Veuillez entrer un nombre entier valide.");
             }
         }
     }
@@ -573,11 +615,11 @@ public class ProfessionelUI implements MenuInterface {
     private LocalDateTime lireDateHeure(String prompt) {
         while (true) {
             try {
-                System.out.print(prompt);
+                out.print(prompt);
                 String input = sc.nextLine().trim();
                 return LocalDateTime.parse(input, DATETIME_FORMATTER);
             } catch (Exception e) {
-                System.out.println("❌ Format de date invalide. Utilisez 'yyyy-MM-dd HH:mm'");
+                out.println("❌ Format de date invalide. Utilisez 'yyyy-MM-dd HH:mm'");
                 return null;
             }
         }
@@ -586,11 +628,11 @@ public class ProfessionelUI implements MenuInterface {
     private LocalDate lireDate(String prompt) {
         while (true) {
             try {
-                System.out.print(prompt);
+                out.print(prompt);
                 String input = sc.nextLine().trim();
                 return LocalDate.parse(input, DATE_FORMATTER);
             } catch (Exception e) {
-                System.out.println("❌ Format de date invalide. Utilisez 'yyyy-MM-dd'");
+                out.println("❌ Format de date invalide. Utilisez 'yyyy-MM-dd'");
             }
         }
     }
@@ -598,7 +640,7 @@ public class ProfessionelUI implements MenuInterface {
         try {
             return LocalDate.parse(input, DATE_FORMATTER);
         } catch (Exception e) {
-            System.out.println("❌ Format de date invalide. Utilisez 'yyyy-MM-dd'");
+            out.println("❌ Format de date invalide. Utilisez 'yyyy-MM-dd'");
             return null;
         }
     }
@@ -1,34 +1,38 @@
 package com.medipass.user;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Administrateur : gestion basique des comptes (en mémoire).
  */
 public class Administrateur extends Utilisateur {
-    private final Map<String, Utilisateur> comptes = new HashMap<>();
+    private final AnnuaireUtilisateurs comptes;
 
     public Administrateur(String loginID, String mdp) {
+        this(loginID, mdp, new AnnuaireUtilisateurs());
+    }
+
+    // Administrateur qui gère l'annuaire partagé de l'application
+    public Administrateur(String loginID, String mdp, AnnuaireUtilisateurs comptes) {
         super(loginID, mdp, "ADMIN");
+        this.comptes = comptes;
     }
 
     public boolean creerCompte(Utilisateur u){
-        if(comptes.containsKey(u.getLoginID())) return false;
-        comptes.put(u.getLoginID(), u);
-        return true;
+        return comptes.ajouter(u);
     }
 
     public boolean supprimerCompte(String login){
-        return comptes.remove(login) != null;
+        return comptes.retirer(login) != null;
     }
 
     public boolean modifierDroits(String login, String nouveauRole){
-        Utilisateur u = comptes.get(login);
+        Utilisateur u = comptes.trouver(login);
         if(u==null) return false;
         u.role = nouveauRole;
         return true;
     }
 
-    public Map<String,Utilisateur> getComptes(){ return comptes; }
+    // Copie en lecture seule, indexée par login en minuscules
+    public Map<String,Utilisateur> getComptes(){ return comptes.getComptes(); }
 }
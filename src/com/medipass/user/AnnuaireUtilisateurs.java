@@ -0,0 +1,163 @@
+package com.medipass.user;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Annuaire unique des comptes, partagé par AdministrateurService,
+ * AuthentificationService et Administrateur.
+ * Les logins sont indexés sans tenir compte de la casse ; les professionnels
+ * sont aussi regroupés par spécialité.
+ * Sûr entre threads : les recherches se font sous un verrou en lecture. Les listes
+ * rendues sont des copies figées, en lecture seule : faites à la première lecture qui
+ * suit une modification puis partagées, elles se parcourent sans verrou pendant
+ * qu'une autre session crée ou supprime un compte.
+ */
+public class AnnuaireUtilisateurs {
+    private final Map<String, Utilisateur> parLogin = new HashMap<>();
+    private final Map<String, List<ProfessionnelSante>> parSpecialite = new HashMap<>();
+    private final List<Utilisateur> utilisateurs = new ArrayList<>();
+    private final List<ProfessionnelSante> professionnels = new ArrayList<>();
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+    // Copies figées, remises à null à chaque modification
+    private volatile List<Utilisateur> copieUtilisateurs;
+    private volatile List<ProfessionnelSante> copieProfessionnels;
+    private volatile Map<String, Utilisateur> copieComptes;
+
+    /**
+     * Clé d'index d'un login (ou d'une spécialité) : minuscules, sans espaces autour
+     */
+    public static String cle(String texte) {
+        return texte == null ? "" : texte.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Ajoute un compte
+     * @return false si le login (à la casse près) est déjà pris
+     */
+    public boolean ajouter(Utilisateur u) {
+        if (u == null) {
+            return false;
+        }
+        verrou.writeLock().lock();
+        try {
+            if (parLogin.putIfAbsent(cle(u.getLoginID()), u) != null) {
+                return false;
+            }
+            utilisateurs.add(u);
+            if (u instanceof ProfessionnelSante pro) {
+                professionnels.add(pro);
+                parSpecialite.computeIfAbsent(cle(pro.getSpecialite()), k -> new ArrayList<>()).add(pro);
+            }
+            invalider();
+            return true;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire un compte
+     * @return le compte retiré, ou null si le login est inconnu
+     */
+    public Utilisateur retirer(String login) {
+        verrou.writeLock().lock();
+        try {
+            Utilisateur u = parLogin.remove(cle(login));
+            if (u == null) {
+                return null;
+            }
+            utilisateurs.remove(u);
+            if (u instanceof ProfessionnelSante pro) {
+                professionnels.remove(pro);
+                List<ProfessionnelSante> memeSpecialite = parSpecialite.get(cle(pro.getSpecialite()));
+                if (memeSpecialite != null) {
+                    memeSpecialite.remove(pro);
+                    if (memeSpecialite.isEmpty()) parSpecialite.remove(cle(pro.getSpecialite()));
+                }
+            }
+            invalider();
+            return u;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    public Utilisateur trouver(String login) {
+        return lire(() -> parLogin.get(cle(login)));
+    }
+
+    public ProfessionnelSante trouverProfessionnel(String login) {
+        return trouver(login) instanceof ProfessionnelSante pro ? pro : null;
+    }
+
+    public boolean contient(String login) {
+        return lire(() -> parLogin.containsKey(cle(login)));
+    }
+
+    public List<ProfessionnelSante> parSpecialite(String specialite) {
+        return lire(() -> {
+            List<ProfessionnelSante> pros = parSpecialite.get(cle(specialite));
+            return pros == null ? Collections.<ProfessionnelSante>emptyList() : List.copyOf(pros);
+        });
+    }
+
+    /**
+     * Copie en lecture seule de tous les comptes, dans l'ordre de création
+     */
+    public List<Utilisateur> getUtilisateurs() {
+        List<Utilisateur> copie = copieUtilisateurs;
+        if (copie == null) {
+            copie = lire(() -> copieUtilisateurs = List.copyOf(utilisateurs));
+        }
+        return copie;
+    }
+
+    /**
+     * Copie en lecture seule des professionnels, dans l'ordre de création
+     */
+    public List<ProfessionnelSante> getProfessionnels() {
+        List<ProfessionnelSante> copie = copieProfessionnels;
+        if (copie == null) {
+            copie = lire(() -> copieProfessionnels = List.copyOf(professionnels));
+        }
+        return copie;
+    }
+
+    /**
+     * Copie en lecture seule des comptes, indexés par login en minuscules
+     */
+    public Map<String, Utilisateur> getComptes() {
+        Map<String, Utilisateur> copie = copieComptes;
+        if (copie == null) {
+            copie = lire(() -> copieComptes = Map.copyOf(parLogin));
+        }
+        return copie;
+    }
+
+    public int getNombreProfessionnels() {
+        return lire(professionnels::size);
+    }
+
+    // Une copie publiée sous le verrou en lecture ne peut pas croiser une modification
+    private <T> T lire(Supplier<T> lecture) {
+        verrou.readLock().lock();
+        try {
+            return lecture.get();
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    private void invalider() {
+        copieUtilisateurs = null;
+        copieProfessionnels = null;
+        copieComptes = null;
+    }
+}
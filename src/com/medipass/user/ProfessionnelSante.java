@@ -1,24 +1,30 @@
 package com.medipass.user;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.time.LocalDateTime;
 
 import com.medipass.model.Antecedent;
 import com.medipass.model.Consultation;
+import com.medipass.model.IndexIntervalles;
 import com.medipass.model.Patient;
+import com.medipass.model.StatutConsultation;
 
 /**
  * Professionnel de santé (médecin, infirmier, pharmacien, etc.).
  * Possède un planning simple (liste de consultations) et peut gérer les
- * antécédents.
+ * antécédents. Les créneaux se réservent sans verrou (voir IndexIntervalles) :
+ * plusieurs sessions peuvent programmer sur le même professionnel en même temps.
  */
 public class ProfessionnelSante extends Utilisateur {
     private final String specialite;
     private final String numeroOrdre;
     private String accessLevels;
     // private String patientsAccessLevels;
-    private final List<Consultation> planning = new ArrayList<>();
+    private final List<Consultation> planning = Collections.synchronizedList(new ArrayList<>());
+    private final IndexIntervalles agenda = new IndexIntervalles();
     private String horairesDisponibilite; // ex: "9h-12h, 14h-18h"
 
     public ProfessionnelSante(String loginID, String mdp, String role, String accessLevels,
@@ -53,15 +59,37 @@ public class ProfessionnelSante extends Utilisateur {
      */
     public void ajouterConsultation(Consultation c) {
         planning.add(c);
+        agenda.ajouter(c);
+    }
+
+    /**
+     * Réserve le créneau de la consultation et l'ajoute au planning,
+     * sauf s'il chevauche une consultation non annulée
+     * @return false si le créneau est déjà pris
+     */
+    public boolean reserverConsultation(Consultation c) {
+        if (!agenda.reserver(c)) {
+            return false;
+        }
+        planning.add(c);
+        return true;
+    }
+
+    /**
+     * Défait une réservation qui n'a pas pu aboutir (patient indisponible, par exemple)
+     */
+    public void libererConsultation(Consultation c) {
+        agenda.retirer(c);
+        planning.remove(c);
     }
 
     /**
      * Annule une consultation (marque comme annulée au lieu de supprimer)
      */
     public boolean annulerConsultation(int idConsultation) {
-        for (Consultation c : planning) {
+        for (Consultation c : getPlanning()) {
             if (c.getIdConsultation() == idConsultation) {
-                c.setStatut("annulée");
+                c.setStatut(StatutConsultation.ANNULEE);
                 return true;
             }
         }
@@ -69,10 +97,41 @@ public class ProfessionnelSante extends Utilisateur {
     }
 
     /**
-     * Récupère le planning complet
+     * Récupère une copie du planning complet
      */
     public List<Consultation> getPlanning() {
-        return planning;
+        return new ArrayList<>(planning);
+    }
+
+    /**
+     * Consultations non annulées qui commencent dans [debut, fin[, par ordre chronologique
+     */
+    public List<Consultation> getConsultationsEntre(LocalDateTime debut, LocalDateTime fin) {
+        if (!debut.isBefore(fin)) return new ArrayList<>();
+        List<Consultation> resultat = agenda.entre(minute(debut), minute(fin) + 1);
+        resultat.removeIf(c -> c.getDateHeure().isBefore(debut) || !c.getDateHeure().isBefore(fin));
+        return resultat;
+    }
+
+    /**
+     * Consultations non annulées qui commencent strictement après la date donnée, par ordre chronologique
+     */
+    public List<Consultation> getConsultationsApres(LocalDateTime date) {
+        List<Consultation> resultat = agenda.aPartirDe(minute(date));
+        resultat.removeIf(c -> !c.getDateHeure().isAfter(date));
+        return resultat;
+    }
+
+    /**
+     * Consultations non annulées qui chevauchent [debutMinute, finMinute[ (minutes depuis l'époque),
+     * par ordre chronologique
+     */
+    public List<Consultation> getConsultationsChevauchant(long debutMinute, long finMinute) {
+        return agenda.chevauchant(debutMinute, finMinute);
+    }
+
+    private static long minute(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC) / 60;
     }
 
     /**
@@ -100,8 +159,8 @@ public class ProfessionnelSante extends Utilisateur {
 
     public List<Consultation> getConsultationsEffectuees() {
         List<Consultation> effectuees = new ArrayList<>();
-        for (Consultation c : planning) {
-            if ("effectuée".equalsIgnoreCase(c.getStatut())) {
+        for (Consultation c : getPlanning()) {
+            if (c.getStatutConsultation() == StatutConsultation.EFFECTUEE) {
                 effectuees.add(c);
             }
         }
@@ -110,25 +169,10 @@ public class ProfessionnelSante extends Utilisateur {
 
     /**
      * Vérification de disponibilité avec gestion des chevauchements
+     * (consultations annulées ignorées, recherche dans l'index des créneaux)
      */
     public boolean estDisponiblePour(Consultation nouvelleConsultation) {
-        LocalDateTime debut1 = nouvelleConsultation.getDateHeure();
-        LocalDateTime fin1 = nouvelleConsultation.getFinConsultation();
-
-        for (Consultation existante : planning) {
-            // Ignorer les consultations annulées
-            if ("annulée".equalsIgnoreCase(existante.getStatut()))
-                continue;
-
-            LocalDateTime debut2 = existante.getDateHeure();
-            LocalDateTime fin2 = existante.getFinConsultation();
-
-            // Test de chevauchement: (StartA < EndB) and (EndA > StartB)
-            if (debut1.isBefore(fin2) && fin1.isAfter(debut2)) {
-                return false; // Conflit trouvé
-            }
-        }
-        return true;
+        return agenda.estLibre(nouvelleConsultation);
     }
 
     public String getSpecialite() {
@@ -1,8 +1,11 @@
 package com.medipass.user;
 
+import com.medipass.security.HachageMotDePasse;
+
 /**
  * Utilisateur de base (compte).
- * Pour simplifier, mot de passe stocké en clair (NE PAS faire en production).
+ * motDePasse contient l'empreinte PBKDF2 du mot de passe (voir HachageMotDePasse) ;
+ * les anciens comptes en clair sont migrés à leur première connexion.
  */
 public class Utilisateur {
     protected String loginID;
@@ -41,10 +44,12 @@ public class Utilisateur {
     public void setEmail(String email){ this.email = email; }
     public void setTelephone(String telephone){ this.telephone = telephone; }
     public void setRole(String role){ this.role = role; }
+    // Remplace la valeur stockée (une empreinte issue de HachageMotDePasse.hacher)
+    public void setMotDePasse(String empreinte){ this.motDePasse = empreinte; }
 
-    // Vérifie identifiants (simple)
+    // Vérifie identifiants (empreinte ou ancien mot de passe en clair)
     public boolean seConnecter(String loginID, String mdp){
-        return this.loginID.equals(loginID) && this.motDePasse.equals(mdp) && actif;
+        return this.loginID.equals(loginID) && HachageMotDePasse.verifier(mdp, this.motDePasse) && actif;
     }
 
     public void desactiver(){ this.actif = false; }
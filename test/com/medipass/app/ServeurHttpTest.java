@@ -0,0 +1,223 @@
+package com.medipass.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.medipass.model.Patient;
+import com.medipass.security.AuthentificationService;
+import com.medipass.service.AdministrateurService;
+import com.medipass.service.ConsultationService;
+import com.medipass.service.PatientService;
+import com.medipass.service.StatistiquesService;
+import com.medipass.user.Administrateur;
+import com.medipass.user.AnnuaireUtilisateurs;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * API HTTP de bout en bout sur 127.0.0.1, services en mémoire sans journal.
+ * Les réponses JSON sont compactes : on y cherche les membres attendus tels quels.
+ */
+class ServeurHttpTest {
+    private static final Pattern JETON = Pattern.compile("\"jeton\":\"([^\"]+)\"");
+    private static final LocalDateTime LUNDI = LocalDateTime.of(2031, 3, 17, 9, 0);
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private ServeurHttp serveur;
+    private String base;
+    private ConsultationService consultationService;
+
+    @BeforeEach
+    void demarrer() throws IOException {
+        AnnuaireUtilisateurs annuaire = new AnnuaireUtilisateurs();
+        AdministrateurService adminService = new AdministrateurService(annuaire);
+        AuthentificationService auth = new AuthentificationService(annuaire);
+        PatientService patientService = new PatientService();
+        consultationService = new ConsultationService();
+        StatistiquesService statsService = new StatistiquesService();
+        patientService.ajouterEcouteur(statsService.getMoteur());
+        adminService.ajouterEcouteur(statsService.getMoteur());
+        consultationService.ajouterEcouteur(statsService.getMoteur());
+
+        adminService.creerCompte(new Administrateur("admin", "admin", annuaire));
+        adminService.creerCompte(new ProfessionnelSante("drmartin", "mdp", "PRO", "1234", "Martin", "Paul",
+                "Généraliste", "ORD1"));
+        adminService.creerCompte(new ProfessionnelSante("drpetit", "mdp", "PRO", "1234", "Petit", "Anne",
+                "Cardiologue", "ORD2"));
+        // Consultation du planning seulement
+        adminService.creerCompte(new ProfessionnelSante("secretariat", "mdp", "PRO", "3", "Durand", "Léa",
+                "Généraliste", "ORD3"));
+        patientService.creerPatient(new Patient(1, "Lefèvre", "Hélène"));
+        patientService.creerPatient(new Patient(2, "Dupont", "Jean"));
+
+        serveur = new ServeurHttp(auth, patientService, consultationService, adminService, statsService, null);
+        base = "http://127.0.0.1:" + serveur.demarrer(0) + "/api/";
+    }
+
+    @AfterEach
+    void arreter() {
+        serveur.close();
+    }
+
+    private HttpResponse<String> envoyer(String methode, String chemin, String jeton, String type, String corps)
+            throws Exception {
+        HttpRequest.Builder r = HttpRequest.newBuilder(URI.create(base + chemin))
+                .method(methode, corps == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(corps));
+        if (jeton != null) r.header("Authorization", "Bearer " + jeton);
+        if (type != null) r.header("Content-Type", type);
+        return client.send(r.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String chemin, String jeton) throws Exception {
+        return envoyer("GET", chemin, jeton, null, null);
+    }
+
+    private HttpResponse<String> post(String chemin, String jeton, String formulaire) throws Exception {
+        return envoyer("POST", chemin, jeton, "application/x-www-form-urlencoded", formulaire);
+    }
+
+    // Les professionnels ont tous le mot de passe "mdp"
+    private String connecter(String login) throws Exception {
+        HttpResponse<String> r = post("session", null, "login=" + login + "&motDePasse="
+                + (login.equals("admin") ? "admin" : "mdp"));
+        assertEquals(201, r.statusCode(), r.body());
+        Matcher m = JETON.matcher(r.body());
+        assertTrue(m.find(), r.body());
+        return m.group(1);
+    }
+
+    @Test
+    void ouvreEtFermeUneSession() throws Exception {
+        assertEquals(401, post("session", null, "login=drmartin&motDePasse=faux").statusCode());
+        assertEquals(400, post("session", null, "login=drmartin").statusCode());
+        String jeton = connecter("drmartin");
+
+        assertEquals(200, get("patients?q=lef", jeton).statusCode());
+        assertEquals(204, envoyer("DELETE", "session", jeton, null, null).statusCode());
+        assertEquals(401, get("patients?q=lef", jeton).statusCode());
+        assertEquals(401, get("patients?q=lef", null).statusCode());
+    }
+
+    @Test
+    void refuseLesDroitsEtLesMethodesNonPrevus() throws Exception {
+        String secretariat = connecter("secretariat");
+        String medecin = connecter("drmartin");
+
+        assertEquals(403, get("patients", secretariat).statusCode());
+        assertEquals(403, get("statistiques", medecin).statusCode());
+        HttpResponse<String> r = envoyer("PUT", "planning", medecin, null, null);
+        assertEquals(405, r.statusCode());
+        assertEquals("GET", r.headers().firstValue("Allow").orElse(null));
+        assertEquals(404, get("inconnu", medecin).statusCode());
+        assertEquals(400, get("patients/abc", medecin).statusCode());
+        assertEquals(404, get("patients/99", medecin).statusCode());
+    }
+
+    @Test
+    void chercheLesPatients() throws Exception {
+        String jeton = connecter("drmartin");
+
+        HttpResponse<String> r = get("patients?q=HELENE", jeton);
+        assertEquals(200, r.statusCode());
+        assertEquals("application/json; charset=utf-8", r.headers().firstValue("Content-Type").orElse(null));
+        assertTrue(r.body().startsWith("[{\"id\":1,\"nom\":\"Lefèvre\",\"prenom\":\"Hélène\""), r.body());
+        assertTrue(get("patients/2", jeton).body().contains("\"nom\":\"Dupont\""));
+        assertTrue(get("patients/2", jeton).body().contains("\"antecedents\":[]"));
+        assertEquals("[]", get("patients?nss=000", jeton).body());
+    }
+
+    @Test
+    void programmeClotureEtAnnuleDesConsultations() throws Exception {
+        String martin = connecter("drmartin");
+        String petit = connecter("drpetit");
+
+        HttpResponse<String> r = post("consultations", martin, "patient=1&debut=" + LUNDI + "&motif=Contr%C3%B4le&duree=45");
+        assertEquals(201, r.statusCode(), r.body());
+        String lieu = r.headers().firstValue("Location").orElse(null);
+        assertNotNull(lieu);
+        assertTrue(r.body().contains("\"duree\":45") && r.body().contains("\"motif\":\"Contrôle\""), r.body());
+        String chemin = lieu.substring("/api/".length());
+        // Les identifiants de consultation sont attribués pour toute la JVM : pas de valeur fixe
+        String id = lieu.substring(lieu.lastIndexOf('/') + 1);
+
+        // Même patient pendant la consultation, même chez un autre professionnel
+        assertEquals(409, post("consultations", petit, "patient=1&debut=" + LUNDI.plusMinutes(30)
+                + "&motif=Suivi").statusCode());
+        assertEquals(201, post("consultations", petit, "patient=1&debut=" + LUNDI.plusMinutes(45)
+                + "&motif=Suivi").statusCode());
+        assertEquals(400, post("consultations", martin, "patient=2&debut=2020-01-01T09:00&motif=x").statusCode());
+        assertEquals(400, post("consultations", martin, "patient=2&debut=" + LUNDI + "&motif=x&duree=-5")
+                .statusCode());
+
+        assertEquals(403, get(chemin, petit).statusCode());
+        assertEquals(200, get(chemin, martin).statusCode());
+        r = post(chemin + "/cloture", martin, "observations=RAS&diagnostic=Grippe");
+        assertEquals(200, r.statusCode(), r.body());
+        assertTrue(r.body().contains("\"diagnostic\":\"Grippe\""), r.body());
+
+        String autre = post("consultations", martin, "patient=2&debut=" + LUNDI.plusDays(1) + "&motif=x")
+                .headers().firstValue("Location").orElseThrow().substring("/api/".length());
+        assertEquals(200, post(autre + "/annulation", martin, "").statusCode());
+        assertEquals(409, post(autre + "/annulation", martin, "").statusCode());
+        assertEquals(409, post(autre + "/cloture", martin, "").statusCode());
+
+        r = get("planning?debut=" + LUNDI.minusDays(1) + "&fin=" + LUNDI.plusDays(2), martin);
+        assertEquals(200, r.statusCode());
+        // L'annulée a libéré son créneau : seule la consultation clôturée reste au planning
+        assertTrue(r.body().startsWith("[{\"id\":" + id + ","), r.body());
+        assertTrue(r.body().contains("\"statut\":\"effectuée\""), r.body());
+        assertEquals(1, r.body().split("\"professionnel\":\"drmartin\"", -1).length - 1, r.body());
+    }
+
+    @Test
+    void programmeUnLotLigneParLigne() throws Exception {
+        String jeton = connecter("drmartin");
+        String lot = ";1;" + LUNDI + ";Contrôle\n"
+                + ";2;" + LUNDI.plusMinutes(15) + ";Chevauche la première ligne\n"
+                + "\n"
+                + "drpetit;2;" + LUNDI + ";Autre professionnel\n"
+                + ";9;" + LUNDI.plusHours(2) + ";Patient inconnu\n"
+                + ";2;pas une date;Contrôle\n"
+                + ";2;" + LUNDI.plusHours(3) + ";Suivi;60\n";
+
+        HttpResponse<String> r = envoyer("POST", "consultations/lot", jeton, "text/csv", lot);
+        assertEquals(200, r.statusCode(), r.body());
+        assertTrue(r.body().startsWith("{\"acceptees\":2,\"refusees\":4,\"resultats\":["), r.body());
+        assertTrue(r.body().contains("{\"ligne\":1,\"id\":"), r.body());
+        assertTrue(r.body().contains("{\"ligne\":2,\"refus\":"), r.body());
+        assertTrue(r.body().contains("{\"ligne\":4,\"refus\":\"Programmation pour un autre professionnel refusée\"}"),
+                r.body());
+        assertTrue(r.body().contains("{\"ligne\":5,\"refus\":\"Patient non trouvé: 9\"}"), r.body());
+        assertTrue(r.body().contains("{\"ligne\":7,\"id\":"), r.body());
+        assertEquals(2, consultationService.getNombreConsultations());
+        assertEquals(400, envoyer("POST", "consultations/lot", jeton, "text/csv", "\n\n").statusCode());
+        assertEquals(405, get("consultations/lot", jeton).statusCode());
+    }
+
+    @Test
+    void resumeLesStatistiquesPourLAdministrateur() throws Exception {
+        String admin = connecter("admin");
+        post("consultations", connecter("drmartin"), "patient=1&debut=" + LUNDI + "&motif=x");
+
+        HttpResponse<String> r = get("statistiques", admin);
+        assertEquals(200, r.statusCode(), r.body());
+        assertTrue(r.body().startsWith("{\"patients\":2,\"professionnels\":3,\"consultations\":1,"), r.body());
+        assertTrue(r.body().contains("\"Généraliste\":2"), r.body());
+        r = get("consultations?debut=" + LUNDI.minusDays(1) + "&fin=" + LUNDI.plusDays(1), admin);
+        assertTrue(r.body().startsWith("[{\"id\":") && r.body().endsWith("}]"), r.body());
+    }
+}
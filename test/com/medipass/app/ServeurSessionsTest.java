@@ -0,0 +1,175 @@
+package com.medipass.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.medipass.security.AuthentificationService;
+import com.medipass.security.HachageMotDePasse;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Sessions distantes de bout en bout sur 127.0.0.1 : le client envoie toutes ses saisies
+ * d'un coup, ferme son sens d'écriture et lit la session jusqu'à ce que le serveur raccroche.
+ * Le menu est remplacé par un écho qui s'arrête sur "0".
+ */
+class ServeurSessionsTest {
+    private AuthentificationService auth;
+    private ServeurSessions serveur;
+    private int port;
+
+    @BeforeEach
+    void demarrer() throws IOException {
+        auth = new AuthentificationService();
+        for (int i = 0; i < 4; i++) {
+            // Empreinte déjà au coût courant : pas de migration pendant les connexions
+            auth.register(new ProfessionnelSante("pro" + i, HachageMotDePasse.hacher("mdp" + i,
+                    HachageMotDePasse.ITERATIONS), "PRO", "", "Nom" + i, "Prenom" + i, "Généraliste", "ORD" + i));
+        }
+        serveur = new ServeurSessions(auth, (u, entree, sortie) -> () -> {
+            String ligne;
+            while (!(ligne = entree.nextLine()).equals("0")) {
+                if (ligne.equals("etat")) {
+                    serveur.getSessions().forEach(e -> sortie.println("session " + e.login()));
+                } else {
+                    sortie.println(u.getLoginID() + " a dit " + ligne);
+                }
+            }
+        });
+        port = serveur.demarrer(0);
+    }
+
+    @AfterEach
+    void arreter() {
+        serveur.close();
+    }
+
+    private String dialoguer(String saisies) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setSoTimeout(10_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(saisies.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            socket.shutdownOutput();
+            InputStream in = socket.getInputStream();
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private void attendreFinDesSessions() throws InterruptedException {
+        for (int i = 0; i < 200 && serveur.getConnexionsActives() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, serveur.getConnexionsActives());
+    }
+
+    @Test
+    void deroulerUneSessionDeLaConnexionALaDeconnexion() throws Exception {
+        String session = dialoguer("pro1\nmdp1\nbonjour\netat\n0\n");
+
+        assertTrue(session.contains("✓ Connexion réussie! Bienvenue Nom1 Prenom1"), session);
+        assertTrue(session.contains("pro1 a dit bonjour"), session);
+        assertTrue(session.contains("session pro1"), session);
+        assertTrue(session.endsWith("Au revoir!\n"), session);
+        attendreFinDesSessions();
+        assertEquals(1, serveur.getConnexionsTotales());
+    }
+
+    // Lit la session jusqu'à la fin du texte attendu
+    private static String lireJusqua(InputStream in, String attendu) throws IOException {
+        StringBuilder lu = new StringBuilder();
+        byte[] tampon = new byte[256];
+        while (lu.indexOf(attendu) < 0) {
+            int n = in.read(tampon);
+            if (n < 0) break;
+            lu.append(new String(tampon, 0, n, StandardCharsets.UTF_8));
+        }
+        return lu.toString();
+    }
+
+    /**
+     * Une saisie à la fois, en attendant chaque réponse : chaque commande est mesurée
+     * entre sa réception et l'attente de la suivante
+     */
+    @Test
+    void mesureLaLatenceDesCommandesInteractives() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setSoTimeout(10_000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+            lireJusqua(in, "Login: ");
+            out.write("pro3\nmdp3\n".getBytes(StandardCharsets.UTF_8));
+            lireJusqua(in, "Bienvenue Nom3 Prenom3");
+            for (int i = 0; i < 3; i++) {
+                out.write(("commande " + i + "\n").getBytes(StandardCharsets.UTF_8));
+                assertTrue(lireJusqua(in, "pro3 a dit commande " + i + "\n").endsWith("commande " + i + "\n"));
+            }
+
+            ServeurSessions.EtatSession etat = serveur.getSessions().get(0);
+            assertEquals("pro3", etat.login());
+            // Connexion et trois commandes ; la dernière est close quand la session attend la suivante
+            assertTrue(etat.commandes() >= 4, etat.toString());
+            assertTrue(serveur.getLatenceQuantile(0.99) > 0);
+            assertTrue(serveur.afficherEtat().contains("pro3"));
+            out.write("0\n".getBytes(StandardCharsets.UTF_8));
+            assertTrue(lireJusqua(in, "Au revoir!").endsWith("Au revoir!\n"));
+        }
+        attendreFinDesSessions();
+    }
+
+    @Test
+    void raccrocheApresTroisIdentifiantsRefuses() throws Exception {
+        String session = dialoguer("pro1\nfaux\npro1\nmdp2\ninconnu\nmdp1\npro1\nmdp1\n");
+
+        int refus = session.split("Identifiants incorrects", -1).length - 1;
+        assertEquals(3, refus, session);
+        assertFalse(session.contains("Connexion réussie"), session);
+        attendreFinDesSessions();
+    }
+
+    @Test
+    void unClientQuiRaccrocheEnCoursDeMenuLibereSaSession() throws Exception {
+        String session = dialoguer("pro2\nmdp2\nbonjour\n");
+
+        assertTrue(session.contains("pro2 a dit bonjour"), session);
+        assertFalse(session.contains("Au revoir!"), session);
+        attendreFinDesSessions();
+    }
+
+    @Test
+    void servirDesSessionsSimultaneesSansLesMelanger() throws Exception {
+        int clients = 40;
+        List<Future<String>> reponses = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(clients)) {
+            for (int i = 0; i < clients; i++) {
+                int n = i % 4;
+                int numero = i;
+                reponses.add(pool.submit(() -> dialoguer("pro" + n + "\nmdp" + n + "\ncommande " + numero + "\n0\n")));
+            }
+            for (int i = 0; i < clients; i++) {
+                String session = reponses.get(i).get();
+                assertTrue(session.contains("pro" + (i % 4) + " a dit commande " + i + "\n"), session);
+                assertTrue(session.endsWith("Au revoir!\n"), session);
+            }
+        }
+        attendreFinDesSessions();
+        assertEquals(clients, serveur.getConnexionsTotales());
+        assertEquals(0, serveur.getConnexionsRefusees());
+    }
+}
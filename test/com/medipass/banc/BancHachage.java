@@ -0,0 +1,29 @@
+package com.medipass.banc;
+
+import com.medipass.security.HachageMotDePasse;
+
+/**
+ * Banc d'essai de la vérification d'un mot de passe PBKDF2, pour choisir
+ * medipass.pbkdf2.iterations : durée d'une vérification pour chaque coût.
+ * Arguments facultatifs : les coûts à mesurer (50 000 à 600 000 itérations par défaut).
+ */
+public class BancHachage {
+
+    public static void main(String[] args) {
+        int[] couts = args.length > 0
+                ? java.util.Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[] {50_000, 100_000, 210_000, 400_000, 600_000};
+        // Chauffe (compilation JIT), non affichée
+        String stocke = HachageMotDePasse.hacher("echauffement", 10_000);
+        for (int i = 0; i < 20; i++) HachageMotDePasse.verifier("echauffement", stocke);
+
+        System.out.println("itérations ; ms par vérification");
+        for (int cout : couts) {
+            stocke = HachageMotDePasse.hacher("mot-de-passe", cout);
+            int essais = 10;
+            long debut = System.nanoTime();
+            for (int i = 0; i < essais; i++) HachageMotDePasse.verifier("mot-de-passe", stocke);
+            System.out.printf("%d ; %.1f%n", cout, (System.nanoTime() - debut) / 1e6 / essais);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.medipass.banc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.medipass.app.ServeurHttp;
+import com.medipass.model.Patient;
+import com.medipass.security.AuthentificationService;
+import com.medipass.service.AdministrateurService;
+import com.medipass.service.ConsultationService;
+import com.medipass.service.PatientService;
+import com.medipass.service.StatistiquesService;
+import com.medipass.user.Administrateur;
+import com.medipass.user.AnnuaireUtilisateurs;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Banc d'essai de charge de l'API HTTP : le serveur tourne dans ce processus sur
+ * des données fictives (rien n'est écrit sur disque), les clients passent par la pile
+ * réseau locale comme une vraie intégration.
+ * Chaque client (thread virtuel) ouvre sa session puis enchaîne, au hasard :
+ * 40 % recherches de patients, 30 % lectures de planning, 25 % programmations,
+ * 5 % statistiques (session administrateur).
+ * Affiche par palier le débit et les latences p50/p99 par type de requête, puis le
+ * temps de lecture de la liste complète des consultations (réponse en flux).
+ * Arguments facultatifs : durée d'un palier en ms, puis la liste des nombres de clients.
+ */
+public class BancHttp {
+    private static final int NB_PROS = 200;
+    private static final int NB_PATIENTS = 20_000;
+    private static final int NB_CONSULTATIONS = 50_000;
+    private static final String[] TYPES = {"patients", "planning", "programmation", "statistiques"};
+
+    // Latences d'un client pour un type de requête, en nanosecondes
+    private static final class Mesures {
+        long[] valeurs = new long[1024];
+        int n;
+
+        void ajouter(long v) {
+            if (n == valeurs.length) valeurs = Arrays.copyOf(valeurs, n * 2);
+            valeurs[n++] = v;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        long dureePalier = args.length > 0 ? Long.parseLong(args[0]) : 3_000;
+        int[] paliers = args.length > 1
+                ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[] {1, 8, 32, 128};
+
+        AnnuaireUtilisateurs annuaire = new AnnuaireUtilisateurs();
+        AdministrateurService adminService = new AdministrateurService(annuaire);
+        AuthentificationService auth = new AuthentificationService(annuaire);
+        PatientService patientService = new PatientService();
+        ConsultationService consultationService = new ConsultationService();
+        StatistiquesService statsService = new StatistiquesService();
+        patientService.ajouterEcouteur(statsService.getMoteur());
+        adminService.ajouterEcouteur(statsService.getMoteur());
+        consultationService.ajouterEcouteur(statsService.getMoteur());
+
+        adminService.creerCompte(new Administrateur("admin", "admin", annuaire));
+        List<ProfessionnelSante> pros = new ArrayList<>();
+        for (int i = 0; i < NB_PROS; i++) {
+            ProfessionnelSante pro = new ProfessionnelSante("pro" + i, "mdp" + i, "PRO", "12345",
+                    "Nom" + i, "Prenom" + i, "Specialite" + (i % 12), "NUM" + i);
+            adminService.creerCompte(pro);
+            pros.add(pro);
+        }
+        for (int i = 1; i <= NB_PATIENTS; i++) {
+            patientService.creerPatient(new Patient(i, "Patient" + i, "Prenom" + i));
+        }
+        LocalDateTime origine = LocalDateTime.now().plusDays(1).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        PrintStream erreurs = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        ThreadLocalRandom alea = ThreadLocalRandom.current();
+        for (int i = 0; i < NB_CONSULTATIONS; i++) {
+            consultationService.programmer(origine.plusMinutes(30L * alea.nextInt(365 * 48)), "Contrôle",
+                    pros.get(alea.nextInt(NB_PROS)), patientService.findPatientById(1 + alea.nextInt(NB_PATIENTS)), 30);
+        }
+        System.setErr(erreurs);
+
+        try (ServeurHttp serveur = new ServeurHttp(auth, patientService, consultationService,
+                adminService, statsService, null)) {
+            String base = "http://127.0.0.1:" + serveur.demarrer(0) + "/api/";
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            String jetonAdmin = connecter(client, base, "admin", "admin");
+
+            // Palier de chauffe (compilation JIT), non affiché
+            mesurer(client, base, jetonAdmin, 4, dureePalier / 2, origine, false);
+            System.out.println("clients ; requêtes/s ; erreurs ; "
+                    + "patients p50/p99 ; planning p50/p99 ; programmation p50/p99 ; statistiques p50/p99 (µs)");
+            for (int clients : paliers) {
+                mesurer(client, base, jetonAdmin, clients, dureePalier, origine, true);
+            }
+
+            // Liste complète : le serveur l'écrit en flux, le client la lit sans la conserver
+            long t0 = System.nanoTime();
+            HttpResponse<InputStream> r = client.send(HttpRequest.newBuilder(URI.create(base
+                    + "consultations?debut=" + origine.minusDays(1) + "&fin=" + origine.plusYears(2)))
+                    .header("Authorization", "Bearer " + jetonAdmin).build(), HttpResponse.BodyHandlers.ofInputStream());
+            long octets;
+            try (InputStream in = r.body()) {
+                octets = in.transferTo(OutputStream.nullOutputStream());
+            }
+            System.out.printf("Liste complète : %d consultations, %d Ko en %d ms (statut %d)%n",
+                    consultationService.getNombreConsultations(), octets / 1024,
+                    (System.nanoTime() - t0) / 1_000_000, r.statusCode());
+        }
+    }
+
+    private static void mesurer(HttpClient client, String base, String jetonAdmin, int nbClients,
+            long dureePalier, LocalDateTime origine, boolean afficher) throws Exception {
+        LongAdder requetes = new LongAdder();
+        LongAdder echecs = new LongAdder();
+        List<Mesures[]> toutes = new ArrayList<>();
+        CountDownLatch prets = new CountDownLatch(nbClients);
+        CountDownLatch depart = new CountDownLatch(1);
+        long[] fin = new long[1];
+
+        // Les refus de créneau sont normaux ici : on ne veut pas les mesurer à l'écran
+        PrintStream erreurs = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        List<Thread> threads = new ArrayList<>();
+        for (int s = 0; s < nbClients; s++) {
+            int numero = s % NB_PROS;
+            Mesures[] mesures = new Mesures[TYPES.length];
+            for (int t = 0; t < TYPES.length; t++) mesures[t] = new Mesures();
+            toutes.add(mesures);
+            threads.add(Thread.ofVirtual().start(() -> {
+                ThreadLocalRandom alea = ThreadLocalRandom.current();
+                String jeton;
+                try {
+                    // Connexion (PBKDF2) hors mesure
+                    jeton = connecter(client, base, "pro" + numero, "mdp" + numero);
+                } catch (Exception e) {
+                    echecs.increment();
+                    return;
+                } finally {
+                    prets.countDown();
+                }
+                try {
+                    depart.await();
+                    while (System.nanoTime() < fin[0]) {
+                        int tirage = alea.nextInt(100);
+                        int type;
+                        HttpRequest.Builder req;
+                        if (tirage < 40) {
+                            type = 0;
+                            req = HttpRequest.newBuilder(URI.create(base + "patients?limite=20&q=Patient"
+                                    + (1 + alea.nextInt(NB_PATIENTS / 10))));
+                        } else if (tirage < 70) {
+                            type = 1;
+                            LocalDateTime debut = origine.plusDays(alea.nextInt(365));
+                            req = HttpRequest.newBuilder(URI.create(base + "planning?debut=" + debut
+                                    + "&fin=" + debut.plusDays(7)));
+                        } else if (tirage < 95) {
+                            type = 2;
+                            String formulaire = "patient=" + (1 + alea.nextInt(NB_PATIENTS))
+                                    + "&debut=" + origine.plusMinutes(30L * alea.nextInt(365 * 48))
+                                    + "&motif=Contr%C3%B4le&duree=30";
+                            req = HttpRequest.newBuilder(URI.create(base + "consultations"))
+                                    .header("Content-Type", "application/x-www-form-urlencoded")
+                                    .POST(HttpRequest.BodyPublishers.ofString(formulaire));
+                        } else {
+                            type = 3;
+                            req = HttpRequest.newBuilder(URI.create(base + "statistiques"));
+                        }
+                        req.header("Authorization", "Bearer " + (type == 3 ? jetonAdmin : jeton));
+                        long t0 = System.nanoTime();
+                        HttpResponse<Void> r = client.send(req.build(), HttpResponse.BodyHandlers.discarding());
+                        mesures[type].ajouter(System.nanoTime() - t0);
+                        requetes.increment();
+                        // 409 : créneau déjà pris, réponse normale
+                        if (r.statusCode() >= 400 && r.statusCode() != 409) echecs.increment();
+                    }
+                } catch (IOException | InterruptedException e) {
+                    echecs.increment();
+                }
+            }));
+        }
+        prets.await();
+        fin[0] = System.nanoTime() + dureePalier * 1_000_000;
+        depart.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        System.setErr(erreurs);
+        if (!afficher) return;
+
+        StringBuilder ligne = new StringBuilder(String.format("%d ; %.0f ; %d", nbClients,
+                requetes.sum() / (dureePalier / 1000.0), echecs.sum()));
+        for (int t = 0; t < TYPES.length; t++) {
+            int total = 0;
+            for (Mesures[] m : toutes) total += m[t].n;
+            long[] latences = new long[total];
+            int k = 0;
+            for (Mesures[] m : toutes) {
+                System.arraycopy(m[t].valeurs, 0, latences, k, m[t].n);
+                k += m[t].n;
+            }
+            Arrays.sort(latences);
+            ligne.append(String.format(" ; %d/%d", quantile(latences, 0.50) / 1_000, quantile(latences, 0.99) / 1_000));
+        }
+        System.out.println(ligne);
+    }
+
+    private static long quantile(long[] tries, double q) {
+        if (tries.length == 0) return 0;
+        return tries[Math.min(tries.length - 1, (int) Math.ceil(q * tries.length) - 1)];
+    }
+
+    // Ouvre une session et extrait le jeton de la réponse JSON
+    private static String connecter(HttpClient client, String base, String login, String mdp)
+            throws IOException, InterruptedException {
+        HttpResponse<String> r = client.send(HttpRequest.newBuilder(URI.create(base + "session"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("login=" + login + "&motDePasse=" + mdp))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (r.statusCode() != 201) {
+            throw new IOException("Connexion refusée pour " + login + ": " + r.body());
+        }
+        String corps = r.body();
+        int debut = corps.indexOf("\"jeton\":\"") + 9;
+        return corps.substring(debut, corps.indexOf('"', debut));
+    }
+}
@@ -0,0 +1,132 @@
+package com.medipass.banc;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.function.Function;
+
+import com.medipass.service.DataService;
+import com.medipass.user.ProfessionnelSante;
+
+import tech.tablesaw.api.Row;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.io.csv.CsvReadOptions;
+
+/**
+ * Banc d'essai de la lecture d'un gros consultations.csv : lecture par projection mémoire
+ * (DataService.streamConsultationsMappe) face à la lecture Tablesaw d'origine
+ * (Table.read puis parcours des Row). Le fichier est généré dans un répertoire temporaire,
+ * supprimé à la fin ; environ 1 motif sur 50 est écrit entre guillemets.
+ * Seul le décodage est mesuré : les lignes ne sont rattachées à aucun professionnel
+ * (le fichier ne tiendrait pas en mémoire une fois lié), chaque ligne décodée est comptée.
+ * Arguments facultatifs : taille du fichier en Mo (1024 par défaut), nombre de répétitions.
+ * La lecture Tablesaw garde tout le fichier en mémoire : prévoir -Xmx en conséquence.
+ */
+public class BancLectureConsultations {
+    private static final String[] MOTIFS = {"Contrôle", "Vaccination", "Renouvellement d'ordonnance",
+            "Douleurs abdominales", "Suivi post-opératoire"};
+    private static final String[] STATUTS = {"programmée", "effectuée", "annulée"};
+
+    public static void main(String[] args) throws IOException {
+        long tailleMo = args.length > 0 ? Long.parseLong(args[0]) : 1024;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        Path dossier = Files.createTempDirectory("medipass-banc");
+        Path fichier = dossier.resolve("consultations.csv");
+        try {
+            long t0 = System.nanoTime();
+            int lignes = generer(fichier, tailleMo * 1024 * 1024);
+            System.out.printf("Fichier : %d Mo, %d lignes, généré en %d ms%n", Files.size(fichier) / (1024 * 1024),
+                    lignes, (System.nanoTime() - t0) / 1_000_000);
+            System.out.println("lecture ; lignes décodées ; durée ms ; Mo/s");
+            DataService dataService = new DataService();
+            for (int r = 0; r <= repetitions; r++) {
+                // Première répétition : chauffe (compilation JIT), non affichée
+                boolean afficher = r > 0;
+                mesurer("projection", fichier, afficher, compteur -> dataService.streamConsultationsMappe(fichier,
+                        id -> null, compteur, c -> { }));
+                mesurer("tablesaw", fichier, afficher, compteur -> tablesaw(fichier, compteur));
+            }
+        } finally {
+            Files.deleteIfExists(fichier);
+            Files.deleteIfExists(dossier);
+        }
+    }
+
+    // Compte les lignes décodées : le login de chaque ligne passe par la résolution du professionnel
+    private static final class Compteur implements Function<String, ProfessionnelSante> {
+        long lignes;
+
+        @Override
+        public ProfessionnelSante apply(String login) {
+            lignes++;
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Lecture {
+        void lire(Compteur compteur) throws IOException;
+    }
+
+    private static void mesurer(String nom, Path fichier, boolean afficher, Lecture lecture) throws IOException {
+        Compteur compteur = new Compteur();
+        System.gc();
+        long t0 = System.nanoTime();
+        lecture.lire(compteur);
+        long duree = System.nanoTime() - t0;
+        if (afficher) {
+            System.out.printf("%s ; %d ; %d ; %.0f%n", nom, compteur.lignes, duree / 1_000_000,
+                    Files.size(fichier) / (1024.0 * 1024.0) / (duree / 1e9));
+        }
+    }
+
+    // Lecture Tablesaw d'origine : table complète, puis décodage des champs ligne par ligne
+    private static void tablesaw(Path fichier, Compteur compteur) throws IOException {
+        Table table = Table.read().csv(CsvReadOptions.builder(fichier.toFile()).separator(';').header(true)
+                .missingValueIndicator("", "null", "NULL").build());
+        for (Row row : table) {
+            int id = row.getInt("idConsultation");
+            // Tablesaw reconnaît la colonne comme date et la décode lui-même
+            LocalDateTime date = row.getDateTime("dateHeure");
+            String motif = row.getString("motif");
+            int patientId = row.getInt("patientId");
+            int duree = row.getInt("dureeMinutes");
+            String statut = row.getString("statut");
+            if (id + patientId + duree < 0 || date == null || motif == null || statut == null) {
+                throw new IllegalStateException("ligne invalide");
+            }
+            compteur.apply(row.getString("professionnelLogin"));
+        }
+    }
+
+    // Même format que DataService.saveConsultations ; graine fixe
+    private static int generer(Path fichier, long taille) throws IOException {
+        Random alea = new Random(42);
+        LocalDateTime origine = LocalDateTime.of(2015, 1, 5, 8, 0);
+        int lignes = 0;
+        long octets = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)) {
+            out.write("idConsultation;dateHeure;motif;professionnelLogin;patientId;dureeMinutes;statut;observations;diagnostic\n");
+            StringBuilder ligne = new StringBuilder(160);
+            while (octets < taille) {
+                lignes++;
+                ligne.setLength(0);
+                String motif = alea.nextInt(50) == 0 ? "\"Douleur; fièvre \"\"forte\"\"\"" : MOTIFS[alea.nextInt(MOTIFS.length)];
+                ligne.append(lignes).append(';').append(origine.plusMinutes(30L * (lignes / 8)))
+                     .append(';').append(motif).append(";pro").append(alea.nextInt(200))
+                     .append(';').append(1 + alea.nextInt(100_000)).append(';').append(15 * (1 + alea.nextInt(4)))
+                     .append(';').append(STATUTS[alea.nextInt(STATUTS.length)])
+                     .append(";Patient vu, examen clinique sans particularité;").append(alea.nextBoolean() ? "RAS" : "")
+                     .append('\n');
+                out.append(ligne);
+                octets += ligne.length();
+            }
+        }
+        return lignes;
+    }
+}
@@ -0,0 +1,163 @@
+package com.medipass.banc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.Patient;
+import com.medipass.service.ConsultationService;
+import com.medipass.service.EcouteurDonnees;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Banc d'essai d'une campagne (journée de vaccination) : les mêmes demandes programmées
+ * une à une, avec écriture sur disque après chacune comme le font les menus, puis en un
+ * seul lot (programmerLot, une écriture). Les plannings contiennent déjà des consultations
+ * et environ une demande sur dix tombe sur un créneau pris.
+ * Le journal est simulé dans un fichier temporaire (même écriture forcée que JournalService) :
+ * le journal.log de l'application n'est pas touché.
+ * Arguments facultatifs : nombre de demandes (5000 par défaut), nombre de répétitions.
+ */
+public class BancLot {
+    private static final int NB_PROS = 40;
+    private static final int NB_PATIENTS = 20_000;
+    private static final int NB_EXISTANTES = 10_000;
+
+    // Ajoute une ligne par consultation et force le fichier sur disque à la demande
+    private static final class JournalTemporaire implements EcouteurDonnees, AutoCloseable {
+        private final Path fichier;
+        private final FileChannel canal;
+        private final StringBuilder enAttente = new StringBuilder();
+        private int ecritures;
+
+        JournalTemporaire() throws IOException {
+            fichier = Files.createTempFile("medipass-banc", ".log");
+            canal = FileChannel.open(fichier, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        @Override
+        public synchronized void consultationAjoutee(Consultation c) {
+            enAttente.append("C+;").append(c.getIdConsultation()).append(';').append(c.getDateHeure())
+                     .append(';').append(c.getMotif()).append('\n');
+        }
+
+        @Override
+        public void finLot() {
+            forcer();
+        }
+
+        synchronized void forcer() {
+            if (enAttente.isEmpty()) return;
+            try {
+                canal.write(StandardCharsets.UTF_8.encode(enAttente.toString()));
+                canal.force(false);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            enAttente.setLength(0);
+            ecritures++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+            Files.deleteIfExists(fichier);
+        }
+    }
+
+    private record Campagne(ConsultationService service, List<ConsultationService.DemandeConsultation> demandes) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int nbDemandes = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        // Les refus de créneau sont normaux ici : on ne veut pas les mesurer à l'écran
+        PrintStream erreurs = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        System.out.println("mode ; demandes ; acceptées ; écritures disque ; durée ms");
+        for (int r = 0; r <= repetitions; r++) {
+            // Première répétition : chauffe (compilation JIT), non affichée
+            boolean afficher = r > 0;
+            unitaire(preparer(nbDemandes), afficher);
+            lot(preparer(nbDemandes), afficher);
+        }
+        System.setErr(erreurs);
+    }
+
+    private static void unitaire(Campagne campagne, boolean afficher) throws IOException {
+        try (JournalTemporaire journal = new JournalTemporaire()) {
+            campagne.service().ajouterEcouteur(journal);
+            long t0 = System.nanoTime();
+            int acceptees = 0;
+            for (ConsultationService.DemandeConsultation d : campagne.demandes()) {
+                if (campagne.service().programmerConsultation(d.dateHeure(), d.motif(), d.professionnel(),
+                        d.patient(), d.dureeMinutes())) {
+                    acceptees++;
+                }
+                journal.forcer();
+            }
+            long duree = System.nanoTime() - t0;
+            if (afficher) {
+                System.out.printf("unitaire ; %d ; %d ; %d ; %d%n", campagne.demandes().size(), acceptees,
+                        journal.ecritures, duree / 1_000_000);
+            }
+        }
+    }
+
+    private static void lot(Campagne campagne, boolean afficher) throws IOException {
+        try (JournalTemporaire journal = new JournalTemporaire()) {
+            campagne.service().ajouterEcouteur(journal);
+            long t0 = System.nanoTime();
+            List<ConsultationService.ResultatDemande> resultats = campagne.service().programmerLot(campagne.demandes());
+            long duree = System.nanoTime() - t0;
+            if (afficher) {
+                System.out.printf("lot ; %d ; %d ; %d ; %d%n", campagne.demandes().size(),
+                        resultats.stream().filter(ConsultationService.ResultatDemande::estAcceptee).count(),
+                        journal.ecritures, duree / 1_000_000);
+            }
+        }
+    }
+
+    // Mêmes données et mêmes demandes à chaque appel (graine fixe), sur des objets neufs
+    private static Campagne preparer(int nbDemandes) {
+        Random alea = new Random(42);
+        ConsultationService service = new ConsultationService();
+        List<ProfessionnelSante> pros = new ArrayList<>();
+        for (int i = 0; i < NB_PROS; i++) {
+            pros.add(new ProfessionnelSante("pro" + i, "mdp", "PRO", "12345", "Nom" + i, "Prenom" + i,
+                    "Specialite" + (i % 12), "NUM" + i));
+        }
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 1; i <= NB_PATIENTS; i++) {
+            patients.add(new Patient(i, "Patient" + i, "Prenom" + i));
+        }
+        // Créneaux de 15 minutes de 8 h à 18 h sur les 60 prochains jours
+        LocalDateTime origine = LocalDateTime.now().plusDays(1).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        int creneauxParJour = 40;
+        int nbCreneaux = 60 * creneauxParJour;
+        for (int i = 0; i < NB_EXISTANTES; i++) {
+            int k = alea.nextInt(nbCreneaux);
+            service.programmerConsultation(origine.plusDays(k / creneauxParJour).plusMinutes(15L * (k % creneauxParJour)),
+                    "Suivi", pros.get(alea.nextInt(NB_PROS)), patients.get(alea.nextInt(NB_PATIENTS)), 15);
+        }
+        List<ConsultationService.DemandeConsultation> demandes = new ArrayList<>(nbDemandes);
+        for (int i = 0; i < nbDemandes; i++) {
+            int k = alea.nextInt(nbCreneaux);
+            demandes.add(new ConsultationService.DemandeConsultation(
+                    origine.plusDays(k / creneauxParJour).plusMinutes(15L * (k % creneauxParJour)), "Vaccination",
+                    pros.get(alea.nextInt(NB_PROS)), patients.get(alea.nextInt(NB_PATIENTS)), 15));
+        }
+        return new Campagne(service, demandes);
+    }
+}
@@ -0,0 +1,73 @@
+package com.medipass.banc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.medipass.model.Patient;
+import com.medipass.service.PatientService;
+
+/**
+ * Banc d'essai de la recherche d'un patient par ID à 10 000, 100 000 et 1 000 000 patients :
+ * findPatientById (table indexée par ID) face au parcours de la liste que faisait
+ * l'ancienne version, mesuré jusqu'à 100 000 patients seulement (il devient trop lent au-delà).
+ * Affiche la latence moyenne par recherche, après une phase de chauffe.
+ * Arguments facultatifs : les tailles de registre à mesurer.
+ */
+public class BancPatients {
+    private static final int RECHERCHES = 200_000;
+    private static final int RECHERCHES_PARCOURS = 2_000;
+    private static final int LIMITE_PARCOURS = 100_000;
+
+    public static void main(String[] args) {
+        int[] tailles = args.length > 0
+                ? java.util.Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[] {10_000, 100_000, 1_000_000};
+
+        System.out.println("patients ; index ns/recherche ; parcours ns/recherche");
+        for (int taille : tailles) {
+            PatientService service = new PatientService();
+            List<Patient> liste = new ArrayList<>(taille);
+            for (int i = 1; i <= taille; i++) {
+                Patient p = new Patient(i, "Nom" + i, "Prenom" + i);
+                service.creerPatient(p);
+                liste.add(p);
+            }
+            // Chauffe (compilation JIT), non affichée
+            index(service, taille, RECHERCHES);
+            long index = index(service, taille, RECHERCHES);
+            String parcours = "-";
+            if (taille <= LIMITE_PARCOURS) {
+                parcours(liste, taille, RECHERCHES_PARCOURS);
+                parcours = String.valueOf(parcours(liste, taille, RECHERCHES_PARCOURS));
+            }
+            System.out.printf("%d ; %d ; %s%n", taille, index, parcours);
+        }
+    }
+
+    // Latence moyenne en ns ; les IDs cherchés sont tirés au hasard (graine fixe), 1 sur 10 absent
+    private static long index(PatientService service, int taille, int recherches) {
+        Random alea = new Random(42);
+        long trouves = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < recherches; i++) {
+            if (service.findPatientById(1 + alea.nextInt(taille + taille / 10)) != null) trouves++;
+        }
+        long duree = System.nanoTime() - t0;
+        if (trouves == 0) System.out.println("aucun patient trouvé");
+        return duree / recherches;
+    }
+
+    private static long parcours(List<Patient> liste, int taille, int recherches) {
+        Random alea = new Random(42);
+        long trouves = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < recherches; i++) {
+            int id = 1 + alea.nextInt(taille + taille / 10);
+            if (liste.stream().filter(p -> p.getId() == id).findFirst().orElse(null) != null) trouves++;
+        }
+        long duree = System.nanoTime() - t0;
+        if (trouves == 0) System.out.println("aucun patient trouvé");
+        return duree / recherches;
+    }
+}
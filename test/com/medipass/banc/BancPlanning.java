@@ -0,0 +1,117 @@
+package com.medipass.banc;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.Patient;
+import com.medipass.service.ConsultationService;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Banc d'essai du planning mensuel sur un historique de 10 ans : 20 professionnels,
+ * créneaux de 30 minutes de 8h à 18h en semaine, 9 sur 10 occupés, 1 sur 20 annulé.
+ * Mesure pour des mois tirés au hasard :
+ * - index : la sélection des consultations du mois dans le planning du professionnel ;
+ * - affichage : afficherPlanningMois complet (sélection et mise en forme) ;
+ * - parcours : la sélection que faisait l'ancienne version, filtre de toutes les consultations.
+ * Arguments facultatifs : nombre d'années d'historique, nombre de mois mesurés.
+ */
+public class BancPlanning {
+    private static final int NB_PROS = 20;
+    private static final int NB_PATIENTS = 20_000;
+    private static final int CRENEAUX_PAR_JOUR = 20;
+
+    public static void main(String[] args) {
+        int annees = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int nbMois = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        ConsultationService service = new ConsultationService();
+        List<ProfessionnelSante> pros = new ArrayList<>();
+        for (int i = 0; i < NB_PROS; i++) {
+            pros.add(new ProfessionnelSante("pro" + i, "mdp", "PRO", "", "Nom" + i, "Prenom" + i,
+                    "Specialite" + (i % 12), "NUM" + i));
+        }
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 1; i <= NB_PATIENTS; i++) {
+            patients.add(new Patient(i, "Patient" + i, "Prenom" + i));
+        }
+        LocalDate premierJour = LocalDate.of(2016, 1, 1);
+        long t0 = System.nanoTime();
+        int nb = remplir(service, pros, patients, premierJour, premierJour.plusYears(annees));
+        System.out.printf("Historique : %d ans, %d consultations, chargé en %d ms%n", annees, nb,
+                (System.nanoTime() - t0) / 1_000_000);
+        // Liste complète, comme la gardait l'ancienne version
+        List<Consultation> toutes = service.getConsultations();
+
+        // Chauffe (compilation JIT), non affichée
+        mesurer(service, pros, toutes, premierJour, annees, nbMois / 4 + 1, false);
+        System.out.println("mois mesurés ; index ms/mois ; affichage ms/mois ; parcours ms/mois");
+        mesurer(service, pros, toutes, premierJour, annees, nbMois, true);
+    }
+
+    private static int remplir(ConsultationService service, List<ProfessionnelSante> pros, List<Patient> patients,
+                               LocalDate debut, LocalDate fin) {
+        Random alea = new Random(42);
+        int id = 1;
+        for (LocalDate jour = debut; jour.isBefore(fin); jour = jour.plusDays(1)) {
+            if (jour.getDayOfWeek() == DayOfWeek.SATURDAY || jour.getDayOfWeek() == DayOfWeek.SUNDAY) continue;
+            for (ProfessionnelSante pro : pros) {
+                for (int s = 0; s < CRENEAUX_PAR_JOUR; s++) {
+                    if (alea.nextInt(10) == 0) continue;
+                    Consultation c = new Consultation(id++, jour.atTime(8, 0).plusMinutes(30L * s), "Contrôle", pro,
+                            patients.get(alea.nextInt(patients.size())));
+                    if (alea.nextInt(20) == 0) c.setStatut("annulée");
+                    // Liaison comme au chargement (DataService.lierConsultation)
+                    pro.ajouterConsultation(c);
+                    c.getPatient().getDossierMedical().ajouterConsultation(c);
+                    service.ajouterConsultationExistante(c);
+                }
+            }
+        }
+        return id - 1;
+    }
+
+    private static void mesurer(ConsultationService service, List<ProfessionnelSante> pros, List<Consultation> toutes,
+                                LocalDate premierJour, int annees, int nbMois, boolean afficher) {
+        Random alea = new Random(7);
+        long index = 0, affichage = 0, parcours = 0, controle = 0;
+        for (int i = 0; i < nbMois; i++) {
+            ProfessionnelSante pro = pros.get(alea.nextInt(pros.size()));
+            LocalDate mois = premierJour.plusMonths(alea.nextInt(annees * 12));
+            LocalDateTime debut = mois.atStartOfDay();
+            LocalDateTime fin = debut.plusMonths(1);
+
+            long t0 = System.nanoTime();
+            List<Consultation> parIndex = pro.getConsultationsEntre(debut, fin);
+            long t1 = System.nanoTime();
+            String texte = service.afficherPlanningMois(pro, mois.getYear(), mois.getMonthValue());
+            long t2 = System.nanoTime();
+            List<Consultation> parParcours = toutes.stream()
+                    .filter(c -> c.getProfessionnel().getLoginID().equals(pro.getLoginID()))
+                    .filter(c -> !c.getDateHeure().isBefore(debut) && c.getDateHeure().isBefore(fin))
+                    .filter(c -> !"annulée".equalsIgnoreCase(c.getStatut()))
+                    .sorted((c1, c2) -> c1.getDateHeure().compareTo(c2.getDateHeure()))
+                    .collect(Collectors.toList());
+            long t3 = System.nanoTime();
+
+            if (!parIndex.equals(parParcours)) {
+                throw new IllegalStateException("index et parcours diffèrent pour " + pro.getLoginID() + " " + mois);
+            }
+            index += t1 - t0;
+            affichage += t2 - t1;
+            parcours += t3 - t2;
+            controle += texte.length();
+        }
+        if (afficher) {
+            System.out.printf("%d ; %.3f ; %.3f ; %.3f%n", nbMois, index / 1e6 / nbMois, affichage / 1e6 / nbMois,
+                    parcours / 1e6 / nbMois);
+        }
+        if (controle == 0) System.out.println("planning vide");
+    }
+}
@@ -0,0 +1,134 @@
+package com.medipass.banc;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.Patient;
+import com.medipass.service.ConsultationService;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Banc d'essai de la réservation concurrente de créneaux, avec médecins « chauds »
+ * (toutes les sessions les sollicitent) et « froids » (demande répartie) :
+ * - froid : chaque session réserve chez un professionnel tiré au hasard parmi 200 ;
+ * - chaud : toutes les sessions réservent chez le même professionnel ;
+ * - mixte : la moitié des sessions sur le médecin chaud, l'autre moitié sur les froids.
+ * Affiche le débit par groupe et vérifie ensuite qu'aucun créneau n'a été pris deux fois.
+ * Arguments facultatifs : durée d'un scénario en ms, puis la liste des nombres de sessions.
+ */
+public class BancReservations {
+    private static final int NB_PROS = 200;
+    private static final int NB_PATIENTS = 50_000;
+
+    private enum Scenario { FROID, CHAUD, MIXTE }
+
+    public static void main(String[] args) throws InterruptedException {
+        long duree = args.length > 0 ? Long.parseLong(args[0]) : 2_000;
+        int[] paliers = args.length > 1
+                ? java.util.Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[] {1, 8, 32};
+
+        // Chauffe (compilation JIT), non affichée
+        mesurer(Scenario.MIXTE, 4, duree / 2, false);
+        System.out.println("scénario ; sessions ; chaud réservations/s ; chaud refus % ; froid réservations/s");
+        for (int sessions : paliers) {
+            for (Scenario scenario : Scenario.values()) {
+                mesurer(scenario, sessions, duree, true);
+            }
+        }
+    }
+
+    private static void mesurer(Scenario scenario, int nbSessions, long duree, boolean afficher)
+            throws InterruptedException {
+        ConsultationService consultationService = new ConsultationService();
+        List<ProfessionnelSante> pros = new ArrayList<>();
+        for (int i = 0; i < NB_PROS; i++) {
+            pros.add(new ProfessionnelSante("pro" + i, "mdp", "PRO", "", "Nom" + i, "Prenom" + i,
+                    "Specialite" + (i % 12), "NUM" + i));
+        }
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 1; i <= NB_PATIENTS; i++) {
+            patients.add(new Patient(i, "Patient" + i, "Prenom" + i));
+        }
+        ProfessionnelSante chaud = pros.get(0);
+
+        LocalDateTime origine = LocalDateTime.now().plusDays(1).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        LongAdder reserveesChaud = new LongAdder();
+        LongAdder refuseesChaud = new LongAdder();
+        LongAdder reserveesFroid = new LongAdder();
+        CountDownLatch depart = new CountDownLatch(1);
+        long[] fin = new long[1];
+
+        PrintStream erreurs = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        List<Thread> threads = new ArrayList<>();
+        for (int s = 0; s < nbSessions; s++) {
+            boolean surChaud = scenario == Scenario.CHAUD || (scenario == Scenario.MIXTE && s % 2 == 0);
+            threads.add(Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom alea = ThreadLocalRandom.current();
+                try {
+                    depart.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < fin[0]) {
+                    ProfessionnelSante pro = surChaud ? chaud : pros.get(1 + alea.nextInt(NB_PROS - 1));
+                    Patient patient = patients.get(alea.nextInt(NB_PATIENTS));
+                    // Créneaux de 30 min sur un an ; vingt ans pour le médecin chaud, pour qu'il ne sature pas
+                    LocalDateTime creneau = origine.plusMinutes(30L * alea.nextInt((surChaud ? 20 * 365 : 365) * 48));
+                    boolean ok = consultationService.programmerConsultation(creneau, "Contrôle", pro, patient);
+                    if (surChaud) {
+                        (ok ? reserveesChaud : refuseesChaud).increment();
+                    } else if (ok) {
+                        reserveesFroid.increment();
+                    }
+                }
+            }));
+        }
+        fin[0] = System.nanoTime() + duree * 1_000_000;
+        depart.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        System.setErr(erreurs);
+        if (!afficher) return;
+
+        double secondes = duree / 1000.0;
+        long tentativesChaud = reserveesChaud.sum() + refuseesChaud.sum();
+        System.out.printf("%s ; %d ; %.0f ; %.1f ; %.0f%n", scenario.name().toLowerCase(), nbSessions,
+                reserveesChaud.sum() / secondes,
+                tentativesChaud == 0 ? 0.0 : 100.0 * refuseesChaud.sum() / tentativesChaud,
+                reserveesFroid.sum() / secondes);
+
+        int doublons = 0;
+        for (ProfessionnelSante pro : pros) {
+            doublons += chevauchements(pro.getPlanning());
+        }
+        for (Patient p : patients) {
+            doublons += chevauchements(p.getDossierMedical().getConsultations());
+        }
+        if (doublons > 0 || consultationService.getNombreConsultations() != reserveesChaud.sum() + reserveesFroid.sum()) {
+            System.out.println("⚠️ Incohérence: " + doublons + " créneaux pris deux fois, "
+                    + consultationService.getNombreConsultations() + " consultations indexées");
+        }
+    }
+
+    private static int chevauchements(List<Consultation> planning) {
+        List<Consultation> tries = new ArrayList<>(planning);
+        tries.removeIf(Consultation::estAnnulee);
+        tries.sort(Comparator.comparingLong(Consultation::getDebutMinute));
+        int n = 0;
+        for (int i = 1; i < tries.size(); i++) {
+            if (tries.get(i).getDebutMinute() < tries.get(i - 1).getFinMinute()) n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,130 @@
+package com.medipass.banc;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.medipass.model.Patient;
+import com.medipass.security.AuthentificationService;
+import com.medipass.service.AdministrateurService;
+import com.medipass.service.ConsultationService;
+import com.medipass.service.PatientService;
+import com.medipass.service.StatistiquesService;
+import com.medipass.user.AnnuaireUtilisateurs;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Banc d'essai de charge : 1 à 64 sessions simultanées programment des consultations
+ * sur des services partagés (données fictives, rien n'est écrit sur disque).
+ * Chaque session se connecte, puis enchaîne lectures de planning et prises de rendez-vous
+ * sur des professionnels et patients tirés au hasard.
+ * Affiche le débit de programmation et le taux de créneaux refusés par palier.
+ * Arguments facultatifs : durée d'un palier en ms, puis la liste des paliers.
+ */
+public class BancSessions {
+    private static final int NB_PROS = 200;
+    private static final int NB_PATIENTS = 20_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        long dureePalier = args.length > 0 ? Long.parseLong(args[0]) : 2_000;
+        int[] paliers = args.length > 1
+                ? java.util.Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[] {1, 2, 4, 8, 16, 32, 64};
+
+        // Palier de chauffe (compilation JIT), non affiché
+        mesurer(4, dureePalier, false);
+        System.out.println("sessions ; programmations/s ; refus % ; lectures/s");
+        for (int sessions : paliers) {
+            mesurer(sessions, dureePalier, true);
+        }
+    }
+
+    private static void mesurer(int nbSessions, long dureePalier, boolean afficher) throws InterruptedException {
+        AnnuaireUtilisateurs annuaire = new AnnuaireUtilisateurs();
+        AdministrateurService adminService = new AdministrateurService(annuaire);
+        AuthentificationService auth = new AuthentificationService(annuaire);
+        PatientService patientService = new PatientService();
+        ConsultationService consultationService = new ConsultationService();
+        StatistiquesService statsService = new StatistiquesService();
+        consultationService.ajouterEcouteur(statsService.getMoteur());
+
+        List<ProfessionnelSante> pros = new ArrayList<>();
+        for (int i = 0; i < NB_PROS; i++) {
+            ProfessionnelSante pro = new ProfessionnelSante("pro" + i, "mdp" + i, "PRO", "",
+                    "Nom" + i, "Prenom" + i, "Specialite" + (i % 12), "NUM" + i);
+            adminService.creerCompte(pro);
+            pros.add(pro);
+        }
+        for (int i = 1; i <= NB_PATIENTS; i++) {
+            patientService.creerPatient(new Patient(i, "Patient" + i, "Prenom" + i));
+        }
+
+        LocalDateTime origine = LocalDateTime.now().plusDays(1).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        LongAdder programmees = new LongAdder();
+        LongAdder refusees = new LongAdder();
+        LongAdder lectures = new LongAdder();
+        CountDownLatch prets = new CountDownLatch(nbSessions);
+        CountDownLatch depart = new CountDownLatch(1);
+        long[] fin = new long[1];
+
+        // Les refus de créneau sont normaux ici : on ne veut pas les mesurer à l'écran
+        PrintStream erreurs = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        List<Thread> threads = new ArrayList<>();
+        for (int s = 0; s < nbSessions; s++) {
+            int numero = s;
+            threads.add(Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom alea = ThreadLocalRandom.current();
+                ProfessionnelSante moi = pros.get(numero % NB_PROS);
+                AuthentificationService.Session session = auth.ouvrirSession(moi.getLoginID(), "mdp" + (numero % NB_PROS));
+                prets.countDown();
+                try {
+                    depart.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < fin[0]) {
+                    if (auth.verifierJeton(session.jeton()) == null) break;
+                    ProfessionnelSante pro = pros.get(alea.nextInt(NB_PROS));
+                    Patient patient = patientService.findPatientById(1 + alea.nextInt(NB_PATIENTS));
+                    // Créneaux de 30 minutes sur un an
+                    LocalDateTime creneau = origine.plusMinutes(30L * alea.nextInt(365 * 48));
+                    if (consultationService.programmerConsultation(creneau, "Contrôle", pro, patient)) {
+                        programmees.increment();
+                    } else {
+                        refusees.increment();
+                    }
+                    // Une lecture de planning pour quatre prises de rendez-vous
+                    if ((alea.nextInt() & 3) == 0) {
+                        consultationService.getProchainesConsultations(moi);
+                        lectures.increment();
+                    }
+                }
+                auth.fermerSession(session.jeton());
+            }));
+        }
+        // Connexions (PBKDF2) hors mesure
+        prets.await();
+        fin[0] = System.nanoTime() + dureePalier * 1_000_000;
+        depart.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        System.setErr(erreurs);
+        if (!afficher) return;
+
+        double secondes = dureePalier / 1000.0;
+        long total = programmees.sum() + refusees.sum();
+        System.out.printf("%d ; %.0f ; %.2f ; %.0f%n", nbSessions, programmees.sum() / secondes,
+                total == 0 ? 0.0 : 100.0 * refusees.sum() / total, lectures.sum() / secondes);
+        if (consultationService.getNombreConsultations() != programmees.sum()) {
+            System.out.println("⚠️ Incohérence: " + consultationService.getNombreConsultations()
+                    + " consultations indexées pour " + programmees.sum() + " programmées");
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.medipass.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.medipass.service.ConsultationService;
+import com.medipass.user.ProfessionnelSante;
+
+class IndexIntervallesTest {
+    private static final LocalDateTime NEUF_HEURES = LocalDateTime.of(2031, 3, 14, 9, 0);
+
+    private final ProfessionnelSante pro = professionnel("drmartin");
+    private final Patient dupont = new Patient(1, "Dupont", "Jean");
+    private final Patient durand = new Patient(2, "Durand", "Paul");
+
+    private static ProfessionnelSante professionnel(String login) {
+        return new ProfessionnelSante(login, "mdp", "PRO", "1234", "Martin", "Paul", "Généraliste", "ORD1");
+    }
+
+    private static long minute(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static Consultation reservee(IndexIntervalles index, LocalDateTime debut, int duree, Patient patient) {
+        Consultation c = new Consultation(debut, "Contrôle", null, patient);
+        c.setDureeMinutes(duree);
+        assertTrue(index.reserver(c));
+        return c;
+    }
+
+    @Test
+    void refuseUnCreneauQuiEnChevaucheUnAutre() {
+        IndexIntervalles index = new IndexIntervalles();
+        reservee(index, NEUF_HEURES, 30, dupont);
+
+        assertFalse(index.reserver(new Consultation(NEUF_HEURES.plusMinutes(15), "Contrôle", null, durand)));
+        assertTrue(index.reserver(new Consultation(NEUF_HEURES.plusMinutes(30), "Contrôle", null, durand)));
+        assertEquals(2, index.taille());
+    }
+
+    @Test
+    void refuseUnAllongementQuiChevaucheLaConsultationSuivante() {
+        IndexIntervalles index = new IndexIntervalles();
+        Consultation premiere = reservee(index, NEUF_HEURES, 30, dupont);
+        reservee(index, NEUF_HEURES.plusMinutes(30), 30, durand);
+
+        assertFalse(premiere.setDureeMinutes(45));
+
+        assertEquals(30, premiere.getDureeMinutes());
+        assertEquals(List.of(premiere), index.chevauchant(minute(NEUF_HEURES), minute(NEUF_HEURES.plusMinutes(30))));
+        // Raccourcir est toujours possible, et libère la fin du créneau
+        assertTrue(premiere.setDureeMinutes(20));
+        assertEquals(20, premiere.getDureeMinutes());
+        assertFalse(index.chevauche(minute(NEUF_HEURES.plusMinutes(20)), minute(NEUF_HEURES.plusMinutes(30))));
+        assertEquals(2, index.taille());
+    }
+
+    @Test
+    void suitUnAllongementSurLeLendemain() {
+        IndexIntervalles index = new IndexIntervalles();
+        LocalDateTime soir = LocalDateTime.of(2031, 3, 14, 23, 30);
+        Consultation garde = reservee(index, soir, 30, dupont);
+        long minuit = minute(soir.plusMinutes(30));
+
+        garde.setDureeMinutes(120);
+        assertTrue(index.chevauche(minuit + 60, minuit + 90));
+        assertFalse(index.reserver(new Consultation(soir.plusMinutes(60), "Contrôle", null, durand)));
+
+        garde.setDureeMinutes(30);
+        assertFalse(index.chevauche(minuit, minuit + 120));
+        assertEquals(1, index.taille());
+    }
+
+    /**
+     * Le planning du professionnel accepte l'allongement, l'agenda du patient le refuse :
+     * le planning doit revenir à l'ancienne fin.
+     */
+    @Test
+    void annuleLAllongementDansTousLesIndexQuandLUnDEuxRefuse() {
+        ConsultationService service = new ConsultationService();
+        ProfessionnelSante autre = professionnel("drdurand");
+        Consultation c = service.programmer(NEUF_HEURES, "Contrôle", pro, dupont, 30);
+        assertNotNull(service.programmer(NEUF_HEURES.plusMinutes(30), "Vaccination", autre, dupont, 30));
+
+        assertFalse(c.setDureeMinutes(60));
+
+        assertEquals(30, c.getDureeMinutes());
+        assertNotNull(service.programmer(NEUF_HEURES.plusMinutes(30), "Contrôle", pro, durand, 30));
+        assertNull(service.programmer(NEUF_HEURES.plusMinutes(15), "Contrôle", pro, durand, 10));
+    }
+
+    @Test
+    void neReprendPasUneConsultationAnnuleeDontLeCreneauAEteDonne() {
+        IndexIntervalles index = new IndexIntervalles();
+        Consultation annulee = reservee(index, NEUF_HEURES, 30, dupont);
+        assertTrue(annulee.setStatut(StatutConsultation.ANNULEE));
+        Consultation remplacante = reservee(index, NEUF_HEURES.plusMinutes(15), 30, durand);
+
+        assertFalse(annulee.setStatut(StatutConsultation.PROGRAMMEE));
+
+        assertTrue(annulee.estAnnulee());
+        assertEquals(List.of(remplacante), index.chevauchant(minute(NEUF_HEURES), minute(NEUF_HEURES.plusHours(1))));
+        // Le créneau libéré, la consultation peut être reprise
+        index.retirer(remplacante);
+        assertTrue(annulee.setStatut(StatutConsultation.PROGRAMMEE));
+        assertFalse(index.reserver(new Consultation(NEUF_HEURES, "Contrôle", null, durand)));
+        assertEquals(1, index.taille());
+    }
+
+    /**
+     * Le planning du professionnel reprend la consultation annulée, l'agenda du patient
+     * la refuse : le planning doit la ressortir.
+     */
+    @Test
+    void annuleLaRepriseDansTousLesIndexQuandLUnDEuxRefuse() {
+        ConsultationService service = new ConsultationService();
+        ProfessionnelSante autre = professionnel("drdurand");
+        Consultation c = service.programmer(NEUF_HEURES, "Contrôle", pro, dupont, 30);
+        assertTrue(service.annulerConsultation(c.getIdConsultation()));
+        assertNotNull(service.programmer(NEUF_HEURES, "Vaccination", autre, dupont, 30));
+
+        assertFalse(service.marquerEffectuee(c.getIdConsultation()));
+
+        assertTrue(c.estAnnulee());
+        assertEquals(1, service.getNombreConsultationsAnnulees());
+        assertNotNull(service.programmer(NEUF_HEURES, "Contrôle", pro, durand, 30));
+    }
+
+    /**
+     * Pendant qu'une consultation est allongée et raccourcie en boucle, une réservation
+     * sur le début de son créneau, toujours pris, ne doit jamais passer.
+     */
+    @Test
+    void unChangementDeDureeNeLaissePasLeCreneauLibre() throws InterruptedException {
+        IndexIntervalles index = new IndexIntervalles();
+        Consultation c = reservee(index, NEUF_HEURES, 30, dupont);
+        AtomicBoolean fini = new AtomicBoolean();
+        AtomicInteger intrusions = new AtomicInteger();
+        Thread reservations = new Thread(() -> {
+            while (!fini.get()) {
+                Consultation intruse = new Consultation(NEUF_HEURES.plusMinutes(10), "Contrôle", null, durand);
+                intruse.setDureeMinutes(5);
+                if (index.reserver(intruse)) {
+                    intrusions.incrementAndGet();
+                    index.retirer(intruse);
+                }
+            }
+        });
+        reservations.start();
+        try {
+            for (int i = 0; i < 200_000; i++) {
+                c.setDureeMinutes(i % 2 == 0 ? 60 : 30);
+            }
+        } finally {
+            fini.set(true);
+            reservations.join();
+        }
+
+        assertEquals(0, intrusions.get());
+        assertEquals(List.of(c), index.chevauchant(minute(NEUF_HEURES), minute(NEUF_HEURES.plusMinutes(60))));
+        assertEquals(1, index.taille());
+    }
+
+    /**
+     * Réservations concurrentes de créneaux tirés au hasard sur trois jours (dont des créneaux
+     * à cheval sur minuit) : les créneaux retenus ne se chevauchent jamais.
+     */
+    @Test
+    void lesReservationsConcurrentesNeSeChevauchentPas() throws InterruptedException {
+        IndexIntervalles index = new IndexIntervalles();
+        AtomicInteger acceptees = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Random alea = new Random(t);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    Consultation c = new Consultation(NEUF_HEURES.plusMinutes(alea.nextInt(3 * 24 * 60)), "Contrôle",
+                            null, dupont);
+                    c.setDureeMinutes(5 + alea.nextInt(90));
+                    if (index.reserver(c)) acceptees.incrementAndGet();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        List<Consultation> retenues = index.aPartirDe(0);
+        assertEquals(acceptees.get(), retenues.size());
+        assertEquals(acceptees.get(), index.taille());
+        for (int i = 1; i < retenues.size(); i++) {
+            assertTrue(retenues.get(i - 1).getFinMinute() <= retenues.get(i).getDebutMinute(),
+                    "chevauchement en position " + i);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.medipass.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.medipass.user.ProfessionnelSante;
+import com.medipass.user.Utilisateur;
+
+class AuthentificationServiceTest {
+
+    private static ProfessionnelSante professionnel(String motDePasse) {
+        return new ProfessionnelSante("drmartin", motDePasse, "PRO", "1234", "Martin", "Paul", "Généraliste", "ORD1");
+    }
+
+    @Test
+    void verifieUneEmpreinteEtUnAncienMotDePasseEnClair() {
+        String empreinte = HachageMotDePasse.hacher("secret; \"été\"", 1_000);
+
+        assertTrue(empreinte.startsWith("pbkdf2$1000$"));
+        assertTrue(HachageMotDePasse.verifier("secret; \"été\"", empreinte));
+        assertFalse(HachageMotDePasse.verifier("secret", empreinte));
+        // Sel aléatoire : deux empreintes du même mot de passe diffèrent
+        assertNotEquals(empreinte, HachageMotDePasse.hacher("secret; \"été\"", 1_000));
+        assertTrue(HachageMotDePasse.verifier("ancien", "ancien"));
+        assertFalse(HachageMotDePasse.verifier("autre", "ancien"));
+        assertFalse(HachageMotDePasse.verifier("secret", "pbkdf2$illisible"));
+        assertTrue(HachageMotDePasse.doitEtreRecalcule("ancien"));
+        assertTrue(HachageMotDePasse.doitEtreRecalcule(empreinte));
+        assertFalse(HachageMotDePasse.doitEtreRecalcule(HachageMotDePasse.hacher("secret")));
+    }
+
+    @Test
+    void migreUnMotDePasseEnClairALaPremiereConnexion() {
+        AuthentificationService auth = new AuthentificationService();
+        ProfessionnelSante pro = professionnel("secret");
+        auth.register(pro);
+
+        assertNull(auth.ouvrirSession("drmartin", "faux"));
+        assertEquals("secret", pro.getPassword());
+
+        assertNotNull(auth.ouvrirSession("drmartin", "secret"));
+        String empreinte = pro.getPassword();
+        assertTrue(HachageMotDePasse.estHache(empreinte));
+        assertFalse(HachageMotDePasse.doitEtreRecalcule(empreinte));
+        assertTrue(HachageMotDePasse.verifier("secret", empreinte));
+        // Reconnexion : l'empreinte migrée n'est pas recalculée
+        assertNotNull(auth.ouvrirSession("drmartin", "secret"));
+        assertSame(empreinte, pro.getPassword());
+        assertNull(auth.ouvrirSession("drmartin", "faux"));
+    }
+
+    @Test
+    void recalculeUneEmpreinteDeCoutInferieur() {
+        AuthentificationService auth = new AuthentificationService();
+        ProfessionnelSante pro = professionnel(HachageMotDePasse.hacher("secret", 1_000));
+        auth.register(pro);
+
+        assertNotNull(auth.ouvrirSession("drmartin", "secret"));
+        assertTrue(pro.getPassword().startsWith("pbkdf2$" + HachageMotDePasse.ITERATIONS + "$"));
+    }
+
+    /**
+     * Une vérification mise en cache ne vaut plus quand le mot de passe stocké change
+     */
+    @Test
+    void oublieLaVerificationEnCacheQuandLeMotDePasseChange() {
+        AuthentificationService auth = new AuthentificationService();
+        ProfessionnelSante pro = professionnel("secret");
+        auth.register(pro);
+        assertNotNull(auth.ouvrirSession("drmartin", "secret"));
+
+        pro.setMotDePasse(HachageMotDePasse.hacher("nouveau"));
+
+        assertNull(auth.ouvrirSession("drmartin", "secret"));
+        assertNotNull(auth.ouvrirSession("drmartin", "nouveau"));
+    }
+
+    @Test
+    void unJetonVautJusquALaFermetureOuLaDesactivationDuCompte() {
+        AuthentificationService auth = new AuthentificationService();
+        ProfessionnelSante pro = professionnel("secret");
+        auth.register(pro);
+        AuthentificationService.Session premiere = auth.ouvrirSession("drmartin", "secret");
+        AuthentificationService.Session seconde = auth.ouvrirSession("drmartin", "secret");
+
+        assertNotEquals(premiere.jeton(), seconde.jeton());
+        assertSame(pro, auth.verifierJeton(premiere.jeton()));
+        assertNull(auth.verifierJeton("inconnu"));
+        auth.fermerSession(premiere.jeton());
+        assertNull(auth.verifierJeton(premiere.jeton()));
+        assertSame(pro, auth.verifierJeton(seconde.jeton()));
+
+        pro.desactiver();
+        Utilisateur refuse = auth.verifierJeton(seconde.jeton());
+        assertNull(refuse);
+        assertNull(auth.ouvrirSession("drmartin", "secret"));
+    }
+}
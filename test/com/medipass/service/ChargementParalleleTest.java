@@ -0,0 +1,109 @@
+package com.medipass.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.Patient;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Le chargement parallèle doit rendre les mêmes consultations, dans le même ordre,
+ * que la lecture en flux ; les fichiers sont écrits dans le répertoire courant des tests.
+ */
+class ChargementParalleleTest {
+    private static final String[] FICHIERS = {"patients.csv", "pros.csv", "consultations.csv", "antecedents.csv"};
+
+    private final DataService dataService = new DataService();
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void preparer() throws IOException {
+        nettoyer();
+        // Plusieurs cœurs simulés : consultations.csv est découpé en plusieurs segments
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void nettoyer() throws IOException {
+        if (pool != null) pool.shutdown();
+        for (String f : FICHIERS) {
+            for (String suffixe : new String[] {"", ".prev", ".tmp"}) {
+                Files.deleteIfExists(Paths.get(f + suffixe));
+            }
+        }
+    }
+
+    private ChargementParallele.Bilan charger(PatientService patients, ConsultationService consultations) {
+        return new ChargementParallele(dataService, pool)
+                .charger(patients, new AdministrateurService(), consultations, pro -> { });
+    }
+
+    @Test
+    void chargeLesConsultationsAuxTextesCitesDansLOrdreDuFichier() {
+        String[] motifs = {"Contrôle", "Douleur; fièvre \"forte\"", "ligne 1\nligne 2", "\"cité\"", "a;\n;b"};
+        Patient patient = new Patient(1, "Dupont", "Jean");
+        ProfessionnelSante pro = new ProfessionnelSante("drmartin", "mdp", "PRO", "1234", "Martin", "Paul",
+                "Généraliste", "ORD1");
+        List<Consultation> consultations = new ArrayList<>();
+        LocalDateTime date = LocalDateTime.of(2031, 1, 1, 8, 0);
+        for (int i = 1; i <= 300; i++) {
+            Consultation c = new Consultation(i, date.plusMinutes(30L * i), motifs[i % motifs.length], pro, patient);
+            c.setObservations(i % 3 == 0 ? motifs[(i / 3) % motifs.length] : null);
+            consultations.add(c);
+        }
+        dataService.savePatients(List.of(patient));
+        dataService.saveProfessionnels(List.of(pro));
+        dataService.saveConsultations(consultations);
+
+        ConsultationService consultationService = new ConsultationService();
+        ChargementParallele.Bilan bilan = charger(new PatientService(), consultationService);
+
+        assertEquals(1, bilan.patients());
+        assertEquals(1, bilan.professionnels());
+        assertEquals(300, bilan.consultations());
+        List<Consultation> chargees = consultationService.getConsultations();
+        for (int i = 0; i < 300; i++) {
+            Consultation attendue = consultations.get(i);
+            Consultation c = chargees.get(i);
+            assertEquals(attendue.getIdConsultation(), c.getIdConsultation());
+            assertEquals(attendue.getDateHeure(), c.getDateHeure());
+            assertEquals(attendue.getMotif(), c.getMotif());
+            // saveConsultations remplace ';' par ',' dans les observations
+            String observations = attendue.getObservations();
+            assertEquals(observations != null ? observations.replace(";", ",") : null, c.getObservations());
+        }
+    }
+
+    @Test
+    void relitEnFluxQuandLaLectureProjeteeRejetteUneLigne() throws IOException {
+        dataService.savePatients(List.of(new Patient(1, "Dupont", "Jean")));
+        dataService.saveProfessionnels(List.of(new ProfessionnelSante("drmartin", "mdp", "PRO", "1234", "Martin",
+                "Paul", "Généraliste", "ORD1")));
+        // "+1" est un entier pour Integer.parseInt mais pas pour le décodage sur octets
+        Files.writeString(Paths.get("consultations.csv"),
+                "idConsultation;dateHeure;motif;professionnelLogin;patientId;dureeMinutes;statut;observations;diagnostic\n"
+                + "1;2031-01-02T08:00;\"a;b\";drmartin;1;30;programmée;;\n"
+                + "2;2031-01-02T09:00;Contrôle;drmartin;+1;30;programmée;;\n",
+                StandardCharsets.UTF_8);
+
+        ConsultationService consultationService = new ConsultationService();
+        ChargementParallele.Bilan bilan = charger(new PatientService(), consultationService);
+
+        assertEquals(2, bilan.consultations());
+        assertEquals("a;b", consultationService.getConsultations().get(0).getMotif());
+        assertEquals(2, consultationService.getConsultations().get(1).getIdConsultation());
+    }
+}
@@ -0,0 +1,180 @@
+package com.medipass.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.Patient;
+import com.medipass.service.ConsultationService.DemandeConsultation;
+import com.medipass.service.ConsultationService.ResultatDemande;
+import com.medipass.user.ProfessionnelSante;
+
+class ConsultationServiceTest {
+    private static final LocalDateTime LUNDI = LocalDateTime.of(2031, 3, 17, 9, 0);
+
+    private final ConsultationService service = new ConsultationService();
+    private final ProfessionnelSante martin = new ProfessionnelSante("drmartin", "mdp", "PRO", "1234", "Martin",
+            "Paul", "Généraliste", "ORD1");
+    private final ProfessionnelSante petit = new ProfessionnelSante("drpetit", "mdp", "PRO", "1234", "Petit",
+            "Anne", "Cardiologue", "ORD2");
+    private final Patient dupont = new Patient(1, "Dupont", "Jean");
+    private final Patient durand = new Patient(2, "Durand", "Paul");
+
+    private static DemandeConsultation demande(ProfessionnelSante pro, Patient patient, int minutes, int duree) {
+        return new DemandeConsultation(LUNDI.plusMinutes(minutes), "Vaccination", pro, patient, duree);
+    }
+
+    @Test
+    void leLotRetientLaDemandeLaPlusTotEntreDeuxQuiSeChevauchent() {
+        List<ResultatDemande> resultats = service.programmerLot(List.of(
+                demande(martin, durand, 20, 30),
+                demande(martin, dupont, 0, 30),
+                // Même début que la précédente : la première de la liste l'emporte
+                demande(martin, durand, 0, 15),
+                demande(petit, dupont, 15, 30),
+                demande(petit, durand, 30, 30)));
+
+        assertFalse(resultats.get(0).estAcceptee());
+        assertEquals("Le professionnel n'est pas disponible à cette heure", resultats.get(0).refus());
+        assertTrue(resultats.get(1).estAcceptee());
+        assertFalse(resultats.get(2).estAcceptee());
+        assertEquals("Le patient a déjà une consultation à cette heure", resultats.get(3).refus());
+        assertTrue(resultats.get(4).estAcceptee());
+        assertEquals(2, service.getNombreConsultations());
+        assertEquals(List.of(resultats.get(1).consultation()), martin.getConsultationsEntre(LUNDI, LUNDI.plusHours(2)));
+    }
+
+    @Test
+    void leLotRefuseUnCreneauDejaPrisHorsDuLot() {
+        assertNotNull(service.programmer(LUNDI, "Contrôle", martin, dupont, 60));
+
+        List<ResultatDemande> resultats = service.programmerLot(List.of(
+                demande(martin, durand, 45, 30),
+                demande(martin, durand, 60, 30)));
+
+        assertFalse(resultats.get(0).estAcceptee());
+        assertTrue(resultats.get(1).estAcceptee());
+        assertEquals(2, service.getNombreConsultations());
+    }
+
+    @Test
+    void uneDureeNulleVautLaDureeParDefautEtUneDureeNegativeEstRefusee() {
+        List<ResultatDemande> resultats = service.programmerLot(List.of(
+                demande(martin, dupont, 0, 0),
+                // Commencerait pendant la première si elle durait bien 30 minutes
+                demande(martin, durand, Consultation.DUREE_DEFAUT - 1, 10),
+                demande(petit, durand, 0, -15)));
+
+        assertTrue(resultats.get(0).estAcceptee());
+        assertEquals(Consultation.DUREE_DEFAUT, resultats.get(0).consultation().getDureeMinutes());
+        assertFalse(resultats.get(1).estAcceptee());
+        assertEquals("Durée invalide", resultats.get(2).refus());
+        // Même règle qu'une programmation unitaire
+        Consultation unitaire = service.programmer(LUNDI.plusDays(1), "Contrôle", martin, dupont, 0);
+        assertEquals(Consultation.DUREE_DEFAUT, unitaire.getDureeMinutes());
+    }
+
+    @Test
+    void leLotRefuseLesDemandesInvalidesUneAUne() {
+        List<DemandeConsultation> demandes = new ArrayList<>();
+        demandes.add(null);
+        demandes.add(new DemandeConsultation(LocalDateTime.of(2020, 1, 1, 9, 0), "Contrôle", martin, dupont, 30));
+        demandes.add(demande(martin, dupont, 0, 30));
+
+        List<ResultatDemande> resultats = service.programmerLot(demandes);
+
+        assertEquals(3, resultats.size());
+        assertEquals("Paramètres invalides", resultats.get(0).refus());
+        assertNotNull(resultats.get(1).refus());
+        assertNull(resultats.get(2).refus());
+        assertTrue(resultats.get(2).estAcceptee());
+    }
+
+    @Test
+    void lesEcouteursRecoiventLeLotEnUneFois() {
+        List<String> evenements = new ArrayList<>();
+        service.ajouterEcouteur(new EcouteurDonnees() {
+            @Override
+            public void debutLot() {
+                evenements.add("debut");
+            }
+
+            @Override
+            public void consultationAjoutee(Consultation c) {
+                evenements.add("ajout " + c.getIdConsultation());
+            }
+
+            @Override
+            public void finLot() {
+                evenements.add("fin");
+            }
+        });
+
+        List<ResultatDemande> resultats = service.programmerLot(List.of(
+                demande(martin, dupont, 0, 30), demande(martin, durand, 30, 30)));
+
+        assertEquals(List.of("debut", "ajout " + resultats.get(0).consultation().getIdConsultation(),
+                "ajout " + resultats.get(1).consultation().getIdConsultation(), "fin"), evenements);
+    }
+
+    /**
+     * Des lots concurrents se disputent les mêmes créneaux : chaque créneau
+     * est accordé une seule fois, au lot ou à la programmation unitaire
+     */
+    @Test
+    void desLotsConcurrentsNeReserventJamaisDeuxFoisLeMemeCreneau() throws InterruptedException {
+        int sessions = 8;
+        int creneaux = 200;
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            patients.add(new Patient(10 + i, "Patient" + i, "Prenom" + i));
+        }
+        AtomicInteger acceptees = new AtomicInteger();
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int s = 0; s < sessions; s++) {
+            Patient patient = patients.get(s);
+            boolean unitaire = s % 2 == 0;
+            threads.add(Thread.ofPlatform().start(() -> {
+                List<DemandeConsultation> lot = new ArrayList<>();
+                for (int i = 0; i < creneaux; i++) {
+                    lot.add(demande(martin, patient, 30 * i, 30));
+                }
+                try {
+                    depart.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (unitaire) {
+                    for (DemandeConsultation d : lot) {
+                        if (service.programmer(d.dateHeure(), d.motif(), martin, patient, 30) != null) {
+                            acceptees.incrementAndGet();
+                        }
+                    }
+                } else {
+                    acceptees.addAndGet((int) service.programmerLot(lot).stream()
+                            .filter(ResultatDemande::estAcceptee).count());
+                }
+            }));
+        }
+        depart.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(creneaux, acceptees.get());
+        assertEquals(creneaux, service.getNombreConsultations());
+        assertEquals(creneaux, martin.getConsultationsEntre(LUNDI, LUNDI.plusMinutes(30L * creneaux)).size());
+    }
+}
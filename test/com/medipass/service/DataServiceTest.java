@@ -0,0 +1,166 @@
+package com.medipass.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.Patient;
+import com.medipass.security.HachageMotDePasse;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Aller-retour des CSV : ce qu'écrit DataService (Tablesaw) doit se relire à l'identique
+ * par la lecture en flux. Les fichiers sont écrits dans le répertoire courant des tests.
+ */
+class DataServiceTest {
+    private static final String[] FICHIERS = {"patients.csv", "pros.csv", "consultations.csv"};
+
+    private final DataService dataService = new DataService();
+
+    @TempDir
+    Path dossier;
+
+    @BeforeEach
+    @AfterEach
+    void nettoyer() throws IOException {
+        for (String f : FICHIERS) {
+            for (String suffixe : new String[] {"", ".prev", ".tmp"}) {
+                Files.deleteIfExists(Paths.get(f + suffixe));
+            }
+        }
+    }
+
+    @Test
+    void decoupeLesChampsEntreGuillemets() {
+        assertArrayEquals(new String[] {"1", "a", "", "b"}, DataService.decouperCsv("1;a;;b"));
+        assertArrayEquals(new String[] {"1", "Douleur; fièvre \"forte\"", "x"},
+                DataService.decouperCsv("1;\"Douleur; fièvre \"\"forte\"\"\";x"));
+        assertArrayEquals(new String[] {"\"debut", "", "fin\""}, DataService.decouperCsv("\"\"\"debut\";;fin\""));
+        assertArrayEquals(new String[] {"", ""}, DataService.decouperCsv("\"\";"));
+        // Guillemets encore ouverts : l'enregistrement continue sur la ligne suivante
+        assertNull(DataService.decouperCsv("1;\"début de texte"));
+        assertArrayEquals(new String[] {"1", "début de texte\nsuite", "2"},
+                DataService.decouperCsv("1;\"début de texte\nsuite\";2"));
+    }
+
+    @Test
+    void relitUneConsultationAuMotifAvecSeparateurEtGuillemets() {
+        Patient patient = new Patient(1, "Dupont", "Jean");
+        ProfessionnelSante pro = new ProfessionnelSante("drmartin", "mdp", "PRO", "1234", "Martin", "Paul",
+                "Généraliste", "ORD1");
+        LocalDateTime date = LocalDateTime.of(2031, 3, 14, 9, 30);
+        Consultation c = new Consultation(41, date, "Douleur; fièvre \"forte\"", pro, patient);
+        c.setDureeMinutes(45);
+        c.setObservations("Première ligne\nseconde ligne \"citée\"");
+        c.setDiagnostic("Grippe");
+        Consultation simple = new Consultation(42, date.plusHours(1), "Contrôle", pro, patient);
+
+        dataService.saveConsultations(List.of(c, simple));
+        List<Consultation> relues = new ArrayList<>();
+        int transmises = dataService.streamConsultations(id -> id == 1 ? new Patient(1, "Dupont", "Jean") : null,
+                Map.of("drmartin", pro)::get, relues::add);
+
+        assertEquals(2, transmises);
+        Consultation relue = relues.get(0);
+        assertEquals(41, relue.getIdConsultation());
+        assertEquals(date, relue.getDateHeure());
+        assertEquals("Douleur; fièvre \"forte\"", relue.getMotif());
+        assertEquals(45, relue.getDureeMinutes());
+        assertEquals("Première ligne\nseconde ligne \"citée\"", relue.getObservations());
+        assertEquals("Grippe", relue.getDiagnostic());
+        assertEquals(42, relues.get(1).getIdConsultation());
+        assertEquals("Contrôle", relues.get(1).getMotif());
+    }
+
+    @Test
+    void relitLesPatientsEtLesProfessionnels() {
+        Patient patient = new Patient(3, "D'Artagnan; \"dit\" Charles", "Jean-Éric");
+        patient.setNumeroSecuriteSociale("1 85 05 78 006 084 36");
+        patient.setGroupeSanguin("AB+");
+        ProfessionnelSante pro = new ProfessionnelSante("drmartin", "mdp;\"secret\"", "PRO", "1234", "Martin", "Paul",
+                "Généraliste", "ORD1");
+        pro.setHorairesDisponibilite("9h-12h; 14h-18h");
+
+        dataService.savePatients(List.of(patient));
+        dataService.saveProfessionnels(List.of(pro));
+        List<Patient> patients = dataService.loadPatients();
+        List<ProfessionnelSante> pros = dataService.loadProfessionnels();
+
+        assertEquals(1, patients.size());
+        assertEquals(3, patients.get(0).getId());
+        assertEquals("D'Artagnan; \"dit\" Charles", patients.get(0).getNom());
+        assertEquals("Jean-Éric", patients.get(0).getPrenom());
+        assertEquals("1 85 05 78 006 084 36", patients.get(0).getNumeroSecuriteSociale());
+        assertEquals("AB+", patients.get(0).getGroupeSanguin());
+        assertEquals(1, pros.size());
+        assertEquals("drmartin", pros.get(0).getLoginID());
+        assertEquals(pro.getPassword(), pros.get(0).getPassword());
+        assertEquals("9h-12h; 14h-18h", pros.get(0).getHorairesDisponibilite());
+    }
+
+    @Test
+    void hacheLesMotsDePasseImportesEnClair() throws Exception {
+        String empreinte = HachageMotDePasse.hacher("deja", 1_000);
+        Path fichier = dossier.resolve("pros-import.csv");
+        Files.writeString(fichier, "login;password;nom;prenom;specialite;numeroOrdre\n"
+                + "drpetit;secret;Petit;Anne;Cardiologue;ORD2\n"
+                + "drlegrand;" + empreinte + ";Legrand;Marc;Pédiatre;ORD3\n", StandardCharsets.UTF_8);
+        AdministrateurService adminService = new AdministrateurService();
+        List<ProfessionnelSante> pros = new ArrayList<>();
+
+        assertEquals(2, dataService.importProfessionnels(fichier.toString(), pros,
+                adminService::findUtilisateur, adminService::creerCompte));
+
+        String importe = pros.get(0).getPassword();
+        assertTrue(HachageMotDePasse.estHache(importe));
+        assertTrue(HachageMotDePasse.verifier("secret", importe));
+        // Une empreinte fournie par le fichier est gardée telle quelle
+        assertEquals(empreinte, pros.get(1).getPassword());
+        String sauvegarde = Files.readString(Paths.get("pros.csv"), StandardCharsets.UTF_8);
+        assertFalse(sauvegarde.contains(";secret;"), sauvegarde);
+        assertEquals(importe, dataService.loadProfessionnels().get(0).getPassword());
+    }
+
+    /**
+     * L'annuaire compare les logins sans la casse : un login déjà pris sous une autre casse,
+     * ou répété dans le fichier, n'entre ni dans l'annuaire ni dans pros.csv
+     */
+    @Test
+    void ignoreUnLoginDejaPrisSousUneAutreCasse() throws Exception {
+        AdministrateurService adminService = new AdministrateurService();
+        adminService.creerCompte(new ProfessionnelSante("drmartin", HachageMotDePasse.hacher("mdp", 1_000), "PRO",
+                "1234", "Martin", "Paul", "Généraliste", "ORD1"));
+        Path fichier = dossier.resolve("pros-import.csv");
+        Files.writeString(fichier, "login;password;nom;prenom;specialite;numeroOrdre\n"
+                + "DrMartin;autre;Martin;Pierre;Pédiatre;ORD9\n"
+                + "drpetit;secret;Petit;Anne;Cardiologue;ORD2\n"
+                + "DRPETIT;secret;Petit;Anne;Cardiologue;ORD2\n", StandardCharsets.UTF_8);
+        CSVDataImportService importService = new CSVDataImportService(dataService, new PatientService(),
+                adminService, new ConsultationService());
+
+        importService.importProfessionnelsData(fichier.toString());
+
+        assertEquals(2, adminService.getNombreProfessionnels());
+        assertEquals("Paul", adminService.findProfessionnel("DRMARTIN").getPrenom());
+        List<String> logins = dataService.loadProfessionnels().stream().map(ProfessionnelSante::getLoginID).toList();
+        assertEquals(List.of("drmartin", "drpetit"), logins);
+    }
+}
@@ -0,0 +1,197 @@
+package com.medipass.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.Patient;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Journal des mutations : ce qui est journalisé se rejoue à l'identique sur un état vide.
+ * Les fichiers sont écrits dans le répertoire courant des tests.
+ */
+class JournalServiceTest {
+    private static final String[] FICHIERS = {"patients.csv", "pros.csv", "consultations.csv", "medipass.snap"};
+
+    private final DataService dataService = new DataService();
+
+    @BeforeEach
+    @AfterEach
+    void nettoyer() throws IOException {
+        for (String f : FICHIERS) {
+            for (String suffixe : new String[] {"", ".prev", ".tmp"}) {
+                Files.deleteIfExists(Paths.get(f + suffixe));
+            }
+        }
+        File[] journaux = new File(".").listFiles((dir, nom) -> nom.startsWith("journal.log"));
+        if (journaux != null) {
+            for (File f : journaux) {
+                Files.delete(f.toPath());
+            }
+        }
+    }
+
+    // Services vides, avec le même professionnel inscrit
+    private record Etat(PatientService patients, AdministrateurService admin, ConsultationService consultations,
+                        JournalService journal) {
+        Etat(DataService dataService) {
+            this(new PatientService(), new AdministrateurService(), new ConsultationService(), dataService);
+        }
+
+        Etat(PatientService patients, AdministrateurService admin, ConsultationService consultations,
+             DataService dataService) {
+            this(patients, admin, consultations, new JournalService(dataService, patients, admin, consultations));
+            admin.creerCompte(new ProfessionnelSante("drmartin", "mdp", "PRO", "1234", "Martin", "Paul",
+                    "Généraliste", "ORD1"));
+        }
+
+        void ecouter() {
+            journal.demarrer();
+            patients.ajouterEcouteur(journal);
+            consultations.ajouterEcouteur(journal);
+        }
+    }
+
+    @Test
+    void rejoueLesMutationsJournalisees() {
+        Etat avant = new Etat(dataService);
+        avant.ecouter();
+        Patient dupont = new Patient(1, "Dupont", "Jean");
+        avant.patients().creerPatient(dupont);
+        avant.patients().creerPatient(new Patient(2, "Martin", "Anne"));
+        avant.patients().creerPatient(new Patient(3, "Durand", "Paul"));
+        avant.patients().modifierPatient(1, "Dupont; dit \"Jeannot\"", null, "1 85 05 78 006 084 36", "AB+");
+        avant.patients().supprimerPatient(3);
+        ProfessionnelSante pro = avant.admin().findProfessionnel("drmartin");
+        Consultation c = avant.consultations().programmer(LocalDateTime.of(2031, 3, 14, 9, 30),
+                "Douleur; fièvre", pro, dupont, 45);
+        assertNotNull(c);
+        avant.consultations().ajouterObservations(c.getIdConsultation(), "ligne 1\nligne 2 \\ fin");
+        avant.consultations().ajouterDiagnostic(c.getIdConsultation(), null);
+        avant.consultations().marquerEffectuee(c.getIdConsultation());
+        avant.journal().fermer();
+
+        Etat apres = new Etat(dataService);
+        assertEquals(9, apres.journal().rejouer());
+
+        Patient relu = apres.patients().findPatientById(1);
+        assertEquals("Dupont; dit \"Jeannot\"", relu.getNom());
+        assertEquals("Jean", relu.getPrenom());
+        assertEquals("1 85 05 78 006 084 36", relu.getNumeroSecuriteSociale());
+        assertEquals("AB+", relu.getGroupeSanguin());
+        assertNotNull(apres.patients().findPatientById(2));
+        assertNull(apres.patients().findPatientById(3));
+        Consultation relue = apres.consultations().findConsultationById(c.getIdConsultation());
+        assertEquals(c.getDateHeure(), relue.getDateHeure());
+        assertEquals("Douleur; fièvre", relue.getMotif());
+        assertEquals(45, relue.getDureeMinutes());
+        assertEquals("ligne 1\nligne 2 \\ fin", relue.getObservations());
+        assertNull(relue.getDiagnostic());
+        assertEquals(c.getStatut(), relue.getStatut());
+        assertSame(relu, relue.getPatient());
+        apres.journal().fermer();
+    }
+
+    /**
+     * Un écouteur lent (écriture forcée sur disque du journal) ne doit pas bloquer les lectures :
+     * il est prévenu une fois le verrou d'écriture relâché.
+     */
+    @Test
+    void unEcouteurLentNeBloquePasLesLectures() throws Exception {
+        PatientService service = new PatientService();
+        service.creerPatient(new Patient(1, "Dupont", "Jean"));
+        CountDownLatch notifie = new CountDownLatch(1);
+        CountDownLatch liberer = new CountDownLatch(1);
+        service.ajouterEcouteur(new EcouteurDonnees() {
+            @Override
+            public void patientCree(Patient patient) {
+                notifie.countDown();
+                try {
+                    liberer.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> creation = threads.submit(() -> service.creerPatient(new Patient(2, "Martin", "Anne")));
+            assertTrue(notifie.await(5, TimeUnit.SECONDS));
+
+            Future<Integer> lecture = threads.submit(() -> service.getPatients().size());
+            assertEquals(2, lecture.get(5, TimeUnit.SECONDS));
+            assertNotNull(service.findPatientById(1));
+            liberer.countDown();
+            assertTrue(creation.get(5, TimeUnit.SECONDS));
+        } finally {
+            liberer.countDown();
+            threads.shutdownNow();
+        }
+    }
+
+    /**
+     * Des sessions créent et modifient des patients pendant que le journal compacte en boucle :
+     * la compaction lit les services, les services attendent le journal pour y écrire.
+     * Tout doit se terminer, et le rejeu des archives restantes redonne le même registre.
+     */
+    @Test
+    void lesMutationsEtLaCompactionNeSInterbloquentPas() throws Exception {
+        Etat etat = new Etat(dataService);
+        etat.ecouter();
+        List<Thread> sessions = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            int premierId = 1 + t * 1_000;
+            sessions.add(new Thread(() -> {
+                for (int id = premierId; id < premierId + 1_000; id++) {
+                    etat.patients().creerPatient(new Patient(id, "Nom" + id, "Prenom" + id));
+                    etat.patients().modifierPatient(id, null, null, null, "O+");
+                }
+            }));
+        }
+        sessions.forEach(Thread::start);
+        Thread compactions = new Thread(() -> {
+            while (sessions.stream().anyMatch(Thread::isAlive)) {
+                etat.journal().compacter();
+            }
+        });
+        compactions.start();
+
+        for (Thread t : sessions) {
+            t.join(30_000);
+        }
+        compactions.join(30_000);
+        long[] interbloques = ManagementFactory.getThreadMXBean().findDeadlockedThreads();
+        assertNull(interbloques, "threads interbloqués");
+        assertTrue(sessions.stream().noneMatch(Thread::isAlive) && !compactions.isAlive());
+        etat.journal().fermer();
+
+        Etat relu = new Etat(dataService);
+        dataService.streamPatients(relu.patients()::creerPatient);
+        relu.journal().rejouer();
+        assertEquals(3_000, relu.patients().getNombrePatients());
+        assertEquals(3_000, relu.patients().findPatientsByGroupeSanguin("O+").size());
+        relu.journal().fermer();
+    }
+}
@@ -0,0 +1,169 @@
+package com.medipass.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.Patient;
+import com.medipass.user.ProfessionnelSante;
+
+class LecteurConsultationsMappeTest {
+    private static final String ENTETE =
+            "idConsultation;dateHeure;motif;professionnelLogin;patientId;dureeMinutes;statut;observations;diagnostic";
+
+    @TempDir
+    Path dossier;
+
+    @BeforeEach
+    @AfterEach
+    void nettoyer() throws IOException {
+        for (String suffixe : new String[] {"", ".prev", ".tmp"}) {
+            Files.deleteIfExists(Paths.get("consultations.csv" + suffixe));
+        }
+    }
+
+    private List<LecteurConsultationsMappe.LigneConsultation> lire(String contenu) throws IOException {
+        Path fichier = dossier.resolve("consultations.csv");
+        Files.writeString(fichier, contenu, StandardCharsets.UTF_8);
+        List<LecteurConsultationsMappe.LigneConsultation> lignes = new ArrayList<>();
+        new LecteurConsultationsMappe(fichier).parcourir(lignes::add);
+        return lignes;
+    }
+
+    @Test
+    void decodeLesChampsEntreGuillemets() throws IOException {
+        List<LecteurConsultationsMappe.LigneConsultation> lignes = lire(ENTETE + "\n"
+                + "7;2031-03-14T09:30;\"Douleur; fièvre \"\"forte\"\"\";drmartin;12;45;programmée;\"deux\nlignes\";\"\"\n"
+                + "8;2031-03-14T10:30;Contrôle;drmartin;\"13\";;effectuée;fin\";ok\n");
+
+        assertEquals(2, lignes.size());
+        LecteurConsultationsMappe.LigneConsultation l = lignes.get(0);
+        assertEquals(7, l.idConsultation());
+        assertEquals(LocalDateTime.of(2031, 3, 14, 9, 30), l.dateHeure());
+        assertEquals("Douleur; fièvre \"forte\"", l.motif());
+        assertEquals("drmartin", l.professionnelLogin());
+        assertEquals(12, l.patientId());
+        assertEquals(45, l.dureeMinutes());
+        assertEquals("programmée", l.statut());
+        assertEquals("deux\nlignes", l.observations());
+        assertNull(l.diagnostic());
+        l = lignes.get(1);
+        assertEquals(13, l.patientId());
+        assertEquals(0, l.dureeMinutes());
+        // Un guillemet au milieu d'un champ non cité est du texte
+        assertEquals("fin\"", l.observations());
+        assertEquals("ok", l.diagnostic());
+    }
+
+    @Test
+    void accepteLesFinsDeLigneWindowsEtLesLignesDeCommentaire() throws IOException {
+        List<LecteurConsultationsMappe.LigneConsultation> lignes = lire(ENTETE + "\r\n"
+                + "1;2031-01-02T08:00;\"a;b\";drmartin;1;30;annulée;;\"x\"\r\n"
+                + "\r\n"
+                + "#medipass-snapshot;crc32=00000000;octets=0\n");
+
+        assertEquals(1, lignes.size());
+        assertEquals("a;b", lignes.get(0).motif());
+        assertEquals("annulée", lignes.get(0).statut());
+        assertNull(lignes.get(0).observations());
+        assertEquals("x", lignes.get(0).diagnostic());
+    }
+
+    /**
+     * Fichier écrit par DataService (Tablesaw) avec des textes libres piégés : la lecture projetée,
+     * séquentielle ou en segments, rend exactement ce que rend la lecture en flux.
+     */
+    @Test
+    void rendLesMemesConsultationsQueLaLectureEnFluxQuelQueSoitLeDecoupage() throws IOException {
+        String[] textes = {"Contrôle", "Douleur; fièvre \"forte\"", "\"entre guillemets\"", "ligne 1\nligne 2",
+                "a;\n;b", "fin\"", "x\"\"y", "12;2031-01-01T00:00;faux début"};
+        Random alea = new Random(7);
+        Patient patient = new Patient(1, "Dupont", "Jean");
+        ProfessionnelSante pro = new ProfessionnelSante("drmartin", "mdp", "PRO", "1234", "Martin", "Paul",
+                "Généraliste", "ORD1");
+        List<Consultation> consultations = new ArrayList<>();
+        LocalDateTime date = LocalDateTime.of(2031, 1, 1, 8, 0);
+        for (int i = 1; i <= 400; i++) {
+            Consultation c = new Consultation(i, date.plusMinutes(30L * i), textes[alea.nextInt(textes.length)],
+                    pro, patient);
+            c.setObservations(alea.nextBoolean() ? textes[alea.nextInt(textes.length)] : null);
+            c.setDiagnostic(alea.nextBoolean() ? textes[alea.nextInt(textes.length)] : null);
+            consultations.add(c);
+        }
+        DataService dataService = new DataService();
+        dataService.saveConsultations(consultations);
+
+        List<Consultation> attendues = new ArrayList<>();
+        dataService.streamConsultations(id -> patient, Map.of("drmartin", pro)::get, attendues::add);
+        assertEquals(400, attendues.size());
+
+        LecteurConsultationsMappe lecteur = dataService.ouvrirLecteurConsultations();
+        for (int nombre : new int[] {1, 2, 3, 7, 16, 64, 1000}) {
+            List<LecteurConsultationsMappe.LigneConsultation> lignes = new ArrayList<>();
+            for (long[] segment : lecteur.segments(nombre)) {
+                lecteur.parcourir(segment[0], segment[1], lignes::add);
+            }
+            assertEquals(attendues.size(), lignes.size(), "segments : " + nombre);
+            for (int i = 0; i < lignes.size(); i++) {
+                Consultation c = attendues.get(i);
+                LecteurConsultationsMappe.LigneConsultation l = lignes.get(i);
+                assertEquals(c.getIdConsultation(), l.idConsultation());
+                assertEquals(c.getDateHeure(), l.dateHeure());
+                assertEquals(c.getMotif(), l.motif());
+                assertEquals(c.getObservations(), l.observations());
+                assertEquals(c.getDiagnostic(), l.diagnostic());
+                assertEquals(c.getStatut(), l.statut());
+            }
+        }
+    }
+
+    /**
+     * Texte cité qui imite un enregistrement complet juste après un saut de ligne : la coupe
+     * cherchée sur place y tombe. Le segment précédent finit alors sur des guillemets non
+     * fermés et sa ligne est rejetée, ce qui déclenche la relecture en flux du chargement.
+     */
+    @Test
+    void uneCoupeDansUnChampCiteFaitRejeterLaLigneCoupee() throws IOException {
+        StringBuilder contenu = new StringBuilder(ENTETE).append("\n");
+        contenu.append("1;2031-01-02T08:00;Contrôle;drmartin;1;30;programmée;\"")
+               .append("a".repeat(2_000))
+               .append("\n99;2031-01-01T00:00;x;drmartin;1;30;programmée;o\";RAS\n");
+        for (int i = 2; i <= 20; i++) {
+            contenu.append(i).append(";2031-01-02T09:00;Contrôle;drmartin;").append(i).append(";30;programmée;;\n");
+        }
+        Path fichier = dossier.resolve("consultations.csv");
+        Files.writeString(fichier, contenu, StandardCharsets.UTF_8);
+        LecteurConsultationsMappe lecteur = new LecteurConsultationsMappe(fichier);
+
+        List<LecteurConsultationsMappe.LigneConsultation> lignes = new ArrayList<>();
+        for (long[] segment : lecteur.segments(2)) {
+            lecteur.parcourir(segment[0], segment[1], lignes::add);
+        }
+        assertTrue(lecteur.getLignesRejetees() > 0);
+
+        // Lu d'un seul tenant, le même fichier se lit sans rejet
+        List<LecteurConsultationsMappe.LigneConsultation> sequentielles = new ArrayList<>();
+        LecteurConsultationsMappe relecture = new LecteurConsultationsMappe(fichier);
+        relecture.parcourir(sequentielles::add);
+        assertEquals(20, sequentielles.size());
+        assertEquals(0, relecture.getLignesRejetees());
+        assertEquals("RAS", sequentielles.get(0).diagnostic());
+    }
+}
@@ -0,0 +1,99 @@
+package com.medipass.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.medipass.model.Patient;
+
+class PatientServiceTest {
+
+    @Test
+    void retrouveUnPatientParSonId() {
+        PatientService service = new PatientService();
+        Patient dupont = new Patient(7, "Dupont", "Jean");
+        assertTrue(service.creerPatient(dupont));
+        assertTrue(service.creerPatient(new Patient(3, "Martin", "Anne")));
+
+        assertSame(dupont, service.findPatientById(7));
+        assertNull(service.findPatientById(4));
+        assertEquals(2, service.getNombrePatients());
+    }
+
+    @Test
+    void refuseUnIdDejaPris() {
+        PatientService service = new PatientService();
+        Patient premier = new Patient(1, "Dupont", "Jean");
+        service.creerPatient(premier);
+
+        assertFalse(service.creerPatient(new Patient(1, "Durand", "Paul")));
+        assertFalse(service.creerPatient(null));
+        assertSame(premier, service.findPatientById(1));
+        assertEquals(1, service.getNombrePatients());
+    }
+
+    @Test
+    void supprimeUnPatientParSonId() {
+        PatientService service = new PatientService();
+        service.creerPatient(new Patient(1, "Dupont", "Jean"));
+        service.creerPatient(new Patient(2, "Martin", "Anne"));
+
+        assertTrue(service.supprimerPatient(1));
+        assertFalse(service.supprimerPatient(1));
+        assertNull(service.findPatientById(1));
+        assertEquals(1, service.getNombrePatients());
+        // L'ID libéré peut resservir
+        assertTrue(service.creerPatient(new Patient(1, "Durand", "Paul")));
+    }
+
+    @Test
+    void listeLesPatientsDansLOrdreDeCreation() {
+        PatientService service = new PatientService();
+        for (int id : new int[] {5, 2, 9, 1}) {
+            service.creerPatient(new Patient(id, "Nom" + id, "Prenom" + id));
+        }
+        service.supprimerPatient(9);
+
+        List<Integer> ids = service.getPatients().stream().map(Patient::getId).toList();
+        assertEquals(List.of(5, 2, 1), ids);
+    }
+
+    @Test
+    void retrouveLAutrePatientDeMemeNssApresLaSuppressionDuPremier() {
+        PatientService service = new PatientService();
+        Patient premier = new Patient(1, "Dupont", "Jean");
+        premier.setNumeroSecuriteSociale("1 85 05 78 006 084 36");
+        Patient doublon = new Patient(2, "Dupond", "Jean");
+        doublon.setNumeroSecuriteSociale("185057800608436");
+        service.creerPatient(premier);
+        service.creerPatient(doublon);
+
+        assertSame(premier, service.findPatientByNumeroSecuriteSociale("185057800608436"));
+        service.supprimerPatient(1);
+        assertSame(doublon, service.findPatientByNumeroSecuriteSociale("1 85 05 78 006 084 36"));
+        service.modifierPatient(2, null, null, "2 90 01 75 123 456 78", null);
+        assertNull(service.findPatientByNumeroSecuriteSociale("185057800608436"));
+        assertSame(doublon, service.findPatientByNumeroSecuriteSociale("290017512345678"));
+    }
+
+    @Test
+    void rechercheParPrefixeSansAccentsNiCasse() {
+        PatientService service = new PatientService();
+        Patient helene = new Patient(1, "Lefèvre", "Hélène");
+        service.creerPatient(helene);
+        service.creerPatient(new Patient(2, "Lefort", "Jean"));
+        service.creerPatient(new Patient(3, "Martin", "Lea"));
+
+        assertEquals(List.of(helene), service.rechercherPatients("lefev", 10));
+        assertEquals(List.of(helene), service.rechercherPatients("HELENE LEF", 10));
+        assertEquals(2, service.rechercherPatients("lef", 10).size());
+        assertEquals(1, service.rechercherPatients("le", 1).size());
+        assertSame(helene, service.findPatientByNomPrenom("LEFEVRE", "helene"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.medipass.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotAtomiqueTest {
+
+    @TempDir
+    Path dossier;
+
+    private Path ecrire(String nom, String contenu) throws Exception {
+        Path cible = dossier.resolve(nom);
+        SnapshotAtomique.ecrire(cible, out -> out.write(contenu.getBytes(StandardCharsets.UTF_8)));
+        return cible;
+    }
+
+    @Test
+    void encadreLeContenuParLEnteteEtLaLigneDeFin() throws Exception {
+        Path cible = ecrire("patients.csv", "id;nom\n1;Dupont\n");
+
+        String texte = Files.readString(cible, StandardCharsets.UTF_8);
+        assertTrue(texte.startsWith("#medipass-snapshot;version=2\nid;nom\n1;Dupont\n#medipass-snapshot;crc32="), texte);
+        assertEquals(cible, SnapshotAtomique.resoudreValide(cible));
+        ByteBuffer octets = ByteBuffer.wrap(Files.readAllBytes(cible));
+        assertEquals("#medipass-snapshot;version=2\n".length(), SnapshotAtomique.debutContenu(octets));
+    }
+
+    @Test
+    void ecarteUnFichierTronqueAuProfitDeLaGenerationPrecedente() throws Exception {
+        ecrire("patients.csv", "id;nom\n1;Dupont\n");
+        Path cible = ecrire("patients.csv", "id;nom\n1;Dupont\n2;Martin\n");
+        // Coupé avant la ligne de fin : l'en-tête prouve qu'elle devrait être là
+        try (FileChannel canal = FileChannel.open(cible, StandardOpenOption.WRITE)) {
+            canal.truncate("#medipass-snapshot;version=2\nid;nom\n1;Dup".length());
+        }
+
+        Path valide = SnapshotAtomique.resoudreValide(cible);
+        assertEquals(SnapshotAtomique.generationPrecedente(cible), valide);
+        assertTrue(Files.readString(valide).contains("1;Dupont\n"));
+    }
+
+    @Test
+    void ecarteUnFichierDontLaSommeNeCorrespondPas() throws Exception {
+        ecrire("pros.csv", "login\ndrmartin\n");
+        Path cible = ecrire("pros.csv", "login\ndrmartin\ndrdurand\n");
+        byte[] octets = Files.readAllBytes(cible);
+        int position = new String(octets, StandardCharsets.US_ASCII).indexOf("drdurand");
+        octets[position] = 'X';
+        Files.write(cible, octets);
+
+        assertEquals(SnapshotAtomique.generationPrecedente(cible), SnapshotAtomique.resoudreValide(cible));
+    }
+
+    @Test
+    void accepteUnFichierDeLAncienFormat() throws IOException {
+        Path cible = dossier.resolve("consultations.csv");
+        Files.writeString(cible, "idConsultation;dateHeure\n1;2031-01-02T08:00\n", StandardCharsets.UTF_8);
+
+        assertEquals(cible, SnapshotAtomique.resoudreValide(cible));
+        assertEquals(0, SnapshotAtomique.debutContenu(ByteBuffer.wrap(Files.readAllBytes(cible))));
+    }
+
+    @Test
+    void refuseUnFichierVideOuReduitALEntete() throws Exception {
+        Path vide = dossier.resolve("vide.csv");
+        Files.createFile(vide);
+        assertNull(SnapshotAtomique.resoudreValide(vide));
+
+        Path cible = ecrire("entete.csv", "id\n");
+        try (FileChannel canal = FileChannel.open(cible, StandardOpenOption.WRITE)) {
+            canal.truncate("#medipass-snapshot;version=2\n".length());
+        }
+        assertNull(SnapshotAtomique.resoudreValide(cible));
+        // Sans génération valide, resoudre rend le fichier tel quel pour en récupérer les lignes lisibles
+        assertEquals(cible, SnapshotAtomique.resoudre(cible));
+    }
+
+    @Test
+    void ecarteUneLigneDeFinAltereeSansLeverDException() throws Exception {
+        for (String fin : new String[] {"crc32=;octets=12", "crc32=zz;octets=12", "crc32=1f;octets=douze",
+                "crc32=1f", "octets=-3;crc32=1f"}) {
+            ecrire("pros.csv", "login\ndrmartin\n");
+            Path cible = ecrire("pros.csv", "login\ndrmartin\ndrdurand\n");
+            String texte = Files.readString(cible, StandardCharsets.UTF_8);
+            Files.writeString(cible, texte.substring(0, texte.lastIndexOf("crc32=")) + fin + "\n",
+                    StandardCharsets.UTF_8);
+
+            assertEquals(SnapshotAtomique.generationPrecedente(cible), SnapshotAtomique.resoudreValide(cible), fin);
+        }
+    }
+}
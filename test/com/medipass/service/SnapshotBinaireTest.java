@@ -0,0 +1,103 @@
+package com.medipass.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.medipass.model.Consultation;
+import com.medipass.model.Patient;
+import com.medipass.user.ProfessionnelSante;
+
+/**
+ * Aller-retour de medipass.snap, écrit dans le répertoire courant des tests.
+ */
+class SnapshotBinaireTest {
+
+    private final DataService dataService = new DataService();
+
+    @BeforeEach
+    @AfterEach
+    void nettoyer() throws IOException {
+        for (String suffixe : new String[] {"", ".prev", ".tmp"}) {
+            Files.deleteIfExists(Paths.get("medipass.snap" + suffixe));
+        }
+    }
+
+    @Test
+    void relitPatientsProfessionnelsEtConsultations() {
+        Patient dupont = new Patient(7, "Dupont; \"dit\" Jean", "Jean-Éric");
+        dupont.setNumeroSecuriteSociale("1 85 05 78 006 084 36");
+        dupont.setGroupeSanguin("AB+");
+        Patient martin = new Patient(9, "Martin", "Anne");
+        ProfessionnelSante pro = new ProfessionnelSante("drmartin", "mdp", "PRO", "1234", "Martin", "Paul",
+                "Généraliste", "ORD1");
+        pro.setHorairesDisponibilite("9h-12h\n14h-18h");
+        LocalDateTime date = LocalDateTime.of(2031, 3, 14, 9, 30);
+        Consultation c = new Consultation(41, date, "Douleur; fièvre", pro, dupont);
+        c.setDureeMinutes(45);
+        c.setObservations("ligne 1\nligne 2");
+        Consultation annulee = new Consultation(42, date.plusDays(1), "Contrôle", pro, martin);
+        annulee.setStatut("annulée");
+
+        assertTrue(dataService.saveSnapshotBinaire(List.of(dupont, martin), List.of(pro), List.of(c, annulee)));
+
+        List<Patient> patients = new ArrayList<>();
+        List<ProfessionnelSante> pros = new ArrayList<>();
+        List<Consultation> consultations = new ArrayList<>();
+        assertTrue(dataService.chargerSnapshotBinaire(patients::add, pros::add, consultations::add));
+
+        assertEquals(2, patients.size());
+        Patient relu = patients.get(0);
+        assertEquals(7, relu.getId());
+        assertEquals("Dupont; \"dit\" Jean", relu.getNom());
+        assertEquals("Jean-Éric", relu.getPrenom());
+        assertEquals("1 85 05 78 006 084 36", relu.getNumeroSecuriteSociale());
+        assertEquals("AB+", relu.getGroupeSanguin());
+        assertEquals(1, pros.size());
+        assertEquals("drmartin", pros.get(0).getLoginID());
+        assertEquals(pro.getPassword(), pros.get(0).getPassword());
+        assertEquals("Généraliste", pros.get(0).getSpecialite());
+        assertEquals("9h-12h\n14h-18h", pros.get(0).getHorairesDisponibilite());
+
+        assertEquals(2, consultations.size());
+        Consultation relue = consultations.get(0);
+        assertEquals(41, relue.getIdConsultation());
+        assertEquals(date, relue.getDateHeure());
+        assertEquals("Douleur; fièvre", relue.getMotif());
+        assertEquals(45, relue.getDureeMinutes());
+        assertEquals("ligne 1\nligne 2", relue.getObservations());
+        assertNull(relue.getDiagnostic());
+        assertEquals(c.getStatut(), relue.getStatut());
+        assertSame(relu, relue.getPatient());
+        assertSame(pros.get(0), relue.getProfessionnel());
+        assertEquals(annulee.getStatut(), consultations.get(1).getStatut());
+    }
+
+    @Test
+    void refuseUnInstantaneAbsentOuCorrompu() throws IOException {
+        List<Object> lus = new ArrayList<>();
+        assertFalse(dataService.chargerSnapshotBinaire(lus::add, lus::add, lus::add));
+
+        dataService.saveSnapshotBinaire(List.of(new Patient(1, "Dupont", "Jean")), List.of(), List.of());
+        byte[] octets = Files.readAllBytes(Paths.get("medipass.snap"));
+        octets[octets.length / 2] ^= 0x55;
+        Files.write(Paths.get("medipass.snap"), octets);
+
+        assertFalse(dataService.snapshotBinaireAJour());
+        assertFalse(dataService.chargerSnapshotBinaire(lus::add, lus::add, lus::add));
+        assertTrue(lus.isEmpty());
+    }
+}